@@ -0,0 +1,81 @@
+package de.uni_potsdam.hpi.asg.drivestrength.microbenchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/*
+ * Delay and energy estimation of a whole annotated netlist. Cold: every cell's estimator cache
+ * is invalidated before each invocation, as after a full resizing. Warm: nothing changed since
+ * the last estimate. The estimators are built once, since their constructors invalidate all caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EstimatorBenchmark {
+
+    @Param({"1000", "10000"})
+    public int cellCount;
+
+    private Netlist netlist;
+    private DelayEstimator delayEstimator;
+    private EnergyEstimator energyEstimator;
+
+    @State(Scope.Thread)
+    public static class ColdCaches {
+        @Setup(Level.Invocation)
+        public void invalidate(EstimatorBenchmark benchmark) {
+            for (CellInstance c : benchmark.netlist.getRootModule().getCellInstances()) {
+                c.getEstimatorCache().invalidate();
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        JmhFixtures fixtures = new JmhFixtures();
+        Netlist inlinedNetlist = fixtures.loadInlinedNetlist(fixtures.loadCellLibrary(), this.cellCount, false, 1);
+        this.netlist = JmhFixtures.copier().copy(inlinedNetlist);
+        this.delayEstimator = new DelayEstimator(this.netlist, false, false);
+        this.energyEstimator = new EnergyEstimator(this.netlist, false);
+    }
+
+    @Benchmark
+    public int delayEstimatorCold(ColdCaches caches) {
+        return this.delayEstimator.run();
+    }
+
+    @Benchmark
+    public int delayEstimatorWarm() {
+        return this.delayEstimator.run();
+    }
+
+    @Benchmark
+    public double energyEstimatorCold(ColdCaches caches) {
+        return this.energyEstimator.run();
+    }
+
+    @Benchmark
+    public double energyEstimatorWarm() {
+        return this.energyEstimator.run();
+    }
+}
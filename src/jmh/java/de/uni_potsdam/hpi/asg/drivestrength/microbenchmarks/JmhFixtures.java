@@ -0,0 +1,136 @@
+package de.uni_potsdam.hpi.asg.drivestrength.microbenchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCellLibrary;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.CellAggregator;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.SizeCapacitanceMonotonizer;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.additionalinfo.AdditionalCellInfoContainer;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.additionalinfo.AdditionalCellInfoParser;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.libertyparser.LibertyParser;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticCircuitConfig;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticLibraryWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticNetlistWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.AnnotatedNetlistCopier;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistAssignCleaner;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistBundleSplitter;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistFlattener;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistInliner;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.verilogparser.VerilogParser;
+
+/**
+ * Input files for the microbenchmarks, written to a temporary directory: the minimal Liberty
+ * file of the test resources, and a synthetic library (default SyntheticCircuitConfig
+ * footprints, with cellInfoJson) plus synthetic netlists of the given cell count for it.
+ */
+public class JmhFixtures {
+
+    public static final double outputPinCapacitance = 0.012;
+    public static final double inputDrivenMaxCIn = 0.007;
+
+    private File directory;
+
+    public JmhFixtures() {
+        try {
+            this.directory = Files.createTempDirectory("drivestrength-jmh").toFile();
+        } catch (IOException e) {
+            throw new Error("Cannot create fixture directory: " + e.getMessage());
+        }
+        this.directory.deleteOnExit();
+    }
+
+    public File getMinimalLibertyFile() {
+        File file = this.newFile("minimalLibraryInvRandomDelays.lib");
+        try (InputStream in = getClass().getResourceAsStream("/minimalLibraryInvRandomDelays.lib")) {
+            if (in == null) {
+                throw new Error("Cannot read from resource /minimalLibraryInvRandomDelays.lib");
+            }
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new Error("Cannot copy the minimal Liberty file: " + e.getMessage());
+        }
+        return file;
+    }
+
+    public File getLibertyFile() {
+        File file = this.newFile("generated.lib");
+        if (!file.exists()) {
+            new SyntheticLibraryWriter(new SyntheticCircuitConfig()).writeLiberty(file);
+        }
+        return file;
+    }
+
+    public File getCellInfoFile() {
+        File file = this.newFile("generated.json");
+        if (!file.exists()) {
+            new SyntheticLibraryWriter(new SyntheticCircuitConfig()).writeCellInfo(file);
+        }
+        return file;
+    }
+
+    /* single-stage only: INV and NAND2 cells of the same library */
+    public File getNetlistFile(int cellCount, boolean singleStageOnly, long seed) {
+        File file = this.newFile("generated_" + cellCount + (singleStageOnly ? "_single" : "") + "_" + seed + ".v");
+        if (!file.exists()) {
+            SyntheticCircuitConfig config = new SyntheticCircuitConfig();
+            config.setName("generated");
+            config.setCellCount(cellCount);
+            config.setSeed(seed);
+            if (singleStageOnly) {
+                Map<String, List<Double>> footprintSizes = new LinkedHashMap<>(config.getFootprintSizes());
+                footprintSizes.keySet().retainAll(Arrays.asList("INV", "NAND2"));
+                config.setFootprintSizes(footprintSizes);
+            }
+            new SyntheticNetlistWriter(config).write(file);
+        }
+        return file;
+    }
+
+    public List<Cell> parseLibrary() {
+        return new LibertyParser(this.getLibertyFile()).run();
+    }
+
+    public AdditionalCellInfoContainer parseCellInfo() {
+        return new AdditionalCellInfoParser(this.getCellInfoFile()).run();
+    }
+
+    /* as DrivestrengthMain loads it */
+    public AggregatedCellLibrary loadCellLibrary() {
+        AggregatedCellLibrary cellLibrary = new CellAggregator(this.parseLibrary(), this.parseCellInfo(), false).run();
+        new SizeCapacitanceMonotonizer(cellLibrary).run();
+        return cellLibrary;
+    }
+
+    public static Netlist inlineAndClean(Netlist netlist) {
+        new NetlistFlattener(netlist).run();
+        Netlist inlinedNetlist = new NetlistInliner(netlist).run();
+        new NetlistBundleSplitter(inlinedNetlist).run();
+        new NetlistAssignCleaner(inlinedNetlist).run();
+        return inlinedNetlist;
+    }
+
+    public Netlist loadInlinedNetlist(AggregatedCellLibrary cellLibrary, int cellCount, boolean singleStageOnly, long seed) {
+        File netlistFile = this.getNetlistFile(cellCount, singleStageOnly, seed);
+        return inlineAndClean(new VerilogParser(netlistFile, cellLibrary, false).createNetlist());
+    }
+
+    public static AnnotatedNetlistCopier copier() {
+        return new AnnotatedNetlistCopier(outputPinCapacitance, inputDrivenMaxCIn);
+    }
+
+    private File newFile(String name) {
+        File file = new File(this.directory, name);
+        file.deleteOnExit();
+        return file;
+    }
+}
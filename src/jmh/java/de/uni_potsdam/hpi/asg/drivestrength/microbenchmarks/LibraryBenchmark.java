@@ -0,0 +1,61 @@
+package de.uni_potsdam.hpi.asg.drivestrength.microbenchmarks;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCellLibrary;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.CellAggregator;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.additionalinfo.AdditionalCellInfoContainer;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.libertyparser.LibertyParser;
+
+/* Liberty parsing and cell aggregation */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LibraryBenchmark {
+
+    private File minimalLibertyFile;
+    private File libertyFile;
+    private List<Cell> cells;
+    private AdditionalCellInfoContainer cellInfo;
+
+    @Setup
+    public void setup() {
+        JmhFixtures fixtures = new JmhFixtures();
+        this.minimalLibertyFile = fixtures.getMinimalLibertyFile();
+        this.libertyFile = fixtures.getLibertyFile();
+        this.cells = fixtures.parseLibrary();
+        this.cellInfo = fixtures.parseCellInfo();
+    }
+
+    @Benchmark
+    public List<Cell> libertyParserMinimal() {
+        return new LibertyParser(this.minimalLibertyFile).run();
+    }
+
+    @Benchmark
+    public List<Cell> libertyParserGenerated() {
+        return new LibertyParser(this.libertyFile).run();
+    }
+
+    @Benchmark
+    public AggregatedCellLibrary cellAggregator() {
+        return new CellAggregator(this.cells, this.cellInfo, false).run();
+    }
+}
@@ -0,0 +1,75 @@
+package de.uni_potsdam.hpi.asg.drivestrength.microbenchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCellLibrary;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.LoadGraphAnnotator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.verilogparser.VerilogParser;
+
+/* Verilog parsing, inlining (with flattening, bundle splitting and assign cleaning) and load graph annotation */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetlistBenchmark {
+
+    @Param({"1000", "10000"})
+    public int cellCount;
+
+    private AggregatedCellLibrary cellLibrary;
+    private File netlistFile;
+    private Netlist inlinedNetlist;
+
+    /* inlining changes the parsed netlist, so each invocation gets a freshly parsed one */
+    @State(Scope.Thread)
+    public static class ParsedNetlist {
+        private Netlist netlist;
+
+        @Setup(Level.Invocation)
+        public void parse(NetlistBenchmark benchmark) {
+            this.netlist = new VerilogParser(benchmark.netlistFile, benchmark.cellLibrary, false).createNetlist();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        JmhFixtures fixtures = new JmhFixtures();
+        this.cellLibrary = fixtures.loadCellLibrary();
+        this.netlistFile = fixtures.getNetlistFile(this.cellCount, false, 1);
+        this.inlinedNetlist = fixtures.loadInlinedNetlist(this.cellLibrary, this.cellCount, false, 1);
+    }
+
+    @Benchmark
+    public Netlist verilogParser() {
+        return new VerilogParser(this.netlistFile, this.cellLibrary, false).createNetlist();
+    }
+
+    @Benchmark
+    public Netlist inline(ParsedNetlist parsed) {
+        return JmhFixtures.inlineAndClean(parsed.netlist);
+    }
+
+    /* the annotator replaces all loads, so it can run on the same netlist again and again */
+    @Benchmark
+    public Netlist loadGraphAnnotator() {
+        new LoadGraphAnnotator(this.inlinedNetlist, JmhFixtures.outputPinCapacitance).run();
+        return this.inlinedNetlist;
+    }
+}
@@ -0,0 +1,85 @@
+package de.uni_potsdam.hpi.asg.drivestrength.microbenchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCellLibrary;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.EqualDelayMatrixOptimizer;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.SimulatedAnnealingOptimizer;
+
+/*
+ * Optimizer throughput. SA is reported in iterations per second (one operation per iteration,
+ * calibration included); EDM as time per run on an all-single-stage netlist. Each invocation
+ * optimizes a fresh copy at default sizes.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    private static final int saCellCount = 1000;
+    private static final int saRoundsPerCell = 100;
+    private static final int edmCellCount = 200;
+
+    private Netlist saNetlist;
+    private Netlist edmNetlist;
+
+    @State(Scope.Thread)
+    public static class SaCopy {
+        private Netlist netlist;
+
+        @Setup(Level.Invocation)
+        public void copy(OptimizerBenchmark benchmark) {
+            this.netlist = JmhFixtures.copier().copy(benchmark.saNetlist);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EdmCopy {
+        private Netlist netlist;
+
+        @Setup(Level.Invocation)
+        public void copy(OptimizerBenchmark benchmark) {
+            this.netlist = JmhFixtures.copier().copy(benchmark.edmNetlist);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        JmhFixtures fixtures = new JmhFixtures();
+        AggregatedCellLibrary cellLibrary = fixtures.loadCellLibrary();
+        this.saNetlist = fixtures.loadInlinedNetlist(cellLibrary, saCellCount, false, 1);
+        this.edmNetlist = fixtures.loadInlinedNetlist(cellLibrary, edmCellCount, true, 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(saCellCount * saRoundsPerCell)
+    public Netlist simulatedAnnealing(SaCopy copy) {
+        new SimulatedAnnealingOptimizer(copy.netlist, false, saRoundsPerCell, 0).run();
+        return copy.netlist;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Netlist equalDelayMatrix(EdmCopy copy) {
+        new EqualDelayMatrixOptimizer(copy.netlist).run();
+        return copy.netlist;
+    }
+}
@@ -1,6 +1,8 @@
 package de.uni_potsdam.hpi.asg.drivestrength;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
@@ -12,6 +14,17 @@ public class DrivestrengthCommandlineOptions extends CommandlineOptions {
         return super.parseCmdLine(args, "Usage: ASGdrivestrength");
     }
 
+    /* option combinations args4j cannot check, before anything is read */
+    public void validate() {
+        for (String stageName : multilevelRefiner.split(",")) {
+            if (stageName.trim().equals("ML")) {
+                throw new Error("ML cannot refine its own result, choose another -multilevelRefiner");
+            }
+        }
+        /* throws for unparseable or out of range percentages */
+        this.getSweepEnergyPercentages();
+    }
+
     @Option(name = "-o", metaVar = "<level>", usage = "Outputlevel: 0:nothing\n1:errors\n2:+warnings\n[3:+info]")
     private int outputlevel             = 3;
 
@@ -24,6 +37,21 @@ public class DrivestrengthCommandlineOptions extends CommandlineOptions {
     @Option(name = "-runBenchmarks")
     private boolean runBenchmarks = false;
 
+    @Option(name = "-benchmarkConfig", metaVar = "<benchmarkConfigFile>", usage ="-runBenchmarks: JSON file with the benchmark matrix (netlists, output capacitances, input-driven limits, optimizers, threads)", required = false)
+    private File benchmarkConfigFile;
+
+    @Option(name = "-benchmarkOut", metaVar = "<csvFile>", usage ="-runBenchmarks: result csv; entries already in it are skipped. Default: benchmarks-output/<date>.csv", required = false)
+    private File benchmarkOutFile;
+
+    @Option(name = "-scalingBenchmark", metaVar = "<cellCounts>", usage ="Instead of optimizing a netlist, run the pipeline on synthetic circuits of the comma-separated cell counts (e.g. 1000,10000,100000) and report runtime and memory per phase", required = false)
+    private String scalingBenchmarkCellCounts;
+
+    @Option(name = "-scalingConfig", metaVar = "<syntheticCircuitConfigFile>", usage ="-scalingBenchmark: JSON file shaping the synthetic circuits (cellCount is set by the benchmark)", required = false)
+    private File scalingConfigFile;
+
+    @Option(name = "-scalingReport", metaVar = "<reportFile>", usage ="-scalingBenchmark: report file name without extension, .csv and .json are written. Default: scaling-report", required = false)
+    private File scalingReportFile = new File("scaling-report");
+
     @Option(name = "-lib", metaVar = "<libertyfile>", usage ="Liberty Cell Library File", required = true)
     private File libertyFile;
 
@@ -33,30 +61,117 @@ public class DrivestrengthCommandlineOptions extends CommandlineOptions {
     @Option(name = "-remoteConfig", metaVar = "<remoteConfigFile>", usage ="Remote Config JSON File containing username, host, ...", required = false)
     private File remoteConfigFile;
 
+    @Option(name = "-localSimulator", metaVar = "<setupScript>", usage ="Simulate on this machine instead of the remote host: bash script defining the commands selectLibrary and simulate, sourced before each simulation", required = false)
+    private File localSimulatorSetupFile;
+
+    @Option(name = "-simulationStandIn", usage ="Use a deterministic stand-in instead of simulating (made-up results, for tests)", required = false)
+    private boolean simulationStandIn = false;
+
+    @Option(name = "-simulationTimeout", metaVar = "<minutes>", usage ="-localSimulator: abort a simulation after this many minutes. Default: 60", required = false)
+    private long simulationTimeoutMinutes = 60;
+
+    @Option(name = "-simulationCache", metaVar = "<directory>", usage ="Directory for caching simulation results. Simulating the same netlist with the same output capacitance and simulator again reuses the cached result", required = false)
+    private File simulationCacheDirectory;
+
+    @Option(name = "-simulationCacheMaxMB", metaVar = "<megabytes>", usage ="Size bound of the simulation cache, least recently used results are evicted. Default: 64", required = false)
+    private int simulationCacheMaxMegabytes = 64;
+
     @Option(name = "-outputPinCapacitance", metaVar = "<outputPinCapacitance>", usage="Load capacitance applied to each output pin [unit: pF]. Default: 0.012")
     private double outputPinCapacitance = 0.012;
 
     @Option(name = "-inputDrivenMaxCIn", metaVar = "<inputDrivenMaxCIn>", usage="Limit the capacitance of cells driven by circuit input pins [unit: pF]. Default: 0.007")
     private double inputDrivenMaxCIn = 0.007;
 
-    @Option(name = "-optimizer", metaVar = "<optimizer>", usage ="Selected Optimizer. Values are SA (default), NOP, TOP, BOT, SFL, ESE, NSE, EDM (only for all-single-stage cells), and FO", required = false)
+    @Option(name = "-optimizer", metaVar = "<optimizer>", usage ="Selected Optimizer. Values are SA (default), NOP, TOP, BOT, SFL, ESE, NSE, EDM (only for all-single-stage cells), FO, GS, ML (multilevel, for large netlists), and BB (exact, only for small netlists). A comma-separated list (e.g. ESE,SA) runs them one after another, each starting from the previous result", required = false)
     private String optimizer = "SA";
 
+    @Option(name = "-parallelRounds", usage = "ESE and NSE: update all cells in parallel rounds (Jacobi) instead of one after the other", required = false)
+    private boolean parallelRounds = false;
+
     @Option(name = "-optimizeEnergyPercentage", metaVar = "<optimizeEnergyPercentage>", usage ="Percentage for Energy in SA Optimizer (0: Minimize only Delay, 100: Minimize only Energy)", required = false)
     private int optimizeEnergyPercentage = 0;
 
+    @Option(name = "-optimizeWorstDelayPercentage", metaVar = "<percentage>", usage ="SA: percentage of the delay weight for the worst path delay instead of the cell delay sum (0: only the sum, 100: only the worst path). Default: 0", required = false)
+    private int optimizeWorstDelayPercentage = 0;
+
+    @Option(name = "-saRoundsPerCell", metaVar = "<rounds>", usage ="SA: iterations per cell. Default: 0 (1000, or 100 when starting from previous sizes)", required = false)
+    private int saRoundsPerCell = 0;
+
+    @Option(name = "-saCriticalMoves", usage = "SA: pick cells in proportion to their share of the cost instead of uniformly", required = false)
+    private boolean saCriticalMoves = false;
+
+    @Option(name = "-saAdaptiveCooling", usage = "SA: steer the temperature towards a target acceptance ratio (Lam schedule) with reheats on stagnation, keep the best sizes seen", required = false)
+    private boolean saAdaptiveCooling = false;
+
+    @Option(name = "-multilevelRefiner", metaVar = "<optimizer>", usage ="Optimizer that refines the single cells after the ML optimizer's cluster levels. Default: GS", required = false)
+    private String multilevelRefiner = "GS";
+
+    @Option(name = "-partitions", metaVar = "<count>", usage ="Split the netlist into this many balanced parts and optimize them concurrently with the selected optimizer, followed by a GS cleanup pass over all cells. Default: 1 (no partitioning)", required = false)
+    private int partitionCount = 1;
+
+    @Option(name = "-partitionRounds", metaVar = "<rounds>", usage ="Rounds of concurrent part optimization, exchanging the loads at the part boundaries in between. Default: 3", required = false)
+    private int partitionRounds = 3;
+
+    @Option(name = "-race", metaVar = "<optimizers>", usage ="Run the comma-separated optimizers (e.g. ESE,NSE,SFL,SA) concurrently on copies and keep the result with the lowest cost (energy weight from -optimizeEnergyPercentage)", required = false)
+    private String raceOptimizers;
+
+    @Option(name = "-raceDeadline", metaVar = "<seconds>", usage ="Deadline for -race, optimizers still running are stopped and scored with their current sizes. Default: 60", required = false)
+    private int raceDeadlineSeconds = 60;
+
+    @Option(name = "-sizesFrom", metaVar = "<sizeAssignmentFile>", usage ="Select the sizes from this size assignment file (written with -outSizes) before optimizing; the optimizer starts from them (use -optimizer NOP to only apply them)", required = false)
+    private File sizeAssignmentFileIn;
+
+    @Option(name = "-checkpoint", metaVar = "<checkpointFile>", usage ="Periodically save the state of the running optimizer (SA, GS, ESE, NSE, SFL) to this file, in the background", required = false)
+    private File checkpointFile;
+
+    @Option(name = "-checkpointInterval", metaVar = "<seconds>", usage ="For -checkpoint: seconds between checkpoints. Default: 300", required = false)
+    private int checkpointIntervalSeconds = 300;
+
+    @Option(name = "-checkpointRetention", metaVar = "<count>", usage ="For -checkpoint: number of checkpoints kept (older ones as file.1, file.2, ...). Default: 2", required = false)
+    private int checkpointRetention = 2;
+
+    @Option(name = "-resume", metaVar = "<checkpointFile>", usage ="Continue an optimization from a checkpoint, with the same netlist and options as the interrupted run", required = false)
+    private File resumeCheckpointFile;
+
+    @Option(name = "-ecoFrom", metaVar = "<previousOutputNetlistFile>", usage ="Engineering change: start from the sizes of this previously optimized netlist (.v) or size assignment file (-outSizes) and re-optimize (with the selected optimizer) only the cells near new, rewired or removed instances", required = false)
+    private File ecoPreviousNetlistFile;
+
+    @Option(name = "-ecoRadius", metaVar = "<hops>", usage ="For -ecoFrom: re-optimize the cells within this many load graph hops of the changes. Default: 2", required = false)
+    private int ecoRadius = 2;
+
+    @Option(name = "-sweepEnergyPercentages", metaVar = "<percentages>", usage ="Run SA for each of the comma-separated energy percentages (e.g. 0,25,50,75,100) and write the Pareto-optimal netlists (file names derived from -out) and all results as csv (-outPareto)", required = false)
+    private String sweepEnergyPercentages;
+
+    @Option(name = "-resultCache", metaVar="<directory>", usage="Directory for caching optimization results. Runs with the same netlist, library and options reuse the cached sizes instead of optimizing", required = false)
+    private File resultCacheDirectory;
+
+    @Option(name = "-resultCacheMaxMB", metaVar="<megabytes>", usage="Size bound of the result cache, least recently used results are evicted. Default: 256", required = false)
+    private int resultCacheMaxMegabytes = 256;
+
     @Option(name = "-out", metaVar="<outputNetlistFile>", usage="Output file name for the optimized verilog netlist", required = false)
     private File outputNetlistFile;
 
+    @Option(name = "-outSizes", metaVar="<sizeAssignmentFile>", usage="Output file name for the selected sizes only (compact binary, text if the name ends in .txt)", required = false)
+    private File outputSizeAssignmentFile;
+
     @Option(name = "-outLoadGraph", metaVar="<outputLoadGraphFile>", usage="Output file name for the capacitance load graph", required = false)
     private File outputLoadGraphFile;
 
+    @Option(name = "-outPareto", metaVar="<outputParetoFile>", usage="BB optimizer and energy sweep: output file name for the energy/delay Pareto front (csv)", required = false)
+    private File outputParetoFile;
+
     @Option(name = "-outSdc", metaVar="<outputConstraintFile>", usage="Output file name for the constraints (sdc format)", required = false)
     private File outputConstraintFile;
 
     @Option(name = "-printLoadGraph", metaVar="<printLoadGraph>", usage="Enable to print load graph to the console", required = false)
     private boolean printLoadGraph = false;
 
+    @Option(name = "-timingReport", usage="Print the worst path delay (static timing analysis of the load graph) before and after optimizing", required = false)
+    private boolean timingReport = false;
+
+    @Option(name = "-loopReport", usage="Print the loops of the load graph and their critical cycle before and after optimizing", required = false)
+    private boolean loopReport = false;
+
     @Argument(metaVar = "Verilog Netlist Input File", required = true)
     private File netlistFileIn;
 
@@ -77,6 +192,37 @@ public class DrivestrengthCommandlineOptions extends CommandlineOptions {
         return runBenchmarks;
     }
 
+    public List<Integer> getScalingBenchmarkCellCounts() {
+        if (scalingBenchmarkCellCounts == null) {
+            return null;
+        }
+        List<Integer> cellCounts = new ArrayList<>();
+        for (String cellCount : scalingBenchmarkCellCounts.split(",")) {
+            try {
+                cellCounts.add(Integer.parseInt(cellCount.trim()));
+            } catch (NumberFormatException e) {
+                throw new Error("Invalid cell count for the scaling benchmark: " + cellCount);
+            }
+        }
+        return cellCounts;
+    }
+
+    public File getScalingConfigFile() {
+        return scalingConfigFile;
+    }
+
+    public File getScalingReportFile() {
+        return scalingReportFile;
+    }
+
+    public File getBenchmarkConfigFile() {
+        return benchmarkConfigFile;
+    }
+
+    public File getBenchmarkOutFile() {
+        return benchmarkOutFile;
+    }
+
     public File getNetlistFile() {
         return netlistFileIn;
     }
@@ -88,14 +234,137 @@ public class DrivestrengthCommandlineOptions extends CommandlineOptions {
     public File getRemoteConfigFile() {
         return remoteConfigFile;
     }
+
+    public File getLocalSimulatorSetupFile() {
+        return localSimulatorSetupFile;
+    }
+
+    public boolean isSimulationStandIn() {
+        return simulationStandIn;
+    }
+
+    public long getSimulationTimeoutMinutes() {
+        return simulationTimeoutMinutes;
+    }
+
+    public File getSimulationCacheDirectory() {
+        return simulationCacheDirectory;
+    }
+
+    public int getSimulationCacheMaxMegabytes() {
+        return simulationCacheMaxMegabytes;
+    }
     public int getOptimizeEnergyPercentage() {
         return optimizeEnergyPercentage;
     }
 
+    public int getOptimizeWorstDelayPercentage() {
+        return optimizeWorstDelayPercentage;
+    }
+
+    public int getSaRoundsPerCell() {
+        return saRoundsPerCell;
+    }
+
+    public boolean isSaCriticalMoves() {
+        return saCriticalMoves;
+    }
+
+    public boolean isSaAdaptiveCooling() {
+        return saAdaptiveCooling;
+    }
+
+    public String getMultilevelRefiner() {
+        return multilevelRefiner;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public int getPartitionRounds() {
+        return partitionRounds;
+    }
+
+    public List<String> getRaceOptimizers() {
+        if (raceOptimizers == null) {
+            return null;
+        }
+        List<String> optimizers = new ArrayList<>();
+        for (String optimizer : raceOptimizers.split(",")) {
+            optimizers.add(optimizer.trim());
+        }
+        return optimizers;
+    }
+
+    public int getRaceDeadlineSeconds() {
+        return raceDeadlineSeconds;
+    }
+
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public int getCheckpointIntervalSeconds() {
+        return checkpointIntervalSeconds;
+    }
+
+    public int getCheckpointRetention() {
+        return checkpointRetention;
+    }
+
+    public File getResumeCheckpointFile() {
+        return resumeCheckpointFile;
+    }
+
+    public File getSizeAssignmentFile() {
+        return sizeAssignmentFileIn;
+    }
+
+    public File getEcoPreviousNetlistFile() {
+        return ecoPreviousNetlistFile;
+    }
+
+    public int getEcoRadius() {
+        return ecoRadius;
+    }
+
+    public List<Integer> getSweepEnergyPercentages() {
+        if (sweepEnergyPercentages == null) {
+            return null;
+        }
+        List<Integer> percentages = new ArrayList<>();
+        for (String percentage : sweepEnergyPercentages.split(",")) {
+            int parsedPercentage;
+            try {
+                parsedPercentage = Integer.parseInt(percentage.trim());
+            } catch (NumberFormatException e) {
+                throw new Error("Invalid energy percentage in sweep: " + percentage);
+            }
+            if (parsedPercentage < 0 || parsedPercentage > 100) {
+                throw new Error("Energy percentage in sweep must be between 0 and 100: " + percentage);
+            }
+            percentages.add(parsedPercentage);
+        }
+        return percentages;
+    }
+
+    public File getResultCacheDirectory() {
+        return resultCacheDirectory;
+    }
+
+    public int getResultCacheMaxMegabytes() {
+        return resultCacheMaxMegabytes;
+    }
+
     public File getOutputNetlistFile() {
         return outputNetlistFile;
     }
 
+    public File getOutputSizeAssignmentFile() {
+        return outputSizeAssignmentFile;
+    }
+
     public File getOutputLoadGraphFile() {
         return outputLoadGraphFile;
     }
@@ -104,6 +373,10 @@ public class DrivestrengthCommandlineOptions extends CommandlineOptions {
         return optimizer;
     }
 
+    public boolean isParallelRounds() {
+        return parallelRounds;
+    }
+
     public double getOutputPinCapacitance() {
         return outputPinCapacitance;
     }
@@ -120,6 +393,18 @@ public class DrivestrengthCommandlineOptions extends CommandlineOptions {
         return printLoadGraph;
     }
 
+    public boolean isTimingReport() {
+        return timingReport;
+    }
+
+    public boolean isLoopReport() {
+        return loopReport;
+    }
+
+    public File getOutputParetoFile() {
+        return outputParetoFile;
+    }
+
     public File getOutputConstraintFile() {
         return outputConstraintFile;
     }
@@ -1,5 +1,6 @@
 package de.uni_potsdam.hpi.asg.drivestrength;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
@@ -10,15 +11,24 @@ import de.uni_potsdam.hpi.asg.common.iohelper.LoggerHelper.Mode;
 import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCellLibrary;
 import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.CellAggregator;
 import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.SizeCapacitanceMonotonizer;
+import de.uni_potsdam.hpi.asg.drivestrength.benchmarks.BenchmarkConfig;
 import de.uni_potsdam.hpi.asg.drivestrength.benchmarks.BenchmarkRunner;
+import de.uni_potsdam.hpi.asg.drivestrength.benchmarks.ScalingBenchmark;
 import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
 import de.uni_potsdam.hpi.asg.drivestrength.cells.additionalinfo.AdditionalCellInfoContainer;
 import de.uni_potsdam.hpi.asg.drivestrength.cells.additionalinfo.AdditionalCellInfoParser;
 import de.uni_potsdam.hpi.asg.drivestrength.cells.libertyparser.LibertyParser;
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.Checkpoint;
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.CheckpointWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.eco.EcoOptimizer;
+import de.uni_potsdam.hpi.asg.drivestrength.eco.PreviousSizing;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticCircuitConfig;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.LoadGraphExporter;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.TimingGraph;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.AnnotatedNetlistCopier;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.InputDrivenAnnotator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.LoadGraphAnnotator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.PredecessorAnnotator;
@@ -28,16 +38,22 @@ import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistFlattener;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistInliner;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.Signal;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.Signal.Direction;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.loops.LoopAnalyzer;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.verilogparser.VerilogParser;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.AllLargestOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.AllSmallestOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.EqualDelayMatrixOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.EqualStageEffortOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.FanoutOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.NeighborStageEffortOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.NopOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.SelectForLoadOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.optimization.SimulatedAnnealingOptimizer;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.AbstractDriveOptimizer;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.BranchAndBoundOptimizer;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.EnergyWeightSweep;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.OptimizerFactory;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.OptimizerPortfolio;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.PartitionedOptimizer;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.LocalSimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.SimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.SshSimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.StandInSimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.resultcache.ResultCache;
+import de.uni_potsdam.hpi.asg.drivestrength.resultcache.ResultCacheKey;
+import de.uni_potsdam.hpi.asg.drivestrength.resultcache.SimulationResultCache;
+import de.uni_potsdam.hpi.asg.drivestrength.sizeassignment.SizeAssignment;
 import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
 
 public class DrivestrengthMain {
@@ -89,48 +105,106 @@ public class DrivestrengthMain {
 
 
     private static int execute() {
+        options.validate();
+        if (options.getScalingBenchmarkCellCounts() != null) {
+            runScalingBenchmark();
+            return 0;
+        }
+
         AggregatedCellLibrary cellLibrary = loadCellInformation();
 
         if (options.isBenchmarkRun()) {
-            new BenchmarkRunner(cellLibrary, options.getRemoteConfigFile()).run();
+            new BenchmarkRunner(cellLibrary, createSimulationBackend(), createSimulationResultCache(),
+                                BenchmarkConfig.read(options.getBenchmarkConfigFile()), options.getBenchmarkOutFile()).run();
             return 0;
         }
 
         boolean replaceBySingleStageCells = false; //Will lead to non-functional netlist, exists just to analyze our algorithm behavior
         Netlist netlist = new VerilogParser(options.getNetlistFile(), cellLibrary, replaceBySingleStageCells).createNetlist();
 
-        new NetlistFlattener(netlist).run();
-        Netlist inlinedNetlist = new NetlistInliner(netlist).run();
-        new NetlistBundleSplitter(inlinedNetlist).run();
-        new NetlistAssignCleaner(inlinedNetlist).run();
+        Netlist inlinedNetlist = inlineAndClean(netlist);
         new LoadGraphAnnotator(inlinedNetlist, options.getOutputPinCapacitance()).run();
         new InputDrivenAnnotator(inlinedNetlist, options.getInputDrivenMaxCIn()).run();
         new PredecessorAnnotator(inlinedNetlist).run();
+        if (options.getSizeAssignmentFile() != null) {
+            int appliedCount = SizeAssignment.read(options.getSizeAssignmentFile()).applyTo(inlinedNetlist);
+            logger.info("Selected " + appliedCount + " sizes from " + options.getSizeAssignmentFile());
+        }
 
         new DelayEstimator(inlinedNetlist, false, false).print();
+        if (options.isTimingReport()) {
+            new TimingGraph(inlinedNetlist).print();
+        }
+        if (options.isLoopReport()) {
+            new LoopAnalyzer(inlinedNetlist).print();
+        }
         new EnergyEstimator(inlinedNetlist, false).print();
 
-//        new BruteForceRunner(inlinedNetlist).run();
-
-        optimize(inlinedNetlist);
+        if (options.getSweepEnergyPercentages() != null) {
+            sweepEnergyWeights(inlinedNetlist, netlist);
+            writeConstraintFile(netlist);
+            return 0;
+        }
 
+        optimizeOrReuseCachedResult(inlinedNetlist, cellLibrary);
 
         boolean estimateWithTheoreticalLoad = false;
         new DelayEstimator(inlinedNetlist, estimateWithTheoreticalLoad, false).print();
+        if (options.isTimingReport()) {
+            new TimingGraph(inlinedNetlist).print();
+        }
+        if (options.isLoopReport()) {
+            new LoopAnalyzer(inlinedNetlist).print();
+        }
         new EnergyEstimator(inlinedNetlist, false).print();
 
         writeLoadGraph(inlinedNetlist);
         writeOptimizedNetlistToFile(netlist);
+        writeSizeAssignment(inlinedNetlist, options.getOutputSizeAssignmentFile());
         writeConstraintFile(netlist);
 
 //        boolean remoteVerbose = false;
 //        boolean keepFiles = true;
-//        new RemoteSimulation(inlinedNetlist, options.getRemoteConfigFile(),
+//        new RemoteSimulation(inlinedNetlist, createSimulationBackend(),
 //                              options.getOutputPinCapacitance(), keepFiles, remoteVerbose).run();
 
         return 0;
     }
 
+    /* null if no simulation is configured */
+    private static SimulationBackend createSimulationBackend() {
+        int selectedCount = (options.getRemoteConfigFile() != null ? 1 : 0) + (options.getLocalSimulatorSetupFile() != null ? 1 : 0)
+                            + (options.isSimulationStandIn() ? 1 : 0);
+        if (selectedCount > 1) {
+            throw new Error("Choose only one of -remoteConfig, -localSimulator and -simulationStandIn");
+        }
+        if (options.getRemoteConfigFile() != null) {
+            return SshSimulationBackend.fromConfigFile(options.getRemoteConfigFile());
+        }
+        if (options.getLocalSimulatorSetupFile() != null) {
+            return new LocalSimulationBackend(options.getLocalSimulatorSetupFile(), options.getSimulationTimeoutMinutes());
+        }
+        if (options.isSimulationStandIn()) {
+            return new StandInSimulationBackend();
+        }
+        return null;
+    }
+
+    private static SimulationResultCache createSimulationResultCache() {
+        if (options.getSimulationCacheDirectory() == null) {
+            return null;
+        }
+        return new SimulationResultCache(options.getSimulationCacheDirectory(), options.getSimulationCacheMaxMegabytes() * 1024L * 1024L);
+    }
+
+    private static Netlist inlineAndClean(Netlist netlist) {
+        new NetlistFlattener(netlist).run();
+        Netlist inlinedNetlist = new NetlistInliner(netlist).run();
+        new NetlistBundleSplitter(inlinedNetlist).run();
+        new NetlistAssignCleaner(inlinedNetlist).run();
+        return inlinedNetlist;
+    }
+
     private static AggregatedCellLibrary loadCellInformation() {
         List<Cell> cells = new LibertyParser(options.getLibertyFile()).run();
 
@@ -144,37 +218,171 @@ public class DrivestrengthMain {
         return aggregatedCellLibrary;
     }
 
-    private static void optimize(Netlist inlinedNetlist) {
-        switch (options.getOptimizer()) {
-        case "NOP":
-            new NopOptimizer(inlinedNetlist).run();
-            break;
-        case "ESE":
-            new EqualStageEffortOptimizer(inlinedNetlist, 100, true).run();
-            break;
-        case "NSE":
-            new NeighborStageEffortOptimizer(inlinedNetlist, 100, true).run();
-            break;
-        case "SFL":
-            new SelectForLoadOptimizer(inlinedNetlist, 100).run();
-            break;
-        case "TOP":
-            new AllLargestOptimizer(inlinedNetlist).run();
-            break;
-        case "BOT":
-            new AllSmallestOptimizer(inlinedNetlist).run();
-            break;
-        case "EDM":
-            new EqualDelayMatrixOptimizer(inlinedNetlist).run();
-            break;
-        case "FO":
-            new FanoutOptimizer(inlinedNetlist).run();
-            break;
-        case "SA":
-            new SimulatedAnnealingOptimizer(inlinedNetlist, false, 1000, options.getOptimizeEnergyPercentage()).run();
-            break;
-        default:
-            throw new Error("Specified optimizer " + options.getOptimizer() + " does not exist");
+    private static void optimizeOrReuseCachedResult(Netlist inlinedNetlist, AggregatedCellLibrary cellLibrary) {
+        if (options.getResultCacheDirectory() == null) {
+            optimize(inlinedNetlist, cellLibrary);
+            return;
+        }
+        /* the cache holds only the sizes, a cache hit would skip writing the Pareto front */
+        if (options.getOutputParetoFile() != null) {
+            logger.info("Not using the result cache, -outPareto needs the optimization to run");
+            optimize(inlinedNetlist, cellLibrary);
+            return;
+        }
+        ResultCache resultCache = new ResultCache(options.getResultCacheDirectory(), options.getResultCacheMaxMegabytes() * 1024L * 1024L);
+        String key = resultCacheKey(inlinedNetlist);
+        if (resultCache.applyIfCached(key, inlinedNetlist)) {
+            return;
+        }
+        optimize(inlinedNetlist, cellLibrary);
+        resultCache.store(key, inlinedNetlist);
+    }
+
+    /* everything the optimized sizes depend on (the library by the files it is built from) */
+    private static String resultCacheKey(Netlist inlinedNetlist) {
+        ResultCacheKey key = new ResultCacheKey();
+        if (options.getSizeAssignmentFile() != null) {
+            key.addFileContents("sizesFrom", options.getSizeAssignmentFile());
+        }
+        if (options.getResumeCheckpointFile() != null) {
+            key.addFileContents("resume", options.getResumeCheckpointFile());
+        }
+        if (options.getEcoPreviousNetlistFile() != null) {
+            key.addFileContents("ecoFrom", options.getEcoPreviousNetlistFile());
+        }
+        return key
+                .add("netlist", inlinedNetlist.toVerilog())
+                .addFileContents("lib", options.getLibertyFile())
+                .addFileContents("cellInfoJson", options.getAdditionalCellInfoJsonFile())
+                .add("optimizer", options.getOptimizer())
+                .add("optimizeEnergyPercentage", options.getOptimizeEnergyPercentage())
+                .add("optimizeWorstDelayPercentage", options.getOptimizeWorstDelayPercentage())
+                .add("saRoundsPerCell", options.getSaRoundsPerCell())
+                .add("saCriticalMoves", options.isSaCriticalMoves())
+                .add("saAdaptiveCooling", options.isSaAdaptiveCooling())
+                .add("parallelRounds", options.isParallelRounds())
+                .add("multilevelRefiner", options.getMultilevelRefiner())
+                .add("partitions", options.getPartitionCount())
+                .add("partitionRounds", options.getPartitionRounds())
+                .add("ecoRadius", options.getEcoRadius())
+                .add("race", options.getRaceOptimizers())
+                .add("raceDeadline", options.getRaceDeadlineSeconds())
+                .add("outputPinCapacitance", options.getOutputPinCapacitance())
+                .add("inputDrivenMaxCIn", options.getInputDrivenMaxCIn())
+                .toHex();
+    }
+
+    private static OptimizerFactory createOptimizerFactory() {
+        OptimizerFactory optimizerFactory = new OptimizerFactory(options.getOptimizeEnergyPercentage(), options.getOptimizeWorstDelayPercentage(),
+                                                                 options.isParallelRounds(), options.getMultilevelRefiner());
+        optimizerFactory.setAnnealingOptions(options.getSaRoundsPerCell(), options.isSaCriticalMoves(), options.isSaAdaptiveCooling());
+        return optimizerFactory;
+    }
+
+    /* uses the synthetic library matching the synthetic circuits, not -lib */
+    private static void runScalingBenchmark() {
+        SyntheticCircuitConfig circuitConfig = new SyntheticCircuitConfig();
+        if (options.getScalingConfigFile() != null) {
+            circuitConfig = SyntheticCircuitConfig.read(options.getScalingConfigFile());
+        }
+        new ScalingBenchmark(options.getScalingBenchmarkCellCounts(), circuitConfig, options.getOptimizer(), createOptimizerFactory(),
+                             options.getOutputPinCapacitance(), options.getInputDrivenMaxCIn(), options.getScalingReportFile()).run();
+    }
+
+    private static void optimize(Netlist inlinedNetlist, AggregatedCellLibrary cellLibrary) {
+        OptimizerFactory optimizerFactory = createOptimizerFactory();
+        boolean checkpointing = options.getCheckpointFile() != null || options.getResumeCheckpointFile() != null;
+        if (checkpointing && (options.getEcoPreviousNetlistFile() != null || options.getRaceOptimizers() != null)) {
+            throw new Error("Checkpoints are not supported with -ecoFrom or -race");
+        }
+        if (checkpointing && (options.getPartitionCount() > 1 || !optimizerFactory.supportsCheckpoints(options.getOptimizer()))) {
+            throw new Error("Checkpoints are only supported for SA, GS, ESE, NSE, SFL and pipelines of these, without -partitions");
+        }
+        if (options.getEcoPreviousNetlistFile() != null) {
+            PreviousSizing previousSizing;
+            if (options.getEcoPreviousNetlistFile().getName().endsWith(".v")) {
+                Netlist previousNetlist = new VerilogParser(options.getEcoPreviousNetlistFile(), cellLibrary, false, true).createNetlist();
+                previousSizing = PreviousSizing.fromNetlist(inlineAndClean(previousNetlist));
+            } else {
+                previousSizing = PreviousSizing.fromSizeAssignment(SizeAssignment.read(options.getEcoPreviousNetlistFile()));
+            }
+            new EcoOptimizer(inlinedNetlist, previousSizing, options.getEcoRadius(), options.getOptimizer(), optimizerFactory).run();
+            return;
+        }
+        boolean warmStart = options.getSizeAssignmentFile() != null;
+        if (options.getRaceOptimizers() != null) {
+            AnnotatedNetlistCopier copier = new AnnotatedNetlistCopier(options.getOutputPinCapacitance(), options.getInputDrivenMaxCIn());
+            new OptimizerPortfolio(inlinedNetlist, options.getRaceOptimizers(), optimizerFactory, copier,
+                                   options.getOptimizeEnergyPercentage(), options.getRaceDeadlineSeconds() * 1000L, warmStart).run();
+            return;
+        }
+        AbstractDriveOptimizer optimizer;
+        if (options.getPartitionCount() > 1) {
+            optimizer = new PartitionedOptimizer(inlinedNetlist, options.getOptimizer(), "GS", optimizerFactory,
+                                                 options.getPartitionCount(), options.getPartitionRounds());
+        } else {
+            optimizer = optimizerFactory.create(options.getOptimizer(), inlinedNetlist, warmStart);
+        }
+        runWithCheckpoints(optimizer);
+        if (optimizer instanceof BranchAndBoundOptimizer) {
+            writeParetoFront((BranchAndBoundOptimizer) optimizer);
+        }
+    }
+
+    private static void runWithCheckpoints(AbstractDriveOptimizer optimizer) {
+        if (options.getResumeCheckpointFile() != null) {
+            optimizer.resumeFrom(Checkpoint.read(options.getResumeCheckpointFile()));
+        }
+        if (options.getCheckpointFile() == null) {
+            optimizer.run();
+            return;
+        }
+        CheckpointWriter checkpointWriter = new CheckpointWriter(options.getCheckpointFile(), options.getCheckpointRetention());
+        optimizer.enableCheckpoints(checkpointWriter, options.getCheckpointIntervalSeconds() * 1000L);
+        try {
+            optimizer.run();
+        } finally {
+            checkpointWriter.close();
+        }
+    }
+
+    private static void sweepEnergyWeights(Netlist inlinedNetlist, Netlist netlist) {
+        EnergyWeightSweep sweep = new EnergyWeightSweep(inlinedNetlist, options.getSweepEnergyPercentages(), 1000,
+                                        options.getOutputPinCapacitance(), options.getInputDrivenMaxCIn());
+        sweep.run();
+
+        if (options.getOutputParetoFile() != null) {
+            FileHelper.writeStringToTextFile(sweep.getResultsCsv(), options.getOutputParetoFile());
+            logger.info("Wrote sweep results to " + options.getOutputParetoFile());
+        }
+        if (options.getOutputNetlistFile() == null) {
+            logger.info("No output file specified, not writing the Pareto-optimal netlists");
+            return;
+        }
+        for (int percentageEnergy : sweep.getParetoOptimalPercentages()) {
+            sweep.applyResult(percentageEnergy);
+            File netlistFile = fileWithSuffix(options.getOutputNetlistFile(), "_e" + percentageEnergy);
+            FileHelper.writeStringToTextFile(netlist.toVerilog(), netlistFile);
+            logger.info("Wrote netlist for energy weight " + percentageEnergy + " % to " + netlistFile);
+            if (options.getOutputSizeAssignmentFile() != null) {
+                writeSizeAssignment(inlinedNetlist, fileWithSuffix(options.getOutputSizeAssignmentFile(), "_e" + percentageEnergy));
+            }
+        }
+    }
+
+    private static File fileWithSuffix(File file, String suffix) {
+        String name = file.getName();
+        int extensionStart = name.lastIndexOf('.');
+        if (extensionStart < 0) {
+            return new File(file.getParentFile(), name + suffix);
+        }
+        return new File(file.getParentFile(), name.substring(0, extensionStart) + suffix + name.substring(extensionStart));
+    }
+
+    private static void writeParetoFront(BranchAndBoundOptimizer branchAndBound) {
+        if (options.getOutputParetoFile() != null) {
+            FileHelper.writeStringToTextFile(branchAndBound.getParetoFrontCsv(), options.getOutputParetoFile());
+            logger.info("Wrote Pareto front to " + options.getOutputParetoFile());
         }
     }
 
@@ -202,6 +410,13 @@ public class DrivestrengthMain {
         }
     }
 
+    private static void writeSizeAssignment(Netlist inlinedNetlist, File sizeAssignmentFile) {
+        if (sizeAssignmentFile != null) {
+            SizeAssignment.fromNetlist(inlinedNetlist).write(sizeAssignmentFile);
+            logger.info("Wrote size assignment to " + sizeAssignmentFile);
+        }
+    }
+
     private static void writeConstraintFile(Netlist netlist) {
         if (options.getOutputConstraintFile() == null) {
             return;
@@ -111,6 +111,15 @@ public class AggregatedCell {
         return previousSize;
     }
 
+    public Cell getSizeByName(String sizeName) {
+        for (Cell size : this.sizesRaw) {
+            if (size.getName().equals(sizeName)) {
+                return size;
+            }
+        }
+        throw new Error("Aggregated cell " + this.name + " has no size " + sizeName);
+    }
+
     public boolean containsSizeName(String cellName) {
         return this.sizeNames.contains(cellName);
     }
@@ -0,0 +1,116 @@
+package de.uni_potsdam.hpi.asg.drivestrength.benchmarks;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+/**
+ * The benchmark matrix: every netlist is run with every output capacitance, input-driven
+ * capacitance limit and optimizer. Read from a JSON file; missing fields keep the defaults
+ * below, e.g.
+ *
+ *   {"netlistDirectory": "netlists/benchmarks-original/", "netlists": ["mult", "gcd"],
+ *    "outputPinCapacitances": [0.0, 0.012], "inputDrivenMaxCIns": [0.005],
+ *    "optimizers": ["NOP", "SA-D"], "threads": 4, "simulationJobs": 8}
+ */
+public class BenchmarkConfig {
+
+    public static final List<String> allOptimizers = Arrays.asList("BOT", "EDM", "ESE-clamp", "ESE-free", "FO", "NOP",
+                                                                   "NSE-clamp", "SA-D", "SA-E", "SFL", "TOP");
+
+    private String netlistDirectory = "netlists/benchmarks-original/";
+    private List<String> netlists = Arrays.asList("mult");
+    private double[] outputPinCapacitances = {0.0, 0.003, 0.012, 0.1, 1.0};
+    private double[] inputDrivenMaxCIns = {0.005, 1.0};
+    private List<String> optimizers = allOptimizers;
+    private int threads = 0;    //0: one per processor
+    private int simulationJobs = 4;
+    private String outputFile;  //null: benchmarks-output/<date>.csv
+
+    public BenchmarkConfig() {
+    }
+
+    public static BenchmarkConfig read(File configFile) {
+        if (configFile == null) {
+            return new BenchmarkConfig();
+        }
+        BenchmarkConfig config;
+        try {
+            config = new Gson().fromJson(FileHelper.readTextFileToString(configFile), BenchmarkConfig.class);
+        } catch (JsonParseException e) {
+            throw new Error("Could not parse benchmark config " + configFile + ": " + e.getMessage());
+        }
+        if (config == null) {
+            throw new Error("Benchmark config " + configFile + " is empty");
+        }
+        config.check(configFile);
+        return config;
+    }
+
+    private void check(File configFile) {
+        if (this.netlists == null || this.netlists.isEmpty()) {
+            throw new Error("Benchmark config " + configFile + " has no netlists");
+        }
+        if (this.outputPinCapacitances == null || this.outputPinCapacitances.length == 0) {
+            throw new Error("Benchmark config " + configFile + " has no outputPinCapacitances");
+        }
+        if (this.inputDrivenMaxCIns == null || this.inputDrivenMaxCIns.length == 0) {
+            throw new Error("Benchmark config " + configFile + " has no inputDrivenMaxCIns");
+        }
+        if (this.optimizers == null || this.optimizers.isEmpty()) {
+            throw new Error("Benchmark config " + configFile + " has no optimizers");
+        }
+        for (String optimizerName : this.optimizers) {
+            if (!allOptimizers.contains(optimizerName)) {
+                throw new Error("Unknown benchmark optimizer " + optimizerName + " in " + configFile
+                                + ", known are " + allOptimizers);
+            }
+        }
+        if (this.threads < 0) {
+            throw new Error("Benchmark config " + configFile + ": threads must not be negative");
+        }
+        if (this.simulationJobs < 1) {
+            throw new Error("Benchmark config " + configFile + ": simulationJobs must be at least 1");
+        }
+    }
+
+    public File getNetlistFile(String netlistName) {
+        return new File(this.netlistDirectory, netlistName + ".v");
+    }
+
+    public List<String> getNetlists() {
+        return netlists;
+    }
+
+    public double[] getOutputPinCapacitances() {
+        return outputPinCapacitances;
+    }
+
+    public double[] getInputDrivenMaxCIns() {
+        return inputDrivenMaxCIns;
+    }
+
+    public List<String> getOptimizers() {
+        return optimizers;
+    }
+
+    public int getThreads() {
+        if (threads == 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return threads;
+    }
+
+    public int getSimulationJobs() {
+        return simulationJobs;
+    }
+
+    public String getOutputFile() {
+        return outputFile;
+    }
+}
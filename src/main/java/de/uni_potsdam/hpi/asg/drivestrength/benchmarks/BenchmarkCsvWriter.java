@@ -0,0 +1,105 @@
+package de.uni_potsdam.hpi.asg.drivestrength.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The benchmark result csv, shared by all benchmark threads. It is opened once for appending;
+ * every line is flushed as soon as it is complete, so a crashed sweep loses no finished entry.
+ * Lines are "benchmark-entry,netlist,outC,maxCIn,optimizer,..."; the first five fields
+ * identify an entry.
+ */
+public class BenchmarkCsvWriter {
+
+    private static final String linePrefix = "benchmark-entry";
+
+    private File file;
+    private BufferedWriter writer;
+
+    public BenchmarkCsvWriter(File file) {
+        this.file = file;
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        try {
+            boolean cutShort = !endsWithNewline(file);
+            this.writer = new BufferedWriter(new FileWriter(file, true));
+            if (cutShort) {
+                this.writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new Error("Could not open benchmark output " + file + ": " + e.getMessage());
+        }
+    }
+
+    public static String entryKey(String netlistName, double outputC, double inputDrivenMaxCIn, String optimizerName) {
+        return linePrefix + "," + netlistName + "," + outputC + "," + inputDrivenMaxCIn + "," + optimizerName;
+    }
+
+    /* keys of the entries already in the file; empty if it does not exist yet */
+    public static Set<String> readCompletedKeys(File file) {
+        Set<String> keys = new HashSet<>();
+        if (!file.exists()) {
+            return keys;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            boolean lastLineComplete = endsWithNewline(file);
+            String line = reader.readLine();
+            while (line != null) {
+                String nextLine = reader.readLine();
+                String[] fields = line.split(",");
+                /* a line cut short by a crash (no newline yet) is run again */
+                boolean complete = nextLine != null || lastLineComplete;
+                line = nextLine;
+                if (!complete || fields.length < 12 || !fields[0].equals(linePrefix)) {
+                    continue;
+                }
+                try {
+                    keys.add(entryKey(fields[1], Double.parseDouble(fields[2]), Double.parseDouble(fields[3]), fields[4]));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+        } catch (IOException e) {
+            throw new Error("Could not read benchmark output " + file + ": " + e.getMessage());
+        }
+        return keys;
+    }
+
+    /* also true for empty or missing files */
+    private static boolean endsWithNewline(File file) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return true;
+        }
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(in.length() - 1);
+            return in.read() == '\n';
+        }
+    }
+
+    public synchronized void writeLine(String line) {
+        try {
+            this.writer.write(line);
+            this.writer.newLine();
+            this.writer.flush();
+        } catch (IOException e) {
+            throw new Error("Could not write to benchmark output " + this.file + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            this.writer.close();
+        } catch (IOException e) {
+            throw new Error("Could not close benchmark output " + this.file + ": " + e.getMessage());
+        }
+    }
+}
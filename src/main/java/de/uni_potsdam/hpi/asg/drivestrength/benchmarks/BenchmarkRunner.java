@@ -1,22 +1,25 @@
 package de.uni_potsdam.hpi.asg.drivestrength.benchmarks;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCellLibrary;
-import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
-import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.BatchEstimator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.InputDrivenAnnotator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.LoadGraphAnnotator;
@@ -36,20 +39,55 @@ import de.uni_potsdam.hpi.asg.drivestrength.optimization.NeighborStageEffortOpti
 import de.uni_potsdam.hpi.asg.drivestrength.optimization.NopOptimizer;
 import de.uni_potsdam.hpi.asg.drivestrength.optimization.SelectForLoadOptimizer;
 import de.uni_potsdam.hpi.asg.drivestrength.optimization.SimulatedAnnealingOptimizer;
-import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.RemoteSimulation;
 import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.RemoteSimulationResult;
-
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.SimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.SimulationQueue;
+import de.uni_potsdam.hpi.asg.drivestrength.resultcache.SimulationResultCache;
+
+/**
+ * Runs the benchmark matrix of a BenchmarkConfig: each (netlist, outC, maxCIn, optimizer)
+ * entry is optimized and estimated on its own netlist copy, which is only made when the entry
+ * starts, and then handed to a SimulationQueue. Entries run on a bounded thread pool, so the
+ * simulations of all optimizer variants are queued early and run side by side with the next
+ * optimizations. Identical sizings are simulated only once (and with a SimulationResultCache,
+ * not again in later runs). Each finished simulation appends its line to one shared csv; entries already
+ * in an existing csv are skipped, so a crashed sweep can be resumed by running it again with
+ * the same output file.
+ */
 public class BenchmarkRunner {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private static class Entry {
+        private Netlist netlist;
+        private double outputC;
+        private double inputDrivenMaxCIn;
+        private String optimizerName;
+    }
+
     private AggregatedCellLibrary cellLibrary;
-    private String outFileName;
-    private int count;
-    private File remoteConfigFile;
+    private BenchmarkConfig config;
+    private File outFile;
+    private SimulationBackend simulationBackend;
+    private SimulationResultCache simulationResultCache;
+    private AtomicInteger count;
+    private AtomicInteger failedCount;
+    private int totalcount;
     private long startTime;
 
-    public BenchmarkRunner(AggregatedCellLibrary cellLibrary, File remoteConfigFile) {
+    /* simulationResultCache may be null */
+    public BenchmarkRunner(AggregatedCellLibrary cellLibrary, SimulationBackend simulationBackend,
+                           SimulationResultCache simulationResultCache, BenchmarkConfig config, File outFile) {
         this.cellLibrary = cellLibrary;
-        this.outFileName = "benchmarks-output/" + date() + ".csv";
-        this.remoteConfigFile = remoteConfigFile;
+        this.config = config;
+        if (outFile == null && config.getOutputFile() != null) {
+            outFile = new File(config.getOutputFile());
+        }
+        if (outFile == null) {
+            outFile = new File("benchmarks-output/" + date() + ".csv");
+        }
+        this.outFile = outFile;
+        this.simulationBackend = simulationBackend;
+        this.simulationResultCache = simulationResultCache;
     }
 
     private String date() {
@@ -58,34 +96,75 @@ public class BenchmarkRunner {
     }
 
     public void run() {
-        System.out.println("Running Benchmarks...");
-        this.count = 0;
-        this.startTime = System.currentTimeMillis();
+        logger.info("Running Benchmarks, writing to " + this.outFile + "...");
+        this.count = new AtomicInteger();
+        this.failedCount = new AtomicInteger();
+
+        /* netlists are parsed once, up front and on one thread; the entries only copy them */
+        Map<String, Netlist> netlists = new LinkedHashMap<>();
+        for (String netlistName : this.config.getNetlists()) {
+            netlists.put(netlistName, this.loadNetlist(this.config.getNetlistFile(netlistName)));
+        }
 
-        //String[] benchmarkNetlists = {"inc"};
-//        String benchmarkSubdir = "";
-//        String[] benchmarkNetlists = {"single-inv", "four-inv", "loop", "fanout-chain", "adder-nand"};
-        String benchmarkSubdir = "benchmarks-original/";
-        String[] benchmarkNetlists = {/*"inc", "mod10", "count10", "bufferx", "gcd", */"mult"};
-        double[] benchmarkOutCs = {0.0, 0.003, 0.012, 0.1, 1.0};
-        double[] inputDrivenMaxCIns = {0.005, 1.0};
-
-        int combinationCount = benchmarkNetlists.length * benchmarkOutCs.length * inputDrivenMaxCIns.length;
-
-        for (String netlistName : benchmarkNetlists) {
-            File netlistFile = new File("netlists/" + benchmarkSubdir + netlistName + ".v");
-            Netlist inlinedNetlist = this.loadNetlist(netlistFile);
-
-            for (double outputC : benchmarkOutCs) {
-                for (double inputDrivenMaxCIn : inputDrivenMaxCIns) {
-                    try {
-                        runBenchmarkEntry(inlinedNetlist, outputC, inputDrivenMaxCIn, combinationCount);
-                    } catch (IOException e) {
-                        throw new Error(e);
+        Set<String> completedKeys = BenchmarkCsvWriter.readCompletedKeys(this.outFile);
+        List<Entry> entries = new ArrayList<>();
+        int skippedCount = 0;
+        for (Netlist netlist : netlists.values()) {
+            for (double outputC : this.config.getOutputPinCapacitances()) {
+                for (double inputDrivenMaxCIn : this.config.getInputDrivenMaxCIns()) {
+                    for (String optimizerName : this.config.getOptimizers()) {
+                        if (optimizerName.equals("EDM") && !netlist.isAllSingleStage()) {
+                            continue;
+                        }
+                        if (completedKeys.contains(BenchmarkCsvWriter.entryKey(netlist.getName(), outputC, inputDrivenMaxCIn, optimizerName))) {
+                            skippedCount++;
+                            continue;
+                        }
+                        Entry entry = new Entry();
+                        entry.netlist = netlist;
+                        entry.outputC = outputC;
+                        entry.inputDrivenMaxCIn = inputDrivenMaxCIn;
+                        entry.optimizerName = optimizerName;
+                        entries.add(entry);
                     }
                 }
             }
         }
+        if (skippedCount > 0) {
+            logger.info("Skipping " + skippedCount + " benchmark entries already in " + this.outFile);
+        }
+        this.totalcount = entries.size();
+        if (entries.isEmpty()) {
+            logger.info("All benchmark entries are done");
+            return;
+        }
+        if (this.simulationBackend == null) {
+            throw new Error("Benchmarks need a simulation (-remoteConfig, -localSimulator or -simulationStandIn)");
+        }
+
+        int threadCount = Math.min(this.config.getThreads(), entries.size());
+        logger.info("Running " + entries.size() + " benchmark entries on " + threadCount + " threads, with up to "
+                    + this.config.getSimulationJobs() + " concurrent simulations");
+        this.startTime = System.currentTimeMillis();
+        BenchmarkCsvWriter csvWriter = new BenchmarkCsvWriter(this.outFile);
+        SimulationQueue simulationQueue = new SimulationQueue(this.simulationBackend, this.config.getSimulationJobs(),
+                                                              this.simulationResultCache);
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        for (Entry entry : entries) {
+            pool.submit(() -> this.runEntry(entry, simulationQueue, csvWriter));
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new Error(e);
+        } finally {
+            simulationQueue.close();
+            csvWriter.close();
+        }
+        if (this.failedCount.get() > 0) {
+            throw new Error(this.failedCount.get() + " of " + this.totalcount + " benchmark entries failed, run again to retry them");
+        }
     }
 
     private Netlist loadNetlist(File netlistFile) {
@@ -102,102 +181,106 @@ public class BenchmarkRunner {
         return inlinedNetlist;
     }
 
-    Map<String, AbstractDriveOptimizer> setupOptimizers(Netlist netlist, double outputC, double inputDrivenMaxCIn) {
-        Map<String, AbstractDriveOptimizer> optimizers = new HashMap<>();
-
-        Netlist netlistCopy;
-
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("NOP", new NopOptimizer(netlistCopy));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("ESE-clamp", new EqualStageEffortOptimizer(netlistCopy, 100, true));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("ESE-free", new EqualStageEffortOptimizer(netlistCopy, 100, false));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("NSE-clamp", new NeighborStageEffortOptimizer(netlistCopy, 100, true));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("SFL", new SelectForLoadOptimizer(netlistCopy, 100));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("TOP", new AllLargestOptimizer(netlistCopy));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("BOT", new AllSmallestOptimizer(netlistCopy));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("SA-D", new SimulatedAnnealingOptimizer(netlistCopy, false, 1000, 0));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("SA-E", new SimulatedAnnealingOptimizer(netlistCopy, false, 1000, 100));
-        netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-        optimizers.put("FO", new FanoutOptimizer(netlistCopy));
-        if (netlist.isAllSingleStage()) {
-            netlistCopy = copyAndReAnnotateNetlist(netlist, outputC, inputDrivenMaxCIn);
-            optimizers.put("EDM", new EqualDelayMatrixOptimizer(netlistCopy));
+    private AbstractDriveOptimizer createOptimizer(String optimizerName, Netlist netlistCopy) {
+        switch (optimizerName) {
+            case "NOP":
+                return new NopOptimizer(netlistCopy);
+            case "ESE-clamp":
+                return new EqualStageEffortOptimizer(netlistCopy, 100, true);
+            case "ESE-free":
+                return new EqualStageEffortOptimizer(netlistCopy, 100, false);
+            case "NSE-clamp":
+                return new NeighborStageEffortOptimizer(netlistCopy, 100, true);
+            case "SFL":
+                return new SelectForLoadOptimizer(netlistCopy, 100);
+            case "TOP":
+                return new AllLargestOptimizer(netlistCopy);
+            case "BOT":
+                return new AllSmallestOptimizer(netlistCopy);
+            case "SA-D":
+                return new SimulatedAnnealingOptimizer(netlistCopy, false, 1000, 0);
+            case "SA-E":
+                return new SimulatedAnnealingOptimizer(netlistCopy, false, 1000, 100);
+            case "FO":
+                return new FanoutOptimizer(netlistCopy);
+            case "EDM":
+                return new EqualDelayMatrixOptimizer(netlistCopy);
+            default:
+                throw new Error("Unknown benchmark optimizer " + optimizerName);
         }
-
-        return optimizers;
     }
 
-
-    private void runBenchmarkEntry(Netlist netlist, double outputC, double inputDrivenMaxCIn, int combinationCount) throws IOException {
-        System.out.println("Benchmark Entry " + netlist.getName() + ", outputC: " + outputC + ", inputDrivenMaxCIn: " + inputDrivenMaxCIn);
-
-        Map<String, AbstractDriveOptimizer> optimizers = setupOptimizers(netlist, outputC, inputDrivenMaxCIn);
-
-        int totalcount = optimizers.size() * combinationCount;
-
-
-        List<String> optimizerNamesSorted = new ArrayList<>(optimizers.keySet());
-        Collections.sort(optimizerNamesSorted);
-        for (String optimizerName : optimizerNamesSorted) {
-            AbstractDriveOptimizer optimizer = optimizers.get(optimizerName);
+    /* failures are counted and logged, the other entries keep running */
+    private void runEntry(Entry entry, SimulationQueue simulationQueue, BenchmarkCsvWriter csvWriter) {
+        String entryName = entry.netlist.getName() + ", outputC: " + entry.outputC + ", inputDrivenMaxCIn: "
+                           + entry.inputDrivenMaxCIn + ", " + entry.optimizerName;
+        try {
+            logger.info("Benchmark Entry " + entryName);
+            Netlist netlistCopy = copyAndReAnnotateNetlist(entry.netlist, entry.outputC, entry.inputDrivenMaxCIn);
+            AbstractDriveOptimizer optimizer = this.createOptimizer(entry.optimizerName, netlistCopy);
             optimizer.run();
 
-            int estimatedDelay = new DelayEstimator(optimizer.getNetlist(), false, false).run();
-            double estimatedEnergy = new EnergyEstimator(optimizer.getNetlist(), false).run();
-
-            RemoteSimulation rs = new RemoteSimulation(optimizer.getNetlist(), this.remoteConfigFile,
-                                                       outputC, false, false);
-            rs.run();
-            RemoteSimulationResult rsResult = rs.getResult();
-
-            String benchmarkOutput = "benchmark-entry,";
-            benchmarkOutput += netlist.getName() + ",";
-            benchmarkOutput += outputC + ",";
-            benchmarkOutput += inputDrivenMaxCIn + ",";
-            benchmarkOutput += optimizerName + ",";
-            benchmarkOutput += estimatedDelay + ",";
-            benchmarkOutput += rsResult.getSdfDelaySum("_orig") + ",";
-            //benchmarkOutput += rsResult.getSdfDelaySum("_noslew") + ",";
-            benchmarkOutput += rsResult.getSdfDelaySum("_noslew_nowire") + ",";
-            benchmarkOutput += rsResult.getTestbenchSuccessTime("_orig") + ",";
-            //benchmarkOutput += rsResult.getTestbenchSuccessTime("_noslew") + ",";
-            benchmarkOutput += rsResult.getTestbenchSuccessTime("_noslew_nowire") + ",";
-            benchmarkOutput += estimatedEnergy + ",";
-            benchmarkOutput += rsResult.getTestbenchEnergy();
-
-            PrintWriter fileOut = new PrintWriter(new BufferedWriter(new FileWriter(outFileName, true)));
-            fileOut.println(benchmarkOutput);
-            fileOut.close();
-
-            count++;
-            this.printProgress(totalcount);
+            BatchEstimator batchEstimator = new BatchEstimator(optimizer.getNetlist());
+            batchEstimator.run(true);
+            int estimatedDelay = (int) Math.round(batchEstimator.getDelay());
+            double estimatedEnergy = batchEstimator.getEnergy();
+
+            simulationQueue.submit(optimizer.getNetlist(), entry.outputC).whenComplete((rsResult, error) -> {
+                if (error != null) {
+                    this.entryFailed(entryName, error instanceof CompletionException ? error.getCause() : error);
+                    return;
+                }
+                try {
+                    this.writeEntryLine(entry, estimatedDelay, estimatedEnergy, rsResult, csvWriter);
+                } catch (Error | Exception e) {
+                    this.entryFailed(entryName, e);
+                    return;
+                }
+                this.printProgress(this.count.incrementAndGet());
+            });
+        } catch (Error | Exception e) {
+            this.entryFailed(entryName, e);
         }
+    }
 
+    private void entryFailed(String entryName, Throwable error) {
+        this.failedCount.incrementAndGet();
+        logger.error("Benchmark Entry " + entryName + " failed: " + error.getMessage());
+        this.printProgress(this.count.incrementAndGet());
+    }
 
+    private void writeEntryLine(Entry entry, int estimatedDelay, double estimatedEnergy,
+                                RemoteSimulationResult rsResult, BenchmarkCsvWriter csvWriter) {
+        String benchmarkOutput = BenchmarkCsvWriter.entryKey(entry.netlist.getName(), entry.outputC,
+                                                             entry.inputDrivenMaxCIn, entry.optimizerName) + ",";
+        benchmarkOutput += estimatedDelay + ",";
+        benchmarkOutput += rsResult.getSdfDelaySum("_orig") + ",";
+        //benchmarkOutput += rsResult.getSdfDelaySum("_noslew") + ",";
+        benchmarkOutput += rsResult.getSdfDelaySum("_noslew_nowire") + ",";
+        benchmarkOutput += rsResult.getTestbenchSuccessTime("_orig") + ",";
+        //benchmarkOutput += rsResult.getTestbenchSuccessTime("_noslew") + ",";
+        benchmarkOutput += rsResult.getTestbenchSuccessTime("_noslew_nowire") + ",";
+        benchmarkOutput += estimatedEnergy + ",";
+        benchmarkOutput += rsResult.getTestbenchEnergy();
+
+        csvWriter.writeLine(benchmarkOutput);
     }
 
-    private void printProgress(int totalcount) {
+    private void printProgress(int currentCount) {
         long currentTime = System.currentTimeMillis();
         long milliseconds = currentTime - startTime;
         int seconds = (int) (milliseconds / 1000) % 60 ;
         int minutes = (int) ((milliseconds / (1000*60)) % 60);
         int hours   = (int) ((milliseconds / (1000*60*60)) % 24);
-        System.out.println("Benchmark progress: " + count + " of "
-                        + totalcount + " (" + Math.round(100.0 * count / totalcount) + " %)"
+        logger.info("Benchmark progress: " + currentCount + " of "
+                        + totalcount + " (" + Math.round(100.0 * currentCount / totalcount) + " %)"
                         + " after " + hours + "h " + minutes + "m " + seconds + "s");
 
     }
 
+    /* without avatars: entries run concurrently and must not write sizes back to the shared netlist */
     private Netlist copyAndReAnnotateNetlist(Netlist originalNetlist, double outputC, double inputDrivenMaxCIn) {
-        Netlist copiedNetlist = new Netlist(originalNetlist);
+        Netlist copiedNetlist = new Netlist(originalNetlist, false);
         new LoadGraphAnnotator(copiedNetlist, outputC).run();
         new PredecessorAnnotator(copiedNetlist).run();
         if (inputDrivenMaxCIn > 0) {
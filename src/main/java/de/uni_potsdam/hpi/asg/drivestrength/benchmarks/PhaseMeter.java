@@ -0,0 +1,157 @@
+package de.uni_potsdam.hpi.asg.drivestrength.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Measures pipeline phases: wall time, CPU time and allocated bytes (summed over all live
+ * threads, so parallel phases count fully; threads ending during a phase are missed) and peak
+ * heap usage (sum of the heap pools' peaks, whose tracking is reset at the start of each phase).
+ * Allocation counting needs the HotSpot ThreadMXBean extension and is -1 without it.
+ */
+public class PhaseMeter {
+
+    public static class Measurement {
+        private String phase;
+        private int cellCount;
+        private double wallMillis;
+        private double cpuMillis;
+        private long allocatedBytes;
+        private long peakHeapBytes;
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public int getCellCount() {
+            return cellCount;
+        }
+
+        public double getWallMillis() {
+            return wallMillis;
+        }
+
+        public double getCpuMillis() {
+            return cpuMillis;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+    }
+
+    private ThreadMXBean threadBean;
+    private com.sun.management.ThreadMXBean allocationBean;
+    private List<MemoryPoolMXBean> heapPools;
+    private int cellCount;
+    private List<Measurement> measurements;
+
+    public PhaseMeter(int cellCount) {
+        this.cellCount = cellCount;
+        this.measurements = new ArrayList<>();
+        this.threadBean = ManagementFactory.getThreadMXBean();
+        if (this.threadBean.isThreadCpuTimeSupported() && !this.threadBean.isThreadCpuTimeEnabled()) {
+            this.threadBean.setThreadCpuTimeEnabled(true);
+        }
+        if (this.threadBean instanceof com.sun.management.ThreadMXBean) {
+            this.allocationBean = (com.sun.management.ThreadMXBean) this.threadBean;
+            if (this.allocationBean.isThreadAllocatedMemorySupported() && !this.allocationBean.isThreadAllocatedMemoryEnabled()) {
+                this.allocationBean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        this.heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                this.heapPools.add(pool);
+            }
+        }
+    }
+
+    public <T> T measure(String phase, Supplier<T> step) {
+        for (MemoryPoolMXBean pool : this.heapPools) {
+            pool.resetPeakUsage();
+        }
+        Map<Long, Long> cpuBefore = this.cpuTimes();
+        Map<Long, Long> allocatedBefore = this.allocatedBytes();
+        long wallBefore = System.nanoTime();
+
+        T result = step.get();
+
+        long wallAfter = System.nanoTime();
+        Measurement measurement = new Measurement();
+        measurement.phase = phase;
+        measurement.cellCount = this.cellCount;
+        measurement.wallMillis = (wallAfter - wallBefore) / 1e6;
+        measurement.cpuMillis = difference(this.cpuTimes(), cpuBefore) / 1e6;
+        measurement.allocatedBytes = allocatedBefore == null ? -1 : difference(this.allocatedBytes(), allocatedBefore);
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : this.heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        measurement.peakHeapBytes = peakHeap;
+        this.measurements.add(measurement);
+        return result;
+    }
+
+    public void measure(String phase, Runnable step) {
+        this.measure(phase, () -> {
+            step.run();
+            return null;
+        });
+    }
+
+    /* by thread id */
+    private Map<Long, Long> cpuTimes() {
+        Map<Long, Long> times = new HashMap<>();
+        if (!this.threadBean.isThreadCpuTimeSupported()) {
+            return times;
+        }
+        for (long threadId : this.threadBean.getAllThreadIds()) {
+            long time = this.threadBean.getThreadCpuTime(threadId);
+            if (time >= 0) {
+                times.put(threadId, time);
+            }
+        }
+        return times;
+    }
+
+    /* by thread id, null if not supported */
+    private Map<Long, Long> allocatedBytes() {
+        if (this.allocationBean == null || !this.allocationBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        long[] threadIds = this.allocationBean.getAllThreadIds();
+        long[] allocated = this.allocationBean.getThreadAllocatedBytes(threadIds);
+        Map<Long, Long> bytes = new HashMap<>();
+        for (int i = 0; i < threadIds.length; i++) {
+            if (allocated[i] >= 0) {
+                bytes.put(threadIds[i], allocated[i]);
+            }
+        }
+        return bytes;
+    }
+
+    /* threads started during the phase (e.g. a thread pool) count from zero */
+    private static long difference(Map<Long, Long> after, Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : after.entrySet()) {
+            total += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        return total;
+    }
+
+    public List<Measurement> getMeasurements() {
+        return measurements;
+    }
+}
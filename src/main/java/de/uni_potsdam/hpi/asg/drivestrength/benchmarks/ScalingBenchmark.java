@@ -0,0 +1,240 @@
+package de.uni_potsdam.hpi.asg.drivestrength.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.GsonBuilder;
+
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCellLibrary;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.CellAggregator;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.SizeCapacitanceMonotonizer;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.additionalinfo.AdditionalCellInfoParser;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.libertyparser.LibertyParser;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticCircuitConfig;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticLibraryWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticNetlistWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.InputDrivenAnnotator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.LoadGraphAnnotator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.PredecessorAnnotator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistAssignCleaner;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistBundleSplitter;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistFlattener;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistInliner;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.verilogparser.VerilogParser;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.OptimizerFactory;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+/**
+ * Runs the pipeline of DrivestrengthMain (parse, flatten, inline, bundle split, assign clean,
+ * annotate, estimate, optimize, write) on synthetic circuits of increasing cell counts, with
+ * the synthetic library, and measures each phase with a PhaseMeter. Per phase, the growth
+ * exponent b of time ~ cellCount^b is fitted (least squares in log-log); phases with a wall
+ * time exponent above 1.2 are flagged as super-linear. The smallest circuit is run once
+ * before, unmeasured, to warm up the JIT.
+ *
+ * The report is written as <report>.csv (one line per phase and cell count) and <report>.json
+ * (measurements plus fitted exponents).
+ */
+public class ScalingBenchmark {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private static final double superLinearExponent = 1.2;
+    private static final String[] phases = {"parse", "flatten", "inline", "bundleSplit", "assignClean",
+                                             "annotate", "estimate", "optimize", "write"};
+
+    private static class PhaseFit {
+        private String phase;
+        private double wallTimeExponent;
+        private double cpuTimeExponent;
+        private double allocationExponent;
+        private double peakHeapExponent;
+        private boolean superLinear;
+    }
+
+    private static class Report {
+        private String optimizer;
+        private List<Integer> cellCounts;
+        private List<PhaseMeter.Measurement> measurements;
+        private List<PhaseFit> fits;
+    }
+
+    private List<Integer> cellCounts;
+    private SyntheticCircuitConfig circuitConfig;
+    private String optimizerName;
+    private OptimizerFactory optimizerFactory;
+    private double outputPinCapacitance;
+    private double inputDrivenMaxCIn;
+    private File reportFile;
+    private File directory;
+    private AggregatedCellLibrary cellLibrary;
+
+    public ScalingBenchmark(List<Integer> cellCounts, SyntheticCircuitConfig circuitConfig, String optimizerName,
+                            OptimizerFactory optimizerFactory, double outputPinCapacitance, double inputDrivenMaxCIn,
+                            File reportFile) {
+        if (cellCounts.isEmpty()) {
+            throw new Error("Scaling benchmark needs at least one cell count");
+        }
+        this.cellCounts = new ArrayList<>(cellCounts);
+        this.cellCounts.sort(null);
+        this.circuitConfig = circuitConfig;
+        this.optimizerName = optimizerName;
+        this.optimizerFactory = optimizerFactory;
+        this.outputPinCapacitance = outputPinCapacitance;
+        this.inputDrivenMaxCIn = inputDrivenMaxCIn;
+        this.reportFile = reportFile;
+    }
+
+    public void run() {
+        try {
+            this.directory = Files.createTempDirectory("drivestrength-scaling").toFile();
+        } catch (IOException e) {
+            throw new Error("Cannot create directory for the scaling benchmark: " + e.getMessage());
+        }
+        try {
+            this.loadLibrary();
+            logger.info("Scaling benchmark: warming up with " + this.cellCounts.get(0) + " cells");
+            this.runPipeline(this.cellCounts.get(0));
+
+            List<PhaseMeter.Measurement> measurements = new ArrayList<>();
+            for (int cellCount : this.cellCounts) {
+                logger.info("Scaling benchmark: " + cellCount + " cells");
+                List<PhaseMeter.Measurement> sizeMeasurements = this.runPipeline(cellCount);
+                for (PhaseMeter.Measurement m : sizeMeasurements) {
+                    logger.info(String.format(Locale.US, "  %-12s %10.1f ms wall %10.1f ms cpu %,14d bytes allocated %,14d bytes peak heap",
+                                              m.getPhase(), m.getWallMillis(), m.getCpuMillis(), m.getAllocatedBytes(), m.getPeakHeapBytes()));
+                }
+                measurements.addAll(sizeMeasurements);
+            }
+
+            List<PhaseFit> fits = this.fit(measurements);
+            this.writeReport(measurements, fits);
+        } finally {
+            FileHelper.deleteDirectory(this.directory.getPath());
+        }
+    }
+
+    private void loadLibrary() {
+        File libertyFile = new File(this.directory, "synthetic.lib");
+        File cellInfoFile = new File(this.directory, "synthetic.json");
+        SyntheticLibraryWriter libraryWriter = new SyntheticLibraryWriter(this.circuitConfig);
+        libraryWriter.writeLiberty(libertyFile);
+        libraryWriter.writeCellInfo(cellInfoFile);
+        this.cellLibrary = new CellAggregator(new LibertyParser(libertyFile).run(),
+                                              new AdditionalCellInfoParser(cellInfoFile).run(), false).run();
+        new SizeCapacitanceMonotonizer(this.cellLibrary).run();
+    }
+
+    private List<PhaseMeter.Measurement> runPipeline(int cellCount) {
+        this.circuitConfig.setCellCount(cellCount);
+        File netlistFile = new File(this.directory, "synthetic_" + cellCount + ".v");
+        File outputFile = new File(this.directory, "synthetic_" + cellCount + "_out.v");
+        new SyntheticNetlistWriter(this.circuitConfig).write(netlistFile);
+        System.gc();
+
+        PhaseMeter meter = new PhaseMeter(cellCount);
+        Netlist netlist = meter.measure("parse", () -> new VerilogParser(netlistFile, this.cellLibrary, false).createNetlist());
+        meter.measure("flatten", () -> new NetlistFlattener(netlist).run());
+        Netlist inlinedNetlist = meter.measure("inline", () -> new NetlistInliner(netlist).run());
+        meter.measure("bundleSplit", () -> new NetlistBundleSplitter(inlinedNetlist).run());
+        meter.measure("assignClean", () -> new NetlistAssignCleaner(inlinedNetlist).run());
+        meter.measure("annotate", () -> {
+            new LoadGraphAnnotator(inlinedNetlist, this.outputPinCapacitance).run();
+            new InputDrivenAnnotator(inlinedNetlist, this.inputDrivenMaxCIn).run();
+            new PredecessorAnnotator(inlinedNetlist).run();
+        });
+        meter.measure("estimate", () -> {
+            new DelayEstimator(inlinedNetlist, false, false).run();
+            new EnergyEstimator(inlinedNetlist, false).run();
+        });
+        meter.measure("optimize", () -> this.optimizerFactory.create(this.optimizerName, inlinedNetlist).run());
+        meter.measure("write", () -> FileHelper.writeStringToTextFile(netlist.toVerilog(), outputFile));
+
+        netlistFile.delete();
+        outputFile.delete();
+        return meter.getMeasurements();
+    }
+
+    private List<PhaseFit> fit(List<PhaseMeter.Measurement> measurements) {
+        List<PhaseFit> fits = new ArrayList<>();
+        for (String phase : phases) {
+            List<PhaseMeter.Measurement> phaseMeasurements = new ArrayList<>();
+            for (PhaseMeter.Measurement m : measurements) {
+                if (m.getPhase().equals(phase)) {
+                    phaseMeasurements.add(m);
+                }
+            }
+            PhaseFit fit = new PhaseFit();
+            fit.phase = phase;
+            fit.wallTimeExponent = exponent(phaseMeasurements, m -> m.getWallMillis());
+            fit.cpuTimeExponent = exponent(phaseMeasurements, m -> m.getCpuMillis());
+            fit.allocationExponent = exponent(phaseMeasurements, m -> m.getAllocatedBytes());
+            fit.peakHeapExponent = exponent(phaseMeasurements, m -> m.getPeakHeapBytes());
+            fit.superLinear = fit.wallTimeExponent > superLinearExponent;
+            fits.add(fit);
+            String line = String.format(Locale.US, "Scaling of %-12s time ~ n^%.2f (cpu n^%.2f), allocation ~ n^%.2f, peak heap ~ n^%.2f",
+                                        phase, fit.wallTimeExponent, fit.cpuTimeExponent, fit.allocationExponent, fit.peakHeapExponent);
+            if (fit.superLinear) {
+                logger.warn(line + ": super-linear");
+            } else {
+                logger.info(line);
+            }
+        }
+        return fits;
+    }
+
+    /* slope of the least-squares line through (log n, log value); NaN for fewer than two usable points */
+    private static double exponent(List<PhaseMeter.Measurement> measurements, ToDoubleFunction<PhaseMeter.Measurement> metric) {
+        int count = 0;
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        for (PhaseMeter.Measurement m : measurements) {
+            double value = metric.applyAsDouble(m);
+            if (value <= 0) {
+                continue;
+            }
+            double x = Math.log(m.getCellCount());
+            double y = Math.log(value);
+            count++;
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+        }
+        double denominator = count * sumXX - sumX * sumX;
+        if (count < 2 || denominator == 0) {
+            return Double.NaN;
+        }
+        return (count * sumXY - sumX * sumY) / denominator;
+    }
+
+    private void writeReport(List<PhaseMeter.Measurement> measurements, List<PhaseFit> fits) {
+        StringBuilder csv = new StringBuilder("phase,cellCount,wallMillis,cpuMillis,allocatedBytes,peakHeapBytes\n");
+        for (PhaseMeter.Measurement m : measurements) {
+            csv.append(m.getPhase()).append(',').append(m.getCellCount()).append(',')
+               .append(String.format(Locale.US, "%.3f,%.3f", m.getWallMillis(), m.getCpuMillis())).append(',')
+               .append(m.getAllocatedBytes()).append(',').append(m.getPeakHeapBytes()).append('\n');
+        }
+        File csvFile = new File(this.reportFile.getPath() + ".csv");
+        FileHelper.writeStringToTextFile(csv.toString(), csvFile);
+
+        Report report = new Report();
+        report.optimizer = this.optimizerName;
+        report.cellCounts = this.cellCounts;
+        report.measurements = measurements;
+        report.fits = fits;
+        File jsonFile = new File(this.reportFile.getPath() + ".json");
+        FileHelper.writeStringToTextFile(new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues()
+                                                          .create().toJson(report), jsonFile);
+        logger.info("Wrote scaling report to " + csvFile + " and " + jsonFile);
+    }
+}
@@ -0,0 +1,257 @@
+package de.uni_potsdam.hpi.asg.drivestrength.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.sizeassignment.SizeAssignment;
+
+/**
+ * State of a running optimizer: the netlist's selected sizes and theoretical input pin
+ * capacitances (enough to restart any optimizer where it was), plus whatever an optimizer adds
+ * to continue exactly: named numbers, further sizes and number arrays. Files are gzipped binary:
+ *
+ *   magic, version, optimizer, sizes, capacitances, numbers, size assignments, arrays
+ *
+ * A checkpoint taken from a running optimizer only copies arrays (sizes by cell index and
+ * capacitances in cell order); the name-keyed maps of the file format are built from them when
+ * it is written, on the CheckpointWriter's thread, so taking one costs the optimizer little.
+ */
+public class Checkpoint {
+
+    private static final int binaryMagic = 0x4453434b;
+    private static final int binaryVersion = 2;
+
+    private String optimizerName;
+    private List<CellInstance> cellInstances;       //of the snapshot, null once resolved or when read from a file
+    private Cell[] snapshotSelectedSizes;           //by cell index
+    private double[] snapshotCapacitances;          //all cells' pins, ordered like getInputPinNames()
+    private Map<String, Cell[]> snapshotSizes;
+    private SizeAssignment sizes;
+    private Map<String, SizeAssignment> sizeAssignments;
+    private Map<String, double[]> theoreticalCapacitances;   //by instance name, ordered like getInputPinNames()
+    private Map<String, Double> numbers;
+    private Map<String, double[]> arrays;
+
+    private Checkpoint(String optimizerName) {
+        this.optimizerName = optimizerName;
+        this.snapshotSizes = new LinkedHashMap<>();
+        this.sizeAssignments = new LinkedHashMap<>();
+        this.numbers = new LinkedHashMap<>();
+        this.arrays = new LinkedHashMap<>();
+    }
+
+    public static Checkpoint fromNetlist(String optimizerName, Netlist inlinedNetlist) {
+        Checkpoint checkpoint = new Checkpoint(optimizerName);
+        checkpoint.cellInstances = inlinedNetlist.getRootModule().getCellInstances();
+        Cell[] sizes = new Cell[checkpoint.cellInstances.size()];
+        int pinCount = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            CellInstance c = checkpoint.cellInstances.get(i);
+            sizes[i] = c.getSelectedSize();
+            pinCount += c.getInputPinNames().size();
+        }
+        double[] capacitances = new double[pinCount];
+        int p = 0;
+        for (CellInstance c : checkpoint.cellInstances) {
+            for (String pinName : c.getInputPinNames()) {
+                capacitances[p++] = c.getInputPinTheoreticalCapacitance(pinName);
+            }
+        }
+        checkpoint.snapshotSelectedSizes = sizes;
+        checkpoint.snapshotCapacitances = capacitances;
+        return checkpoint;
+    }
+
+    /* builds the name-keyed state from the snapshot arrays; instance names and definitions do
+     * not change while optimizing, so this may run on another thread */
+    private synchronized void resolveSnapshot() {
+        if (this.cellInstances == null) {
+            return;
+        }
+        this.sizes = this.toSizeAssignment(this.snapshotSelectedSizes);
+        for (Map.Entry<String, Cell[]> entry : this.snapshotSizes.entrySet()) {
+            this.sizeAssignments.put(entry.getKey(), this.toSizeAssignment(entry.getValue()));
+        }
+        this.theoreticalCapacitances = new LinkedHashMap<>();
+        int p = 0;
+        for (CellInstance c : this.cellInstances) {
+            double[] capacitances = new double[c.getInputPinNames().size()];
+            System.arraycopy(this.snapshotCapacitances, p, capacitances, 0, capacitances.length);
+            p += capacitances.length;
+            this.theoreticalCapacitances.put(c.getName(), capacitances);
+        }
+        this.cellInstances = null;
+        this.snapshotSelectedSizes = null;
+        this.snapshotSizes = null;
+        this.snapshotCapacitances = null;
+    }
+
+    private SizeAssignment toSizeAssignment(Cell[] sizesByIndex) {
+        Map<String, String> sizeNames = new LinkedHashMap<>();
+        for (int i = 0; i < sizesByIndex.length; i++) {
+            sizeNames.put(this.cellInstances.get(i).getName(), sizesByIndex[i].getName());
+        }
+        return SizeAssignment.fromSizeNames(sizeNames);
+    }
+
+    /* restores sizes and theoretical capacitances; the optimizer restores the rest */
+    public void applyTo(Netlist inlinedNetlist) {
+        this.resolveSnapshot();
+        for (CellInstance c : inlinedNetlist.getRootModule().getCellInstances()) {
+            double[] capacitances = this.theoreticalCapacitances.get(c.getName());
+            if (capacitances == null) {
+                throw new Error("Checkpoint does not match the netlist: no state for " + c.getName());
+            }
+            if (capacitances.length != c.getInputPinNames().size()) {
+                throw new Error("Checkpoint does not match the netlist: pin count of " + c.getName());
+            }
+            c.commitInputPinTheoreticalCapacitances(capacitances, 0);
+        }
+        this.sizes.applyTo(inlinedNetlist);
+    }
+
+    public String getOptimizerName() {
+        return this.optimizerName;
+    }
+
+    public void putNumber(String name, double value) {
+        this.numbers.put(name, value);
+    }
+
+    public boolean hasNumber(String name) {
+        return this.numbers.containsKey(name);
+    }
+
+    public double getNumber(String name) {
+        Double value = this.numbers.get(name);
+        if (value == null) {
+            throw new Error("Checkpoint of " + this.optimizerName + " has no value " + name);
+        }
+        return value;
+    }
+
+    /* sizes by index of the checkpointed netlist's cell instances; the array is copied */
+    public void putSizes(String name, Cell[] sizes) {
+        if (this.cellInstances == null || sizes.length != this.cellInstances.size()) {
+            throw new Error("Sizes for checkpoint " + name + " do not match its netlist");
+        }
+        this.snapshotSizes.put(name, sizes.clone());
+    }
+
+    /* null if there is none under this name */
+    public SizeAssignment getSizeAssignment(String name) {
+        this.resolveSnapshot();
+        return this.sizeAssignments.get(name);
+    }
+
+    /* the array is copied */
+    public void putArray(String name, double[] values) {
+        this.arrays.put(name, values.clone());
+    }
+
+    /* null if there is none under this name */
+    public double[] getArray(String name) {
+        double[] values = this.arrays.get(name);
+        return values == null ? null : values.clone();
+    }
+
+    public void write(File file) {
+        this.resolveSnapshot();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(binaryMagic);
+            out.writeInt(binaryVersion);
+            out.writeUTF(this.optimizerName);
+            this.sizes.writeTo(out);
+            out.writeInt(this.theoreticalCapacitances.size());
+            for (Map.Entry<String, double[]> entry : this.theoreticalCapacitances.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeDoubles(out, entry.getValue());
+            }
+            out.writeInt(this.numbers.size());
+            for (Map.Entry<String, Double> entry : this.numbers.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeDouble(entry.getValue());
+            }
+            out.writeInt(this.sizeAssignments.size());
+            for (Map.Entry<String, SizeAssignment> entry : this.sizeAssignments.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+            out.writeInt(this.arrays.size());
+            for (Map.Entry<String, double[]> entry : this.arrays.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeDoubles(out, entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new Error("Could not write checkpoint " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] values = new double[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    public static Checkpoint read(File file) {
+        try (InputStream fileIn = new BufferedInputStream(new FileInputStream(file));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(fileIn)))) {
+            if (in.readInt() != binaryMagic) {
+                throw new Error("Not a checkpoint file: " + file);
+            }
+            int version = in.readInt();
+            if (version != binaryVersion) {
+                throw new Error("Unsupported checkpoint version " + version + " in " + file);
+            }
+            Checkpoint checkpoint = new Checkpoint(in.readUTF());
+            checkpoint.sizes = SizeAssignment.readFrom(in, file.toString());
+            checkpoint.theoreticalCapacitances = new LinkedHashMap<>();
+            int instanceCount = in.readInt();
+            for (int i = 0; i < instanceCount; i++) {
+                String instanceName = in.readUTF();
+                checkpoint.theoreticalCapacitances.put(instanceName, readDoubles(in));
+            }
+            int numberCount = in.readInt();
+            for (int i = 0; i < numberCount; i++) {
+                checkpoint.numbers.put(in.readUTF(), in.readDouble());
+            }
+            int sizeAssignmentCount = in.readInt();
+            for (int i = 0; i < sizeAssignmentCount; i++) {
+                String name = in.readUTF();
+                checkpoint.sizeAssignments.put(name, SizeAssignment.readFrom(in, file.toString()));
+            }
+            int arrayCount = in.readInt();
+            for (int i = 0; i < arrayCount; i++) {
+                String name = in.readUTF();
+                checkpoint.arrays.put(name, readDoubles(in));
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            throw new Error("Could not read checkpoint " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.uni_potsdam.hpi.asg.drivestrength.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes checkpoints on a background thread. submit() only hands the checkpoint over: if the
+ * previous one is still being written, the newer one waits in its place (older waiting ones are
+ * dropped), so the optimizer thread never waits for the disk.
+ *
+ * The newest checkpoint is always at the given file, written to a temporary file first and then
+ * moved there, so a crash while writing leaves the previous one intact. Older ones are kept
+ * rotated as file.1 (the previous), file.2, ... up to retention files in total.
+ */
+public class CheckpointWriter {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private File file;
+    private int retention;
+    private ExecutorService executor;
+    private AtomicReference<Checkpoint> waiting;
+    private int writtenCount;
+
+    public CheckpointWriter(File file, int retention) {
+        if (retention < 1) {
+            throw new Error("Checkpoint retention must be at least 1, got " + retention);
+        }
+        this.file = file;
+        this.retention = retention;
+        this.waiting = new AtomicReference<>();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void submit(Checkpoint checkpoint) {
+        if (this.waiting.getAndSet(checkpoint) == null) {
+            this.executor.execute(this::writeWaiting);
+        }
+    }
+
+    private void writeWaiting() {
+        Checkpoint checkpoint = this.waiting.getAndSet(null);
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            File temporaryFile = new File(this.file.getPath() + ".tmp");
+            checkpoint.write(temporaryFile);
+            this.rotate();
+            this.move(temporaryFile, this.file);
+            this.writtenCount++;
+            logger.debug("Wrote checkpoint " + this.writtenCount + " to " + this.file);
+        } catch (Error | IOException e) {
+            logger.warn("Could not write checkpoint to " + this.file + ": " + e.getMessage());
+        }
+    }
+
+    private void rotate() throws IOException {
+        for (int k = this.retention - 1; k >= 1; k--) {
+            File older = this.rotatedFile(k - 1);
+            if (older.exists()) {
+                this.move(older, this.rotatedFile(k));
+            }
+        }
+    }
+
+    /* 0: the newest */
+    private File rotatedFile(int age) {
+        return age == 0 ? this.file : new File(this.file.getPath() + "." + age);
+    }
+
+    private void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /* writes what is still waiting and stops the background thread */
+    public void close() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Checkpoint writer did not finish within a minute");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.writtenCount > 0) {
+            logger.info("Wrote " + this.writtenCount + " checkpoints to " + this.file);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package de.uni_potsdam.hpi.asg.drivestrength.eco;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.uni_potsdam.hpi.asg.drivestrength.eco.PreviousSizing.PreviousInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.AbstractDriveOptimizer;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.OptimizerFactory;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.Subnetlist;
+
+/**
+ * Re-optimizes an edited netlist starting from the sizes of a previous run (engineering change
+ * order). Instances are matched by name and signature (by name alone if the previous sizing has
+ * no signatures), renamed instances by a unique signature;
+ * matched instances keep their previous sizes. Only the cells within a radius (in load graph
+ * hops) of the new, rewired and deleted instances are optimized, warm-started, on a subnetlist
+ * whose boundary loads are frozen.
+ */
+public class EcoOptimizer extends AbstractDriveOptimizer {
+
+    private PreviousSizing previousSizing;
+    private int radius;
+    private String optimizerSpec;
+    private OptimizerFactory optimizerFactory;
+
+    public EcoOptimizer(Netlist netlist, PreviousSizing previousSizing, int radius, String optimizerSpec,
+                        OptimizerFactory optimizerFactory) {
+        super(netlist);
+        if (radius < 0) {
+            throw new Error("ECO radius must not be negative");
+        }
+        this.previousSizing = previousSizing;
+        this.radius = radius;
+        this.optimizerSpec = optimizerSpec;
+        this.optimizerFactory = optimizerFactory;
+    }
+
+    @Override
+    protected void optimize() {
+        if (!this.previousSizing.hasSignatures()) {
+            logger.warn("ECO: the previous sizes carry no connections, only new instances and instances of another cell type are re-optimized");
+        }
+        Map<CellInstance, PreviousInstance> matches = new IdentityHashMap<>();
+        Set<String> matchedPreviousNames = new HashSet<>();
+        for (CellInstance c : this.cellInstances) {
+            PreviousInstance previous = this.previousSizing.get(c.getName());
+            if (previous != null && (previous.getSignature() == null || previous.getSignature().equals(PreviousSizing.signatureOf(c)))) {
+                matches.put(c, previous);
+                matchedPreviousNames.add(previous.getName());
+            }
+        }
+        int matchedByName = matches.size();
+
+        /* renamed instances: unique signature among the unmatched previous instances */
+        Map<String, List<PreviousInstance>> unmatchedBySignature = new HashMap<>();
+        for (PreviousInstance previous : this.previousSizing.getInstances()) {
+            if (!matchedPreviousNames.contains(previous.getName()) && previous.getSignature() != null) {
+                unmatchedBySignature.computeIfAbsent(previous.getSignature(), s -> new ArrayList<>()).add(previous);
+            }
+        }
+        for (CellInstance c : this.cellInstances) {
+            if (matches.containsKey(c)) {
+                continue;
+            }
+            List<PreviousInstance> candidates = unmatchedBySignature.get(PreviousSizing.signatureOf(c));
+            if (candidates != null && candidates.size() == 1) {
+                matches.put(c, candidates.get(0));
+                matchedPreviousNames.add(candidates.get(0).getName());
+                candidates.clear();
+            }
+        }
+        int matchedBySignature = matches.size() - matchedByName;
+
+        Set<CellInstance> seeds = new LinkedHashSet<>();
+        for (CellInstance c : this.cellInstances) {
+            PreviousInstance previous = matches.get(c);
+            if (previous != null && c.getDefinition().containsSizeName(previous.getSizeName())) {
+                c.selectSize(c.getDefinition().getSizeByName(previous.getSizeName()));
+            } else {
+                seeds.add(c);
+            }
+        }
+        int changedCount = seeds.size();
+
+        /* drivers of signals read by deleted (or rewired) instances have lost loads */
+        Set<String> signalsWithLostReaders = new HashSet<>();
+        int deletedCount = 0;
+        for (PreviousInstance previous : this.previousSizing.getInstances()) {
+            if (!matchedPreviousNames.contains(previous.getName())) {
+                signalsWithLostReaders.addAll(previous.getInputSignalNames());
+                deletedCount++;
+            }
+        }
+        for (CellInstance c : this.cellInstances) {
+            if (signalsWithLostReaders.contains(c.getOutputSignal().getName())) {
+                seeds.add(c);
+            }
+        }
+
+        logger.info("ECO: " + matchedByName + " instances matched by name, " + matchedBySignature + " by signature, "
+                    + changedCount + " new or changed, " + deletedCount + " previous instances removed or changed");
+        if (seeds.isEmpty()) {
+            logger.info("ECO: no changes, keeping the previous sizes");
+            return;
+        }
+
+        List<Integer> region = this.regionAround(seeds);
+        logger.info("ECO: re-optimizing " + region.size() + " of " + this.cellInstances.size()
+                    + " cells within radius " + this.radius);
+        Subnetlist subnetlist = new Subnetlist(this.getNetlist(), region, "_eco");
+        AbstractDriveOptimizer optimizer = this.optimizerFactory.create(this.optimizerSpec, subnetlist.getNetlist(), true);
+        optimizer.run();
+        subnetlist.writeBackSizes();
+    }
+
+    /* breadth-first search along predecessors and successors, returns sorted cell indices */
+    private List<Integer> regionAround(Set<CellInstance> seeds) {
+        Map<CellInstance, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < this.cellInstances.size(); i++) {
+            indices.put(this.cellInstances.get(i), i);
+        }
+        Map<CellInstance, Integer> distances = new LinkedHashMap<>();
+        List<CellInstance> frontier = new ArrayList<>(seeds);
+        for (CellInstance c : seeds) {
+            distances.put(c, 0);
+        }
+        for (int distance = 1; distance <= this.radius && !frontier.isEmpty(); distance++) {
+            List<CellInstance> nextFrontier = new ArrayList<>();
+            for (CellInstance c : frontier) {
+                List<CellInstance> neighbours = new ArrayList<>(c.getPredecessors());
+                neighbours.addAll(c.getSuccessors());
+                for (CellInstance n : neighbours) {
+                    if (!distances.containsKey(n)) {
+                        distances.put(n, distance);
+                        nextFrontier.add(n);
+                    }
+                }
+            }
+            frontier = nextFrontier;
+        }
+        List<Integer> region = new ArrayList<>();
+        for (CellInstance c : distances.keySet()) {
+            region.add(indices.get(c));
+        }
+        Collections.sort(region);
+        return region;
+    }
+}
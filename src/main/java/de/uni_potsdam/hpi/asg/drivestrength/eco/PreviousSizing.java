@@ -0,0 +1,111 @@
+package de.uni_potsdam.hpi.asg.drivestrength.eco;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.PinAssignment;
+import de.uni_potsdam.hpi.asg.drivestrength.sizeassignment.SizeAssignment;
+
+/**
+ * The sizes of a previously optimized netlist, by instance name, together with what is needed to
+ * recognize an instance in an edited netlist: its signature (cell type and connections) and the
+ * signals it reads. Read from a size assignment, only names and sizes are known: instances are
+ * matched by name alone, and rewired or deleted instances cannot be recognized.
+ */
+public class PreviousSizing {
+
+    public static class PreviousInstance {
+        private String name;
+        private String sizeName;
+        private String signature; // null if read from a size assignment
+        private List<String> inputSignalNames;
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSizeName() {
+            return sizeName;
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+
+        public List<String> getInputSignalNames() {
+            return inputSignalNames;
+        }
+    }
+
+    private Map<String, PreviousInstance> instances;
+    private boolean withSignatures;
+
+    private PreviousSizing() {
+        this.instances = new LinkedHashMap<>();
+    }
+
+    /* the netlist must be inlined and parsed with its selected sizes kept */
+    public static PreviousSizing fromNetlist(Netlist previousInlinedNetlist) {
+        if (!previousInlinedNetlist.isInlined()) {
+            throw new Error("Previous sizing needs an inlined netlist");
+        }
+        PreviousSizing sizing = new PreviousSizing();
+        sizing.withSignatures = true;
+        for (CellInstance c : previousInlinedNetlist.getRootModule().getCellInstances()) {
+            PreviousInstance instance = new PreviousInstance();
+            instance.name = c.getName();
+            /* inlined copies of module instances start with default sizes, their avatars hold the parsed ones */
+            instance.sizeName = c.getAvatarOrSelf().getSelectedSize().getName();
+            instance.signature = signatureOf(c);
+            instance.inputSignalNames = new ArrayList<>();
+            for (String pinName : c.getInputPinNames()) {
+                instance.inputSignalNames.add(c.getInputSignal(pinName).getName());
+            }
+            sizing.instances.put(instance.name, instance);
+        }
+        return sizing;
+    }
+
+    public static PreviousSizing fromSizeAssignment(SizeAssignment sizeAssignment) {
+        PreviousSizing sizing = new PreviousSizing();
+        sizing.withSignatures = false;
+        for (String instanceName : sizeAssignment.getInstanceNames()) {
+            PreviousInstance instance = new PreviousInstance();
+            instance.name = instanceName;
+            instance.sizeName = sizeAssignment.getSizeName(instanceName);
+            instance.inputSignalNames = new ArrayList<>();
+            sizing.instances.put(instance.name, instance);
+        }
+        return sizing;
+    }
+
+    public static String signatureOf(CellInstance c) {
+        List<String> pins = new ArrayList<>();
+        for (PinAssignment p : c.getPinAssignments()) {
+            pins.add(p.toVerilog());
+        }
+        Collections.sort(pins);
+        return c.getDefinition().getName() + " " + String.join(" ", pins);
+    }
+
+    public PreviousInstance get(String instanceName) {
+        return this.instances.get(instanceName);
+    }
+
+    public List<PreviousInstance> getInstances() {
+        return new ArrayList<>(this.instances.values());
+    }
+
+    public boolean hasSignatures() {
+        return this.withSignatures;
+    }
+
+    public int size() {
+        return this.instances.size();
+    }
+}
@@ -0,0 +1,173 @@
+package de.uni_potsdam.hpi.asg.drivestrength.generator;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+/**
+ * Shape of a synthetic circuit. Read from a JSON file; missing fields keep the defaults below:
+ *
+ *   cellCount        total number of cells (the leaf module's cells times replication^hierarchyDepth)
+ *   logicDepth       cell levels per leaf module; cells mostly read the previous level
+ *   fanoutExponent   0: sources picked uniformly (Poisson-like fanouts); larger values give a
+ *                    heavier tail, sources being picked with probability ~ rank^-fanoutExponent
+ *   loopDensity      share of cell inputs reading a cell of the same or a later level (loops)
+ *   hierarchyDepth   module levels above the leaf module, each chaining replication instances
+ *                    of the level below
+ *   bundleWidth      width of the module ports (bundles, split when the netlist is read)
+ *   footprintSizes   footprint -> drive strength sizes (fanout factors) of the library
+ */
+public class SyntheticCircuitConfig {
+
+    private String name = "synthetic";
+    private long seed = 1;
+    private int cellCount = 1000;
+    private int logicDepth = 20;
+    private double fanoutExponent = 0.5;
+    private double loopDensity = 0.01;
+    private int hierarchyDepth = 0;
+    private int replication = 2;
+    private int bundleWidth = 8;
+    private Map<String, List<Double>> footprintSizes = defaultFootprintSizes();
+
+    public SyntheticCircuitConfig() {
+    }
+
+    private static Map<String, List<Double>> defaultFootprintSizes() {
+        Map<String, List<Double>> sizes = new LinkedHashMap<>();
+        sizes.put("INV", Arrays.asList(0.5, 1.0, 2.0, 4.0));
+        sizes.put("NAND2", Arrays.asList(1.0, 2.0, 4.0));
+        sizes.put("NOR2", Arrays.asList(1.0, 2.0, 4.0));
+        sizes.put("BUF", Arrays.asList(1.0, 2.0, 4.0));
+        sizes.put("AND2", Arrays.asList(1.0, 2.0, 4.0));
+        return sizes;
+    }
+
+    public static SyntheticCircuitConfig read(File configFile) {
+        SyntheticCircuitConfig config;
+        try {
+            config = new Gson().fromJson(FileHelper.readTextFileToString(configFile), SyntheticCircuitConfig.class);
+        } catch (JsonParseException e) {
+            throw new Error("Could not parse synthetic circuit config " + configFile + ": " + e.getMessage());
+        }
+        if (config == null) {
+            throw new Error("Synthetic circuit config " + configFile + " is empty");
+        }
+        config.check();
+        return config;
+    }
+
+    public void check() {
+        if (this.cellCount < 1) {
+            throw new Error("Synthetic circuit needs at least one cell, got " + this.cellCount);
+        }
+        if (this.logicDepth < 1) {
+            throw new Error("Synthetic circuit logic depth must be at least 1, got " + this.logicDepth);
+        }
+        if (this.fanoutExponent < 0) {
+            throw new Error("Synthetic circuit fanout exponent must not be negative, got " + this.fanoutExponent);
+        }
+        if (this.loopDensity < 0 || this.loopDensity > 1) {
+            throw new Error("Synthetic circuit loop density must be between 0 and 1, got " + this.loopDensity);
+        }
+        if (this.hierarchyDepth < 0 || this.replication < 1) {
+            throw new Error("Synthetic circuit needs hierarchyDepth >= 0 and replication >= 1");
+        }
+        if (this.bundleWidth < 1) {
+            throw new Error("Synthetic circuit bundle width must be at least 1, got " + this.bundleWidth);
+        }
+        if (this.footprintSizes == null || this.footprintSizes.isEmpty()) {
+            throw new Error("Synthetic circuit needs at least one footprint");
+        }
+        for (Map.Entry<String, List<Double>> entry : this.footprintSizes.entrySet()) {
+            SyntheticLibraryWriter.checkFootprint(entry.getKey());
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                throw new Error("Synthetic footprint " + entry.getKey() + " has no sizes");
+            }
+        }
+        if (this.getLeafCellCount() < 1) {
+            throw new Error("Synthetic circuit with " + this.cellCount + " cells is too small for " + this.replication
+                            + "^" + this.hierarchyDepth + " leaf module instances");
+        }
+    }
+
+    /* cells per leaf module instance */
+    public int getLeafCellCount() {
+        long instances = 1;
+        for (int h = 0; h < this.hierarchyDepth; h++) {
+            instances *= this.replication;
+            if (instances > this.cellCount) {
+                return 0;
+            }
+        }
+        return (int) (this.cellCount / instances);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public void setCellCount(int cellCount) {
+        this.cellCount = cellCount;
+    }
+
+    public int getLogicDepth() {
+        return logicDepth;
+    }
+
+    public double getFanoutExponent() {
+        return fanoutExponent;
+    }
+
+    public double getLoopDensity() {
+        return loopDensity;
+    }
+
+    public int getHierarchyDepth() {
+        return hierarchyDepth;
+    }
+
+    public void setHierarchy(int hierarchyDepth, int replication) {
+        this.hierarchyDepth = hierarchyDepth;
+        this.replication = replication;
+    }
+
+    public int getReplication() {
+        return replication;
+    }
+
+    public int getBundleWidth() {
+        return bundleWidth;
+    }
+
+    public Map<String, List<Double>> getFootprintSizes() {
+        return footprintSizes;
+    }
+
+    public void setFootprintSizes(Map<String, List<Double>> footprintSizes) {
+        this.footprintSizes = footprintSizes;
+    }
+}
@@ -0,0 +1,81 @@
+package de.uni_potsdam.hpi.asg.drivestrength.generator;
+
+import java.io.File;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.uni_potsdam.hpi.asg.common.iohelper.LoggerHelper;
+import de.uni_potsdam.hpi.asg.common.iohelper.LoggerHelper.Mode;
+
+/**
+ * Writes a synthetic circuit (netlist, Liberty library and cellInfoJson) for scaling
+ * experiments into a directory, as <name>.v, <name>.lib and <name>.json.
+ *
+ *   ASGdrivestrength_generate <configJsonFile | -> <outputDirectory>
+ *
+ * ("-": the default configuration, see SyntheticCircuitConfig)
+ */
+public class SyntheticCircuitGenerator {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private SyntheticCircuitConfig config;
+    private File netlistFile;
+    private File libertyFile;
+    private File cellInfoFile;
+
+    public SyntheticCircuitGenerator(SyntheticCircuitConfig config, File outputDirectory) {
+        config.check();
+        this.config = config;
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new Error("Cannot create output directory " + outputDirectory);
+        }
+        this.netlistFile = new File(outputDirectory, config.getName() + ".v");
+        this.libertyFile = new File(outputDirectory, config.getName() + ".lib");
+        this.cellInfoFile = new File(outputDirectory, config.getName() + ".json");
+    }
+
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        SyntheticLibraryWriter libraryWriter = new SyntheticLibraryWriter(this.config);
+        libraryWriter.writeLiberty(this.libertyFile);
+        libraryWriter.writeCellInfo(this.cellInfoFile);
+        new SyntheticNetlistWriter(this.config).write(this.netlistFile);
+        logger.info("Generated " + this.config.getCellCount() + " cell circuit " + this.netlistFile + " in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /* only writes the netlist, for circuits of one library with several sizes */
+    public void runNetlistOnly() {
+        new SyntheticNetlistWriter(this.config).write(this.netlistFile);
+    }
+
+    public File getNetlistFile() {
+        return netlistFile;
+    }
+
+    public File getLibertyFile() {
+        return libertyFile;
+    }
+
+    public File getCellInfoFile() {
+        return cellInfoFile;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ASGdrivestrength_generate <configJsonFile | -> <outputDirectory>");
+            System.exit(1);
+        }
+        LoggerHelper.initLogger(3, null, false, Mode.cmdline);
+        try {
+            SyntheticCircuitConfig config = args[0].equals("-") ? new SyntheticCircuitConfig()
+                                                                : SyntheticCircuitConfig.read(new File(args[0]));
+            new SyntheticCircuitGenerator(config, new File(args[1])).run();
+        } catch (Error e) {
+            logger.error("An error occurred: " + e.getLocalizedMessage());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
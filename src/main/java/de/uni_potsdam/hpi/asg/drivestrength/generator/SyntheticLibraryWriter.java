@@ -0,0 +1,183 @@
+package de.uni_potsdam.hpi.asg.drivestrength.generator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Liberty and cellInfoJson files for the footprints of a SyntheticCircuitConfig. Delays follow
+ * the logical effort model (d = p + g * h, plus a slew term), scaled like a small technology:
+ * a cell of fanout factor s has input capacitance 2 fF * g * s. Cells are named
+ * ASG_<footprint>_<size>, e.g. ASG_INV_0P5.
+ */
+public class SyntheticLibraryWriter {
+
+    private static class Footprint {
+        private String[] inputPins;
+        private double logicalEffort;
+        private double parasiticDelay;
+        private int stageCount;
+        private String function;
+
+        private Footprint(String[] inputPins, double logicalEffort, double parasiticDelay, int stageCount, String function) {
+            this.inputPins = inputPins;
+            this.logicalEffort = logicalEffort;
+            this.parasiticDelay = parasiticDelay;
+            this.stageCount = stageCount;
+            this.function = function;
+        }
+    }
+
+    private static final Map<String, Footprint> footprints = new LinkedHashMap<>();
+    static {
+        footprints.put("INV", new Footprint(new String[] {"A"}, 1.0, 1.0, 1, "!(A)"));
+        footprints.put("NAND2", new Footprint(new String[] {"A", "B"}, 4.0 / 3, 2.0, 1, "!(A&B)"));
+        footprints.put("NOR2", new Footprint(new String[] {"A", "B"}, 5.0 / 3, 2.0, 1, "!(A|B)"));
+        footprints.put("BUF", new Footprint(new String[] {"A"}, 1.0, 2.0, 2, "(A)"));
+        footprints.put("AND2", new Footprint(new String[] {"A", "B"}, 4.0 / 3, 3.0, 2, "(A&B)"));
+    }
+
+    private static final double[] slews = {0.01, 0.02, 0.04, 0.08, 0.16, 0.32, 0.64};
+    private static final double[] loads = {0.0005, 0.001, 0.002, 0.004, 0.008, 0.016, 0.032};
+
+    private SyntheticCircuitConfig config;
+
+    public SyntheticLibraryWriter(SyntheticCircuitConfig config) {
+        this.config = config;
+    }
+
+    public static void checkFootprint(String footprint) {
+        if (!footprints.containsKey(footprint)) {
+            throw new Error("Unknown synthetic footprint " + footprint + ", known are " + footprints.keySet());
+        }
+    }
+
+    public static String[] getInputPins(String footprint) {
+        checkFootprint(footprint);
+        return footprints.get(footprint).inputPins;
+    }
+
+    public static String cellName(String footprint, double size) {
+        String sizeName = size == Math.rint(size) ? Long.toString((long) size) : Double.toString(size).replace('.', 'P');
+        return "ASG_" + footprint + "_" + sizeName;
+    }
+
+    public void writeLiberty(File libertyFile) {
+        try (Writer out = new BufferedWriter(new FileWriter(libertyFile))) {
+            out.write("library (" + this.config.getName() + "_library) {\n");
+            for (Map.Entry<String, List<Double>> entry : this.config.getFootprintSizes().entrySet()) {
+                for (double size : entry.getValue()) {
+                    this.writeCell(out, entry.getKey(), footprints.get(entry.getKey()), size);
+                }
+            }
+            out.write("}\n");
+        } catch (IOException e) {
+            throw new Error("Could not write synthetic library " + libertyFile + ": " + e.getMessage());
+        }
+    }
+
+    private void writeCell(Writer out, String footprintName, Footprint footprint, double size) throws IOException {
+        double inputCapacitance = 0.002 * footprint.logicalEffort * size;
+        out.write("   cell (" + cellName(footprintName, size) + ") {\n");
+        out.write("      area : " + format(2 * size * footprint.stageCount) + ";\n");
+        out.write("      cell_footprint : \"ASG_" + footprintName + "\";\n");
+        out.write("      pin (Y) {\n");
+        out.write("         direction : output;\n");
+        out.write("         function : \"" + footprint.function + "\";\n");
+        for (String pin : footprint.inputPins) {
+            out.write("         timing () {\n");
+            out.write("            related_pin : \"" + pin + "\";\n");
+            for (String kind : new String[] {"cell_rise", "cell_fall"}) {
+                double edgeFactor = kind.equals("cell_rise") ? 1.0 : 0.9;
+                writeTable(out, kind, "delay_template_7x7", (slew, load) ->
+                        0.008 * footprint.parasiticDelay + 0.1 * slew
+                        + 0.008 * footprint.logicalEffort * (load / inputCapacitance) * edgeFactor);
+            }
+            out.write("         }\n");
+            out.write("         internal_power () {\n");
+            out.write("            related_pin : \"" + pin + "\";\n");
+            for (String kind : new String[] {"rise_power", "fall_power"}) {
+                writeTable(out, kind, "power_template_7x7", (slew, load) ->
+                        0.001 * size * footprint.stageCount * (1 + slew) + 0.3 * load);
+            }
+            out.write("         }\n");
+        }
+        out.write("      }\n");
+        for (String pin : footprint.inputPins) {
+            out.write("      pin (" + pin + ") {\n");
+            out.write("         direction : input;\n");
+            out.write("         capacitance : " + format(inputCapacitance) + ";\n");
+            out.write("      }\n");
+        }
+        out.write("   }\n");
+    }
+
+    private interface TableFunction {
+        double valueAt(double slew, double load);
+    }
+
+    private static void writeTable(Writer out, String kind, String template, TableFunction function) throws IOException {
+        out.write("            " + kind + " (" + template + ") {\n");
+        out.write("               index_1 (\"" + join(slews) + "\");\n");
+        out.write("               index_2 (\"" + join(loads) + "\");\n");
+        out.write("               values ( \\\n");
+        for (int s = 0; s < slews.length; s++) {
+            double[] row = new double[loads.length];
+            for (int l = 0; l < loads.length; l++) {
+                row[l] = function.valueAt(slews[s], loads[l]);
+            }
+            out.write("                  \"" + join(row) + (s < slews.length - 1 ? "\", \\\n" : "\" \\\n"));
+        }
+        out.write("               );\n");
+        out.write("            }\n");
+    }
+
+    public void writeCellInfo(File cellInfoFile) {
+        Map<String, Map<String, Integer>> defaultStageCounts = new LinkedHashMap<>();
+        Map<String, Double> fanoutFactors = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Double>> entry : this.config.getFootprintSizes().entrySet()) {
+            Footprint footprint = footprints.get(entry.getKey());
+            Map<String, Integer> stageCounts = new LinkedHashMap<>();
+            for (String pin : footprint.inputPins) {
+                stageCounts.put(pin, footprint.stageCount);
+            }
+            defaultStageCounts.put("ASG_" + entry.getKey(), stageCounts);
+            for (double size : entry.getValue()) {
+                fanoutFactors.put(cellName(entry.getKey(), size), size);
+            }
+        }
+        Map<String, Object> cellInfo = new LinkedHashMap<>();
+        cellInfo.put("defaultStageCounts", defaultStageCounts);
+        cellInfo.put("drivestrengthFanoutFactors", fanoutFactors);
+        cellInfo.put("deviatingStageCountSizes", new LinkedHashMap<>());
+        try (Writer out = new BufferedWriter(new FileWriter(cellInfoFile))) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(cellInfo, out);
+            out.write("\n");
+        } catch (IOException e) {
+            throw new Error("Could not write synthetic cell info " + cellInfoFile + ": " + e.getMessage());
+        }
+    }
+
+    private static String join(double[] values) {
+        StringBuilder joined = new StringBuilder();
+        for (double value : values) {
+            if (joined.length() > 0) {
+                joined.append(", ");
+            }
+            joined.append(format(value));
+        }
+        return joined.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+}
@@ -0,0 +1,155 @@
+package de.uni_potsdam.hpi.asg.drivestrength.generator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Gate-level Verilog for a SyntheticCircuitConfig, streamed to disk (nothing per cell is kept
+ * in memory, so 10M cells are fine). The leaf module holds the cells in logicDepth levels; each
+ * input reads a cell of the previous level (or, with 25 % probability, of any earlier level),
+ * chosen with the configured fanout distribution, a module input bit on level 0, or, with the
+ * loop density, a cell of the same or a later level. The last level drives the output bundle.
+ *
+ * Each hierarchy level above chains replication instances of the level below through bundle
+ * wires, so the top module has replication^hierarchyDepth leaf instances. Everything is
+ * deterministic from the seed.
+ */
+public class SyntheticNetlistWriter {
+
+    private SyntheticCircuitConfig config;
+    private List<String> footprints;
+    private List<String> defaultCellNames;
+    private Random random;
+
+    public SyntheticNetlistWriter(SyntheticCircuitConfig config) {
+        config.check();
+        this.config = config;
+        this.footprints = new ArrayList<>();
+        this.defaultCellNames = new ArrayList<>();
+        for (Map.Entry<String, List<Double>> entry : config.getFootprintSizes().entrySet()) {
+            double defaultSize = entry.getValue().contains(1.0) ? 1.0 : entry.getValue().get(0);
+            this.footprints.add(entry.getKey());
+            this.defaultCellNames.add(SyntheticLibraryWriter.cellName(entry.getKey(), defaultSize));
+        }
+    }
+
+    public void write(File netlistFile) {
+        this.random = new Random(this.config.getSeed());
+        try (Writer out = new BufferedWriter(new FileWriter(netlistFile), 1 << 16)) {
+            int hierarchyDepth = this.config.getHierarchyDepth();
+            this.writeLeafModule(out, hierarchyDepth == 0 ? this.config.getName() : this.moduleName(0));
+            for (int h = 1; h <= hierarchyDepth; h++) {
+                this.writeHierarchyModule(out, h == hierarchyDepth ? this.config.getName() : this.moduleName(h), this.moduleName(h - 1));
+            }
+        } catch (IOException e) {
+            throw new Error("Could not write synthetic netlist " + netlistFile + ": " + e.getMessage());
+        }
+    }
+
+    private String moduleName(int hierarchyLevel) {
+        return this.config.getName() + "_h" + hierarchyLevel;
+    }
+
+    private void writeModuleHeader(Writer out, String moduleName) throws IOException {
+        String bundle = this.config.getBundleWidth() > 1 ? "[" + (this.config.getBundleWidth() - 1) + ":0] " : "";
+        out.write("module " + moduleName + " (in, out);\n");
+        out.write("  input " + bundle + "in;\n");
+        out.write("  output " + bundle + "out;\n");
+    }
+
+    private String bit(String bundle, int index) {
+        return this.config.getBundleWidth() > 1 ? bundle + "[" + index + "]" : bundle;
+    }
+
+    private void writeLeafModule(Writer out, String moduleName) throws IOException {
+        int cellCount = this.config.getLeafCellCount();
+        int depth = Math.min(this.config.getLogicDepth(), cellCount);
+        int bundleWidth = this.config.getBundleWidth();
+
+        this.writeModuleHeader(out, moduleName);
+        for (int i = 0; i < cellCount; i++) {
+            out.write("  wire w" + i + ";\n");
+        }
+        /* the output bits are spread over the last level */
+        int lastLevelStart = levelStart(depth - 1, cellCount, depth);
+        int lastLevelSize = cellCount - lastLevelStart;
+        for (int k = 0; k < bundleWidth; k++) {
+            int driver = lastLevelStart + (int) ((long) k * lastLevelSize / bundleWidth);
+            out.write("  assign " + this.bit("out", k) + " = w" + driver + ";\n");
+        }
+
+        int level = 0;
+        int nextLevelStart = levelStart(1, cellCount, depth);
+        for (int i = 0; i < cellCount; i++) {
+            while (i >= nextLevelStart) {
+                level++;
+                nextLevelStart = levelStart(level + 1, cellCount, depth);
+            }
+            int f = this.random.nextInt(this.footprints.size());
+            StringBuilder instance = new StringBuilder("  ");
+            instance.append(this.defaultCellNames.get(f)).append(" c").append(i).append(" (");
+            for (String pin : SyntheticLibraryWriter.getInputPins(this.footprints.get(f))) {
+                instance.append('.').append(pin).append('(').append(this.source(level, cellCount, depth)).append("), ");
+            }
+            instance.append(".Y(w").append(i).append("));\n");
+            out.write(instance.toString());
+        }
+        out.write("endmodule\n\n");
+    }
+
+    private String source(int level, int cellCount, int depth) {
+        if (this.random.nextDouble() < this.config.getLoopDensity()) {
+            int from = levelStart(level, cellCount, depth);
+            return "w" + (from + this.random.nextInt(cellCount - from));
+        }
+        if (level == 0) {
+            return this.bit("in", this.random.nextInt(this.config.getBundleWidth()));
+        }
+        int sourceLevel = this.random.nextDouble() < 0.75 ? level - 1 : this.random.nextInt(level);
+        int from = levelStart(sourceLevel, cellCount, depth);
+        int size = levelStart(sourceLevel + 1, cellCount, depth) - from;
+        return "w" + (from + this.rank(size));
+    }
+
+    /* 0..size-1, with probability ~ (rank + 1)^-fanoutExponent (continuous inverse transform) */
+    private int rank(int size) {
+        double exponent = this.config.getFanoutExponent();
+        double u = this.random.nextDouble();
+        double x;
+        if (exponent == 0.0) {
+            x = 1 + u * size;
+        } else if (Math.abs(exponent - 1.0) < 1e-9) {
+            x = Math.exp(u * Math.log(size + 1));
+        } else {
+            double oneMinusExponent = 1 - exponent;
+            x = Math.pow((Math.pow(size + 1, oneMinusExponent) - 1) * u + 1, 1 / oneMinusExponent);
+        }
+        return Math.min(size - 1, Math.max(0, (int) x - 1));
+    }
+
+    private static int levelStart(int level, int cellCount, int depth) {
+        return (int) ((long) level * cellCount / depth);
+    }
+
+    private void writeHierarchyModule(Writer out, String moduleName, String childModuleName) throws IOException {
+        int replication = this.config.getReplication();
+        String bundle = this.config.getBundleWidth() > 1 ? "[" + (this.config.getBundleWidth() - 1) + ":0] " : "";
+        this.writeModuleHeader(out, moduleName);
+        for (int r = 0; r < replication - 1; r++) {
+            out.write("  wire " + bundle + "b" + r + ";\n");
+        }
+        for (int r = 0; r < replication; r++) {
+            String in = r == 0 ? "in" : "b" + (r - 1);
+            String outSignal = r == replication - 1 ? "out" : "b" + r;
+            out.write("  " + childModuleName + " i" + r + " (.in(" + in + "), .out(" + outSignal + "));\n");
+        }
+        out.write("endmodule\n\n");
+    }
+}
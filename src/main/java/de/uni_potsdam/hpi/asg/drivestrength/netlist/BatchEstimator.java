@@ -0,0 +1,238 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCell;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.DelayLine;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Evaluates the delay and energy sums of an annotated, inlined netlist (same models as
+ * DelayEstimator and EnergyEstimator for selected loads) on a snapshot in primitive arrays,
+ * indexed by cell position and by each cell's raw size index.
+ *
+ * Per cell and size, the delay and energy sums over the input pins are linear in the load:
+ * offset + slope * load. Loads on other cells are kept as one flat list (cell, index into the
+ * input capacitance table), so an evaluation is a single loop without object or map lookups.
+ * Sizes are changed on the snapshot and selected in the netlist only by writeBackSizes().
+ */
+public class BatchEstimator {
+
+    private static final int minCellsPerChunk = 4096;
+
+    private List<CellInstance> cellInstances;
+    private int cellCount;
+    private Cell[][] sizes;              //[cell][size index]
+    private int[] sizeIndices;           //[cell]
+    private int[] tableStarts;           //[cell], first entry of the cell's sizes in the tables below
+    private double[] delayOffsets;       //[tableStart + size index], in ps
+    private double[] delaySlopes;
+    private double[] energyOffsets;
+    private double[] energySlopes;
+    private double[] pinCapacitances;    //[pinTableStart + size index]
+    private double[] staticLoads;        //[cell]
+    private int[] loadStarts;            //[cell], loads of cell i are loadStarts[i] until loadStarts[i + 1]
+    private int[] loadCells;
+    private int[] loadPinTableStarts;
+
+    private double delay;
+    private double energy;
+
+    public BatchEstimator(Netlist inlinedNetlist) {
+        if (!inlinedNetlist.isInlined()) {
+            throw new Error("Batch estimation needs an inlined netlist");
+        }
+        this.cellInstances = inlinedNetlist.getRootModule().getCellInstances();
+        this.cellCount = this.cellInstances.size();
+        this.buildTables();
+        this.readSizes();
+    }
+
+    private void buildTables() {
+        Map<CellInstance, Integer> cellIndices = new IdentityHashMap<>();
+        for (int i = 0; i < this.cellCount; i++) {
+            cellIndices.put(this.cellInstances.get(i), i);
+        }
+
+        this.sizes = new Cell[this.cellCount][];
+        this.tableStarts = new int[this.cellCount];
+        int[] pinTableStarts = new int[this.cellCount];
+        int tableSize = 0;
+        int pinTableSize = 0;
+        for (int i = 0; i < this.cellCount; i++) {
+            CellInstance c = this.cellInstances.get(i);
+            this.sizes[i] = c.getDefinition().getRawSizes().toArray(new Cell[0]);
+            this.tableStarts[i] = tableSize;
+            pinTableStarts[i] = pinTableSize;
+            tableSize += this.sizes[i].length;
+            pinTableSize += this.sizes[i].length * c.getInputPinNames().size();
+        }
+
+        this.delayOffsets = new double[tableSize];
+        this.delaySlopes = new double[tableSize];
+        this.energyOffsets = new double[tableSize];
+        this.energySlopes = new double[tableSize];
+        this.pinCapacitances = new double[pinTableSize];
+        for (int i = 0; i < this.cellCount; i++) {
+            this.fillTables(i, pinTableStarts[i]);
+        }
+
+        this.staticLoads = new double[this.cellCount];
+        this.loadStarts = new int[this.cellCount + 1];
+        int loadCount = 0;
+        for (int i = 0; i < this.cellCount; i++) {
+            loadCount += this.cellInstances.get(i).getSuccessors().size();
+        }
+        this.loadCells = new int[loadCount];
+        this.loadPinTableStarts = new int[loadCount];
+        int k = 0;
+        for (int i = 0; i < this.cellCount; i++) {
+            this.loadStarts[i] = k;
+            for (Load l : this.cellInstances.get(i).getLoads()) {
+                if (l.isStaticLoad()) {
+                    this.staticLoads[i] += l.getCapacitanceSelected();
+                    continue;
+                }
+                Integer j = cellIndices.get(l.getCellInstance());
+                if (j == null) {
+                    throw new Error("Load of " + this.cellInstances.get(i).getName() + " is not in the netlist");
+                }
+                int pin = l.getCellInstance().getInputPinNames().indexOf(l.getPinName());
+                this.loadCells[k] = j;
+                this.loadPinTableStarts[k] = pinTableStarts[j] + pin * this.sizes[j].length;
+                k++;
+            }
+        }
+        this.loadStarts[this.cellCount] = k;
+    }
+
+    /* pin tables are ordered by pin, then size: [pinTableStart + pin * sizeCount + size index] */
+    private void fillTables(int i, int pinTableStart) {
+        CellInstance c = this.cellInstances.get(i);
+        AggregatedCell definition = c.getDefinition();
+        List<String> pinNames = c.getInputPinNames();
+        int sizeCount = this.sizes[i].length;
+        for (int s = 0; s < sizeCount; s++) {
+            String sizeName = this.sizes[i][s].getName();
+            int t = this.tableStarts[i] + s;
+            for (int p = 0; p < pinNames.size(); p++) {
+                String pinName = pinNames.get(p);
+                double inputCapacitance = definition.getSizeCapacitance(sizeName, pinName);
+                DelayLine delayLine = definition.getSizeDelayLines().get(pinName).get(sizeName);
+                double power = definition.getPowerFor(sizeName, pinName);
+                this.pinCapacitances[pinTableStart + p * sizeCount + s] = inputCapacitance;
+                this.delayOffsets[t] += delayLine.getOffset() * 1000;
+                this.delaySlopes[t] += delayLine.getSlope() / inputCapacitance * 1000;
+                this.energyOffsets[t] += delayLine.getOffset() * power;
+                this.energySlopes[t] += delayLine.getSlope() / inputCapacitance * power;
+            }
+        }
+    }
+
+    /* takes over the sizes currently selected in the netlist */
+    public void readSizes() {
+        if (this.sizeIndices == null) {
+            this.sizeIndices = new int[this.cellCount];
+        }
+        for (int i = 0; i < this.cellCount; i++) {
+            this.readSize(i);
+        }
+    }
+
+    public void readSize(int cellIndex) {
+        Cell selected = this.cellInstances.get(cellIndex).getSelectedSize();
+        Cell[] cellSizes = this.sizes[cellIndex];
+        for (int s = 0; s < cellSizes.length; s++) {
+            if (cellSizes[s] == selected) {
+                this.sizeIndices[cellIndex] = s;
+                return;
+            }
+        }
+        throw new Error("Selected size " + selected.getName() + " of " + this.cellInstances.get(cellIndex).getName()
+                        + " is not a size of its definition");
+    }
+
+    /* selects the snapshot's sizes in the netlist (CellInstance.selectSize() may refuse some for input-driven cells) */
+    public void writeBackSizes() {
+        for (int i = 0; i < this.cellCount; i++) {
+            this.cellInstances.get(i).selectSize(this.sizes[i][this.sizeIndices[i]]);
+        }
+    }
+
+    public int getCellCount() {
+        return this.cellCount;
+    }
+
+    public int getSizeCount(int cellIndex) {
+        return this.sizes[cellIndex].length;
+    }
+
+    public int getSizeIndex(int cellIndex) {
+        return this.sizeIndices[cellIndex];
+    }
+
+    public void setSizeIndex(int cellIndex, int sizeIndex) {
+        this.sizeIndices[cellIndex] = sizeIndex;
+    }
+
+    /* parallel: evaluate in chunks of cells on the common pool (only used for large netlists) */
+    public void run(boolean parallel) {
+        int chunkCount = 1;
+        if (parallel) {
+            chunkCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), this.cellCount / minCellsPerChunk));
+        }
+        this.run(chunkCount);
+    }
+
+    /* chunkCount 1: sequential */
+    void run(int chunkCount) {
+        if (chunkCount == 1) {
+            double[] sums = new double[2];
+            this.evaluateChunk(0, this.cellCount, sums);
+            this.delay = sums[0];
+            this.energy = sums[1];
+            return;
+        }
+        /* partial sums are added in chunk order, so results do not depend on the scheduling */
+        double[][] partialSums = new double[chunkCount][2];
+        IntStream.range(0, chunkCount).parallel().forEach(chunk ->
+            this.evaluateChunk(chunk * this.cellCount / chunkCount, (chunk + 1) * this.cellCount / chunkCount,
+                               partialSums[chunk]));
+        this.delay = 0.0;
+        this.energy = 0.0;
+        for (double[] sums : partialSums) {
+            this.delay += sums[0];
+            this.energy += sums[1];
+        }
+    }
+
+    private void evaluateChunk(int firstCell, int endCell, double[] sums) {
+        double delaySum = 0.0;
+        double energySum = 0.0;
+        for (int i = firstCell; i < endCell; i++) {
+            double load = this.staticLoads[i];
+            for (int k = this.loadStarts[i]; k < this.loadStarts[i + 1]; k++) {
+                load += this.pinCapacitances[this.loadPinTableStarts[k] + this.sizeIndices[this.loadCells[k]]];
+            }
+            int t = this.tableStarts[i] + this.sizeIndices[i];
+            delaySum += this.delayOffsets[t] + this.delaySlopes[t] * load;
+            energySum += this.energyOffsets[t] + this.energySlopes[t] * load;
+        }
+        sums[0] = delaySum;
+        sums[1] = energySum;
+    }
+
+    /* delay sum in ps of the last run, not rounded */
+    public double getDelay() {
+        return this.delay;
+    }
+
+    public double getEnergy() {
+        return this.energy;
+    }
+}
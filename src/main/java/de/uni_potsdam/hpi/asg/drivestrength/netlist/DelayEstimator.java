@@ -1,5 +1,7 @@
 package de.uni_potsdam.hpi.asg.drivestrength.netlist;
 
+import java.util.List;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -7,6 +9,7 @@ import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.DelayLine;
 import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.EstimatorCache;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.PinEstimates;
 import de.uni_potsdam.hpi.asg.drivestrength.util.NumberFormatter;
 
 public class DelayEstimator {
@@ -41,20 +44,7 @@ public class DelayEstimator {
     public int run() {
         double sum = 0.0;
         for (CellInstance c : this.netlist.getRootModule().getCellInstances()) {
-            EstimatorCache cache = c.getEstimatorCache();
-            if (cache.isDelayInvalidated()) {
-                double cellInstanceSum = 0.0;
-                double loadCapacitance = this.findLoadCapacitance(c);
-                for (String pinName : c.getInputPinNames()) {
-                    double estimatedDelay = estimateDelay(c, pinName, loadCapacitance) * 1000;
-                    cellInstanceSum += estimatedDelay;
-                    if (verbose) {
-                        System.out.println(Cell.sortableName(c.getDefinitionName()) + "__" + pinName + "__" + c.getName() + ", " + estimatedDelay);
-                    }
-                }
-                cache.setDelayValue(cellInstanceSum);
-            }
-            sum += cache.getDelayValue();
+            sum += this.estimateCellInstance(c);
         }
         if (verbose) {
             System.out.println("Estimated cell delay sum: " + NumberFormatter.spacedRounded(sum));
@@ -62,11 +52,34 @@ public class DelayEstimator {
         return (int)Math.round(sum);
     }
 
-    private double findLoadCapacitance(CellInstance c) {
-        if (this.useTheoreticalLoad) {
-            return c.getLoadCapacitanceTheoretical();
+    /* delay sum of the cell instance's input pins in ps, not rounded. Resizing a cell instance
+     * changes only its own and its predecessors' values */
+    public double estimateCellInstance(CellInstance c) {
+        if (!this.useTheoreticalLoad) {
+            PinEstimates estimates = PinEstimator.estimate(c);
+            if (verbose) {
+                List<String> pinNames = c.getInputPinNames();
+                for (int i = 0; i < pinNames.size(); i++) {
+                    System.out.println(Cell.sortableName(c.getDefinitionName()) + "__" + pinNames.get(i) + "__" + c.getName()
+                                       + ", " + estimates.getDelay(i) * 1000);
+                }
+            }
+            return estimates.getDelaySum();
         }
-        return c.getLoadCapacitanceSelected();
+        EstimatorCache cache = c.getEstimatorCache();
+        if (cache.isDelayInvalidated()) {
+            double cellInstanceSum = 0.0;
+            double loadCapacitance = c.getLoadCapacitanceTheoretical();
+            for (String pinName : c.getInputPinNames()) {
+                double estimatedDelay = this.estimateDelayFromAggregatedDelayParams(c, pinName, loadCapacitance) * 1000;
+                cellInstanceSum += estimatedDelay;
+                if (verbose) {
+                    System.out.println(Cell.sortableName(c.getDefinitionName()) + "__" + pinName + "__" + c.getName() + ", " + estimatedDelay);
+                }
+            }
+            cache.setDelayValue(cellInstanceSum);
+        }
+        return cache.getDelayValue();
     }
 
     private double findOwnInputCapacitance(CellInstance cellInstance, String pinName) {
@@ -76,13 +89,6 @@ public class DelayEstimator {
         return cellInstance.getInputPinSelectedCapacitance(pinName);
     }
 
-    private double estimateDelay(CellInstance cellInstance, String pinName, double loadCapacitance) {
-        if (this.useTheoreticalLoad) {
-            return this.estimateDelayFromAggregatedDelayParams(cellInstance, pinName, loadCapacitance);
-        }
-        return this.estimateDelayFromRawDelayLines(cellInstance, pinName, loadCapacitance);
-    }
-
     public double estimateDelayFromAggregatedDelayParams(CellInstance cellInstance, String pinName, double loadCapacitance) {
         double inputCapacitance = this.findOwnInputCapacitance(cellInstance, pinName);
         double electricalEffort = loadCapacitance / inputCapacitance;
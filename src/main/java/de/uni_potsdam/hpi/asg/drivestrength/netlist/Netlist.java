@@ -17,10 +17,15 @@ public class Netlist {
     }
 
     public Netlist(Netlist netlistToCopy) {
+        this(netlistToCopy, true);
+    }
+
+    /* Without avatars, changes to the copy stay in the copy (needed when copies are optimized concurrently) */
+    public Netlist(Netlist netlistToCopy, boolean keepCellAvatars) {
         modules = new ArrayList<>();
         Module oldRootModule = netlistToCopy.getRootModule();
         for (Module m : netlistToCopy.getModules()) {
-            Module copiedModule = new Module(m, true);
+            Module copiedModule = new Module(m, keepCellAvatars);
             modules.add(copiedModule);
             if (m == oldRootModule) {
                 this.setRootModule(copiedModule);
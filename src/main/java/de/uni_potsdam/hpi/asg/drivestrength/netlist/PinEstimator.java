@@ -0,0 +1,47 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist;
+
+import java.util.List;
+import java.util.Map;
+
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCell;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.DelayLine;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.EstimatorCache;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.PinEstimates;
+
+/**
+ * Computes the per-pin estimates of a cell instance for its selected size and load once after
+ * each invalidation of its EstimatorCache, so that the delay, energy and power estimators
+ * evaluating the same cell share the delay line lookups and the load sum.
+ */
+public class PinEstimator {
+
+    public static PinEstimates estimate(CellInstance c) {
+        EstimatorCache cache = c.getEstimatorCache();
+        PinEstimates estimates = cache.getPinEstimates();
+        if (estimates == null) {
+            estimates = compute(c);
+            cache.setPinEstimates(estimates);
+        }
+        return estimates;
+    }
+
+    private static PinEstimates compute(CellInstance c) {
+        AggregatedCell definition = c.getDefinition();
+        String sizeName = c.getSelectedSize().getName();
+        Map<String, Map<String, DelayLine>> sizeDelayLines = definition.getSizeDelayLines();
+        List<String> pinNames = c.getInputPinNames();
+        double loadCapacitance = c.getLoadCapacitanceSelected();
+
+        double[] electricalEfforts = new double[pinNames.size()];
+        double[] delays = new double[pinNames.size()];
+        double[] powers = new double[pinNames.size()];
+        for (int i = 0; i < pinNames.size(); i++) {
+            String pinName = pinNames.get(i);
+            electricalEfforts[i] = loadCapacitance / c.getInputPinSelectedCapacitance(pinName);
+            delays[i] = sizeDelayLines.get(pinName).get(sizeName).getValueAtX(electricalEfforts[i]);
+            powers[i] = definition.getPowerFor(sizeName, pinName);
+        }
+        return new PinEstimates(loadCapacitance, electricalEfforts, delays, powers);
+    }
+}
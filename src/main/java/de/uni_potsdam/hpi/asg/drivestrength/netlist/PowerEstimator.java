@@ -1,9 +1,12 @@
 package de.uni_potsdam.hpi.asg.drivestrength.netlist;
 
+import java.util.List;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.PinEstimates;
 
 public class PowerEstimator {
     protected static final Logger logger = LogManager.getLogger();
@@ -23,10 +26,12 @@ public class PowerEstimator {
     public double run() {
         double sum = 0.0;
         for (CellInstance cellInstance : this.netlist.getRootModule().getCellInstances()) {
-            for (String pinName : cellInstance.getInputPinNames()) {
-                double cellPower = this.estimatePower(cellInstance, pinName);
+            PinEstimates estimates = PinEstimator.estimate(cellInstance);
+            List<String> pinNames = cellInstance.getInputPinNames();
+            for (int i = 0; i < pinNames.size(); i++) {
+                double cellPower = estimates.getPower(i);
                 if (verbose) {
-                    System.out.println("Power for " + cellInstance.getName() + " " + pinName + ": " + cellPower);
+                    System.out.println("Power for " + cellInstance.getName() + " " + pinNames.get(i) + ": " + cellPower);
                 }
                 sum += cellPower;
             }
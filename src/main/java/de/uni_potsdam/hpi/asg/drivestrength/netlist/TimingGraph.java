@@ -0,0 +1,283 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.PinEstimates;
+import de.uni_potsdam.hpi.asg.drivestrength.util.IndexedMaxHeap;
+import de.uni_potsdam.hpi.asg.drivestrength.util.NumberFormatter;
+
+/**
+ * Static timing on the load graph of an annotated, inlined netlist: the arrival time at a cell's
+ * output is the latest over its input pins of the driver's arrival time plus the pin's delay
+ * (as in DelayEstimator, for the selected sizes and loads). Circuit inputs and static loads
+ * start paths at time 0.
+ *
+ * Loops are cut at the edges closing them in a depth-first search, so paths start again behind
+ * a cut edge. Arrival times are propagated in topological order; after resizing cells only their
+ * fan-out cones are re-propagated, stopping wherever an arrival time does not change. Required
+ * times (latest arrival at the path ends: cells without uncut fan-out) and slacks are computed
+ * on demand.
+ */
+public class TimingGraph {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private List<CellInstance> cellInstances;
+    private Map<CellInstance, Integer> cellIndices;
+    private int cellCount;
+    private int[][] faninDrivers;     //[cell][input pin], -1: circuit input or cut edge
+    private int[][] fanoutCells;      //[cell][k], uncut edges only
+    private int[][] fanoutPins;
+    private int cutEdgeCount;
+    private int[] topologicalOrder;
+    private int[] topologicalPositions;
+
+    private double[] arrivalTimes;
+    private IndexedMaxHeap latestArrivals;
+    private PriorityQueue<Integer> pendingCells;
+    private boolean[] pending;
+    private double[] requiredTimes;
+    private boolean requiredTimesValid;
+
+    public TimingGraph(Netlist inlinedNetlist) {
+        if (!inlinedNetlist.isInlined()) {
+            throw new Error("Timing analysis needs an inlined netlist");
+        }
+        this.cellInstances = inlinedNetlist.getRootModule().getCellInstances();
+        this.cellCount = this.cellInstances.size();
+        this.cellIndices = new IdentityHashMap<>();
+        for (int i = 0; i < this.cellCount; i++) {
+            this.cellIndices.put(this.cellInstances.get(i), i);
+        }
+        this.buildGraph();
+
+        this.arrivalTimes = new double[this.cellCount];
+        this.latestArrivals = new IndexedMaxHeap(this.cellCount);
+        this.pending = new boolean[this.cellCount];
+        this.pendingCells = new PriorityQueue<>(
+                (a, b) -> Integer.compare(this.topologicalPositions[a], this.topologicalPositions[b]));
+        for (int i : this.topologicalOrder) {
+            this.arrivalTimes[i] = this.computeArrivalTime(i);
+            this.latestArrivals.put(i, this.arrivalTimes[i]);
+        }
+    }
+
+    private void buildGraph() {
+        List<List<int[]>> edges = new ArrayList<>();
+        this.faninDrivers = new int[this.cellCount][];
+        for (int i = 0; i < this.cellCount; i++) {
+            this.faninDrivers[i] = new int[this.cellInstances.get(i).getInputPinNames().size()];
+            Arrays.fill(this.faninDrivers[i], -1);
+        }
+        for (int d = 0; d < this.cellCount; d++) {
+            List<int[]> cellEdges = new ArrayList<>();
+            for (Load l : this.cellInstances.get(d).getLoads()) {
+                if (l.isStaticLoad()) {
+                    continue;
+                }
+                Integer c = this.cellIndices.get(l.getCellInstance());
+                if (c == null) {
+                    throw new Error("Load of " + this.cellInstances.get(d).getName() + " is not in the netlist");
+                }
+                cellEdges.add(new int[] {c, l.getCellInstance().getInputPinNames().indexOf(l.getPinName())});
+            }
+            edges.add(cellEdges);
+        }
+
+        boolean[][] cut = this.cutLoopsAndOrder(edges);
+
+        this.fanoutCells = new int[this.cellCount][];
+        this.fanoutPins = new int[this.cellCount][];
+        for (int d = 0; d < this.cellCount; d++) {
+            List<int[]> cellEdges = edges.get(d);
+            int uncutCount = 0;
+            for (int k = 0; k < cellEdges.size(); k++) {
+                if (!cut[d][k]) {
+                    uncutCount++;
+                }
+            }
+            this.fanoutCells[d] = new int[uncutCount];
+            this.fanoutPins[d] = new int[uncutCount];
+            int u = 0;
+            for (int k = 0; k < cellEdges.size(); k++) {
+                if (cut[d][k]) {
+                    this.cutEdgeCount++;
+                    continue;
+                }
+                int[] edge = cellEdges.get(k);
+                this.fanoutCells[d][u] = edge[0];
+                this.fanoutPins[d][u] = edge[1];
+                this.faninDrivers[edge[0]][edge[1]] = d;
+                u++;
+            }
+        }
+    }
+
+    /* iterative depth-first search: edges back to a cell on the stack are cut, the reverse
+     * postorder is a topological order of the remaining edges */
+    private boolean[][] cutLoopsAndOrder(List<List<int[]>> edges) {
+        boolean[][] cut = new boolean[this.cellCount][];
+        for (int d = 0; d < this.cellCount; d++) {
+            cut[d] = new boolean[edges.get(d).size()];
+        }
+        int[] state = new int[this.cellCount]; //0: unvisited, 1: on stack, 2: finished
+        int[] nextEdge = new int[this.cellCount];
+        int[] stack = new int[this.cellCount];
+        this.topologicalOrder = new int[this.cellCount];
+        int orderPosition = this.cellCount;
+        for (int start = 0; start < this.cellCount; start++) {
+            if (state[start] != 0) {
+                continue;
+            }
+            int stackSize = 0;
+            stack[stackSize++] = start;
+            state[start] = 1;
+            while (stackSize > 0) {
+                int d = stack[stackSize - 1];
+                List<int[]> cellEdges = edges.get(d);
+                if (nextEdge[d] == cellEdges.size()) {
+                    stackSize--;
+                    state[d] = 2;
+                    this.topologicalOrder[--orderPosition] = d;
+                    continue;
+                }
+                int k = nextEdge[d]++;
+                int c = cellEdges.get(k)[0];
+                if (state[c] == 1) {
+                    cut[d][k] = true;
+                } else if (state[c] == 0) {
+                    state[c] = 1;
+                    stack[stackSize++] = c;
+                }
+            }
+        }
+        this.topologicalPositions = new int[this.cellCount];
+        for (int p = 0; p < this.cellCount; p++) {
+            this.topologicalPositions[this.topologicalOrder[p]] = p;
+        }
+        return cut;
+    }
+
+    private double computeArrivalTime(int i) {
+        PinEstimates estimates = PinEstimator.estimate(this.cellInstances.get(i));
+        double arrivalTime = 0.0;
+        for (int p = 0; p < this.faninDrivers[i].length; p++) {
+            int driver = this.faninDrivers[i][p];
+            double inputArrivalTime = driver < 0 ? 0.0 : this.arrivalTimes[driver];
+            arrivalTime = Math.max(arrivalTime, inputArrivalTime + estimates.getDelay(p) * 1000);
+        }
+        return arrivalTime;
+    }
+
+    /* to be called after selecting a new size: the cell's delays and its drivers' loads changed */
+    public void cellResized(CellInstance c) {
+        Integer i = this.cellIndices.get(c);
+        if (i == null) {
+            throw new Error("Cell instance " + c.getName() + " is not part of the timing graph");
+        }
+        this.requiredTimesValid = false;
+        this.markPending(i);
+        for (CellInstance p : c.getPredecessors()) {
+            Integer d = this.cellIndices.get(p);
+            if (d != null) {
+                this.markPending(d);
+            }
+        }
+    }
+
+    private void markPending(int i) {
+        if (!this.pending[i]) {
+            this.pending[i] = true;
+            this.pendingCells.add(i);
+        }
+    }
+
+    private void propagate() {
+        while (!this.pendingCells.isEmpty()) {
+            int i = this.pendingCells.poll();
+            this.pending[i] = false;
+            double arrivalTime = this.computeArrivalTime(i);
+            if (arrivalTime == this.arrivalTimes[i]) {
+                continue;
+            }
+            this.arrivalTimes[i] = arrivalTime;
+            this.latestArrivals.put(i, arrivalTime);
+            for (int c : this.fanoutCells[i]) {
+                this.markPending(c);
+            }
+        }
+    }
+
+    /* in ps */
+    public double getWorstDelay() {
+        this.propagate();
+        if (this.cellCount == 0) {
+            return 0.0;
+        }
+        return this.latestArrivals.getKey(this.latestArrivals.peek());
+    }
+
+    /* null for empty netlists */
+    public CellInstance getWorstPathEnd() {
+        this.propagate();
+        if (this.cellCount == 0) {
+            return null;
+        }
+        return this.cellInstances.get(this.latestArrivals.peek());
+    }
+
+    public double getArrivalTime(CellInstance c) {
+        this.propagate();
+        return this.arrivalTimes[this.cellIndices.get(c)];
+    }
+
+    /* required time minus arrival time at the cell's output, 0 on the worst paths */
+    public double getSlack(CellInstance c) {
+        this.propagate();
+        this.updateRequiredTimes();
+        int i = this.cellIndices.get(c);
+        return this.requiredTimes[i] - this.arrivalTimes[i];
+    }
+
+    private void updateRequiredTimes() {
+        if (this.requiredTimesValid) {
+            return;
+        }
+        if (this.requiredTimes == null) {
+            this.requiredTimes = new double[this.cellCount];
+        }
+        double worstDelay = this.getWorstDelay();
+        for (int p = this.cellCount - 1; p >= 0; p--) {
+            int i = this.topologicalOrder[p];
+            double requiredTime = worstDelay;
+            for (int k = 0; k < this.fanoutCells[i].length; k++) {
+                int c = this.fanoutCells[i][k];
+                double pinDelay = PinEstimator.estimate(this.cellInstances.get(c)).getDelay(this.fanoutPins[i][k]) * 1000;
+                requiredTime = Math.min(requiredTime, this.requiredTimes[c] - pinDelay);
+            }
+            this.requiredTimes[i] = requiredTime;
+        }
+        this.requiredTimesValid = true;
+    }
+
+    public int getCutEdgeCount() {
+        return this.cutEdgeCount;
+    }
+
+    public void print() {
+        if (this.cellCount == 0) {
+            return;
+        }
+        logger.info("Estimated worst path delay: " + NumberFormatter.spacedRounded(this.getWorstDelay()) + " ps (ending at "
+                    + this.getWorstPathEnd().getName() + ", " + this.cutEdgeCount + " loop edges cut)");
+    }
+}
@@ -0,0 +1,26 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+
+/**
+ * Independent, freshly annotated copies of an inlined netlist (without avatars, so they can be
+ * optimized concurrently). Cells start at their default sizes.
+ */
+public class AnnotatedNetlistCopier {
+
+    private double outputPinCapacitance;
+    private double inputDrivenMaxCIn;
+
+    public AnnotatedNetlistCopier(double outputPinCapacitance, double inputDrivenMaxCIn) {
+        this.outputPinCapacitance = outputPinCapacitance;
+        this.inputDrivenMaxCIn = inputDrivenMaxCIn;
+    }
+
+    public Netlist copy(Netlist inlinedNetlist) {
+        Netlist copiedNetlist = new Netlist(inlinedNetlist, false);
+        new LoadGraphAnnotator(copiedNetlist, this.outputPinCapacitance).run();
+        new InputDrivenAnnotator(copiedNetlist, this.inputDrivenMaxCIn).run();
+        new PredecessorAnnotator(copiedNetlist).run();
+        return copiedNetlist;
+    }
+}
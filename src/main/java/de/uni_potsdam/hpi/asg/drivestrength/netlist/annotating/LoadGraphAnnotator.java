@@ -1,5 +1,11 @@
 package de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -7,6 +13,7 @@ import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.AssignConnection;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.Module;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.PinAssignment;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.Signal;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.Signal.Direction;
 
@@ -23,25 +30,50 @@ public class LoadGraphAnnotator {
 
     public void run() {
         logger.info("Using output pin load " + this.outputPinCapacitance + " pF");
+        Map<Signal, List<CellInstance>> readers = this.findReaders();
+        Map<Signal, Integer> outputPinCounts = this.countOutputPins();
         for (CellInstance cellInstance : module.getCellInstances()) {
             cellInstance.clearLoads();
             Signal signal = cellInstance.getOutputSignal();
-            for (CellInstance c : module.getCellInstances()) {
-                if (c.isInputSignal(signal)) {
-                    cellInstance.addLoad(new Load(c, c.pinNameForConnectedSignal(signal)));
-                }
+            for (CellInstance c : readers.getOrDefault(signal, Collections.emptyList())) {
+                cellInstance.addLoad(new Load(c, c.pinNameForConnectedSignal(signal)));
             }
-            for (AssignConnection a : module.getAssignConnections()) {
-                if (a.getSourceSignal() == signal && a.getDestinationSignal().getDirection() == Direction.output) {
-                    cellInstance.addLoad(new Load(this.outputPinCapacitance));
-                }
+            for (int i = 0; i < outputPinCounts.getOrDefault(signal, 0); i++) {
+                cellInstance.addLoad(new Load(this.outputPinCapacitance));
             }
-            for (Signal ioSignal : module.getIOSignals()) {
-                if (ioSignal == signal) {
-                    cellInstance.addLoad(new Load(this.outputPinCapacitance));
+        }
+    }
+
+    /* the cell instances with an input pin on each signal, in module order */
+    private Map<Signal, List<CellInstance>> findReaders() {
+        Map<Signal, List<CellInstance>> readers = new HashMap<>();
+        for (CellInstance c : module.getCellInstances()) {
+            String outputPinName = c.getDefinition().getOutputPinName();
+            for (PinAssignment p : c.getPinAssignments()) {
+                if (p.getPinName().equals(outputPinName)) {
+                    continue;
                 }
+                List<CellInstance> signalReaders = readers.computeIfAbsent(p.getSignal(), k -> new ArrayList<>());
+                if (signalReaders.isEmpty() || signalReaders.get(signalReaders.size() - 1) != c) {
+                    signalReaders.add(c);
+                }
+            }
+        }
+        return readers;
+    }
+
+    /* output pins of the module driven by each signal, directly or through an assign */
+    private Map<Signal, Integer> countOutputPins() {
+        Map<Signal, Integer> outputPinCounts = new HashMap<>();
+        for (AssignConnection a : module.getAssignConnections()) {
+            if (a.getDestinationSignal().getDirection() == Direction.output) {
+                outputPinCounts.merge(a.getSourceSignal(), 1, Integer::sum);
             }
         }
+        for (Signal ioSignal : module.getIOSignals()) {
+            outputPinCounts.merge(ioSignal, 1, Integer::sum);
+        }
+        return outputPinCounts;
     }
 
 }
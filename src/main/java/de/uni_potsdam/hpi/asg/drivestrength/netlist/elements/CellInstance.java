@@ -61,6 +61,10 @@ public class CellInstance extends AbstractInstance {
         predecessors.add(newPredecessor);
     }
 
+    public void clearPredecessors() {
+        predecessors.clear();
+    }
+
     public List<CellInstance> getPredecessors() {
         return new ArrayList<CellInstance>(predecessors);
     }
@@ -69,6 +73,10 @@ public class CellInstance extends AbstractInstance {
         return this.isInputDriven;
     }
 
+    public double getInputDrivenMaxCIn() {
+        return this.inputDrivenMaxCIn;
+    }
+
     public void addLoad(Load aLoad) {
         this.loads.add(aLoad);
     }
@@ -134,6 +142,17 @@ public class CellInstance extends AbstractInstance {
         }
     }
 
+    /* the reverse of selectSizeFromTheoreticalCapacitances() */
+    public void setTheoreticalCapacitancesFromSelectedSize() {
+        for (String pinName : this.getInputPinNames()) {
+            this.inputPinTheoreticalCapacitances.put(pinName, this.getInputPinSelectedCapacitance(pinName));
+        }
+        this.invalidateCache();
+        if (this.avatar != null) {
+            this.avatar.setTheoreticalCapacitancesFromSelectedSize();
+        }
+    }
+
     private void invalidateCache() {
         this.getEstimatorCache().invalidate();
         for (CellInstance p : this.predecessors) {
@@ -175,17 +194,35 @@ public class CellInstance extends AbstractInstance {
     }
 
     public void setInputPinTheoreticalCapacitance(String inputPin, double newInputPinCapacitance, boolean clampToPossible) {
+        newInputPinCapacitance = this.clampInputPinTheoreticalCapacitance(inputPin, newInputPinCapacitance, clampToPossible);
+        this.inputPinTheoreticalCapacitances.put(inputPin, newInputPinCapacitance);
+        this.invalidateCache();
+        if (this.avatar != null) {
+            this.avatar.setInputPinTheoreticalCapacitance(inputPin, newInputPinCapacitance, false);
+        }
+    }
+
+    public double clampInputPinTheoreticalCapacitance(String inputPin, double inputPinCapacitance, boolean clampToPossible) {
         if (this.isInputDriven) {
-            newInputPinCapacitance = Math.min(newInputPinCapacitance, this.inputDrivenMaxCIn);
+            inputPinCapacitance = Math.min(inputPinCapacitance, this.inputDrivenMaxCIn);
         }
         if (clampToPossible) {
-            newInputPinCapacitance = Math.min(newInputPinCapacitance, this.definition.getLargestPossibleCapacitance(inputPin));
-            newInputPinCapacitance = Math.max(newInputPinCapacitance, this.definition.getSmallestPossibleCapacitance(inputPin));
+            inputPinCapacitance = Math.min(inputPinCapacitance, this.definition.getLargestPossibleCapacitance(inputPin));
+            inputPinCapacitance = Math.max(inputPinCapacitance, this.definition.getSmallestPossibleCapacitance(inputPin));
         }
-        this.inputPinTheoreticalCapacitances.put(inputPin, newInputPinCapacitance);
-        this.invalidateCache();
+        return inputPinCapacitance;
+    }
+
+    /* Bulk update with already clamped values, ordered like getInputPinNames(). Only this
+     * instance's (and its avatar's) cache is invalidated: meant for updating all cells at once */
+    public void commitInputPinTheoreticalCapacitances(double[] capacitances, int offset) {
+        List<String> inputPinNames = this.getInputPinNames();
+        for (int i = 0; i < inputPinNames.size(); i++) {
+            this.inputPinTheoreticalCapacitances.put(inputPinNames.get(i), capacitances[offset + i]);
+        }
+        this.getEstimatorCache().invalidate();
         if (this.avatar != null) {
-            this.avatar.setInputPinTheoreticalCapacitance(inputPin, newInputPinCapacitance, false);
+            this.avatar.commitInputPinTheoreticalCapacitances(capacitances, offset);
         }
     }
 
@@ -2,23 +2,19 @@ package de.uni_potsdam.hpi.asg.drivestrength.netlist.elements;
 
 public class EstimatorCache {
     private boolean delayInvalidated;
-    private boolean energyInvalidated;
+    /* delay sum for theoretical loads, see DelayEstimator */
     private double delayValue;
-    private double energyValue;
+    /* shared by the delay (for selected loads), energy and power estimators, null when invalidated */
+    private PinEstimates pinEstimates;
 
     public EstimatorCache() {
         this.delayInvalidated = true;
-        this.energyInvalidated = true;
     }
 
     public boolean isDelayInvalidated() {
         return this.delayInvalidated;
     }
 
-    public boolean isEnergyInvalidated() {
-        return this.energyInvalidated;
-    }
-
     public double getDelayValue() {
         return delayValue;
     }
@@ -28,17 +24,16 @@ public class EstimatorCache {
         this.delayInvalidated = false;
     }
 
-    public double getEnergyValue() {
-        return energyValue;
+    public PinEstimates getPinEstimates() {
+        return pinEstimates;
     }
 
-    public void setEnergyValue(double energyValue) {
-        this.energyValue = energyValue;
-        this.energyInvalidated = false;
+    public void setPinEstimates(PinEstimates pinEstimates) {
+        this.pinEstimates = pinEstimates;
     }
 
     public void invalidate() {
-        this.energyInvalidated = true;
         this.delayInvalidated = true;
+        this.pinEstimates = null;
     }
 }
@@ -0,0 +1,51 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist.elements;
+
+/**
+ * Estimates for each input pin of a cell instance with its selected size and its selected load,
+ * in the order of the instance's input pin names. Delays are in ns, as read from the delay lines.
+ */
+public class PinEstimates {
+    private double loadCapacitance;
+    private double[] electricalEfforts;
+    private double[] delays;
+    private double[] powers;
+    private double delaySum;
+    private double energySum;
+
+    public PinEstimates(double loadCapacitance, double[] electricalEfforts, double[] delays, double[] powers) {
+        this.loadCapacitance = loadCapacitance;
+        this.electricalEfforts = electricalEfforts;
+        this.delays = delays;
+        this.powers = powers;
+        for (int i = 0; i < delays.length; i++) {
+            this.delaySum += delays[i] * 1000;
+            this.energySum += delays[i] * powers[i];
+        }
+    }
+
+    public double getLoadCapacitance() {
+        return loadCapacitance;
+    }
+
+    public double getElectricalEffort(int pinIndex) {
+        return electricalEfforts[pinIndex];
+    }
+
+    public double getDelay(int pinIndex) {
+        return delays[pinIndex];
+    }
+
+    public double getPower(int pinIndex) {
+        return powers[pinIndex];
+    }
+
+    /* in ps */
+    public double getDelaySum() {
+        return delaySum;
+    }
+
+    /* each pin's delay times its transition power */
+    public double getEnergySum() {
+        return energySum;
+    }
+}
@@ -0,0 +1,222 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist.loops;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.PinEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.util.NumberFormatter;
+
+/**
+ * Loop-aware cycle times of an annotated, inlined netlist. The load graph (edge from each cell
+ * to the cells it drives, weighted with the driven pin's delay for the selected sizes and loads,
+ * as in TimingGraph) is split into strongly connected components; each component containing a
+ * loop gets its maximum cycle mean, i.e. the largest average stage delay around any of its
+ * loops. Components are independent of each other, so they are evaluated in parallel.
+ *
+ * Over the condensation (a DAG), each component is also assigned its governing cycle mean: the
+ * largest cycle mean of itself and all components upstream of it, which bounds how fast it can
+ * be handed new data.
+ */
+public class LoopAnalyzer {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private List<CellInstance> cellInstances;
+    private Map<CellInstance, Integer> cellIndices;
+    private int[][] successors;
+    private double[][] delays;         //[cell][k], in ps, of the pin driven by successor edge k
+    private StronglyConnectedComponents components;
+    private int[] loopComponents;
+    private double[] cycleMeans;       //[component], 0 for components without loop
+    private int[][] criticalCycles;    //[component], cell indices, null for components without loop
+    private double[] criticalCycleDelays;
+    private double[] governingCycleMeans;
+
+    public LoopAnalyzer(Netlist inlinedNetlist) {
+        if (!inlinedNetlist.isInlined()) {
+            throw new Error("Loop analysis needs an inlined netlist");
+        }
+        this.cellInstances = inlinedNetlist.getRootModule().getCellInstances();
+        this.cellIndices = new IdentityHashMap<>();
+        for (int i = 0; i < this.cellInstances.size(); i++) {
+            this.cellIndices.put(this.cellInstances.get(i), i);
+        }
+        this.buildGraph();
+        this.components = new StronglyConnectedComponents(this.successors);
+        this.evaluateLoops();
+        this.computeGoverningCycleMeans();
+    }
+
+    /* edge weights are read here, on one thread: the pin estimates are cached in the cells */
+    private void buildGraph() {
+        int cellCount = this.cellInstances.size();
+        this.successors = new int[cellCount][];
+        this.delays = new double[cellCount][];
+        for (int d = 0; d < cellCount; d++) {
+            List<Load> loads = this.cellInstances.get(d).getLoads();
+            int[] cellSuccessors = new int[loads.size()];
+            double[] cellDelays = new double[loads.size()];
+            int k = 0;
+            for (Load l : loads) {
+                if (l.isStaticLoad()) {
+                    continue;
+                }
+                Integer c = this.cellIndices.get(l.getCellInstance());
+                if (c == null) {
+                    throw new Error("Load of " + this.cellInstances.get(d).getName() + " is not in the netlist");
+                }
+                int pin = l.getCellInstance().getInputPinNames().indexOf(l.getPinName());
+                cellSuccessors[k] = c;
+                cellDelays[k] = PinEstimator.estimate(l.getCellInstance()).getDelay(pin) * 1000;
+                k++;
+            }
+            this.successors[d] = Arrays.copyOf(cellSuccessors, k);
+            this.delays[d] = Arrays.copyOf(cellDelays, k);
+        }
+    }
+
+    private void evaluateLoops() {
+        int componentCount = this.components.getComponentCount();
+        this.cycleMeans = new double[componentCount];
+        this.criticalCycles = new int[componentCount][];
+        this.criticalCycleDelays = new double[componentCount];
+        this.loopComponents = IntStream.range(0, componentCount).filter(this.components::isLoop).toArray();
+        IntStream.of(this.loopComponents).parallel().forEach(this::evaluateLoop);
+    }
+
+    /* maximum cycle mean on the component's edges only, with nodes renumbered 0..size-1 */
+    private void evaluateLoop(int component) {
+        int[] cells = this.components.getComponent(component);
+        int[][] localTargets = new int[cells.length][];
+        double[][] localWeights = new double[cells.length][];
+        for (int v = 0; v < cells.length; v++) {
+            int d = cells[v];
+            int[] targets = new int[this.successors[d].length];
+            double[] weights = new double[this.successors[d].length];
+            int k = 0;
+            for (int e = 0; e < this.successors[d].length; e++) {
+                int c = this.successors[d][e];
+                if (this.components.getComponentOf(c) != component) {
+                    continue;
+                }
+                targets[k] = Arrays.binarySearch(cells, c);
+                weights[k] = this.delays[d][e];
+                k++;
+            }
+            localTargets[v] = Arrays.copyOf(targets, k);
+            localWeights[v] = Arrays.copyOf(weights, k);
+        }
+        MaximumCycleMean mcm = new MaximumCycleMean(localTargets, localWeights);
+        int[] cycle = mcm.getCriticalCycle();
+        int[] cycleCells = new int[cycle.length];
+        for (int p = 0; p < cycle.length; p++) {
+            cycleCells[p] = cells[cycle[p]];
+        }
+        this.cycleMeans[component] = mcm.getMaximumMean();
+        this.criticalCycles[component] = cycleCells;
+        this.criticalCycleDelays[component] = mcm.getCriticalCycleWeight();
+    }
+
+    /* components are numbered in reverse topological order, so upstream components come first
+     * when counting down */
+    private void computeGoverningCycleMeans() {
+        int componentCount = this.components.getComponentCount();
+        this.governingCycleMeans = this.cycleMeans.clone();
+        for (int component = componentCount - 1; component >= 0; component--) {
+            for (int d : this.components.getComponent(component)) {
+                for (int c : this.successors[d]) {
+                    int successor = this.components.getComponentOf(c);
+                    if (successor != component) {
+                        this.governingCycleMeans[successor] = Math.max(this.governingCycleMeans[successor],
+                                                                       this.governingCycleMeans[component]);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getComponentCount() {
+        return this.components.getComponentCount();
+    }
+
+    public int getLoopCount() {
+        return this.loopComponents.length;
+    }
+
+    /* in ps per stage, 0 for cells outside of loops */
+    public double getCycleMean(CellInstance c) {
+        return this.cycleMeans[this.components.getComponentOf(this.indexOf(c))];
+    }
+
+    /* in ps per stage, the largest cycle mean of the cell's component and everything upstream */
+    public double getGoverningCycleMean(CellInstance c) {
+        return this.governingCycleMeans[this.components.getComponentOf(this.indexOf(c))];
+    }
+
+    /* in ps per stage, 0 for loop-free netlists */
+    public double getMaximumCycleMean() {
+        if (this.loopComponents.length == 0) {
+            return 0.0;
+        }
+        return this.cycleMeans[this.getCriticalComponent()];
+    }
+
+    /* cells of a loop with the maximum cycle mean, in signal order; empty for loop-free netlists */
+    public List<CellInstance> getCriticalLoop() {
+        List<CellInstance> loop = new ArrayList<>();
+        if (this.loopComponents.length == 0) {
+            return loop;
+        }
+        for (int i : this.criticalCycles[this.getCriticalComponent()]) {
+            loop.add(this.cellInstances.get(i));
+        }
+        return loop;
+    }
+
+    private int getCriticalComponent() {
+        int critical = this.loopComponents[0];
+        for (int component : this.loopComponents) {
+            if (this.cycleMeans[component] > this.cycleMeans[critical]) {
+                critical = component;
+            }
+        }
+        return critical;
+    }
+
+    private int indexOf(CellInstance c) {
+        Integer i = this.cellIndices.get(c);
+        if (i == null) {
+            throw new Error("Cell instance " + c.getName() + " is not part of the loop analysis");
+        }
+        return i;
+    }
+
+    public void print() {
+        if (this.loopComponents.length == 0) {
+            logger.info("Loop analysis: no loops (" + this.components.getComponentCount() + " components)");
+            return;
+        }
+        int critical = this.getCriticalComponent();
+        StringBuilder loop = new StringBuilder();
+        for (CellInstance c : this.getCriticalLoop()) {
+            if (loop.length() > 0) {
+                loop.append(" -> ");
+            }
+            loop.append(c.getName());
+        }
+        logger.info("Loop analysis: " + this.loopComponents.length + " loop components of " + this.components.getComponentCount()
+                    + " (" + this.components.getLevelCount() + " levels), maximum cycle mean "
+                    + NumberFormatter.spacedRounded(this.cycleMeans[critical]) + " ps per stage");
+        logger.info("Critical loop (" + this.criticalCycles[critical].length + " stages, "
+                    + NumberFormatter.spacedRounded(this.criticalCycleDelays[critical]) + " ps): " + loop);
+    }
+}
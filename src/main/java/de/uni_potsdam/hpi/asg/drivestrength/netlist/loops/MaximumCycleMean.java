@@ -0,0 +1,213 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist.loops;
+
+import java.util.Arrays;
+
+/**
+ * Maximum cycle mean (largest average edge weight over the cycles) of a strongly connected
+ * graph, by Howard's policy iteration: every node follows one of its out-edges (the policy), so
+ * the policy graph is a set of cycles with trees hanging off them. Each node gets the mean of
+ * the cycle it ends up in and a potential relative to that cycle; nodes then switch to edges
+ * leading to larger means, or to larger potentials where the means are equal, until no node
+ * improves. Needs O(E) memory per iteration and usually few iterations (Karp's algorithm needs
+ * O(V^2) memory).
+ *
+ * Edges are given per node as parallel arrays of targets and weights; every node needs at
+ * least one out-edge, which holds inside a strongly connected component with a cycle.
+ */
+public class MaximumCycleMean {
+
+    private static final double epsilon = 1e-9;
+    private static final int maxIterations = 10000;
+
+    private int[][] targets;
+    private double[][] weights;
+    private int nodeCount;
+    private int[] policy;              //[node], position in the node's edge arrays
+    private double[] cycleMeans;       //[node], mean of the policy cycle the node ends up in
+    private double[] potentials;       //[node]
+    private int[] cycleRoots;          //[node], the policy cycle's node the potentials are relative to
+    private int iterations;
+
+    private double maximumMean;
+    private int[] criticalCycle;
+
+    public MaximumCycleMean(int[][] targets, double[][] weights) {
+        this.targets = targets;
+        this.weights = weights;
+        this.nodeCount = targets.length;
+        if (this.nodeCount == 0) {
+            throw new Error("Maximum cycle mean of an empty graph");
+        }
+        this.run();
+    }
+
+    private void run() {
+        this.policy = new int[this.nodeCount];
+        for (int v = 0; v < this.nodeCount; v++) {
+            if (this.targets[v].length == 0) {
+                throw new Error("Maximum cycle mean needs a strongly connected graph, node " + v + " has no out-edge");
+            }
+            this.policy[v] = this.heaviestEdge(v);
+        }
+        this.cycleMeans = new double[this.nodeCount];
+        this.potentials = new double[this.nodeCount];
+        this.cycleRoots = new int[this.nodeCount];
+
+        this.evaluatePolicy();
+        while (this.iterations < maxIterations && this.improvePolicy()) {
+            this.evaluatePolicy();
+            this.iterations++;
+        }
+        this.extractCriticalCycle();
+    }
+
+    private int heaviestEdge(int v) {
+        int best = 0;
+        for (int k = 1; k < this.weights[v].length; k++) {
+            if (this.weights[v][k] > this.weights[v][best]) {
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    private int policyTarget(int v) {
+        return this.targets[v][this.policy[v]];
+    }
+
+    private double policyWeight(int v) {
+        return this.weights[v][this.policy[v]];
+    }
+
+    /* follows the policy from each unvisited node until reaching a known node or closing a new
+     * cycle, then assigns the walked path from its end backwards */
+    private void evaluatePolicy() {
+        int[] state = new int[this.nodeCount]; //0: unvisited, 1: on the current walk, 2: done
+        int[] walk = new int[this.nodeCount];
+        for (int start = 0; start < this.nodeCount; start++) {
+            if (state[start] != 0) {
+                continue;
+            }
+            int walkLength = 0;
+            int v = start;
+            while (state[v] == 0) {
+                state[v] = 1;
+                walk[walkLength++] = v;
+                v = this.policyTarget(v);
+            }
+            int end = walkLength;
+            if (state[v] == 1) {
+                /* new cycle from v to the end of the walk */
+                int cycleStart = end - 1;
+                while (walk[cycleStart] != v) {
+                    cycleStart--;
+                }
+                double cycleWeight = 0.0;
+                for (int p = cycleStart; p < end; p++) {
+                    cycleWeight += this.policyWeight(walk[p]);
+                }
+                double mean = cycleWeight / (end - cycleStart);
+                this.cycleMeans[v] = mean;
+                this.potentials[v] = 0.0;
+                this.cycleRoots[v] = v;
+                state[v] = 2;
+                for (int p = end - 1; p > cycleStart; p--) {
+                    this.assignFromPolicyTarget(walk[p]);
+                    state[walk[p]] = 2;
+                }
+                end = cycleStart;
+            }
+            for (int p = end - 1; p >= 0; p--) {
+                this.assignFromPolicyTarget(walk[p]);
+                state[walk[p]] = 2;
+            }
+        }
+    }
+
+    private void assignFromPolicyTarget(int v) {
+        int u = this.policyTarget(v);
+        this.cycleMeans[v] = this.cycleMeans[u];
+        this.potentials[v] = this.policyWeight(v) - this.cycleMeans[u] + this.potentials[u];
+        this.cycleRoots[v] = this.cycleRoots[u];
+    }
+
+    /* true if any node switched its edge */
+    private boolean improvePolicy() {
+        boolean changed = false;
+        for (int v = 0; v < this.nodeCount; v++) {
+            int best = this.policy[v];
+            double bestMean = this.cycleMeans[v];
+            for (int k = 0; k < this.targets[v].length; k++) {
+                double mean = this.cycleMeans[this.targets[v][k]];
+                if (mean > bestMean + epsilon) {
+                    best = k;
+                    bestMean = mean;
+                }
+            }
+            if (best != this.policy[v]) {
+                this.policy[v] = best;
+                changed = true;
+            }
+        }
+        if (changed) {
+            return true;
+        }
+        for (int v = 0; v < this.nodeCount; v++) {
+            int best = this.policy[v];
+            double bestPotential = this.potentials[v];
+            for (int k = 0; k < this.targets[v].length; k++) {
+                int u = this.targets[v][k];
+                if (Math.abs(this.cycleMeans[u] - this.cycleMeans[v]) > epsilon) {
+                    continue;
+                }
+                double potential = this.weights[v][k] - this.cycleMeans[v] + this.potentials[u];
+                if (potential > bestPotential + epsilon) {
+                    best = k;
+                    bestPotential = potential;
+                }
+            }
+            if (best != this.policy[v]) {
+                this.policy[v] = best;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void extractCriticalCycle() {
+        int root = 0;
+        for (int v = 1; v < this.nodeCount; v++) {
+            if (this.cycleMeans[v] > this.cycleMeans[root]) {
+                root = v;
+            }
+        }
+        this.maximumMean = this.cycleMeans[root];
+        root = this.cycleRoots[root];
+        int[] cycle = new int[this.nodeCount];
+        int length = 0;
+        int v = root;
+        do {
+            cycle[length++] = v;
+            v = this.policyTarget(v);
+        } while (v != root);
+        this.criticalCycle = Arrays.copyOf(cycle, length);
+    }
+
+    public double getMaximumMean() {
+        return this.maximumMean;
+    }
+
+    /* nodes of a cycle with the maximum mean, in edge order */
+    public int[] getCriticalCycle() {
+        return this.criticalCycle;
+    }
+
+    /* summed edge weights of the critical cycle */
+    public double getCriticalCycleWeight() {
+        return this.maximumMean * this.criticalCycle.length;
+    }
+
+    public int getIterations() {
+        return this.iterations;
+    }
+}
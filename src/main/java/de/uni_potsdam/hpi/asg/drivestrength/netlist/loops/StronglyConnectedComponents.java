@@ -0,0 +1,144 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist.loops;
+
+import java.util.Arrays;
+
+/**
+ * Tarjan's strongly connected components of a directed graph given by successor lists over the
+ * nodes 0..n-1, without recursion (so deep graphs cannot overflow the stack). Components are
+ * numbered in the order Tarjan finds them, which is a reverse topological order of the
+ * condensation: edges between components always go to a lower component number.
+ */
+public class StronglyConnectedComponents {
+
+    private int[][] successors;
+    private int[] componentOf;
+    private int[][] components;
+    private int[] levels;
+    private int levelCount;
+
+    public StronglyConnectedComponents(int[][] successors) {
+        this.successors = successors;
+        this.run();
+        this.computeLevels();
+    }
+
+    private void run() {
+        int nodeCount = this.successors.length;
+        int[] index = new int[nodeCount];
+        int[] lowLink = new int[nodeCount];
+        int[] nextEdge = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int[] callStack = new int[nodeCount];
+        Arrays.fill(index, -1);
+        this.componentOf = new int[nodeCount];
+        int[] componentNodes = new int[nodeCount];
+        int[] componentStarts = new int[nodeCount + 1];
+        int componentCount = 0;
+        int nodesInComponents = 0;
+        int nextIndex = 0;
+        int stackSize = 0;
+
+        for (int start = 0; start < nodeCount; start++) {
+            if (index[start] >= 0) {
+                continue;
+            }
+            int callStackSize = 0;
+            callStack[callStackSize++] = start;
+            index[start] = lowLink[start] = nextIndex++;
+            stack[stackSize++] = start;
+            onStack[start] = true;
+            while (callStackSize > 0) {
+                int v = callStack[callStackSize - 1];
+                if (nextEdge[v] < this.successors[v].length) {
+                    int w = this.successors[v][nextEdge[v]++];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        callStack[callStackSize++] = w;
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+                callStackSize--;
+                if (callStackSize > 0) {
+                    int parent = callStack[callStackSize - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+                if (lowLink[v] == index[v]) {
+                    componentStarts[componentCount] = nodesInComponents;
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        this.componentOf[w] = componentCount;
+                        componentNodes[nodesInComponents++] = w;
+                    } while (w != v);
+                    componentCount++;
+                }
+            }
+        }
+        componentStarts[componentCount] = nodesInComponents;
+
+        this.components = new int[componentCount][];
+        for (int c = 0; c < componentCount; c++) {
+            this.components[c] = Arrays.copyOfRange(componentNodes, componentStarts[c], componentStarts[c + 1]);
+            Arrays.sort(this.components[c]);
+        }
+    }
+
+    /* longest distance from a source of the condensation: components of equal level do not
+     * depend on each other */
+    private void computeLevels() {
+        this.levels = new int[this.components.length];
+        this.levelCount = this.components.length == 0 ? 0 : 1;
+        for (int c = this.components.length - 1; c >= 0; c--) {
+            for (int v : this.components[c]) {
+                for (int w : this.successors[v]) {
+                    int d = this.componentOf[w];
+                    if (d != c && this.levels[d] < this.levels[c] + 1) {
+                        this.levels[d] = this.levels[c] + 1;
+                        this.levelCount = Math.max(this.levelCount, this.levels[d] + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getComponentCount() {
+        return this.components.length;
+    }
+
+    public int getComponentOf(int node) {
+        return this.componentOf[node];
+    }
+
+    /* sorted node numbers */
+    public int[] getComponent(int component) {
+        return this.components[component];
+    }
+
+    /* a single node is only a loop if it is its own successor */
+    public boolean isLoop(int component) {
+        int[] nodes = this.components[component];
+        if (nodes.length > 1) {
+            return true;
+        }
+        for (int w : this.successors[nodes[0]]) {
+            if (w == nodes[0]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getLevel(int component) {
+        return this.levels[component];
+    }
+
+    public int getLevelCount() {
+        return this.levelCount;
+    }
+}
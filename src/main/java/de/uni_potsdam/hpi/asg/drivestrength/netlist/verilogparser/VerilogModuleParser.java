@@ -40,10 +40,12 @@ public class VerilogModuleParser {
     private Netlist netlist;
     private AggregatedCellLibrary aggregatedCellLibrary;
     private boolean replaceCellsBySingleStageGates;
+    private boolean keepSelectedSizes;
 
     public VerilogModuleParser(List<String> statements, Netlist netlist,
-            AggregatedCellLibrary aggregatedCellLibrary, boolean replaceCellsBySingleStageGates) {
+            AggregatedCellLibrary aggregatedCellLibrary, boolean replaceCellsBySingleStageGates, boolean keepSelectedSizes) {
         this.statements = statements;
+        this.keepSelectedSizes = keepSelectedSizes;
         this.netlist = netlist;
         this.aggregatedCellLibrary = aggregatedCellLibrary;
         this.replaceCellsBySingleStageGates = replaceCellsBySingleStageGates;
@@ -183,7 +185,11 @@ public class VerilogModuleParser {
                 return true;
             }
             AggregatedCell definition = this.aggregatedCellLibrary.getByCellName(definitionName);
-            this.module.addInstance(new CellInstance(instanceName, definition, pinAssignments));
+            CellInstance cellInstance = new CellInstance(instanceName, definition, pinAssignments);
+            if (this.keepSelectedSizes) {
+                cellInstance.selectSize(definition.getSizeByName(definitionName));
+            }
+            this.module.addInstance(cellInstance);
         }
         return true;
     }
@@ -25,9 +25,17 @@ public class VerilogParser {
     private List<String> statements;
     private AggregatedCellLibrary aggregatedCellLibrary;
     private boolean replaceCellsBySingleStageGates;
+    private boolean keepSelectedSizes;
     private String netlistName;
 
     public VerilogParser(File verilogFile, AggregatedCellLibrary aggregatedCellLibrary, boolean replaceCellsBySingleStageGates) {
+        this(verilogFile, aggregatedCellLibrary, replaceCellsBySingleStageGates, false);
+    }
+
+    /* keepSelectedSizes: select the sizes named in the netlist instead of the default sizes */
+    public VerilogParser(File verilogFile, AggregatedCellLibrary aggregatedCellLibrary, boolean replaceCellsBySingleStageGates,
+                         boolean keepSelectedSizes) {
+        this.keepSelectedSizes = keepSelectedSizes;
         this.netlistName = basename(verilogFile.getName());
         this.statements = readVerilogStatementsFromFile(verilogFile);
         this.aggregatedCellLibrary = aggregatedCellLibrary;
@@ -125,7 +133,7 @@ public class VerilogParser {
             currentModuleStatements.add(statement);
             if (matches(statement, endmodulePattern)) {
                 Module module = new VerilogModuleParser(currentModuleStatements, netlist,
-                        aggregatedCellLibrary, replaceCellsBySingleStageGates).run();
+                        aggregatedCellLibrary, replaceCellsBySingleStageGates, keepSelectedSizes).run();
                 netlist.addModule(module);
                 currentModuleStatements = new ArrayList<String>();
             }
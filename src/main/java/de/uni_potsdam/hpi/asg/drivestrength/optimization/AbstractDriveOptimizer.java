@@ -1,10 +1,13 @@
 package de.uni_potsdam.hpi.asg.drivestrength.optimization;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.Checkpoint;
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.CheckpointWriter;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
 
@@ -14,6 +17,11 @@ public abstract class AbstractDriveOptimizer {
 
     protected List<CellInstance> cellInstances;
     private Netlist netlist;
+    private volatile boolean stopRequested;
+    private CheckpointWriter checkpointWriter;
+    private long checkpointIntervalNanos;
+    private long nextCheckpointTime;
+    private AbstractDriveOptimizer enclosingOptimizer; //the pipeline this optimizer is a stage of, adds its state to checkpoints
 
     public AbstractDriveOptimizer(Netlist netlist) {
         if (!netlist.isInlined()) {
@@ -41,6 +49,67 @@ public abstract class AbstractDriveOptimizer {
         }
     }
 
+    /* asks a running optimizer to finish early, keeping the sizes it has reached so far.
+     * Iterative optimizers check this between iterations, the others ignore it. */
+    public void requestStop() {
+        this.stopRequested = true;
+    }
+
+    protected boolean isStopRequested() {
+        return this.stopRequested;
+    }
+
+    /* iterative optimizers then hand a checkpoint to the writer between iterations, at most
+     * once per interval */
+    public void enableCheckpoints(CheckpointWriter checkpointWriter, long intervalMillis) {
+        this.checkpointWriter = checkpointWriter;
+        this.checkpointIntervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.nextCheckpointTime = System.nanoTime() + this.checkpointIntervalNanos;
+    }
+
+    void setEnclosingOptimizer(AbstractDriveOptimizer enclosingOptimizer) {
+        this.enclosingOptimizer = enclosingOptimizer;
+    }
+
+    protected void checkpointIfDue() {
+        if (this.checkpointWriter == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - this.nextCheckpointTime < 0) {
+            return;
+        }
+        this.nextCheckpointTime = now + this.checkpointIntervalNanos;
+        Checkpoint checkpoint = this.createCheckpoint();
+        if (this.enclosingOptimizer != null) {
+            this.enclosingOptimizer.addStageState(checkpoint);
+        }
+        this.checkpointWriter.submit(checkpoint);
+    }
+
+    /* sizes and theoretical capacitances, which lets any optimizer restart where it was.
+     * Optimizers with more state add it, see resumeFrom() */
+    protected Checkpoint createCheckpoint() {
+        return Checkpoint.fromNetlist(this.getClass().getSimpleName(), this.netlist);
+    }
+
+    /* for optimizers running others as stages, see enableCheckpoints() */
+    protected void addStageState(Checkpoint checkpoint) {
+    }
+
+    /* to be called before run() */
+    public void resumeFrom(Checkpoint checkpoint) {
+        if (!checkpoint.getOptimizerName().equals(this.getClass().getSimpleName())) {
+            throw new Error("Checkpoint was written by " + checkpoint.getOptimizerName() + ", cannot resume "
+                            + this.getClass().getSimpleName() + " from it");
+        }
+        if (checkpoint.hasNumber("pipelineStage") && this.enclosingOptimizer == null) {
+            throw new Error("Checkpoint was written by a pipeline stage, resume it with the same pipeline");
+        }
+        checkpoint.applyTo(this.netlist);
+        logger.info("Resuming " + this.getClass().getSimpleName() + " from checkpoint");
+    }
+
     public Netlist getNetlist() {
         return this.netlist;
     }
@@ -0,0 +1,159 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.Checkpoint;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Moves each cell's stage effort towards a target effort, either cell by cell on a worklist
+ * (Gauss-Seidel) or in parallel rounds that only read the previous round's capacitances (Jacobi).
+ */
+public abstract class AbstractStageEffortOptimizer extends AbstractWorklistOptimizer {
+
+    private boolean clampToImplementableCapacitances;
+    private boolean parallelRounds;
+    private double maxStepUp;
+    private double maxStepDown;
+    private boolean startFromSelectedSizes;
+
+    public AbstractStageEffortOptimizer(Netlist netlist, int rounds, boolean clampToImplementableCapacitances,
+                                        boolean parallelRounds, double maxStepUp, double maxStepDown) {
+        super(netlist, rounds, defaultTolerance);
+        this.clampToImplementableCapacitances = clampToImplementableCapacitances;
+        this.parallelRounds = parallelRounds;
+        this.maxStepUp = maxStepUp;
+        this.maxStepDown = maxStepDown;
+    }
+
+    /* warm start: the theoretical capacitances start from the selected sizes instead of where they
+     * were left (the default sizes, or a previous capacitance-based optimizer) */
+    public void setStartFromSelectedSizes(boolean startFromSelectedSizes) {
+        this.startFromSelectedSizes = startFromSelectedSizes;
+    }
+
+    /* the checkpoint holds the capacitances to continue from */
+    @Override
+    public void resumeFrom(Checkpoint checkpoint) {
+        super.resumeFrom(checkpoint);
+        this.startFromSelectedSizes = false;
+    }
+
+    @Override
+    protected void optimize() {
+        if (this.startFromSelectedSizes) {
+            for (CellInstance c : this.cellInstances) {
+                c.setTheoreticalCapacitancesFromSelectedSize();
+            }
+        }
+        if (this.parallelRounds) {
+            this.optimizeWithParallelRounds();
+        } else {
+            this.optimizeWithWorklist();
+        }
+        this.selectSizesFromTheoretical();
+    }
+
+    /* only valid between prepareRound() and the end of that round */
+    protected abstract double getTargetEffort(CellInstance c);
+
+    @Override
+    protected double updateCell(CellInstance c) {
+        double maxRelativeChange = 0.0;
+        double targetEffort = this.getTargetEffort(c);
+        double loadCapacitance = c.getLoadCapacitanceTheoretical();
+        for (String pinName : c.getInputPinNames()) {
+            double oldCapacitance = c.getInputPinTheoreticalCapacitance(pinName);
+            double newCapacitance = this.proposeCapacitance(c, pinName, loadCapacitance, targetEffort);
+            if (newCapacitance != oldCapacitance) {
+                c.setInputPinTheoreticalCapacitance(pinName, newCapacitance, clampToImplementableCapacitances);
+            }
+            double change = relativeChange(oldCapacitance, c.getInputPinTheoreticalCapacitance(pinName));
+            maxRelativeChange = Math.max(maxRelativeChange, change);
+        }
+        return maxRelativeChange;
+    }
+
+    private double proposeCapacitance(CellInstance c, String pinName, double loadCapacitance, double targetEffort) {
+        double capacitance = c.getInputPinTheoreticalCapacitance(pinName);
+        double stageEffort = calculateStageEffort(c, pinName, loadCapacitance);
+        double error = stageEffort / targetEffort;
+        if (error > 1) { //too much stage effort, make stronger
+            return capacitance * Math.min(error, maxStepUp);
+        }
+        if (error < 1) { //too little stage effort, make weaker
+            return capacitance * Math.max(error, maxStepDown);
+        }
+        return capacitance;
+    }
+
+    private void optimizeWithParallelRounds() {
+        List<CellInstance> cells = this.cellInstances;
+        int[] pinOffsets = new int[cells.size() + 1];
+        for (int i = 0; i < cells.size(); i++) {
+            pinOffsets[i + 1] = pinOffsets[i] + cells.get(i).getInputPinNames().size();
+        }
+        double[] oldCapacitances = new double[pinOffsets[cells.size()]];
+        double[] newCapacitances = new double[pinOffsets[cells.size()]];
+
+        int roundCount = 0;
+        double maxRelativeChange = Double.POSITIVE_INFINITY;
+        while (roundCount < this.getMaxRounds() && maxRelativeChange > this.getTolerance() && !this.isStopRequested()) {
+            this.checkpointIfDue();
+            this.prepareRound(cells);
+            /* every cell reads only the committed state and writes only its own slots */
+            IntStream.range(0, cells.size()).parallel().forEach(i ->
+                this.proposeClampedCapacitances(cells.get(i), oldCapacitances, newCapacitances, pinOffsets[i]));
+
+            maxRelativeChange = 0.0;
+            for (int k = 0; k < newCapacitances.length; k++) {
+                maxRelativeChange = Math.max(maxRelativeChange, relativeChange(oldCapacitances[k], newCapacitances[k]));
+            }
+            for (int i = 0; i < cells.size(); i++) {
+                cells.get(i).commitInputPinTheoreticalCapacitances(newCapacitances, pinOffsets[i]);
+            }
+            this.addUpdates(cells.size());
+            roundCount++;
+        }
+
+        logger.info(this.getClass().getSimpleName() + ": " + this.getUpdateCount() + " cell updates in "
+                    + roundCount + " parallel rounds, last maximum relative change " + maxRelativeChange);
+        if (maxRelativeChange > this.getTolerance()) {
+            logger.warn(this.getClass().getSimpleName() + ": no convergence within " + this.getMaxRounds()
+                        + " rounds (tolerance " + this.getTolerance() + ")");
+        }
+    }
+
+    private void proposeClampedCapacitances(CellInstance c, double[] oldCapacitances, double[] newCapacitances, int offset) {
+        double targetEffort = this.getTargetEffort(c);
+        double loadCapacitance = c.getLoadCapacitanceTheoretical();
+        List<String> inputPinNames = c.getInputPinNames();
+        for (int p = 0; p < inputPinNames.size(); p++) {
+            String pinName = inputPinNames.get(p);
+            double oldCapacitance = c.getInputPinTheoreticalCapacitance(pinName);
+            double newCapacitance = this.proposeCapacitance(c, pinName, loadCapacitance, targetEffort);
+            if (newCapacitance != oldCapacitance) {
+                newCapacitance = c.clampInputPinTheoreticalCapacitance(pinName, newCapacitance, clampToImplementableCapacitances);
+            }
+            oldCapacitances[offset + p] = oldCapacitance;
+            newCapacitances[offset + p] = newCapacitance;
+        }
+    }
+
+    protected double calculateStageEffort(CellInstance cellInstance, String pinName, double loadCapacitance) {
+        double inputCapacitance = cellInstance.getInputPinTheoreticalCapacitance(pinName);
+        double electricalEffort = loadCapacitance / inputCapacitance;
+        int stageCount = cellInstance.getDefinition().getStageCountForPin(pinName);
+        double logicalEffort = cellInstance.getDefinition().getLogicalEffortForPin(pinName);
+
+        /* simplifying assumption: *within a cell*, the stage efforts are equal
+         * (pretend that someone chose the inner capacitances to do that for
+         * *our* electrical effort */
+
+        double stageEffort = Math.pow(electricalEffort * logicalEffort, 1.0 / stageCount);
+
+        return stageEffort;
+    }
+}
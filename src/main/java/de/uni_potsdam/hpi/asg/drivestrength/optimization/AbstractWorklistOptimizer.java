@@ -0,0 +1,111 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Iterates cell updates until convergence: a cell is only revisited if it or one of
+ * the cells its update depends on changed by more than the tolerance.
+ */
+public abstract class AbstractWorklistOptimizer extends AbstractDriveOptimizer {
+
+    public static final double defaultTolerance = 0.001;
+
+    private int maxRounds;
+    private double tolerance;
+    private Deque<CellInstance> worklist;
+    private Set<CellInstance> enqueued;
+    private int updateCount;
+    private int roundCount;
+
+    public AbstractWorklistOptimizer(Netlist netlist, int maxRounds, double tolerance) {
+        super(netlist);
+        this.maxRounds = maxRounds;
+        this.tolerance = tolerance;
+    }
+
+    protected void optimizeWithWorklist() {
+        this.worklist = new ArrayDeque<>();
+        this.enqueued = new HashSet<>();
+        this.updateCount = 0;
+        this.roundCount = 0;
+        this.enqueueAll();
+
+        long maxUpdates = (long) this.maxRounds * this.cellInstances.size();
+        while (!this.worklist.isEmpty() && this.updateCount < maxUpdates && !this.isStopRequested()) {
+            this.checkpointIfDue();
+            List<CellInstance> cellsInRound = new ArrayList<>(this.worklist);
+            this.worklist.clear();
+            this.enqueued.clear();
+
+            this.prepareRound(cellsInRound);
+            for (CellInstance c : cellsInRound) {
+                double relativeChange = this.updateCell(c);
+                this.updateCount++;
+                if (relativeChange > this.tolerance) {
+                    this.enqueueAll(this.dependentsOf(c));
+                }
+            }
+            this.roundCount++;
+        }
+
+        logger.info(this.getClass().getSimpleName() + ": " + this.updateCount + " cell updates in "
+                    + this.roundCount + " rounds (full sweeps would need " + maxUpdates + ")");
+        if (!this.worklist.isEmpty()) {
+            logger.warn(this.getClass().getSimpleName() + ": no convergence within " + this.maxRounds
+                        + " rounds (tolerance " + this.tolerance + ")");
+        }
+    }
+
+    protected void enqueueAll() {
+        this.enqueueAll(this.cellInstances);
+    }
+
+    protected void enqueueAll(Collection<CellInstance> cellsToEnqueue) {
+        for (CellInstance c : cellsToEnqueue) {
+            if (this.enqueued.add(c)) {
+                this.worklist.add(c);
+            }
+        }
+    }
+
+    protected double getTolerance() {
+        return this.tolerance;
+    }
+
+    protected int getMaxRounds() {
+        return this.maxRounds;
+    }
+
+    protected void addUpdates(int count) {
+        this.updateCount += count;
+    }
+
+    protected static double relativeChange(double before, double after) {
+        if (before == 0.0) {
+            return after == 0.0 ? 0.0 : Double.POSITIVE_INFINITY;
+        }
+        return Math.abs(after - before) / Math.abs(before);
+    }
+
+    public int getUpdateCount() {
+        return this.updateCount;
+    }
+
+    /* called with the cells about to be updated, before the first of them is */
+    protected abstract void prepareRound(List<CellInstance> cellsInRound);
+
+    /* returns the largest relative change the update made to the cell */
+    protected abstract double updateCell(CellInstance c);
+
+    /* cells whose update result may change if c changed (including c itself, if applicable) */
+    protected abstract Collection<CellInstance> dependentsOf(CellInstance c);
+}
@@ -0,0 +1,432 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCell;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.DelayLine;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Exact sizing for small blocks: depth-first branch and bound over all size combinations,
+ * computing the complete Pareto front of estimated energy vs. estimated delay (same models
+ * as EnergyEstimator and DelayEstimator). The point of the front minimizing the weighted
+ * cost (normalized like SACostFunction) is selected.
+ */
+public class BranchAndBoundOptimizer extends AbstractDriveOptimizer {
+
+    private static final int tasksPerThread = 8;
+
+    private int percentageEnergy;
+    private int cellCount;
+    private List<List<Cell>> sizeDomains;
+
+    /* per cell and size, delay and energy are linear in the load capacitance: offset + slope * load */
+    private double[][] delayOffsets;
+    private double[][] delaySlopes;
+    private double[][] energyOffsets;
+    private double[][] energySlopes;
+    private double[][][] pinCapacitances; //[cell][size][pin]
+
+    private double[] staticLoads;
+    private int[][] loadCells;
+    private int[][] loadPins;
+    private double[][] minLoadCapacitances;
+    private double[][] maxLoadCapacitances;
+    private int[][] drivers;
+    private int[] searchOrder;
+
+    private ParetoFront<int[]> paretoFront;
+    private AtomicLong visitedNodes;
+    private AtomicLong prunedNodes;
+
+    public BranchAndBoundOptimizer(Netlist netlist, int percentageEnergy) {
+        super(netlist);
+        this.percentageEnergy = percentageEnergy;
+    }
+
+    @Override
+    protected void optimize() {
+        this.buildModel();
+        this.determineSearchOrder();
+        this.paretoFront = new ParetoFront<>();
+        this.visitedNodes = new AtomicLong();
+        this.prunedNodes = new AtomicLong();
+
+        int[] incomingSizes = this.currentSizeIndices();
+        double[] incomingEstimate = null;
+        if (incomingSizes != null) {
+            incomingEstimate = new SearchState(incomingSizes).getEnergyAndDelay();
+            this.paretoFront.add(incomingEstimate[0], incomingEstimate[1], incomingSizes);
+        }
+
+        logger.info("BB: searching 10^" + String.format("%.1f", this.log10SearchSpaceSize()) + " size combinations of "
+                    + this.cellCount + " cells");
+        this.searchInParallel();
+        logger.info("BB: visited " + this.visitedNodes.get() + " nodes, pruned " + this.prunedNodes.get()
+                    + ", Pareto front has " + this.paretoFront.size() + " points");
+
+        if (this.paretoFront.size() == 0) {
+            logger.warn("BB: stopped before finding any solution, keeping the incoming sizes");
+            return;
+        }
+        int chosenIndex = this.chooseWeightedPoint(incomingEstimate);
+        logger.info("BB: chosen point: energy " + this.paretoFront.getEnergy(chosenIndex) + ", delay "
+                    + this.paretoFront.getDelay(chosenIndex) + " ps");
+        this.selectSizes(this.paretoFront.getPayload(chosenIndex));
+    }
+
+    public ParetoFront<int[]> getParetoFront() {
+        return this.paretoFront;
+    }
+
+    public String getParetoFrontCsv() {
+        StringBuilder csv = new StringBuilder("energy,delay");
+        for (CellInstance c : this.cellInstances) {
+            csv.append(",").append(c.getName());
+        }
+        csv.append("\n");
+        for (int p = 0; p < this.paretoFront.size(); p++) {
+            csv.append(this.paretoFront.getEnergy(p)).append(",").append(this.paretoFront.getDelay(p));
+            int[] sizes = this.paretoFront.getPayload(p);
+            for (int i = 0; i < this.cellCount; i++) {
+                csv.append(",").append(this.sizeDomains.get(i).get(sizes[i]).getName());
+            }
+            csv.append("\n");
+        }
+        return csv.toString();
+    }
+
+    private void buildModel() {
+        this.cellCount = this.cellInstances.size();
+        Map<CellInstance, Integer> cellIndices = new HashMap<>();
+        for (int i = 0; i < this.cellCount; i++) {
+            cellIndices.put(this.cellInstances.get(i), i);
+        }
+
+        this.sizeDomains = new ArrayList<>();
+        this.delayOffsets = new double[cellCount][];
+        this.delaySlopes = new double[cellCount][];
+        this.energyOffsets = new double[cellCount][];
+        this.energySlopes = new double[cellCount][];
+        this.pinCapacitances = new double[cellCount][][];
+        for (int i = 0; i < cellCount; i++) {
+            CellInstance c = this.cellInstances.get(i);
+            List<Cell> domain = this.allowedSizes(c);
+            this.sizeDomains.add(domain);
+            this.fillCostCoefficients(i, c, domain);
+        }
+
+        this.staticLoads = new double[cellCount];
+        this.loadCells = new int[cellCount][];
+        this.loadPins = new int[cellCount][];
+        this.minLoadCapacitances = new double[cellCount][];
+        this.maxLoadCapacitances = new double[cellCount][];
+        List<Set<Integer>> driverSets = new ArrayList<>();
+        for (int i = 0; i < cellCount; i++) {
+            driverSets.add(new LinkedHashSet<Integer>());
+        }
+        for (int i = 0; i < cellCount; i++) {
+            List<Load> cellLoads = new ArrayList<>();
+            for (Load l : this.cellInstances.get(i).getLoads()) {
+                if (l.isStaticLoad()) {
+                    this.staticLoads[i] += l.getCapacitanceSelected();
+                } else {
+                    cellLoads.add(l);
+                }
+            }
+            this.loadCells[i] = new int[cellLoads.size()];
+            this.loadPins[i] = new int[cellLoads.size()];
+            this.minLoadCapacitances[i] = new double[cellLoads.size()];
+            this.maxLoadCapacitances[i] = new double[cellLoads.size()];
+            for (int k = 0; k < cellLoads.size(); k++) {
+                Load l = cellLoads.get(k);
+                int j = cellIndices.get(l.getCellInstance());
+                int q = l.getCellInstance().getInputPinNames().indexOf(l.getPinName());
+                this.loadCells[i][k] = j;
+                this.loadPins[i][k] = q;
+                this.minLoadCapacitances[i][k] = Double.POSITIVE_INFINITY;
+                this.maxLoadCapacitances[i][k] = Double.NEGATIVE_INFINITY;
+                for (double[] sizePinCapacitances : this.pinCapacitances[j]) {
+                    this.minLoadCapacitances[i][k] = Math.min(this.minLoadCapacitances[i][k], sizePinCapacitances[q]);
+                    this.maxLoadCapacitances[i][k] = Math.max(this.maxLoadCapacitances[i][k], sizePinCapacitances[q]);
+                }
+                driverSets.get(j).add(i);
+            }
+        }
+        this.drivers = new int[cellCount][];
+        for (int j = 0; j < cellCount; j++) {
+            this.drivers[j] = driverSets.get(j).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /* same restriction as CellInstance.selectSize() */
+    private List<Cell> allowedSizes(CellInstance c) {
+        List<Cell> allowed = new ArrayList<>();
+        for (Cell size : c.getDefinition().getRawSizes()) {
+            if (!c.isInputDriven() || !size.violatesMaxCIn(c.getInputDrivenMaxCIn())) {
+                allowed.add(size);
+            }
+        }
+        if (allowed.isEmpty()) {
+            allowed.add(c.getSelectedSize());
+        }
+        return allowed;
+    }
+
+    private void fillCostCoefficients(int i, CellInstance c, List<Cell> domain) {
+        AggregatedCell definition = c.getDefinition();
+        List<String> pinNames = c.getInputPinNames();
+        this.delayOffsets[i] = new double[domain.size()];
+        this.delaySlopes[i] = new double[domain.size()];
+        this.energyOffsets[i] = new double[domain.size()];
+        this.energySlopes[i] = new double[domain.size()];
+        this.pinCapacitances[i] = new double[domain.size()][pinNames.size()];
+        for (int s = 0; s < domain.size(); s++) {
+            String sizeName = domain.get(s).getName();
+            for (int p = 0; p < pinNames.size(); p++) {
+                String pinName = pinNames.get(p);
+                double inputCapacitance = definition.getSizeCapacitance(sizeName, pinName);
+                DelayLine delayLine = definition.getSizeDelayLines().get(pinName).get(sizeName);
+                double power = definition.getPowerFor(sizeName, pinName);
+                this.pinCapacitances[i][s][p] = inputCapacitance;
+                this.delayOffsets[i][s] += delayLine.getOffset() * 1000;
+                this.delaySlopes[i][s] += delayLine.getSlope() / inputCapacitance * 1000;
+                this.energyOffsets[i][s] += delayLine.getOffset() * power;
+                this.energySlopes[i][s] += delayLine.getSlope() / inputCapacitance * power;
+            }
+        }
+    }
+
+    /* breadth-first along loads and drivers, so that cells become fully determined early */
+    private void determineSearchOrder() {
+        this.searchOrder = new int[this.cellCount];
+        boolean[] ordered = new boolean[this.cellCount];
+        int position = 0;
+        for (int start = 0; start < this.cellCount; start++) {
+            if (ordered[start]) continue;
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(start);
+            ordered[start] = true;
+            while (!queue.isEmpty()) {
+                int i = queue.poll();
+                this.searchOrder[position++] = i;
+                for (int j : this.loadCells[i]) {
+                    if (!ordered[j]) {
+                        ordered[j] = true;
+                        queue.add(j);
+                    }
+                }
+                for (int j : this.drivers[i]) {
+                    if (!ordered[j]) {
+                        ordered[j] = true;
+                        queue.add(j);
+                    }
+                }
+            }
+        }
+    }
+
+    private void searchInParallel() {
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        int prefixLength = 0;
+        long taskCount = 1;
+        while (prefixLength < this.cellCount && taskCount < (long) tasksPerThread * threadCount) {
+            taskCount *= this.sizeDomains.get(this.searchOrder[prefixLength]).size();
+            prefixLength++;
+        }
+        final int splitDepth = prefixLength;
+        logger.info("BB: splitting the search into " + taskCount + " subtrees at depth " + splitDepth);
+
+        IntStream.range(0, (int) taskCount).parallel().forEach(task -> {
+            SearchState state = new SearchState();
+            int remainder = task;
+            for (int level = splitDepth - 1; level >= 0; level--) {
+                int cell = this.searchOrder[level];
+                int domainSize = this.sizeDomains.get(cell).size();
+                state.assign(cell, remainder % domainSize);
+                remainder /= domainSize;
+            }
+            state.search(splitDepth);
+        });
+    }
+
+    private int[] currentSizeIndices() {
+        int[] sizes = new int[this.cellCount];
+        for (int i = 0; i < this.cellCount; i++) {
+            sizes[i] = this.sizeDomains.get(i).indexOf(this.cellInstances.get(i).getSelectedSize());
+            if (sizes[i] < 0) {
+                return null;
+            }
+        }
+        return sizes;
+    }
+
+    private double log10SearchSpaceSize() {
+        double log = 0.0;
+        for (List<Cell> domain : this.sizeDomains) {
+            log += Math.log10(domain.size());
+        }
+        return log;
+    }
+
+    private int chooseWeightedPoint(double[] incomingEstimate) {
+        double energyNormalization = 1.0;
+        double delayNormalization = 1.0;
+        if (incomingEstimate != null) {
+            energyNormalization = incomingEstimate[0];
+            delayNormalization = incomingEstimate[1];
+        }
+        double weightEnergy = this.percentageEnergy / 100.0 / energyNormalization;
+        double weightDelay = (1 - this.percentageEnergy / 100.0) / delayNormalization;
+
+        int bestIndex = 0;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int p = 0; p < this.paretoFront.size(); p++) {
+            double cost = this.paretoFront.getEnergy(p) * weightEnergy + this.paretoFront.getDelay(p) * weightDelay;
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestIndex = p;
+            }
+        }
+        return bestIndex;
+    }
+
+    private void selectSizes(int[] sizes) {
+        for (int i = 0; i < this.cellCount; i++) {
+            this.cellInstances.get(i).selectSize(this.sizeDomains.get(i).get(sizes[i]));
+        }
+    }
+
+    /**
+     * One depth-first search (per subtree). The bound of a cell is the lowest delay and energy
+     * over its unassigned size and load choices; once the cell and all its loads are assigned,
+     * it is exact. Assigning a cell changes only its own bound and those of its drivers.
+     */
+    private class SearchState {
+        private int[] sizes;
+        private boolean[] assigned;
+        private double[] delayBounds;
+        private double[] energyBounds;
+        private double delayBoundSum;
+        private double energyBoundSum;
+        private boolean[] reflected;
+
+        private SearchState() {
+            this.sizes = new int[cellCount];
+            this.assigned = new boolean[cellCount];
+            this.delayBounds = new double[cellCount];
+            this.energyBounds = new double[cellCount];
+            this.reflected = new boolean[cellCount];
+            for (int i = 0; i < cellCount; i++) {
+                this.updateBound(i);
+            }
+        }
+
+        private SearchState(int[] fixedSizes) {
+            this();
+            for (int i = 0; i < cellCount; i++) {
+                this.assign(i, fixedSizes[i]);
+            }
+        }
+
+        private double[] getEnergyAndDelay() {
+            double energy = 0.0;
+            double delay = 0.0;
+            for (int i = 0; i < cellCount; i++) {
+                energy += this.energyBounds[i];
+                delay += this.delayBounds[i];
+            }
+            return new double[] {energy, delay};
+        }
+
+        private void assign(int cell, int size) {
+            this.sizes[cell] = size;
+            this.assigned[cell] = true;
+            this.updateBoundsAround(cell);
+        }
+
+        private void unassign(int cell) {
+            this.assigned[cell] = false;
+            this.updateBoundsAround(cell);
+        }
+
+        private void updateBoundsAround(int cell) {
+            this.updateBound(cell);
+            for (int driver : drivers[cell]) {
+                this.updateBound(driver);
+            }
+        }
+
+        private void updateBound(int i) {
+            double minLoad = staticLoads[i];
+            double maxLoad = staticLoads[i];
+            for (int k = 0; k < loadCells[i].length; k++) {
+                int j = loadCells[i][k];
+                if (this.assigned[j]) {
+                    double capacitance = pinCapacitances[j][this.sizes[j]][loadPins[i][k]];
+                    minLoad += capacitance;
+                    maxLoad += capacitance;
+                } else {
+                    minLoad += minLoadCapacitances[i][k];
+                    maxLoad += maxLoadCapacitances[i][k];
+                }
+            }
+
+            double delayBound = Double.POSITIVE_INFINITY;
+            double energyBound = Double.POSITIVE_INFINITY;
+            int firstSize = this.assigned[i] ? this.sizes[i] : 0;
+            int lastSize = this.assigned[i] ? this.sizes[i] : sizeDomains.get(i).size() - 1;
+            for (int s = firstSize; s <= lastSize; s++) {
+                /* linear in the load: the minimum is at one end of the load range */
+                delayBound = Math.min(delayBound, delayOffsets[i][s] + delaySlopes[i][s] * minLoad);
+                delayBound = Math.min(delayBound, delayOffsets[i][s] + delaySlopes[i][s] * maxLoad);
+                energyBound = Math.min(energyBound, energyOffsets[i][s] + energySlopes[i][s] * minLoad);
+                energyBound = Math.min(energyBound, energyOffsets[i][s] + energySlopes[i][s] * maxLoad);
+            }
+            this.delayBoundSum += delayBound - this.delayBounds[i];
+            this.energyBoundSum += energyBound - this.energyBounds[i];
+            this.delayBounds[i] = delayBound;
+            this.energyBounds[i] = energyBound;
+        }
+
+        private void search(int level) {
+            if (isStopRequested()) {
+                return;
+            }
+            visitedNodes.incrementAndGet();
+            if (paretoFront.isDominated(this.energyBoundSum, this.delayBoundSum)) {
+                prunedNodes.incrementAndGet();
+                return;
+            }
+            if (level == cellCount) {
+                /* the incremental sums carry rounding drift, so archive freshly summed values */
+                double[] energyAndDelay = this.getEnergyAndDelay();
+                paretoFront.add(energyAndDelay[0], energyAndDelay[1], this.sizes.clone());
+                return;
+            }
+
+            /* reflected (Gray code) order: the deepest unpruned levels change one cell per step */
+            int cell = searchOrder[level];
+            int domainSize = sizeDomains.get(cell).size();
+            for (int step = 0; step < domainSize; step++) {
+                int size = this.reflected[level] ? domainSize - 1 - step : step;
+                this.assign(cell, size);
+                this.search(level + 1);
+            }
+            this.reflected[level] = !this.reflected[level];
+            this.unassign(cell);
+        }
+    }
+}
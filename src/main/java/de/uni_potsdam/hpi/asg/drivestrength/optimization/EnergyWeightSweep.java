@@ -0,0 +1,148 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.AnnotatedNetlistCopier;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Runs SA for a list of energy weights in one process. The weights are split into contiguous
+ * chains, one per available processor; each chain works on its own netlist copy and warm-starts
+ * every weight from the previous weight's solution. SA is calibrated only once for all weights.
+ */
+public class EnergyWeightSweep {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private static class SweepResult {
+        private int percentageEnergy;
+        private double energy;
+        private int delay;
+        private List<Cell> sizes;
+    }
+
+    private Netlist inlinedNetlist;
+    private int[] percentagesEnergy;
+    private int roundsPerCell;
+    private double outputPinCapacitance;
+    private double inputDrivenMaxCIn;
+    private SweepResult[] results;
+    private ParetoFront<SweepResult> paretoFront;
+
+    public EnergyWeightSweep(Netlist inlinedNetlist, List<Integer> percentagesEnergy, int roundsPerCell,
+                             double outputPinCapacitance, double inputDrivenMaxCIn) {
+        if (!inlinedNetlist.isInlined()) {
+            throw new Error("Cannot sweep on non-inlined netlists.");
+        }
+        if (percentagesEnergy.isEmpty()) {
+            throw new Error("Energy weight sweep needs at least one energy percentage");
+        }
+        for (int percentageEnergy : percentagesEnergy) {
+            if (percentageEnergy < 0 || percentageEnergy > 100) {
+                throw new Error("Energy percentage must be between 0 and 100, got " + percentageEnergy);
+            }
+        }
+        this.inlinedNetlist = inlinedNetlist;
+        this.percentagesEnergy = new TreeSet<>(percentagesEnergy).stream().mapToInt(Integer::intValue).toArray();
+        this.roundsPerCell = roundsPerCell;
+        this.outputPinCapacitance = outputPinCapacitance;
+        this.inputDrivenMaxCIn = inputDrivenMaxCIn;
+    }
+
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        int chainCount = Math.min(Runtime.getRuntime().availableProcessors(), this.percentagesEnergy.length);
+        logger.info("Sweeping energy weights " + this.percentageList() + " in " + chainCount + " chains...");
+
+        AnnotatedNetlistCopier copier = new AnnotatedNetlistCopier(this.outputPinCapacitance, this.inputDrivenMaxCIn);
+        List<Netlist> chainNetlists = new ArrayList<>();
+        for (int chain = 0; chain < chainCount; chain++) {
+            chainNetlists.add(copier.copy(this.inlinedNetlist));
+        }
+        SACalibration calibration = new SimulatedAnnealingOptimizer(chainNetlists.get(0), false, this.roundsPerCell,
+                                                                    this.percentagesEnergy[0]).getCalibration();
+
+        this.results = new SweepResult[this.percentagesEnergy.length];
+        IntStream.range(0, chainCount).parallel().forEach(chain ->
+            this.runChain(chainNetlists.get(chain), chain, chainCount, calibration));
+
+        this.paretoFront = new ParetoFront<>();
+        for (SweepResult r : this.results) {
+            this.paretoFront.add(r.energy, r.delay, r);
+        }
+        logger.info("Sweep: " + this.paretoFront.size() + " of " + this.results.length
+                    + " results are Pareto-optimal, runtime: " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    private void runChain(Netlist chainNetlist, int chain, int chainCount, SACalibration calibration) {
+        int first = chain * this.percentagesEnergy.length / chainCount;
+        int last = (chain + 1) * this.percentagesEnergy.length / chainCount;
+        for (int k = first; k < last; k++) {
+            boolean warmStart = k > first;
+            new SimulatedAnnealingOptimizer(chainNetlist, false, this.roundsPerCell, this.percentagesEnergy[k],
+                                            calibration, warmStart).run();
+            this.results[k] = this.createResult(chainNetlist, this.percentagesEnergy[k]);
+        }
+    }
+
+    private SweepResult createResult(Netlist netlist, int percentageEnergy) {
+        SweepResult result = new SweepResult();
+        result.percentageEnergy = percentageEnergy;
+        result.energy = new EnergyEstimator(netlist, false).run();
+        result.delay = new DelayEstimator(netlist, false, false).run();
+        result.sizes = new ArrayList<>();
+        for (CellInstance c : netlist.getRootModule().getCellInstances()) {
+            result.sizes.add(c.getSelectedSize());
+        }
+        logger.info("Sweep: energy weight " + percentageEnergy + " %: energy " + result.energy + ", delay " + result.delay + " ps");
+        return result;
+    }
+
+    public List<Integer> getParetoOptimalPercentages() {
+        List<Integer> percentages = new ArrayList<>();
+        for (int p = 0; p < this.paretoFront.size(); p++) {
+            percentages.add(this.paretoFront.getPayload(p).percentageEnergy);
+        }
+        return percentages;
+    }
+
+    /* selects the sizes found for the given energy weight in the inlined netlist (and its avatars) */
+    public void applyResult(int percentageEnergy) {
+        for (SweepResult r : this.results) {
+            if (r.percentageEnergy == percentageEnergy) {
+                List<CellInstance> cellInstances = this.inlinedNetlist.getRootModule().getCellInstances();
+                for (int i = 0; i < cellInstances.size(); i++) {
+                    cellInstances.get(i).selectSize(r.sizes.get(i));
+                }
+                return;
+            }
+        }
+        throw new Error("Energy weight " + percentageEnergy + " % was not part of the sweep");
+    }
+
+    public String getResultsCsv() {
+        String csv = "energyPercentage,energy,delay,paretoOptimal\n";
+        List<Integer> paretoOptimal = this.getParetoOptimalPercentages();
+        for (SweepResult r : this.results) {
+            csv += r.percentageEnergy + "," + r.energy + "," + r.delay + "," + paretoOptimal.contains(r.percentageEnergy) + "\n";
+        }
+        return csv;
+    }
+
+    private String percentageList() {
+        List<Integer> percentages = new ArrayList<>();
+        for (int p : this.percentagesEnergy) {
+            percentages.add(p);
+        }
+        return percentages.toString();
+    }
+}
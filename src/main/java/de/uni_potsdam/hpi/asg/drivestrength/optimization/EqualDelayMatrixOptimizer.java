@@ -1,6 +1,10 @@
 package de.uni_potsdam.hpi.asg.drivestrength.optimization;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import org.apache.commons.math3.linear.EigenDecomposition;
 import org.apache.commons.math3.linear.MatrixUtils;
@@ -8,14 +12,26 @@ import org.apache.commons.math3.linear.RealMatrix;
 
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.loops.StronglyConnectedComponents;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
 
 public class EqualDelayMatrixOptimizer extends AbstractDriveOptimizer {
 
+    private static final double solverTolerance = 1e-9;
+    private static final int solverMaxIterations = 100000;
+    private static final double delayTolerance = 1e-4;
+
     private RealMatrix effortMatrix_T;
-    private RealMatrix staticLoadMatrix_b;
-    private RealMatrix driveStrengthMatrix_x;
+    private double[] staticLoads_b;
+    private double[] diagonalEfforts;
+    private int[] offDiagonalRowStarts; //effort matrix without diagonal, compressed by rows
+    private int[] offDiagonalColumns;
+    private double[] offDiagonalEfforts;
+    private double[] driveStrengths_x;
     private double criticalDelay;
+    private int solverIterationsTotal;
+    private double lastRelativeResidual;
+    private double chosenRelativeResidual;
 
     public EqualDelayMatrixOptimizer(Netlist netlist) {
         super(netlist);
@@ -32,55 +48,148 @@ public class EqualDelayMatrixOptimizer extends AbstractDriveOptimizer {
 
     @Override
     protected void optimize() {
-        int iterations = 1000;
         this.fillMatrices();
         this.computeCriticalDelay();
         logger.info("EDM: Critical delay: " + this.criticalDelay);
 
-        double delayFactor = 1.001;
-        do {
-            this.solveLinearEquationSystem(this.criticalDelay * delayFactor, iterations);
-            delayFactor *= 1.001;
-        } while (violatesInputDrivenSizeRequirement());
+        double delayFactor = this.searchSmallestFeasibleDelayFactor();
+        if (Double.isNaN(delayFactor)) {
+            logger.info("EDM: stopped before finding a feasible delay, keeping the current sizes");
+            return;
+        }
 
-        logger.info("EDM: Chosen delay to match input driven: " + delayFactor * this.criticalDelay + " (" + delayFactor + " * critical)");
+        logger.info("EDM: Chosen delay to match input driven: " + delayFactor * this.criticalDelay + " (" + delayFactor + " * critical), "
+                    + this.solverIterationsTotal + " solver iterations in total, relative residual " + this.chosenRelativeResidual);
         this.setCapactiances();
         this.selectSizesFromTheoretical();
     }
 
+    /* The drive strengths x = (tI - T)^-1 b shrink monotonically with growing target delay t,
+     * so the smallest t satisfying the input-driven limits can be found by bisection. On a stop
+     * request the bisection ends with the best feasible factor so far; NaN if there is none yet */
+    private double searchSmallestFeasibleDelayFactor() {
+        double[] feasibleDriveStrengths = new double[this.cellInstances.size()];
+        double lowerFactor = 1.0;
+        double upperFactor = 1.001;
+        int searchSteps = 1;
+        while (!this.solvesWithinInputDrivenLimits(upperFactor, feasibleDriveStrengths)) {
+            if (this.isStopRequested()) {
+                return Double.NaN;
+            }
+            lowerFactor = upperFactor;
+            upperFactor = 1.0 + (upperFactor - 1.0) * 2;
+            searchSteps++;
+        }
+        feasibleDriveStrengths = this.driveStrengths_x.clone();
+        this.chosenRelativeResidual = this.lastRelativeResidual;
+
+        while ((upperFactor - lowerFactor) / upperFactor > delayTolerance && !this.isStopRequested()) {
+            double middleFactor = (lowerFactor + upperFactor) / 2;
+            if (this.solvesWithinInputDrivenLimits(middleFactor, feasibleDriveStrengths)) {
+                upperFactor = middleFactor;
+                feasibleDriveStrengths = this.driveStrengths_x.clone();
+                this.chosenRelativeResidual = this.lastRelativeResidual;
+            } else {
+                lowerFactor = middleFactor;
+            }
+            searchSteps++;
+        }
+        logger.info("EDM: delay search took " + searchSteps + " solves");
+
+        this.driveStrengths_x = feasibleDriveStrengths;
+        return upperFactor;
+    }
+
+    /* Starting from the solution for a larger delay (or from zero), the Gauss-Seidel iterates
+     * grow monotonically towards the solution, so a violation in any sweep is final */
+    private boolean solvesWithinInputDrivenLimits(double delayFactor, double[] startingDriveStrengths) {
+        this.driveStrengths_x = startingDriveStrengths.clone();
+        boolean converged = this.solveLinearEquationSystem(this.criticalDelay * delayFactor, true);
+        return converged && !this.violatesInputDrivenSizeRequirement();
+    }
+
     private void fillMatrices() {
         int gateCount = this.cellInstances.size();
-        staticLoadMatrix_b = MatrixUtils.createRealMatrix(gateCount, 1);
+        Map<CellInstance, Integer> gateIndices = this.indexGates();
+        staticLoads_b = new double[gateCount];
+        diagonalEfforts = new double[gateCount];
         effortMatrix_T = MatrixUtils.createRealMatrix(gateCount, gateCount);
 
         for (int i = 0; i < gateCount; i++) {
             List<Load> loads = cellInstances.get(i).getLoads();
             for (Load l : loads) {
                 if (l.isStaticLoad()) {
-                    double oldValue = staticLoadMatrix_b.getEntry(i, 0);
-                    staticLoadMatrix_b.setEntry(i, 0, oldValue + l.getCapacitanceTheoretical());
+                    staticLoads_b[i] += l.getCapacitanceTheoretical();
                 } else {
                     CellInstance loadInstance = l.getCellInstance();
-                    int loadIndex = this.findGateIndex(loadInstance);
+                    int loadIndex = gateIndices.get(loadInstance);
                     effortMatrix_T.setEntry(i, loadIndex, loadInstance.getDefinition().getLogicalEffortForPin(l.getPinName()));
                 }
             }
             double oldValue = effortMatrix_T.getEntry(i, i);
             effortMatrix_T.setEntry(i, i, oldValue + cellInstances.get(i).getDefinition().getAvgParasiticDelay());
         }
+
+        this.compressEffortMatrix();
     }
 
-    private int findGateIndex(CellInstance aGateInstance) {
+    private Map<CellInstance, Integer> indexGates() {
+        Map<CellInstance, Integer> gateIndices = new HashMap<>();
         for (int i = 0; i < this.cellInstances.size(); i++) {
-            if (cellInstances.get(i) == aGateInstance) {
-                return i;
+            gateIndices.put(this.cellInstances.get(i), i);
+        }
+        return gateIndices;
+    }
+
+    private void compressEffortMatrix() {
+        int gateCount = this.cellInstances.size();
+        int nonZeroCount = 0;
+        for (int i = 0; i < gateCount; i++) {
+            for (int j = 0; j < gateCount; j++) {
+                if (i != j && effortMatrix_T.getEntry(i, j) != 0.0) {
+                    nonZeroCount++;
+                }
+            }
+        }
+        offDiagonalRowStarts = new int[gateCount + 1];
+        offDiagonalColumns = new int[nonZeroCount];
+        offDiagonalEfforts = new double[nonZeroCount];
+        int position = 0;
+        for (int i = 0; i < gateCount; i++) {
+            offDiagonalRowStarts[i] = position;
+            diagonalEfforts[i] = effortMatrix_T.getEntry(i, i);
+            for (int j = 0; j < gateCount; j++) {
+                double effort = effortMatrix_T.getEntry(i, j);
+                if (i != j && effort != 0.0) {
+                    offDiagonalColumns[position] = j;
+                    offDiagonalEfforts[position] = effort;
+                    position++;
+                }
             }
         }
-        throw new Error("Could not find load CellInstance in this module");
+        offDiagonalRowStarts[gateCount] = position;
     }
 
+    /* The effort matrix is block triangular over the strongly connected components of its
+     * pattern, so its eigenvalues are those of the diagonal blocks: single cells contribute
+     * their diagonal entry, only the loops need (small, independent) eigen solves */
     private void computeCriticalDelay() {
-        EigenDecomposition e = new EigenDecomposition(effortMatrix_T);
+        int gateCount = this.cellInstances.size();
+        int[][] successors = new int[gateCount][];
+        for (int i = 0; i < gateCount; i++) {
+            successors[i] = Arrays.copyOfRange(offDiagonalColumns, offDiagonalRowStarts[i], offDiagonalRowStarts[i + 1]);
+        }
+        StronglyConnectedComponents components = new StronglyConnectedComponents(successors);
+        this.criticalDelay = IntStream.range(0, components.getComponentCount()).parallel()
+                .mapToDouble(c -> this.largestRealEigenvalue(components.getComponent(c)))
+                .max().orElse(0.0);
+    }
+
+    private double largestRealEigenvalue(int[] gates) {
+        if (gates.length == 1) {
+            return Math.max(0.0, diagonalEfforts[gates[0]]);
+        }
+        EigenDecomposition e = new EigenDecomposition(effortMatrix_T.getSubMatrix(gates, gates));
         double[] realParts = e.getRealEigenvalues();
         double[] imagParts = e.getImagEigenvalues();
 
@@ -90,24 +199,70 @@ public class EqualDelayMatrixOptimizer extends AbstractDriveOptimizer {
                 largestAbsoluteEigenvalue = realParts[i];
             }
         }
-        this.criticalDelay = largestAbsoluteEigenvalue;
+        return largestAbsoluteEigenvalue;
     }
 
-    private void solveLinearEquationSystem(double targetDelay, int iterations) {
-        driveStrengthMatrix_x = MatrixUtils.createRealMatrix(this.cellInstances.size(), 1);
+    /* Gauss-Seidel sweeps on (tI - T) x = b, starting from the current x.
+     * For t above the critical delay, (tI - T) is an M-matrix, so the sweeps converge.
+     * A stop request ends the sweeps unconverged. */
+    private boolean solveLinearEquationSystem(double targetDelay, boolean stopOnInputDrivenViolation) {
+        int gateCount = this.cellInstances.size();
+        double bNorm = 0.0;
+        for (double b : staticLoads_b) {
+            bNorm = Math.max(bNorm, Math.abs(b));
+        }
+        if (bNorm == 0.0) {
+            bNorm = 1.0;
+        }
+
+        double relativeResidual = Double.POSITIVE_INFINITY;
+        int iteration = 0;
+        while (iteration < solverMaxIterations && !this.isStopRequested()) {
+            for (int i = 0; i < gateCount; i++) {
+                double sum = staticLoads_b[i];
+                for (int k = offDiagonalRowStarts[i]; k < offDiagonalRowStarts[i + 1]; k++) {
+                    sum += offDiagonalEfforts[k] * driveStrengths_x[offDiagonalColumns[k]];
+                }
+                driveStrengths_x[i] = sum / (targetDelay - diagonalEfforts[i]);
+            }
+            iteration++;
+            if (stopOnInputDrivenViolation && this.violatesInputDrivenSizeRequirement()) {
+                break;
+            }
+            relativeResidual = this.computeResidualNorm(targetDelay) / bNorm;
+            if (relativeResidual < solverTolerance) {
+                break;
+            }
+        }
+        this.solverIterationsTotal += iteration;
+        this.lastRelativeResidual = relativeResidual;
 
-        for (int i = 0; i < iterations; i++) {
-            RealMatrix effortLoadMatrix = this.effortMatrix_T.multiply(driveStrengthMatrix_x);
-            driveStrengthMatrix_x = effortLoadMatrix.add(this.staticLoadMatrix_b).scalarMultiply(1 / targetDelay);
+        if (relativeResidual < solverTolerance) {
+            logger.debug("EDM: solved for delay " + targetDelay + " in " + iteration + " iterations (relative residual " + relativeResidual + ")");
+            return true;
+        }
+        logger.debug("EDM: no convergence for delay " + targetDelay + " after " + iteration + " iterations (relative residual " + relativeResidual + ")");
+        return false;
+    }
+
+    private double computeResidualNorm(double targetDelay) {
+        double maxResidual = 0.0;
+        for (int i = 0; i < this.cellInstances.size(); i++) {
+            double sum = staticLoads_b[i] + diagonalEfforts[i] * driveStrengths_x[i];
+            for (int k = offDiagonalRowStarts[i]; k < offDiagonalRowStarts[i + 1]; k++) {
+                sum += offDiagonalEfforts[k] * driveStrengths_x[offDiagonalColumns[k]];
+            }
+            maxResidual = Math.max(maxResidual, Math.abs(sum - targetDelay * driveStrengths_x[i]));
         }
+        return maxResidual;
     }
 
     @SuppressWarnings("unused")
-    private void printX(RealMatrix x, int iteration) {
-        for (int i = 0; i < x.getRowDimension(); i++) {
-            double value = x.getEntry(i, 0);
+    private void printX(double[] x, int iteration) {
+        for (int i = 0; i < x.length; i++) {
+            double value = x[i];
             System.out.print(value);
-            if ( i < x.getRowDimension() - 1 ){
+            if ( i < x.length - 1 ){
                 System.out.print(',');
             }
         }
@@ -127,7 +282,7 @@ public class EqualDelayMatrixOptimizer extends AbstractDriveOptimizer {
     private boolean inputDrivenCellIsTooLarge(int cellDriveStrengthIndex, CellInstance cellInstance) {
         for (String inputPinName : cellInstance.getInputPinNames()) {
             double logicalEffort = cellInstance.getDefinition().getLogicalEffortForPin(inputPinName);
-            double proposedCapacitance = logicalEffort * this.driveStrengthMatrix_x.getEntry(cellDriveStrengthIndex, 0);
+            double proposedCapacitance = logicalEffort * this.driveStrengths_x[cellDriveStrengthIndex];
             double capacitanceLimit = cellInstance.getInputPinTheoreticalCapacitance(inputPinName);
             if (proposedCapacitance > capacitanceLimit) {
                 return true;
@@ -141,7 +296,7 @@ public class EqualDelayMatrixOptimizer extends AbstractDriveOptimizer {
             CellInstance cellInstance = this.cellInstances.get(i);
             for (String inputPinName : cellInstance.getInputPinNames()) {
                 double logicalEffort = cellInstance.getDefinition().getLogicalEffortForPin(inputPinName);
-                double capacitance = logicalEffort * this.driveStrengthMatrix_x.getEntry(i, 0);
+                double capacitance = logicalEffort * this.driveStrengths_x[i];
                 capacitance = Math.max(capacitance, 0.00000001);
                 cellInstance.setInputPinTheoreticalCapacitance(inputPinName, capacitance, false);
             }
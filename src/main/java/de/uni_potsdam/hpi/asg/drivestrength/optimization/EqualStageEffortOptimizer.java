@@ -1,45 +1,55 @@
 package de.uni_potsdam.hpi.asg.drivestrength.optimization;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
 
-public class EqualStageEffortOptimizer extends AbstractDriveOptimizer {
+public class EqualStageEffortOptimizer extends AbstractStageEffortOptimizer {
 
-    private int roundCount;
-    private boolean clampToImplementableCapacitances;
+    private double targetEffort;
+    private double targetEffortOfLastFullRound;
 
     public EqualStageEffortOptimizer(Netlist netlist, int rounds, boolean clampToImplementableCapacitances) {
-        super(netlist);
-        this.roundCount = rounds;
-        this.clampToImplementableCapacitances = clampToImplementableCapacitances;
+        this(netlist, rounds, clampToImplementableCapacitances, false);
+    }
+
+    public EqualStageEffortOptimizer(Netlist netlist, int rounds, boolean clampToImplementableCapacitances, boolean parallelRounds) {
+        super(netlist, rounds, clampToImplementableCapacitances, parallelRounds, 1.2, 0.8);
     }
 
     @Override
     protected void optimize() {
-        for (int i = 0; i < this.roundCount; i++) {
-            optimizeOneRound();
+        this.targetEffortOfLastFullRound = Double.NaN;
+        super.optimize();
+    }
+
+    @Override
+    protected void prepareRound(List<CellInstance> cellsInRound) {
+        this.targetEffort = avgStageEffort();
+        if (cellsInRound.size() == this.cellInstances.size()) {
+            this.targetEffortOfLastFullRound = this.targetEffort;
+            return;
+        }
+        /* the target is global: once it has moved, every cell has to follow again */
+        if (relativeChange(this.targetEffortOfLastFullRound, this.targetEffort) > this.getTolerance()) {
+            this.enqueueAll();
         }
-        this.selectSizesFromTheoretical();
     }
 
-    private void optimizeOneRound() {
-        double targetEffort = avgStageEffort();
+    @Override
+    protected double getTargetEffort(CellInstance c) {
+        return this.targetEffort;
+    }
 
-        for (CellInstance c : this.cellInstances) {
-            double loadCapacitance = c.getLoadCapacitanceTheoretical();
-            for (String pinName : c.getInputPinNames()) {
-                double stageEffort = calculateStageEffort(c, pinName, loadCapacitance);
-                double error = stageEffort / targetEffort;
-                if (error > 1) { //too much stage effort, make stronger
-                    double newCapacitance = c.getInputPinTheoreticalCapacitance(pinName) * Math.min(error, 1.2);
-                    c.setInputPinTheoreticalCapacitance(pinName, newCapacitance, clampToImplementableCapacitances);
-                }
-                if (error < 1) { //too little stage effort, make weaker
-                    double newCapacitance = c.getInputPinTheoreticalCapacitance(pinName) * Math.max(error,  0.8);
-                    c.setInputPinTheoreticalCapacitance(pinName, newCapacitance, clampToImplementableCapacitances);
-                }
-            }
-        }
+    /* a changed input capacitance changes the cell's own effort and the load of its predecessors */
+    @Override
+    protected Collection<CellInstance> dependentsOf(CellInstance c) {
+        List<CellInstance> dependents = new ArrayList<>(c.getPredecessors());
+        dependents.add(c);
+        return dependents;
     }
 
     private double avgStageEffort() {
@@ -55,19 +65,4 @@ public class EqualStageEffortOptimizer extends AbstractDriveOptimizer {
         }
         return sum / count;
     }
-
-    private double calculateStageEffort(CellInstance cellInstance, String pinName, double loadCapacitance) {
-        double inputCapacitance = cellInstance.getInputPinTheoreticalCapacitance(pinName);
-        double electricalEffort = loadCapacitance / inputCapacitance;
-        int stageCount = cellInstance.getDefinition().getStageCountForPin(pinName);
-        double logicalEffort = cellInstance.getDefinition().getLogicalEffortForPin(pinName);
-
-        /* simplifying assumption: *within a cell*, the stage efforts are equal
-         * (pretend that someone chose the inner capacitances to do that for
-         * *our* electrical effort */
-
-        double stageEffort = Math.pow(electricalEffort * logicalEffort, 1.0 / stageCount);
-
-        return stageEffort;
-    }
 }
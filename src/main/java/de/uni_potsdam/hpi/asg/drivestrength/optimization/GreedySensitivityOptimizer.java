@@ -0,0 +1,188 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.util.IndexedMaxHeap;
+
+/**
+ * TILOS-style greedy sizing: every group of cells (by default every single cell) has two moves,
+ * sizing all its cells one step up or one step down. The cost gains of the moves are kept in a
+ * priority queue and the best move is applied until no move improves the cost (SA's cost
+ * function, normalized by the incoming estimates).
+ *
+ * Resizing a cell changes only the estimates of the cell and its predecessors, so a move is rated
+ * on these cells alone, and after a move only the moves of the resized cells, their predecessors,
+ * their successors and their predecessors' other successors are re-rated.
+ */
+public class GreedySensitivityOptimizer extends AbstractDriveOptimizer {
+
+    /* the cost is normalized to 1 for the incoming sizes */
+    private static final double minGain = 1e-9;
+
+    private int percentageEnergy;
+    private int maxMovesPerGroup;
+    private List<List<CellInstance>> groups;
+    private Map<CellInstance, Integer> groupIndices;
+    private List<List<CellInstance>> touchedCells;
+    private DelayEstimator delayEstimator;
+    private EnergyEstimator energyEstimator;
+    private double weightEnergy;
+    private double weightDelay;
+    private IndexedMaxHeap gains;
+
+    public GreedySensitivityOptimizer(Netlist netlist, int percentageEnergy, int maxMovesPerCell) {
+        this(netlist, percentageEnergy, maxMovesPerCell, null);
+    }
+
+    /* groups: cells that are always resized together, null: every cell on its own */
+    public GreedySensitivityOptimizer(Netlist netlist, int percentageEnergy, int maxMovesPerGroup,
+                                      List<List<CellInstance>> groups) {
+        super(netlist);
+        this.percentageEnergy = percentageEnergy;
+        this.maxMovesPerGroup = maxMovesPerGroup;
+        if (groups == null) {
+            groups = new ArrayList<>();
+            for (CellInstance c : this.cellInstances) {
+                List<CellInstance> group = new ArrayList<>();
+                group.add(c);
+                groups.add(group);
+            }
+        }
+        this.groups = groups;
+        this.groupIndices = new IdentityHashMap<>();
+        for (int g = 0; g < groups.size(); g++) {
+            for (CellInstance c : groups.get(g)) {
+                this.groupIndices.put(c, g);
+            }
+        }
+    }
+
+    @Override
+    protected void optimize() {
+        Netlist netlist = this.getNetlist();
+        this.delayEstimator = new DelayEstimator(netlist, false, false);
+        this.energyEstimator = new EnergyEstimator(netlist, false);
+        double referenceDelay = 0.0;
+        for (CellInstance c : this.cellInstances) {
+            referenceDelay += this.delayEstimator.estimateCellInstance(c);
+        }
+        this.weightEnergy = this.percentageEnergy / 100.0 / this.energyEstimator.run();
+        this.weightDelay = (1 - this.percentageEnergy / 100.0) / referenceDelay;
+        double beforeCost = this.localCost(this.cellInstances);
+
+        /* the cells whose estimates change when a group is resized */
+        this.touchedCells = new ArrayList<>();
+        for (List<CellInstance> group : this.groups) {
+            Set<CellInstance> touched = new LinkedHashSet<>(group);
+            for (CellInstance c : group) {
+                touched.addAll(c.getPredecessors());
+            }
+            this.touchedCells.add(new ArrayList<>(touched));
+        }
+
+        /* move 2g: size up group g, move 2g+1: size down group g */
+        this.gains = new IndexedMaxHeap(2 * this.groups.size());
+        for (int move = 0; move < 2 * this.groups.size(); move++) {
+            this.rateMove(move);
+        }
+
+        int maxMoves = this.maxMovesPerGroup * this.groups.size();
+        int moveCount = 0;
+        while (!this.gains.isEmpty() && moveCount < maxMoves && !this.isStopRequested()) {
+            this.checkpointIfDue();
+            int move = this.gains.pop();
+            this.applyMove(move);
+            moveCount++;
+            for (int g : this.affectedGroups(this.groups.get(move / 2))) {
+                this.rateMove(2 * g);
+                this.rateMove(2 * g + 1);
+            }
+        }
+        if (moveCount >= maxMoves) {
+            logger.warn("GS: stopped after the maximum of " + maxMoves + " moves");
+        }
+        logger.info("GS: " + moveCount + " moves on " + this.groups.size() + " groups, result cost: "
+                    + this.localCost(this.cellInstances) + " vs before " + beforeCost);
+    }
+
+    private double localCost(List<CellInstance> cells) {
+        double cost = 0.0;
+        for (CellInstance c : cells) {
+            cost += this.delayEstimator.estimateCellInstance(c) * this.weightDelay;
+            if (this.weightEnergy > 0) {
+                cost += this.energyEstimator.estimateCellInstance(c) * this.weightEnergy;
+            }
+        }
+        return cost;
+    }
+
+    /* returns the previous sizes, or null if no cell of the group could be resized */
+    private Cell[] applyMove(int move) {
+        List<CellInstance> group = this.groups.get(move / 2);
+        Cell[] previousSizes = new Cell[group.size()];
+        boolean changed = false;
+        for (int i = 0; i < group.size(); i++) {
+            CellInstance c = group.get(i);
+            previousSizes[i] = c.getSelectedSize();
+            if (move % 2 == 0) {
+                c.selectNextBiggerSizeIfPossible();
+            } else {
+                c.selectNextSmallerSizeIfPossible();
+            }
+            changed |= c.getSelectedSize() != previousSizes[i];
+        }
+        return changed ? previousSizes : null;
+    }
+
+    /* tries the move and undoes it, keeping it in the queue only if it lowers the cost */
+    private void rateMove(int move) {
+        List<CellInstance> group = this.groups.get(move / 2);
+        List<CellInstance> touched = this.touchedCells.get(move / 2);
+        double before = this.localCost(touched);
+        Cell[] previousSizes = this.applyMove(move);
+        if (previousSizes == null) {
+            /* largest/smallest sizes already, or forbidden for input-driven cells */
+            this.gains.remove(move);
+            return;
+        }
+        double gain = before - this.localCost(touched);
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).selectSize(previousSizes[i]);
+        }
+        if (gain > minGain) {
+            this.gains.put(move, gain);
+        } else {
+            this.gains.remove(move);
+        }
+    }
+
+    private Set<Integer> affectedGroups(List<CellInstance> resizedGroup) {
+        Set<CellInstance> affected = new LinkedHashSet<>();
+        for (CellInstance c : resizedGroup) {
+            affected.add(c);
+            affected.addAll(c.getSuccessors());
+            for (CellInstance p : c.getPredecessors()) {
+                affected.add(p);
+                affected.addAll(p.getSuccessors());
+            }
+        }
+        Set<Integer> affectedGroups = new LinkedHashSet<>();
+        for (CellInstance c : affected) {
+            Integer g = this.groupIndices.get(c);
+            if (g != null) {
+                affectedGroups.add(g);
+            }
+        }
+        return affectedGroups;
+    }
+}
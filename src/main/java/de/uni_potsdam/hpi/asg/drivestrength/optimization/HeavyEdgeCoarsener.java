@@ -0,0 +1,113 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Coarsens the load graph level by level with heavy-edge matching: every cluster is merged with
+ * the unmatched neighbor cluster it shares the most load capacitance with. Small clusters are
+ * matched first, which keeps the cluster sizes balanced.
+ */
+public class HeavyEdgeCoarsener {
+
+    /* stop when a level shrinks the cluster count by less than this */
+    private static final double minCoarseningRatio = 0.9;
+
+    private List<CellInstance> cellInstances;
+    private int minClusterCount;
+
+    public HeavyEdgeCoarsener(List<CellInstance> cellInstances, int minClusterCount) {
+        this.cellInstances = cellInstances;
+        this.minClusterCount = minClusterCount;
+    }
+
+    /* returns the clusters of every level, from the finest to the coarsest (without the level of
+     * single cells) */
+    public List<List<List<CellInstance>>> run() {
+        List<List<List<CellInstance>>> levels = new ArrayList<>();
+        List<List<CellInstance>> clusters = new ArrayList<>();
+        for (CellInstance c : this.cellInstances) {
+            List<CellInstance> cluster = new ArrayList<>();
+            cluster.add(c);
+            clusters.add(cluster);
+        }
+        while (clusters.size() > this.minClusterCount) {
+            List<List<CellInstance>> coarserClusters = this.matchClusters(clusters);
+            if (coarserClusters.size() > clusters.size() * minCoarseningRatio) {
+                break;
+            }
+            levels.add(coarserClusters);
+            clusters = coarserClusters;
+        }
+        return levels;
+    }
+
+    private List<List<CellInstance>> matchClusters(List<List<CellInstance>> clusters) {
+        Map<CellInstance, Integer> clusterIndices = new IdentityHashMap<>();
+        for (int k = 0; k < clusters.size(); k++) {
+            for (CellInstance c : clusters.get(k)) {
+                clusterIndices.put(c, k);
+            }
+        }
+        List<Map<Integer, Double>> edgeWeights = new ArrayList<>();
+        for (int k = 0; k < clusters.size(); k++) {
+            edgeWeights.add(new HashMap<>());
+        }
+        for (CellInstance c : this.cellInstances) {
+            int a = clusterIndices.get(c);
+            for (Load l : c.getLoads()) {
+                if (l.isStaticLoad() || !clusterIndices.containsKey(l.getCellInstance())) {
+                    continue;
+                }
+                int b = clusterIndices.get(l.getCellInstance());
+                if (a != b) {
+                    double capacitance = l.getCapacitanceSelected();
+                    edgeWeights.get(a).merge(b, capacitance, Double::sum);
+                    edgeWeights.get(b).merge(a, capacitance, Double::sum);
+                }
+            }
+        }
+
+        List<Integer> visitOrder = new ArrayList<>();
+        for (int k = 0; k < clusters.size(); k++) {
+            visitOrder.add(k);
+        }
+        visitOrder.sort((x, y) -> clusters.get(x).size() != clusters.get(y).size()
+                                  ? Integer.compare(clusters.get(x).size(), clusters.get(y).size())
+                                  : Integer.compare(x, y));
+
+        boolean[] matched = new boolean[clusters.size()];
+        List<List<CellInstance>> coarserClusters = new ArrayList<>();
+        for (int a : visitOrder) {
+            if (matched[a]) {
+                continue;
+            }
+            matched[a] = true;
+            int heaviest = -1;
+            double heaviestWeight = 0.0;
+            for (Map.Entry<Integer, Double> edge : edgeWeights.get(a).entrySet()) {
+                int b = edge.getKey();
+                if (matched[b]) {
+                    continue;
+                }
+                if (edge.getValue() > heaviestWeight || (edge.getValue() == heaviestWeight && b < heaviest)) {
+                    heaviest = b;
+                    heaviestWeight = edge.getValue();
+                }
+            }
+            List<CellInstance> cluster = new ArrayList<>(clusters.get(a));
+            if (heaviest >= 0) {
+                matched[heaviest] = true;
+                cluster.addAll(clusters.get(heaviest));
+            }
+            coarserClusters.add(cluster);
+        }
+        return coarserClusters;
+    }
+}
@@ -0,0 +1,147 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Splits the load graph into balanced parts with few cut edges: the cells are cut into equal
+ * chunks of a breadth-first order (which keeps neighbors together), then boundary cells move to
+ * the part holding most of their neighbors while the part sizes stay within the balance bound.
+ */
+public class LoadGraphPartitioner {
+
+    private static final double maxImbalance = 0.05;
+    private static final int maxRefinementPasses = 8;
+
+    private List<CellInstance> cellInstances;
+    private int partCount;
+    private Map<CellInstance, Integer> cellIndices;
+    private List<List<Integer>> neighbors;
+    private int[] partOf;
+
+    public LoadGraphPartitioner(List<CellInstance> cellInstances, int partCount) {
+        if (partCount < 1) {
+            throw new Error("Partition count must be positive");
+        }
+        this.cellInstances = cellInstances;
+        this.partCount = Math.min(partCount, Math.max(1, cellInstances.size()));
+    }
+
+    /* returns the part of every cell instance (by index) */
+    public int[] run() {
+        this.buildNeighbors();
+        this.partOf = new int[this.cellInstances.size()];
+        List<Integer> order = this.breadthFirstOrder();
+        for (int position = 0; position < order.size(); position++) {
+            this.partOf[order.get(position)] = (int) ((long) position * this.partCount / order.size());
+        }
+        this.refine();
+        return this.partOf;
+    }
+
+    public int getPartCount() {
+        return this.partCount;
+    }
+
+    public int getCutSize() {
+        int cutSize = 0;
+        for (int i = 0; i < this.cellInstances.size(); i++) {
+            for (Load l : this.cellInstances.get(i).getLoads()) {
+                Integer j = l.isStaticLoad() ? null : this.cellIndices.get(l.getCellInstance());
+                if (j != null && this.partOf[i] != this.partOf[j]) {
+                    cutSize++;
+                }
+            }
+        }
+        return cutSize;
+    }
+
+    public int[] getPartSizes() {
+        int[] partSizes = new int[this.partCount];
+        for (int part : this.partOf) {
+            partSizes[part]++;
+        }
+        return partSizes;
+    }
+
+    private void buildNeighbors() {
+        this.cellIndices = new IdentityHashMap<>();
+        this.neighbors = new ArrayList<>();
+        for (int i = 0; i < this.cellInstances.size(); i++) {
+            this.cellIndices.put(this.cellInstances.get(i), i);
+            this.neighbors.add(new ArrayList<>());
+        }
+        for (int i = 0; i < this.cellInstances.size(); i++) {
+            for (Load l : this.cellInstances.get(i).getLoads()) {
+                Integer j = l.isStaticLoad() ? null : this.cellIndices.get(l.getCellInstance());
+                if (j != null && j != i) {
+                    this.neighbors.get(i).add(j);
+                    this.neighbors.get(j).add(i);
+                }
+            }
+        }
+    }
+
+    private List<Integer> breadthFirstOrder() {
+        List<Integer> order = new ArrayList<>();
+        boolean[] visited = new boolean[this.cellInstances.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int start = 0; start < this.cellInstances.size(); start++) {
+            if (visited[start]) {
+                continue;
+            }
+            visited[start] = true;
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                int i = queue.poll();
+                order.add(i);
+                for (int j : this.neighbors.get(i)) {
+                    if (!visited[j]) {
+                        visited[j] = true;
+                        queue.add(j);
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    private void refine() {
+        int[] partSizes = this.getPartSizes();
+        double averageSize = (double) this.cellInstances.size() / this.partCount;
+        int maxSize = (int) Math.floor(averageSize * (1 + maxImbalance));
+        int minSize = (int) Math.ceil(averageSize * (1 - maxImbalance));
+        for (int pass = 0; pass < maxRefinementPasses; pass++) {
+            int moves = 0;
+            for (int i = 0; i < this.cellInstances.size(); i++) {
+                int[] neighborCounts = new int[this.partCount];
+                for (int j : this.neighbors.get(i)) {
+                    neighborCounts[this.partOf[j]]++;
+                }
+                int ownPart = this.partOf[i];
+                int bestPart = ownPart;
+                for (int part = 0; part < this.partCount; part++) {
+                    if (neighborCounts[part] > neighborCounts[bestPart] && partSizes[part] < maxSize) {
+                        bestPart = part;
+                    }
+                }
+                if (bestPart != ownPart && partSizes[ownPart] > minSize) {
+                    this.partOf[i] = bestPart;
+                    partSizes[ownPart]--;
+                    partSizes[bestPart]++;
+                    moves++;
+                }
+            }
+            if (moves == 0) {
+                return;
+            }
+        }
+    }
+}
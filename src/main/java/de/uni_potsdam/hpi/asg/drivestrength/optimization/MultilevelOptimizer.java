@@ -0,0 +1,72 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Multilevel sizing for large netlists: the load graph is coarsened by heavy-edge matching, the
+ * coarsest clusters are sized first (all cells of a cluster step up or down together), and every
+ * finer level starts from the sizes of the coarser one. The single cells are finally refined by
+ * any optimizer or pipeline except ML itself, warm-started from the multilevel result.
+ */
+public class MultilevelOptimizer extends AbstractDriveOptimizer {
+
+    private static final int minClusterCount = 32;
+    private static final int maxMovesPerCluster = 100;
+
+    private int percentageEnergy;
+    private String refinerName;
+    private OptimizerFactory optimizerFactory;
+    private volatile AbstractDriveOptimizer currentStage;
+
+    public MultilevelOptimizer(Netlist netlist, int percentageEnergy, String refinerName, OptimizerFactory optimizerFactory) {
+        super(netlist);
+        for (String stageName : refinerName.split(",")) {
+            if (stageName.trim().equals("ML")) {
+                throw new Error("ML cannot refine its own result, choose another refiner");
+            }
+        }
+        this.percentageEnergy = percentageEnergy;
+        this.refinerName = refinerName;
+        this.optimizerFactory = optimizerFactory;
+    }
+
+    @Override
+    protected void optimize() {
+        List<List<List<CellInstance>>> levels = new HeavyEdgeCoarsener(this.cellInstances, minClusterCount).run();
+        List<Integer> clusterCounts = new ArrayList<>();
+        for (List<List<CellInstance>> level : levels) {
+            clusterCounts.add(level.size());
+        }
+        logger.info("ML: " + this.cellInstances.size() + " cells coarsened to cluster counts " + clusterCounts);
+
+        for (int l = levels.size() - 1; l >= 0 && !this.isStopRequested(); l--) {
+            this.runStage(new GreedySensitivityOptimizer(this.getNetlist(), this.percentageEnergy,
+                                                         maxMovesPerCluster, levels.get(l)));
+        }
+        if (!this.isStopRequested()) {
+            logger.info("ML: refining with " + this.refinerName);
+            this.runStage(this.optimizerFactory.create(this.refinerName, this.getNetlist(), true));
+        }
+    }
+
+    private void runStage(AbstractDriveOptimizer stage) {
+        this.currentStage = stage;
+        if (this.isStopRequested()) {
+            stage.requestStop();
+        }
+        stage.run();
+    }
+
+    @Override
+    public void requestStop() {
+        super.requestStop();
+        AbstractDriveOptimizer stage = this.currentStage;
+        if (stage != null) {
+            stage.requestStop();
+        }
+    }
+}
@@ -1,55 +1,57 @@
 package de.uni_potsdam.hpi.asg.drivestrength.optimization;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
 
-public class NeighborStageEffortOptimizer extends AbstractDriveOptimizer {
+public class NeighborStageEffortOptimizer extends AbstractStageEffortOptimizer {
 
-    private int roundCount;
-    private boolean clampToImplementableCapacitances;
+    private Map<CellInstance, Double> targetEfforts;
 
     public NeighborStageEffortOptimizer(Netlist netlist, int rounds, boolean clampToImplementableCapacitances) {
-        super(netlist);
-        this.roundCount = rounds;
-        this.clampToImplementableCapacitances = clampToImplementableCapacitances;
+        this(netlist, rounds, clampToImplementableCapacitances, false);
+    }
+
+    public NeighborStageEffortOptimizer(Netlist netlist, int rounds, boolean clampToImplementableCapacitances, boolean parallelRounds) {
+        super(netlist, rounds, clampToImplementableCapacitances, parallelRounds, 1.05, 0.95);
     }
 
     @Override
-    protected void optimize() {
-        for (int i = 0; i < this.roundCount; i++) {
-            optimizeOneRound();
-        }
-        this.selectSizesFromTheoretical();
+    protected void prepareRound(List<CellInstance> cellsInRound) {
+        this.targetEfforts = determineTargetEfforts(cellsInRound);
     }
 
-    private void optimizeOneRound() {
-        Map<CellInstance, Double> targetEfforts = determineTargetEfforts();
-
-        for (CellInstance c : targetEfforts.keySet()) {
-            double targetEffort = targetEfforts.get(c);
-            double loadCapacitance = c.getLoadCapacitanceTheoretical();
-            for (String pinName : c.getInputPinNames()) {
-                double stageEffort = calculateStageEffort(c, pinName, loadCapacitance);
-                double error = stageEffort / targetEffort;
-                if (error > 1) { //too much stage effort, make stronger
-                    double newCapacitance = c.getInputPinTheoreticalCapacitance(pinName) * Math.min(error, 1.05);
-                    c.setInputPinTheoreticalCapacitance(pinName, newCapacitance, clampToImplementableCapacitances);
-                }
-                if (error < 1) { //too little stage effort, make weaker
-                    double newCapacitance = c.getInputPinTheoreticalCapacitance(pinName) * Math.max(error,  0.95);
-                    c.setInputPinTheoreticalCapacitance(pinName, newCapacitance, clampToImplementableCapacitances);
-                }
-            }
+    @Override
+    protected double getTargetEffort(CellInstance c) {
+        return this.targetEfforts.get(c);
+    }
+
+    /* a changed input capacitance changes the effort of the cell and its predecessors,
+     * which in turn moves the targets of all their neighbors */
+    @Override
+    protected Collection<CellInstance> dependentsOf(CellInstance c) {
+        Set<CellInstance> dependents = new LinkedHashSet<>();
+        List<CellInstance> changedEfforts = new ArrayList<>(c.getPredecessors());
+        changedEfforts.add(c);
+        for (CellInstance changed : changedEfforts) {
+            dependents.add(changed);
+            dependents.addAll(changed.getPredecessors());
+            dependents.addAll(changed.getSuccessors());
         }
+        return dependents;
     }
 
-    private Map<CellInstance, Double> determineTargetEfforts() {
+    private Map<CellInstance, Double> determineTargetEfforts(List<CellInstance> cellsInRound) {
         Map<CellInstance, Double> targetEfforts = new HashMap<>();
 
-        for (CellInstance c : this.cellInstances) {
+        for (CellInstance c : cellsInRound) {
             double targetEffort = 0;
             if (c.hasSuccessors() && c.hasPredecessors()) {
                 targetEffort = avgSuccessorStageEffort(c) + avgPredecessorStageEffort(c) / 2;
@@ -106,19 +108,4 @@ public class NeighborStageEffortOptimizer extends AbstractDriveOptimizer {
         }
         return sum / count;
     }
-
-    private double calculateStageEffort(CellInstance cellInstance, String pinName, double loadCapacitance) {
-        double inputCapacitance = cellInstance.getInputPinTheoreticalCapacitance(pinName);
-        double electricalEffort = loadCapacitance / inputCapacitance;
-        int stageCount = cellInstance.getDefinition().getStageCountForPin(pinName);
-        double logicalEffort = cellInstance.getDefinition().getLogicalEffortForPin(pinName);
-
-        /* simplifying assumption: *within a cell*, the stage efforts are equal
-         * (pretend that someone chose the inner capacitances to do that for
-         * *our* electrical effort */
-
-        double stageEffort = Math.pow(electricalEffort * logicalEffort, 1.0 / stageCount);
-
-        return stageEffort;
-    }
 }
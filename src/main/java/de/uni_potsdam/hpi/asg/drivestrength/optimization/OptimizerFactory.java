@@ -0,0 +1,111 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+
+public class OptimizerFactory {
+
+    private static final int coldStartSARoundsPerCell = 1000;
+    private static final int warmStartSARoundsPerCell = 100;
+    private static final List<String> checkpointingOptimizers = Arrays.asList("ESE", "NSE", "SFL", "GS", "SA");
+
+    private int percentageEnergy;
+    private int percentageWorstDelay;
+    private boolean parallelRounds;
+    private String multilevelRefiner;
+    private int saRoundsPerCell;
+    private boolean saCriticalityBiasedMoves;
+    private boolean saAdaptiveCooling;
+
+    public OptimizerFactory(int percentageEnergy, int percentageWorstDelay, boolean parallelRounds, String multilevelRefiner) {
+        this.percentageEnergy = percentageEnergy;
+        this.percentageWorstDelay = percentageWorstDelay;
+        this.parallelRounds = parallelRounds;
+        this.multilevelRefiner = multilevelRefiner;
+    }
+
+    /* roundsPerCell: 0 for the defaults (fewer rounds for warm starts) */
+    public void setAnnealingOptions(int roundsPerCell, boolean criticalityBiasedMoves, boolean adaptiveCooling) {
+        this.saRoundsPerCell = roundsPerCell;
+        this.saCriticalityBiasedMoves = criticalityBiasedMoves;
+        this.saAdaptiveCooling = adaptiveCooling;
+    }
+
+    /* a comma-separated list (e.g. ESE,SA) creates a pipeline of these optimizers */
+    public AbstractDriveOptimizer create(String optimizerSpec, Netlist inlinedNetlist) {
+        return this.create(optimizerSpec, inlinedNetlist, false);
+    }
+
+    public AbstractDriveOptimizer create(String optimizerSpec, Netlist inlinedNetlist, boolean warmStart) {
+        if (optimizerSpec.contains(",")) {
+            List<String> stageNames = new ArrayList<>();
+            for (String stageName : optimizerSpec.split(",")) {
+                stageNames.add(stageName.trim());
+            }
+            return new OptimizerPipeline(inlinedNetlist, stageNames, this, warmStart);
+        }
+        return this.createStage(optimizerSpec, inlinedNetlist, warmStart);
+    }
+
+    /* warmStart: the incoming sizes come from a previous optimizer and are already good */
+    public AbstractDriveOptimizer createStage(String optimizerName, Netlist inlinedNetlist, boolean warmStart) {
+        switch (optimizerName) {
+        case "NOP":
+            return new NopOptimizer(inlinedNetlist);
+        case "ESE":
+            return this.startingFrom(new EqualStageEffortOptimizer(inlinedNetlist, 100, true, parallelRounds), warmStart);
+        case "NSE":
+            return this.startingFrom(new NeighborStageEffortOptimizer(inlinedNetlist, 100, true, parallelRounds), warmStart);
+        case "SFL":
+            return new SelectForLoadOptimizer(inlinedNetlist, 100);
+        case "TOP":
+            return new AllLargestOptimizer(inlinedNetlist);
+        case "BOT":
+            return new AllSmallestOptimizer(inlinedNetlist);
+        case "EDM":
+            return new EqualDelayMatrixOptimizer(inlinedNetlist);
+        case "FO":
+            return new FanoutOptimizer(inlinedNetlist);
+        case "GS":
+            return new GreedySensitivityOptimizer(inlinedNetlist, percentageEnergy, 100);
+        case "ML":
+            return new MultilevelOptimizer(inlinedNetlist, percentageEnergy, multilevelRefiner, this);
+        case "BB":
+            return new BranchAndBoundOptimizer(inlinedNetlist, percentageEnergy);
+        case "SA":
+            return this.createAnnealing(inlinedNetlist, warmStart);
+        default:
+            throw new Error("Specified optimizer " + optimizerName + " does not exist");
+        }
+    }
+
+    private AbstractDriveOptimizer startingFrom(AbstractStageEffortOptimizer optimizer, boolean warmStart) {
+        optimizer.setStartFromSelectedSizes(warmStart);
+        return optimizer;
+    }
+
+    /* true if every stage of the spec takes checkpoints and can resume from them */
+    public boolean supportsCheckpoints(String optimizerSpec) {
+        for (String stageName : optimizerSpec.split(",")) {
+            if (!checkpointingOptimizers.contains(stageName.trim())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SimulatedAnnealingOptimizer createAnnealing(Netlist inlinedNetlist, boolean warmStart) {
+        int roundsPerCell = this.saRoundsPerCell;
+        if (roundsPerCell <= 0) {
+            roundsPerCell = warmStart ? warmStartSARoundsPerCell : coldStartSARoundsPerCell;
+        }
+        SimulatedAnnealingOptimizer optimizer = new SimulatedAnnealingOptimizer(inlinedNetlist, false, roundsPerCell, percentageEnergy,
+                                                                                percentageWorstDelay, null, warmStart);
+        optimizer.setCriticalityBiasedMoves(this.saCriticalityBiasedMoves);
+        optimizer.setAdaptiveCooling(this.saAdaptiveCooling);
+        return optimizer;
+    }
+}
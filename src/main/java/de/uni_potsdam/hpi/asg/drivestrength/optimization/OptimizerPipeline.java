@@ -0,0 +1,107 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.Arrays;
+import java.util.List;
+
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.Checkpoint;
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.CheckpointWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+
+/**
+ * Runs several optimizers one after another on the same annotated netlist, e.g. ESE,SA: every
+ * stage starts from the sizes the previous stage selected (ESE and NSE from their capacitances).
+ * TOP, BOT, FO and EDM do not depend on the incoming sizes and can only be the first stage.
+ * Stages are created only when they start, so their setup (e.g. SA calibration) sees the
+ * incoming sizes.
+ * Checkpoints are taken by the running stage and record its position in the pipeline; resuming
+ * skips the stages before it.
+ */
+public class OptimizerPipeline extends AbstractDriveOptimizer {
+
+    private static final List<String> firstStageOnlyOptimizers = Arrays.asList("TOP", "BOT", "FO", "EDM");
+
+    private List<String> stageNames;
+    private OptimizerFactory optimizerFactory;
+    private boolean warmStart;
+    private volatile AbstractDriveOptimizer currentStage;
+    private int currentStageIndex;
+    private CheckpointWriter checkpointWriter;
+    private long checkpointIntervalMillis;
+    private Checkpoint resumeCheckpoint;
+    private int resumeStageIndex;
+
+    /* warmStart: the incoming sizes are already good, also for the first stage */
+    public OptimizerPipeline(Netlist netlist, List<String> stageNames, OptimizerFactory optimizerFactory, boolean warmStart) {
+        super(netlist);
+        if (stageNames.isEmpty()) {
+            throw new Error("Optimizer pipeline needs at least one stage");
+        }
+        for (String stageName : stageNames.subList(1, stageNames.size())) {
+            if (firstStageOnlyOptimizers.contains(stageName)) {
+                throw new Error("Pipeline stage " + stageName + " ignores the sizes of the stages before it, it can only be the first stage");
+            }
+        }
+        this.stageNames = stageNames;
+        this.optimizerFactory = optimizerFactory;
+        this.warmStart = warmStart;
+    }
+
+    @Override
+    protected void optimize() {
+        for (int i = this.resumeStageIndex; i < this.stageNames.size() && !this.isStopRequested(); i++) {
+            boolean warmStart = this.warmStart || i > 0;
+            logger.info("Pipeline stage " + (i + 1) + "/" + this.stageNames.size() + ": " + this.stageNames.get(i));
+            this.currentStageIndex = i;
+            this.currentStage = this.optimizerFactory.createStage(this.stageNames.get(i), this.getNetlist(), warmStart);
+            this.currentStage.setEnclosingOptimizer(this);
+            if (this.checkpointWriter != null) {
+                this.currentStage.enableCheckpoints(this.checkpointWriter, this.checkpointIntervalMillis);
+            }
+            if (this.resumeCheckpoint != null && i == this.resumeStageIndex) {
+                this.currentStage.resumeFrom(this.resumeCheckpoint);
+            }
+            if (this.isStopRequested()) {
+                this.currentStage.requestStop();
+            }
+            this.currentStage.run();
+        }
+    }
+
+    @Override
+    public void enableCheckpoints(CheckpointWriter checkpointWriter, long intervalMillis) {
+        this.checkpointWriter = checkpointWriter;
+        this.checkpointIntervalMillis = intervalMillis;
+    }
+
+    @Override
+    protected void addStageState(Checkpoint checkpoint) {
+        checkpoint.putNumber("pipelineStage", this.currentStageIndex);
+        checkpoint.putNumber("pipelineStageCount", this.stageNames.size());
+    }
+
+    /* the checkpoint was written by one of the stages */
+    @Override
+    public void resumeFrom(Checkpoint checkpoint) {
+        if (!checkpoint.hasNumber("pipelineStage")) {
+            throw new Error("Checkpoint was written by " + checkpoint.getOptimizerName() + " outside a pipeline, cannot resume pipeline "
+                            + this.stageNames + " from it");
+        }
+        int stageIndex = (int) checkpoint.getNumber("pipelineStage");
+        if ((int) checkpoint.getNumber("pipelineStageCount") != this.stageNames.size()) {
+            throw new Error("Checkpoint was written by a pipeline of " + (int) checkpoint.getNumber("pipelineStageCount")
+                            + " stages, cannot resume pipeline " + this.stageNames + " from it");
+        }
+        this.resumeCheckpoint = checkpoint;
+        this.resumeStageIndex = stageIndex;
+        logger.info("Resuming pipeline at stage " + (stageIndex + 1) + "/" + this.stageNames.size() + ": " + this.stageNames.get(stageIndex));
+    }
+
+    @Override
+    public void requestStop() {
+        super.requestStop();
+        AbstractDriveOptimizer stage = this.currentStage;
+        if (stage != null) {
+            stage.requestStop();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.AnnotatedNetlistCopier;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * Races several optimizers on independent copies of the netlist in one thread pool. Optimizers
+ * still running at the deadline are asked to stop and are scored with what they have reached;
+ * those that do not stop within a grace period are dropped from the race and left behind on
+ * daemon threads.
+ * All results are scored with the same estimators and weights (normalized by the incoming
+ * netlist, like SACostFunction); the winner's sizes are selected in the incoming netlist.
+ * For warm starts, every copy starts from the incoming netlist's sizes.
+ */
+public class OptimizerPortfolio {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private static final long stopGraceMillis = 5000;
+
+    private static class Entry {
+        private String optimizerName;
+        private Netlist netlist;
+        private volatile AbstractDriveOptimizer optimizer;
+        private volatile boolean finished;
+        private volatile boolean stoppedAtDeadline;
+        private volatile Throwable failure;
+        private long runtime;
+        private double energy;
+        private int delay;
+        private double cost;
+    }
+
+    private Netlist inlinedNetlist;
+    private List<String> optimizerNames;
+    private OptimizerFactory optimizerFactory;
+    private AnnotatedNetlistCopier copier;
+    private int percentageEnergy;
+    private long deadlineMillis;
+    private boolean warmStart;
+    private volatile boolean deadlineReached;
+
+    public OptimizerPortfolio(Netlist inlinedNetlist, List<String> optimizerNames, OptimizerFactory optimizerFactory,
+                              AnnotatedNetlistCopier copier, int percentageEnergy, long deadlineMillis, boolean warmStart) {
+        if (!inlinedNetlist.isInlined()) {
+            throw new Error("Cannot race optimizers on non-inlined netlists.");
+        }
+        if (optimizerNames.isEmpty()) {
+            throw new Error("Optimizer race needs at least one optimizer");
+        }
+        this.inlinedNetlist = inlinedNetlist;
+        this.optimizerNames = optimizerNames;
+        this.optimizerFactory = optimizerFactory;
+        this.copier = copier;
+        this.percentageEnergy = percentageEnergy;
+        this.deadlineMillis = deadlineMillis;
+        this.warmStart = warmStart;
+    }
+
+    /* returns the name of the winning optimizer */
+    public String run() {
+        long startTime = System.currentTimeMillis();
+        double referenceEnergy = new EnergyEstimator(this.inlinedNetlist, false).run();
+        double referenceDelay = new DelayEstimator(this.inlinedNetlist, false, false).run();
+
+        List<Entry> entries = new ArrayList<>();
+        for (String optimizerName : this.optimizerNames) {
+            Entry entry = new Entry();
+            entry.optimizerName = optimizerName;
+            entry.netlist = this.copier.copy(this.inlinedNetlist);
+            if (this.warmStart) {
+                copySizes(this.inlinedNetlist, entry.netlist);
+            }
+            entries.add(entry);
+        }
+
+        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), entries.size());
+        logger.info("Racing optimizers " + this.optimizerNames + " on " + threadCount + " threads, deadline "
+                    + this.deadlineMillis + " ms");
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "optimizer-race");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Entry entry : entries) {
+            pool.submit(() -> this.runEntry(entry));
+        }
+        pool.shutdown();
+        this.awaitDeadline(pool, entries);
+
+        /* decide once which entries count: a dropped optimizer may still finish while scoring */
+        List<Entry> finishedEntries = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.failure != null) {
+                logger.warn("Race: " + entry.optimizerName + " failed: " + entry.failure.getMessage());
+            } else if (entry.finished) {
+                finishedEntries.add(entry);
+            } else if (entry.optimizer == null) {
+                logger.warn("Race: " + entry.optimizerName + " did not start before the deadline");
+            } else {
+                logger.warn("Race: " + entry.optimizerName + " did not stop within " + stopGraceMillis + " ms after the deadline, dropped");
+            }
+        }
+
+        Entry winner = null;
+        for (Entry entry : finishedEntries) {
+            entry.energy = new EnergyEstimator(entry.netlist, false).run();
+            entry.delay = new DelayEstimator(entry.netlist, false, false).run();
+            entry.cost = this.percentageEnergy / 100.0 * entry.energy / referenceEnergy
+                         + (1 - this.percentageEnergy / 100.0) * entry.delay / referenceDelay;
+            logger.info("Race: " + entry.optimizerName + ": cost " + entry.cost + " (energy " + entry.energy
+                        + ", delay " + entry.delay + " ps), " + entry.runtime + " ms"
+                        + (entry.stoppedAtDeadline ? ", stopped at deadline" : ""));
+            if (winner == null || entry.cost < winner.cost) {
+                winner = entry;
+            }
+        }
+        if (winner == null) {
+            throw new Error("No optimizer of the race produced a result");
+        }
+
+        logger.info("Race: winner is " + winner.optimizerName + " after " + (System.currentTimeMillis() - startTime) + " ms");
+        copySizes(winner.netlist, this.inlinedNetlist);
+        return winner.optimizerName;
+    }
+
+    private void runEntry(Entry entry) {
+        if (this.deadlineReached) {
+            return;
+        }
+        try {
+            long entryStartTime = System.currentTimeMillis();
+            entry.optimizer = this.optimizerFactory.create(entry.optimizerName, entry.netlist, this.warmStart);
+            /* the deadline may have passed while the optimizer was set up */
+            if (this.deadlineReached) {
+                entry.optimizer.requestStop();
+            }
+            entry.optimizer.run();
+            entry.runtime = System.currentTimeMillis() - entryStartTime;
+            entry.finished = true;
+        } catch (Error | Exception e) {
+            entry.failure = e;
+        }
+    }
+
+    private void awaitDeadline(ExecutorService pool, List<Entry> entries) {
+        try {
+            if (pool.awaitTermination(this.deadlineMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            logger.info("Race: deadline reached, stopping the remaining optimizers");
+            this.deadlineReached = true;
+            for (Entry entry : entries) {
+                AbstractDriveOptimizer optimizer = entry.optimizer;
+                if (optimizer != null && !entry.finished) {
+                    entry.stoppedAtDeadline = true;
+                    optimizer.requestStop();
+                }
+            }
+            if (!pool.awaitTermination(stopGraceMillis, TimeUnit.MILLISECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            throw new Error(e);
+        }
+    }
+
+    /* the copies keep the cell order of the netlist they were copied from */
+    private static void copySizes(Netlist sourceNetlist, Netlist targetNetlist) {
+        List<CellInstance> targetCells = targetNetlist.getRootModule().getCellInstances();
+        List<CellInstance> sourceCells = sourceNetlist.getRootModule().getCellInstances();
+        for (int i = 0; i < targetCells.size(); i++) {
+            Cell size = sourceCells.get(i).getSelectedSize();
+            targetCells.get(i).selectSize(size);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Archive of non-dominated (energy, delay) points, both to be minimized.
+ * Dominance queries read an immutable snapshot and are safe from any thread.
+ */
+public class ParetoFront<T> {
+
+    /* sorted by ascending energy, hence strictly descending delay */
+    private static class Snapshot<T> {
+        private final double[] energies;
+        private final double[] delays;
+        private final List<T> payloads;
+
+        private Snapshot(double[] energies, double[] delays, List<T> payloads) {
+            this.energies = energies;
+            this.delays = delays;
+            this.payloads = payloads;
+        }
+    }
+
+    private volatile Snapshot<T> snapshot;
+
+    public ParetoFront() {
+        this.snapshot = new Snapshot<>(new double[0], new double[0], new ArrayList<T>());
+    }
+
+    /* true if some archived point is at least as good in both energy and delay */
+    public boolean isDominated(double energy, double delay) {
+        Snapshot<T> s = this.snapshot;
+        int index = this.lastIndexWithEnergyAtMost(s, energy);
+        return index >= 0 && s.delays[index] <= delay;
+    }
+
+    /* returns false if the point was dominated and therefore not added */
+    public synchronized boolean add(double energy, double delay, T payload) {
+        if (this.isDominated(energy, delay)) {
+            return false;
+        }
+        Snapshot<T> s = this.snapshot;
+        int keptCount = 0;
+        double[] energies = new double[s.energies.length + 1];
+        double[] delays = new double[s.delays.length + 1];
+        List<T> payloads = new ArrayList<>(s.payloads.size() + 1);
+        boolean inserted = false;
+        for (int i = 0; i < s.energies.length; i++) {
+            if (!inserted && s.energies[i] > energy) {
+                energies[keptCount] = energy;
+                delays[keptCount] = delay;
+                payloads.add(payload);
+                keptCount++;
+                inserted = true;
+            }
+            boolean dominatedByNewPoint = s.energies[i] >= energy && s.delays[i] >= delay;
+            if (!dominatedByNewPoint) {
+                energies[keptCount] = s.energies[i];
+                delays[keptCount] = s.delays[i];
+                payloads.add(s.payloads.get(i));
+                keptCount++;
+            }
+        }
+        if (!inserted) {
+            energies[keptCount] = energy;
+            delays[keptCount] = delay;
+            payloads.add(payload);
+            keptCount++;
+        }
+        this.snapshot = new Snapshot<>(Arrays.copyOf(energies, keptCount), Arrays.copyOf(delays, keptCount), payloads);
+        return true;
+    }
+
+    private int lastIndexWithEnergyAtMost(Snapshot<T> s, double energy) {
+        int low = 0;
+        int high = s.energies.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (s.energies[middle] <= energy) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return this.snapshot.energies.length;
+    }
+
+    public double getEnergy(int index) {
+        return this.snapshot.energies[index];
+    }
+
+    public double getDelay(int index) {
+        return this.snapshot.delays[index];
+    }
+
+    public T getPayload(int index) {
+        return this.snapshot.payloads.get(index);
+    }
+}
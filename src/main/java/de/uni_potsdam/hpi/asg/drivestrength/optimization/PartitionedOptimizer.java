@@ -0,0 +1,139 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+
+/**
+ * Splits the load graph into balanced parts and optimizes the parts concurrently, each on its own
+ * copy. Within a round, the input capacitances of cells in other parts are frozen into static
+ * loads; between rounds, the sizes are exchanged and the frozen loads updated. A final pass
+ * over the whole netlist cleans up at the part boundaries.
+ */
+public class PartitionedOptimizer extends AbstractDriveOptimizer {
+
+    private static class Part {
+        private Subnetlist subnetlist;
+        private volatile AbstractDriveOptimizer optimizer;
+    }
+
+    private String optimizerSpec;
+    private String cleanupOptimizerName;
+    private OptimizerFactory optimizerFactory;
+    private int partCount;
+    private int rounds;
+    private List<Part> parts;
+    private volatile AbstractDriveOptimizer cleanupOptimizer;
+
+    public PartitionedOptimizer(Netlist netlist, String optimizerSpec, String cleanupOptimizerName, OptimizerFactory optimizerFactory,
+                                int partCount, int rounds) {
+        super(netlist);
+        this.optimizerSpec = optimizerSpec;
+        this.cleanupOptimizerName = cleanupOptimizerName;
+        this.optimizerFactory = optimizerFactory;
+        this.partCount = partCount;
+        this.rounds = rounds;
+    }
+
+    @Override
+    protected void optimize() {
+        LoadGraphPartitioner partitioner = new LoadGraphPartitioner(this.cellInstances, this.partCount);
+        int[] partOf = partitioner.run();
+        int[] partSizes = partitioner.getPartSizes();
+        double averageSize = (double) this.cellInstances.size() / partitioner.getPartCount();
+        logger.info("Partitioned " + this.cellInstances.size() + " cells into " + partitioner.getPartCount() + " parts "
+                    + Arrays.toString(partSizes) + ", balance (largest/average): "
+                    + String.format("%.3f", Arrays.stream(partSizes).max().getAsInt() / averageSize)
+                    + ", cut edges: " + partitioner.getCutSize());
+
+        this.parts = new ArrayList<>();
+        for (int p = 0; p < partitioner.getPartCount(); p++) {
+            List<Integer> cellIndices = new ArrayList<>();
+            for (int i = 0; i < partOf.length; i++) {
+                if (partOf[i] == p) {
+                    cellIndices.add(i);
+                }
+            }
+            Part part = new Part();
+            part.subnetlist = new Subnetlist(this.getNetlist(), cellIndices, "_part" + p);
+            this.parts.add(part);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.parts.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            for (int round = 0; round < this.rounds && !this.isStopRequested(); round++) {
+                this.runRound(pool, round);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (!this.isStopRequested()) {
+            this.cleanupOptimizer = this.optimizerFactory.createStage(this.cleanupOptimizerName, this.getNetlist(), true);
+            if (this.isStopRequested()) {
+                this.cleanupOptimizer.requestStop();
+            }
+            logger.info("Partitioned: cleanup pass over all cells with " + this.cleanupOptimizerName);
+            this.cleanupOptimizer.run();
+        }
+    }
+
+    private void runRound(ExecutorService pool, int round) {
+        for (Part part : this.parts) {
+            part.subnetlist.freezeBoundary();
+        }
+
+        boolean warmStart = round > 0;
+        List<Future<Long>> runtimes = new ArrayList<>();
+        for (Part part : this.parts) {
+            runtimes.add(pool.submit(() -> {
+                long startTime = System.currentTimeMillis();
+                part.optimizer = this.optimizerFactory.create(this.optimizerSpec, part.subnetlist.getNetlist(), warmStart);
+                if (this.isStopRequested()) {
+                    part.optimizer.requestStop();
+                }
+                part.optimizer.run();
+                return System.currentTimeMillis() - startTime;
+            }));
+        }
+        List<Long> partRuntimes = new ArrayList<>();
+        for (Future<Long> runtime : runtimes) {
+            try {
+                partRuntimes.add(runtime.get());
+            } catch (Exception e) {
+                throw new Error("Optimizing a part failed", e);
+            }
+        }
+
+        for (Part part : this.parts) {
+            part.subnetlist.writeBackSizes();
+        }
+        logger.info("Partitioned: round " + (round + 1) + "/" + this.rounds + ", part runtimes (ms): " + partRuntimes
+                    + ", estimated delay " + new DelayEstimator(this.getNetlist(), false, false).run()
+                    + " ps, energy " + new EnergyEstimator(this.getNetlist(), false).run());
+    }
+
+    @Override
+    public void requestStop() {
+        super.requestStop();
+        if (this.parts != null) {
+            for (Part part : this.parts) {
+                AbstractDriveOptimizer optimizer = part.optimizer;
+                if (optimizer != null) {
+                    optimizer.requestStop();
+                }
+            }
+        }
+        AbstractDriveOptimizer cleanup = this.cleanupOptimizer;
+        if (cleanup != null) {
+            cleanup.requestStop();
+        }
+    }
+}
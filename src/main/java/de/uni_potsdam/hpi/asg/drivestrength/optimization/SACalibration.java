@@ -0,0 +1,53 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+/**
+ * Reference estimates (for normalizing the cost) and average estimate changes per random step
+ * (for choosing temperatures), measured once and reusable for any energy weight. The worst path
+ * delay is only measured when a worst delay weight is used (NaN otherwise).
+ */
+public class SACalibration {
+    private double referenceEnergy;
+    private double referenceDelay;
+    private double avgDeltaEnergy;
+    private double avgDeltaDelay;
+    private double referenceWorstDelay;
+    private double avgDeltaWorstDelay;
+
+    public SACalibration(double referenceEnergy, double referenceDelay, double avgDeltaEnergy, double avgDeltaDelay,
+                         double referenceWorstDelay, double avgDeltaWorstDelay) {
+        this.referenceEnergy = referenceEnergy;
+        this.referenceDelay = referenceDelay;
+        this.avgDeltaEnergy = avgDeltaEnergy;
+        this.avgDeltaDelay = avgDeltaDelay;
+        this.referenceWorstDelay = referenceWorstDelay;
+        this.avgDeltaWorstDelay = avgDeltaWorstDelay;
+    }
+
+    public boolean hasWorstDelay() {
+        return !Double.isNaN(this.referenceWorstDelay);
+    }
+
+    public double getReferenceEnergy() {
+        return referenceEnergy;
+    }
+
+    public double getReferenceDelay() {
+        return referenceDelay;
+    }
+
+    public double getAvgDeltaEnergy() {
+        return avgDeltaEnergy;
+    }
+
+    public double getAvgDeltaDelay() {
+        return avgDeltaDelay;
+    }
+
+    public double getReferenceWorstDelay() {
+        return referenceWorstDelay;
+    }
+
+    public double getAvgDeltaWorstDelay() {
+        return avgDeltaWorstDelay;
+    }
+}
@@ -6,42 +6,76 @@ import org.apache.logging.log4j.Logger;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.PinEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.TimingGraph;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.PinEstimates;
 
 public class SACostFunction {
     protected static final Logger logger = LogManager.getLogger();
 
     private DelayEstimator delayEstimator;
     private EnergyEstimator energyEstimator;
+    private TimingGraph timingGraph;
     private double weightEnergy;
     private double weightDelay;
+    private double weightWorstDelay;
     private double avgDeltaEnergy;
     private double avgDeltaDelay;
+    private double avgDeltaWorstDelay;
 
-    public SACostFunction(Netlist netlist, int percentageEnergy) {
-        logger.info("SA: using energy weight " + percentageEnergy + " %");
+    /* percentageWorstDelay: share of the delay weight for the worst path delay instead of the delay sum */
+    public SACostFunction(Netlist netlist, int percentageEnergy, int percentageWorstDelay, SACalibration calibration) {
+        logger.info("SA: using energy weight " + percentageEnergy + " %, worst delay weight " + percentageWorstDelay + " % of the delay weight");
         this.delayEstimator = new DelayEstimator(netlist, false, false);
         this.energyEstimator = new EnergyEstimator(netlist, false);
 
         this.weightEnergy = percentageEnergy / 100.0;
-        this.weightDelay = 1 - weightEnergy;
+        this.weightWorstDelay = (1 - weightEnergy) * percentageWorstDelay / 100.0;
+        this.weightDelay = 1 - weightEnergy - weightWorstDelay;
 
-        this.weightEnergy /= energyEstimator.run();
-        this.weightDelay /= delayEstimator.run();
+        this.weightEnergy /= calibration.getReferenceEnergy();
+        this.weightDelay /= calibration.getReferenceDelay();
+
+        this.avgDeltaEnergy = calibration.getAvgDeltaEnergy();
+        this.avgDeltaDelay = calibration.getAvgDeltaDelay();
+
+        if (percentageWorstDelay > 0) {
+            if (!calibration.hasWorstDelay()) {
+                throw new Error("SA calibration does not contain worst delay estimates");
+            }
+            this.timingGraph = new TimingGraph(netlist);
+            this.weightWorstDelay /= calibration.getReferenceWorstDelay();
+            this.avgDeltaWorstDelay = calibration.getAvgDeltaWorstDelay();
+        }
     }
 
-    public void setCalibrationDeltas(double avgDeltaEnergy, double avgDeltaDelay) {
-        this.avgDeltaEnergy = avgDeltaEnergy;
-        this.avgDeltaDelay = avgDeltaDelay;
+    /* keeps the worst delay up to date, to be called after every size change */
+    public void cellResized(CellInstance c) {
+        if (this.timingGraph != null) {
+            this.timingGraph.cellResized(c);
+        }
     }
 
     public double calculateCost() {
-        if (weightEnergy < 0.00000001) {
-            return delayEstimator.run() * weightDelay;
+        double cost = 0.0;
+        if (weightEnergy > 0.00000001) {
+            cost += energyEstimator.run() * weightEnergy;
         }
-        if (weightDelay < 0.00000001) {
-            return energyEstimator.run() * weightEnergy;
+        if (weightDelay > 0.00000001) {
+            cost += delayEstimator.run() * weightDelay;
         }
-        return energyEstimator.run() * weightEnergy + delayEstimator.run() * weightDelay;
+        if (this.timingGraph != null) {
+            cost += this.timingGraph.getWorstDelay() * weightWorstDelay;
+        }
+        return cost;
+    }
+
+    /* the cell's own weighted delay and energy terms (the worst delay is not split onto cells),
+     * as a measure of how much its size matters */
+    public double calculateCellCost(CellInstance c) {
+        PinEstimates estimates = PinEstimator.estimate(c);
+        return estimates.getDelaySum() * weightDelay + estimates.getEnergySum() * weightEnergy;
     }
 
     public double estimateEnergy() {
@@ -56,7 +90,8 @@ public class SACostFunction {
 //        double expectedAvgDeltaEnergy = 0.002;
 //        double expectedAvgDeltaDelay = 30;
         logger.info("SA: estimated avg deltas: energy: " + this.avgDeltaEnergy + ", delay: " + this.avgDeltaDelay);
-        double expectedAvgDelayWeighted = this.avgDeltaEnergy * weightEnergy + this.avgDeltaDelay * weightDelay;
+        double expectedAvgDelayWeighted = this.avgDeltaEnergy * weightEnergy + this.avgDeltaDelay * weightDelay
+                                          + this.avgDeltaWorstDelay * weightWorstDelay;
         logger.info("SA: estimated avg score delta: " + expectedAvgDelayWeighted);
         return expectedAvgDelayWeighted;
     }
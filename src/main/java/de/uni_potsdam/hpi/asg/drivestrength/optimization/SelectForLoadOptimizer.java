@@ -1,28 +1,37 @@
 package de.uni_potsdam.hpi.asg.drivestrength.optimization;
 
+import java.util.Collection;
+import java.util.List;
+
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
 
-public class SelectForLoadOptimizer extends AbstractDriveOptimizer {
-
-    private int roundCount;
+public class SelectForLoadOptimizer extends AbstractWorklistOptimizer {
 
     public SelectForLoadOptimizer(Netlist netlist, int roundCount) {
-        super(netlist);
-        this.roundCount = roundCount;
+        super(netlist, roundCount, defaultTolerance);
     }
 
     @Override
     protected void optimize() {
-        for (int i = 0; i < roundCount; i++) {
-            optimizeOneRound();
-        }
+        this.optimizeWithWorklist();
+    }
+
+    @Override
+    protected void prepareRound(List<CellInstance> cellsInRound) {
     }
 
-    private void optimizeOneRound() {
-        for (CellInstance c : this.cellInstances) {
-            double load = c.getLoadCapacitanceSelected();
-            c.selectFastestSizeForLoad(load);
-        }
+    @Override
+    protected double updateCell(CellInstance c) {
+        double oldCapacitance = c.getAverageInputPinSelectedCapacitance();
+        double load = c.getLoadCapacitanceSelected();
+        c.selectFastestSizeForLoad(load);
+        return relativeChange(oldCapacitance, c.getAverageInputPinSelectedCapacitance());
+    }
+
+    /* the fastest size depends only on the load, which a new size changes for the predecessors */
+    @Override
+    protected Collection<CellInstance> dependentsOf(CellInstance c) {
+        return c.getPredecessors();
     }
 }
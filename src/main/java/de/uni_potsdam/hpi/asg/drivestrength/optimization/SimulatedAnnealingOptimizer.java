@@ -1,37 +1,125 @@
 package de.uni_potsdam.hpi.asg.drivestrength.optimization;
 
-import java.util.Random;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.Checkpoint;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.BatchEstimator;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.TimingGraph;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.sizeassignment.SizeAssignment;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FenwickTree;
+import de.uni_potsdam.hpi.asg.drivestrength.util.RestorableRandom;
 
 public class SimulatedAnnealingOptimizer extends AbstractDriveOptimizer {
 
+    private static final double coldStartAcceptanceP = 0.95;
+    private static final double warmStartAcceptanceP = 0.3;
+    private static final int coldCalibrationSteps = 1000;
+    private static final int warmCalibrationSteps = 100;
+    /* criticality-biased moves: share of the move weight spread evenly over all cells, so that
+     * every cell can still be picked */
+    private static final double uniformMoveShare = 0.1;
+    /* adaptive cooling */
+    private static final int acceptanceWindow = 500;
+    private static final double targetAcceptancePlateau = 0.2;
+    private static final double temperatureStepExponent = 50;
+    private static final double reheatFactor = 2.0;
+
     private int iterationCount;
     private boolean jumpInMutation;
     private double initialTemperature;
     private double alpha;
     private double temperature;
-    private Random randomGenerator;
+    private RestorableRandom randomGenerator;
     private int indexForUndo;
     private Cell previousSizeForUndo;
+    private SACalibration calibration;
     private SACostFunction costFunction;
+    private boolean warmStart;
+    private int roundsPerCell;
+    private int percentageEnergy;
+    private int percentageWorstDelay;
+
+    private int iteration;
+    private double beforeCost;
+    private double currentCost;
+    private boolean resumed;
+
+    private boolean criticalityBiasedMoves;
+    private FenwickTree moveWeights;
+    private Map<CellInstance, Integer> cellIndices;
+    private double uniformMoveWeight;
+
+    private boolean adaptiveCooling;
+    private Cell[] bestSizes;
+    private boolean[] changedSinceBest;
+    private int[] changedSinceBestList;
+    private int changedSinceBestCount;
+    private double acceptanceRatio;
+    private double bestCost;
+    private double bestTemperature;
+    private int sinceImprovement;
+    private int reheats;
+    private SizeAssignment resumedBestSizes;
+    private double[] resumedMoveWeights;
+    private double[] resumedMoveWeightSums;
+    private int resumedMoveWeightChanges;
 
     public SimulatedAnnealingOptimizer(Netlist netlist, boolean jumpNotStep, int roundsPerCell, int percentageEnergy) {
+        this(netlist, jumpNotStep, roundsPerCell, percentageEnergy, null, false);
+    }
+
+    /* calibration: reuse one measured before (null: measure now). warmStart: the incoming
+     * sizes are already good, so start with a lower temperature to refine instead of scramble,
+     * and a missing calibration needs fewer probes around them */
+    public SimulatedAnnealingOptimizer(Netlist netlist, boolean jumpNotStep, int roundsPerCell, int percentageEnergy,
+                                       SACalibration calibration, boolean warmStart) {
+        this(netlist, jumpNotStep, roundsPerCell, percentageEnergy, 0, calibration, warmStart);
+    }
+
+    /* percentageWorstDelay: share of the delay weight spent on the worst path delay (see SACostFunction) */
+    public SimulatedAnnealingOptimizer(Netlist netlist, boolean jumpNotStep, int roundsPerCell, int percentageEnergy,
+                                       int percentageWorstDelay, SACalibration calibration, boolean warmStart) {
         super(netlist);
         this.jumpInMutation = jumpNotStep;
-        this.randomGenerator = new Random();
-        this.costFunction = new SACostFunction(netlist, percentageEnergy);
-        this.calibrate();
-        this.selectParameters(roundsPerCell);
+        this.warmStart = warmStart;
+        this.roundsPerCell = roundsPerCell;
+        this.percentageEnergy = percentageEnergy;
+        this.percentageWorstDelay = percentageWorstDelay;
+        this.randomGenerator = new RestorableRandom();
+        if (calibration == null) {
+            calibration = this.calibrate(netlist, warmStart ? warmCalibrationSteps : coldCalibrationSteps,
+                                         percentageWorstDelay > 0);
+        }
+        this.calibration = calibration;
+        this.costFunction = new SACostFunction(netlist, percentageEnergy, percentageWorstDelay, calibration);
+        this.selectParameters(roundsPerCell, warmStart);
+    }
+
+    /* for reproducible runs; the constructor already draws random numbers when it calibrates */
+    public void setRandomSeed(long seed) {
+        this.randomGenerator = new RestorableRandom(seed);
     }
 
-    private void selectParameters(int roundsPerCell) {
+    /* pick cells with probability proportional to their share of the cost instead of uniformly */
+    public void setCriticalityBiasedMoves(boolean criticalityBiasedMoves) {
+        this.criticalityBiasedMoves = criticalityBiasedMoves;
+    }
+
+    /* instead of the fixed geometric schedule, steer the temperature towards a target acceptance
+     * ratio (Lam's schedule), reheat after stagnating, and end with the best sizes seen */
+    public void setAdaptiveCooling(boolean adaptiveCooling) {
+        this.adaptiveCooling = adaptiveCooling;
+    }
+
+    private void selectParameters(int roundsPerCell, boolean warmStart) {
         int cellCount = this.cellInstances.size();
         this.iterationCount = roundsPerCell * cellCount;
         int becomeGreedyAfter = (int) Math.round(iterationCount * 0.7);
-        double initialAcceptanceP = 0.95;
+        double initialAcceptanceP = warmStart ? warmStartAcceptanceP : coldStartAcceptanceP;
         double greedyAcceptanceP = 0.05;
         double expectedAvgDelta = this.costFunction.estimateAvgDeltaWeighted();
         this.initialTemperature = (-expectedAvgDelta) / Math.log(initialAcceptanceP);
@@ -40,45 +128,327 @@ public class SimulatedAnnealingOptimizer extends AbstractDriveOptimizer {
         logger.info("SA: iterations: " + this.iterationCount + ", alpha: " + alpha + ", T0: " + initialTemperature + ", G: " + becomeGreedyAfter);
     }
 
-    private void calibrate() {
-        double beforeEnergy = this.costFunction.estimateEnergy();
-        double beforeDelay = this.costFunction.estimateDelay();
+    /* every step is undone, so the deltas are measured around the incoming sizes, which also
+     * become the reference for normalizing the cost. Every step needs a full evaluation, so
+     * they run on a BatchEstimator snapshot */
+    private SACalibration calibrate(Netlist netlist, int calibrationIterations, boolean withWorstDelay) {
+        BatchEstimator batchEstimator = new BatchEstimator(netlist);
+        batchEstimator.run(false);
+        double beforeEnergy = batchEstimator.getEnergy();
+        double beforeDelay = Math.round(batchEstimator.getDelay());
+        TimingGraph timingGraph = withWorstDelay ? new TimingGraph(netlist) : null;
+        double beforeWorstDelay = withWorstDelay ? timingGraph.getWorstDelay() : Double.NaN;
         double sumDeltaEnergy = 0;
         double sumDeltaDelay = 0;
-        int calibrationIterations = 1000;
+        double sumDeltaWorstDelay = 0;
         for (int i = 0; i < calibrationIterations; i++) {
             performRandomStep();
-            sumDeltaEnergy += Math.abs(this.costFunction.estimateEnergy() - beforeEnergy);
-            sumDeltaDelay += Math.abs(this.costFunction.estimateDelay() - beforeDelay);
+            batchEstimator.readSize(indexForUndo);
+            batchEstimator.run(false);
+            sumDeltaEnergy += Math.abs(batchEstimator.getEnergy() - beforeEnergy);
+            sumDeltaDelay += Math.abs(Math.round(batchEstimator.getDelay()) - beforeDelay);
+            if (withWorstDelay) {
+                timingGraph.cellResized(this.cellInstances.get(indexForUndo));
+                sumDeltaWorstDelay += Math.abs(timingGraph.getWorstDelay() - beforeWorstDelay);
+            }
             undoRandomStep();
+            batchEstimator.readSize(indexForUndo);
+            if (withWorstDelay) {
+                timingGraph.cellResized(this.cellInstances.get(indexForUndo));
+            }
         }
-        this.costFunction.setCalibrationDeltas(sumDeltaEnergy / calibrationIterations, sumDeltaDelay / calibrationIterations);
+        return new SACalibration(beforeEnergy, beforeDelay, sumDeltaEnergy / calibrationIterations, sumDeltaDelay / calibrationIterations,
+                                 beforeWorstDelay, sumDeltaWorstDelay / calibrationIterations);
+    }
+
+    public SACalibration getCalibration() {
+        return this.calibration;
     }
 
     @Override
     protected void optimize() {
-        double beforeCost = this.costFunction.calculateCost();
+        if (this.criticalityBiasedMoves) {
+            this.initMoveWeights();
+        }
+        if (!this.resumed) {
+            this.iteration = 0;
+            this.beforeCost = this.costFunction.calculateCost();
+            this.temperature = initialTemperature;
+        }
+        this.currentCost = this.costFunction.calculateCost();
+        if (this.adaptiveCooling) {
+            this.optimizeAdaptive();
+            return;
+        }
 
-        temperature = initialTemperature;
-        for (int i = 0; i < iterationCount; i++) {
-            double currentCost = this.costFunction.calculateCost();
+        for (; iteration < iterationCount && !this.isStopRequested(); iteration++) {
+            this.checkpointIfDue();
             this.performRandomStep();
-            //System.out.println(this.costFunction.estimateDelay());
+            this.cellResized(indexForUndo);
             double newCost = this.costFunction.calculateCost();
             if (newCost > currentCost) {
                 double delta = newCost - currentCost;
                 double condition = Math.exp(- delta / this.temperature);
-                if (Math.random() > condition) {
+                if (randomGenerator.nextDouble() > condition) {
                     this.undoRandomStep();
+                    this.cellResized(indexForUndo);
+                    newCost = currentCost;
                 }
             }
+            currentCost = newCost;
             this.temperature *= alpha;
         }
         logger.info("SA: result cost: " + this.costFunction.calculateCost() + " vs before " + beforeCost);
     }
 
+    /* Lam's target acceptance ratio over the run (fraction 0..1): falls from 1 to the plateau in
+     * the first 15 %, stays there until 65 %, then falls towards 0. Lam's plateau of 0.44 keeps
+     * sizing far too hot (most moves change the cost only a little), so it is lower here. Warm
+     * starts stay below their initial acceptance probability. Moves that do not change the cost
+     * are not counted */
+    private double targetAcceptanceRatio(double progress) {
+        double target;
+        if (progress < 0.15) {
+            target = targetAcceptancePlateau + (1 - targetAcceptancePlateau) * Math.pow(560, -progress / 0.15);
+        } else if (progress < 0.65) {
+            target = targetAcceptancePlateau;
+        } else {
+            target = targetAcceptancePlateau * Math.pow(440, -(progress - 0.65) / 0.35);
+        }
+        if (this.warmStart) {
+            target = Math.min(target, warmStartAcceptanceP);
+        }
+        return target;
+    }
+
+    private void optimizeAdaptive() {
+        this.initBestSizes();
+        if (!this.resumed) {
+            this.acceptanceRatio = this.targetAcceptanceRatio(0.0);
+            this.bestCost = this.currentCost;
+            this.bestTemperature = this.temperature;
+            this.sinceImprovement = 0;
+            this.reheats = 0;
+        }
+        int window = Math.max(1, Math.min(acceptanceWindow, iterationCount / 20));
+        int stagnationLimit = Math.max(window, iterationCount / 20);
+        /* per iteration, the temperature may change much faster than in the geometric schedule,
+         * otherwise it lags behind the target on short runs */
+        double step = Math.pow(alpha, temperatureStepExponent);
+
+        for (; iteration < iterationCount && !this.isStopRequested(); iteration++) {
+            this.checkpointIfDue();
+            this.performRandomStep();
+            this.cellResized(indexForUndo);
+            double newCost = this.costFunction.calculateCost();
+            boolean accepted = true;
+            if (newCost > currentCost && randomGenerator.nextDouble() > Math.exp(-(newCost - currentCost) / this.temperature)) {
+                this.undoRandomStep();
+                this.cellResized(indexForUndo);
+                accepted = false;
+            }
+            if (newCost != currentCost) {
+                acceptanceRatio += ((accepted ? 1.0 : 0.0) - acceptanceRatio) / window;
+                double progress = (double) iteration / iterationCount;
+                if (acceptanceRatio > this.targetAcceptanceRatio(progress)) {
+                    this.temperature *= step;
+                } else {
+                    this.temperature /= step;
+                }
+            }
+            if (accepted) {
+                currentCost = newCost;
+                this.markChanged(indexForUndo);
+            }
+            if (currentCost < bestCost) {
+                bestCost = currentCost;
+                bestTemperature = this.temperature;
+                this.saveBestSizes();
+                sinceImprovement = 0;
+            } else if (++sinceImprovement >= stagnationLimit && iteration < iterationCount * 0.65) {
+                this.temperature = Math.max(this.temperature, bestTemperature * reheatFactor);
+                sinceImprovement = 0;
+                reheats++;
+            }
+        }
+        if (currentCost > bestCost) {
+            this.restoreBestSizes();
+        }
+        logger.info("SA: result cost: " + this.costFunction.calculateCost() + " vs before " + beforeCost + ", " + reheats + " reheats");
+    }
+
+    /* the loop state at the start of the next iteration, the calibration (the normalization must
+     * not change), the move weights and the random generator, so that a resumed run continues
+     * exactly. Only arrays are copied here, the checkpoint writer does the rest */
+    @Override
+    protected Checkpoint createCheckpoint() {
+        Checkpoint checkpoint = super.createCheckpoint();
+        checkpoint.putNumber("iteration", this.iteration);
+        checkpoint.putNumber("temperature", this.temperature);
+        checkpoint.putNumber("beforeCost", this.beforeCost);
+        checkpoint.putNumber("referenceEnergy", this.calibration.getReferenceEnergy());
+        checkpoint.putNumber("referenceDelay", this.calibration.getReferenceDelay());
+        checkpoint.putNumber("avgDeltaEnergy", this.calibration.getAvgDeltaEnergy());
+        checkpoint.putNumber("avgDeltaDelay", this.calibration.getAvgDeltaDelay());
+        checkpoint.putNumber("referenceWorstDelay", this.calibration.getReferenceWorstDelay());
+        checkpoint.putNumber("avgDeltaWorstDelay", this.calibration.getAvgDeltaWorstDelay());
+        if (this.adaptiveCooling) {
+            checkpoint.putNumber("acceptanceRatio", this.acceptanceRatio);
+            checkpoint.putNumber("bestCost", this.bestCost);
+            checkpoint.putNumber("bestTemperature", this.bestTemperature);
+            checkpoint.putNumber("sinceImprovement", this.sinceImprovement);
+            checkpoint.putNumber("reheats", this.reheats);
+            checkpoint.putSizes("best", this.bestSizes);
+        }
+        if (this.moveWeights != null) {
+            checkpoint.putNumber("uniformMoveWeight", this.uniformMoveWeight);
+            checkpoint.putArray("moveWeights", this.moveWeights.copyWeights());
+            checkpoint.putArray("moveWeightSums", this.moveWeights.copySums());
+            checkpoint.putNumber("moveWeightChanges", this.moveWeights.getChangesSinceRebuild());
+        }
+        checkpoint.putNumber("random", this.randomGenerator.getState());
+        return checkpoint;
+    }
+
+    @Override
+    public void resumeFrom(Checkpoint checkpoint) {
+        super.resumeFrom(checkpoint);
+        this.calibration = new SACalibration(checkpoint.getNumber("referenceEnergy"), checkpoint.getNumber("referenceDelay"),
+                                             checkpoint.getNumber("avgDeltaEnergy"), checkpoint.getNumber("avgDeltaDelay"),
+                                             checkpoint.getNumber("referenceWorstDelay"), checkpoint.getNumber("avgDeltaWorstDelay"));
+        this.costFunction = new SACostFunction(this.getNetlist(), this.percentageEnergy, this.percentageWorstDelay, this.calibration);
+        this.selectParameters(this.roundsPerCell, this.warmStart);
+        this.iteration = (int) checkpoint.getNumber("iteration");
+        this.temperature = checkpoint.getNumber("temperature");
+        this.beforeCost = checkpoint.getNumber("beforeCost");
+        if (this.adaptiveCooling) {
+            this.acceptanceRatio = checkpoint.getNumber("acceptanceRatio");
+            this.bestCost = checkpoint.getNumber("bestCost");
+            this.bestTemperature = checkpoint.getNumber("bestTemperature");
+            this.sinceImprovement = (int) checkpoint.getNumber("sinceImprovement");
+            this.reheats = (int) checkpoint.getNumber("reheats");
+            this.resumedBestSizes = checkpoint.getSizeAssignment("best");
+            if (this.resumedBestSizes == null) {
+                throw new Error("Checkpoint was written without adaptive cooling, resume without -saAdaptiveCooling");
+            }
+        }
+        if (this.criticalityBiasedMoves) {
+            this.uniformMoveWeight = checkpoint.getNumber("uniformMoveWeight");
+            this.resumedMoveWeights = checkpoint.getArray("moveWeights");
+            this.resumedMoveWeightSums = checkpoint.getArray("moveWeightSums");
+            this.resumedMoveWeightChanges = (int) checkpoint.getNumber("moveWeightChanges");
+            if (this.resumedMoveWeights == null || this.resumedMoveWeightSums == null) {
+                throw new Error("Checkpoint was written without criticality-biased moves, resume without -saCriticalMoves");
+            }
+        }
+        this.randomGenerator = new RestorableRandom();
+        this.randomGenerator.setState((long) checkpoint.getNumber("random"));
+        this.resumed = true;
+        logger.info("SA: resuming at iteration " + this.iteration + " of " + this.iterationCount);
+    }
+
+    private void initBestSizes() {
+        int cellCount = this.cellInstances.size();
+        this.bestSizes = new Cell[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            this.bestSizes[i] = this.cellInstances.get(i).getSelectedSize();
+        }
+        this.changedSinceBest = new boolean[cellCount];
+        this.changedSinceBestList = new int[cellCount];
+        this.changedSinceBestCount = 0;
+        if (this.resumedBestSizes == null) {
+            return;
+        }
+        for (int i = 0; i < cellCount; i++) {
+            CellInstance c = this.cellInstances.get(i);
+            String sizeName = this.resumedBestSizes.getSizeName(c.getName());
+            if (sizeName == null) {
+                throw new Error("Checkpoint has no best size for " + c.getName());
+            }
+            this.bestSizes[i] = c.getDefinition().getSizeByName(sizeName);
+            if (this.bestSizes[i] != c.getSelectedSize()) {
+                this.markChanged(i);
+            }
+        }
+    }
+
+    private void markChanged(int index) {
+        if (!this.changedSinceBest[index]) {
+            this.changedSinceBest[index] = true;
+            this.changedSinceBestList[this.changedSinceBestCount++] = index;
+        }
+    }
+
+    /* only the cells changed since the last best need copying */
+    private void saveBestSizes() {
+        for (int k = 0; k < this.changedSinceBestCount; k++) {
+            int index = this.changedSinceBestList[k];
+            this.bestSizes[index] = this.cellInstances.get(index).getSelectedSize();
+            this.changedSinceBest[index] = false;
+        }
+        this.changedSinceBestCount = 0;
+    }
+
+    private void restoreBestSizes() {
+        for (int k = 0; k < this.changedSinceBestCount; k++) {
+            int index = this.changedSinceBestList[k];
+            this.cellInstances.get(index).selectSize(this.bestSizes[index]);
+            this.changedSinceBest[index] = false;
+        }
+        for (int k = 0; k < this.changedSinceBestCount; k++) {
+            this.cellResized(this.changedSinceBestList[k]);
+        }
+        this.changedSinceBestCount = 0;
+    }
+
+    private void initMoveWeights() {
+        int cellCount = this.cellInstances.size();
+        this.cellIndices = new IdentityHashMap<>();
+        double[] cellCosts = new double[cellCount];
+        double costSum = 0.0;
+        for (int i = 0; i < cellCount; i++) {
+            CellInstance c = this.cellInstances.get(i);
+            this.cellIndices.put(c, i);
+            cellCosts[i] = this.costFunction.calculateCellCost(c);
+            costSum += cellCosts[i];
+        }
+        if (!this.resumed) {
+            this.uniformMoveWeight = Math.max(costSum, Double.MIN_NORMAL) * uniformMoveShare / ((1 - uniformMoveShare) * cellCount);
+        }
+        for (int i = 0; i < cellCount; i++) {
+            cellCosts[i] += this.uniformMoveWeight;
+        }
+        this.moveWeights = new FenwickTree(cellCount);
+        this.moveWeights.setAll(cellCosts);
+        if (this.resumedMoveWeights != null) {
+            /* exactly as checkpointed, including the rounding of the running sums */
+            this.moveWeights.restore(this.resumedMoveWeights, this.resumedMoveWeightSums, this.resumedMoveWeightChanges);
+        }
+    }
+
+    /* resizing a cell changes its own cost and, through their loads, its predecessors' costs */
+    private void cellResized(int index) {
+        CellInstance c = this.cellInstances.get(index);
+        this.costFunction.cellResized(c);
+        if (this.moveWeights == null) {
+            return;
+        }
+        this.moveWeights.set(index, this.costFunction.calculateCellCost(c) + this.uniformMoveWeight);
+        for (CellInstance p : c.getPredecessors()) {
+            Integer predecessorIndex = this.cellIndices.get(p);
+            if (predecessorIndex != null) {
+                this.moveWeights.set(predecessorIndex, this.costFunction.calculateCellCost(p) + this.uniformMoveWeight);
+            }
+        }
+    }
+
     private void performRandomStep() {
-        int index = randomGenerator.nextInt(this.cellInstances.size());
+        int index;
+        if (this.moveWeights != null) {
+            index = this.moveWeights.sample(randomGenerator);
+        } else {
+            index = randomGenerator.nextInt(this.cellInstances.size());
+        }
         CellInstance instance = this.cellInstances.get(index);
         indexForUndo = index;
         previousSizeForUndo = instance.getSelectedSize();
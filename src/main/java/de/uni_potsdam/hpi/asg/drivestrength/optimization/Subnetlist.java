@@ -0,0 +1,98 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.Module;
+
+/**
+ * Independent copy of some cells of an annotated, inlined netlist, to be optimized on its own.
+ * Only these cells are copied and annotated: loads on cells outside are frozen into static loads
+ * with the outside cells' current input capacitances, and predecessors outside are dropped.
+ */
+public class Subnetlist {
+
+    private List<CellInstance> sourceCells;
+    private List<Integer> cellIndices;
+    private Map<CellInstance, Integer> sourceIndices;
+    private Map<Integer, CellInstance> copiedCells;
+    private Netlist netlist;
+
+    public Subnetlist(Netlist sourceNetlist, List<Integer> cellIndices, String moduleNameSuffix) {
+        this.sourceCells = sourceNetlist.getRootModule().getCellInstances();
+        this.cellIndices = cellIndices;
+        this.sourceIndices = new IdentityHashMap<>();
+        for (int i = 0; i < this.sourceCells.size(); i++) {
+            this.sourceIndices.put(this.sourceCells.get(i), i);
+        }
+
+        Module module = new Module();
+        module.setName(sourceNetlist.getRootModule().getName() + moduleNameSuffix);
+        this.copiedCells = new LinkedHashMap<>();
+        for (int i : cellIndices) {
+            CellInstance source = this.sourceCells.get(i);
+            CellInstance copy = new CellInstance(source.getName(), source.getDefinition(), source.getPinAssignments());
+            if (source.isInputDriven()) {
+                copy.markAsInputDriven(source.getInputDrivenMaxCIn());
+            }
+            this.copiedCells.put(i, copy);
+            module.addInstance(copy);
+        }
+        for (int i : cellIndices) {
+            for (CellInstance predecessor : this.sourceCells.get(i).getPredecessors()) {
+                CellInstance copiedPredecessor = this.copiedCells.get(this.sourceIndices.get(predecessor));
+                if (copiedPredecessor != null) {
+                    this.copiedCells.get(i).addPredecessor(copiedPredecessor);
+                }
+            }
+        }
+        this.netlist = new Netlist();
+        this.netlist.addModule(module);
+        this.netlist.setName(sourceNetlist.getName());
+        this.freezeBoundary();
+    }
+
+    public Netlist getNetlist() {
+        return this.netlist;
+    }
+
+    public int getCellCount() {
+        return this.cellIndices.size();
+    }
+
+    /* copies the current sizes of the source cells and freezes the loads on cells outside */
+    public void freezeBoundary() {
+        for (int i : this.cellIndices) {
+            CellInstance source = this.sourceCells.get(i);
+            CellInstance copy = this.copiedCells.get(i);
+            copy.selectSize(source.getSelectedSize());
+            copy.clearLoads();
+            for (Load l : source.getLoads()) {
+                if (l.isStaticLoad()) {
+                    copy.addLoad(l);
+                    continue;
+                }
+                Integer sinkIndex = this.sourceIndices.get(l.getCellInstance());
+                CellInstance copiedSink = sinkIndex == null ? null : this.copiedCells.get(sinkIndex);
+                if (copiedSink != null) {
+                    copy.addLoad(new Load(copiedSink, l.getPinName()));
+                } else {
+                    copy.addLoad(new Load(l.getCapacitanceSelected()));
+                }
+            }
+            copy.getEstimatorCache().invalidate();
+        }
+    }
+
+    /* selects the optimized sizes in the source cells (and their avatars) */
+    public void writeBackSizes() {
+        for (int i : this.cellIndices) {
+            this.sourceCells.get(i).selectSize(this.copiedCells.get(i).getSelectedSize());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.uni_potsdam.hpi.asg.drivestrength.remotesimulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs the job's scripts with bash in the job directory on this machine. The simulation
+ * scripts call the commands selectLibrary and simulate, which are set up on the remote host's
+ * login; locally they come from the given setup script, sourced before each job script. Output
+ * of the scripts goes to local_simulation.log in the job directory.
+ */
+public class LocalSimulationBackend implements SimulationBackend {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private File setupScript;
+    private long timeoutMinutes;
+
+    public LocalSimulationBackend(File setupScript, long timeoutMinutes) {
+        if (!setupScript.isFile()) {
+            throw new Error("Local simulator setup script " + setupScript + " does not exist");
+        }
+        this.setupScript = setupScript.getAbsoluteFile();
+        this.timeoutMinutes = timeoutMinutes;
+    }
+
+    @Override
+    public boolean run(String jobName, File jobDirectory, Set<String> inputFiles, List<String> scripts) {
+        for (String script : scripts) {
+            String command = ". '" + this.setupScript.getPath().replace("'", "'\\''") + "' && . ./" + script;
+            ProcessBuilder processBuilder = new ProcessBuilder("bash", "-c", command);
+            processBuilder.directory(jobDirectory);
+            processBuilder.redirectErrorStream(true);
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(new File(jobDirectory, "local_simulation.log")));
+            try {
+                Process process = processBuilder.start();
+                if (!process.waitFor(this.timeoutMinutes, TimeUnit.MINUTES)) {
+                    process.destroyForcibly();
+                    logger.warn("Local simulation " + jobName + " timed out after " + this.timeoutMinutes + " minutes");
+                    return false;
+                }
+                /* like the remote workflow: a failing command shows in the missing or failed outputs */
+                if (process.exitValue() != 0) {
+                    logger.warn("Local simulation script " + script + " of " + jobName + " exited with " + process.exitValue());
+                }
+            } catch (IOException e) {
+                logger.error("Could not start local simulation " + jobName + ": " + e.getMessage());
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "local " + this.setupScript.getPath() + " " + this.setupScript.lastModified();
+    }
+}
@@ -16,4 +16,8 @@ public class RemoteConfig {
         return new RemoteInformation(host, username, password, remoteDirectory);
     }
 
+    public String getLocation() {
+        return username + "@" + host + ":" + remoteDirectory;
+    }
+
 }
@@ -8,17 +8,17 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.google.gson.Gson;
-
-import de.uni_potsdam.hpi.asg.common.remote.RemoteInformation;
 import de.uni_potsdam.hpi.asg.drivestrength.delayfiles.DelayFileParser;
 import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.resultcache.ResultCacheKey;
+import de.uni_potsdam.hpi.asg.drivestrength.resultcache.SimulationResultCache;
 import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
 import de.uni_potsdam.hpi.asg.drivestrength.util.NumberFormatter;
 
@@ -27,38 +27,57 @@ public class RemoteSimulation {
     private static final Pattern simulationResultSuccessPattern = Pattern.compile("[0-9]*\\s*TB_SUCCESS:\\s*([0-9]*)");
     private static final Pattern totalPowerPattern = Pattern.compile("Total Power\\s* = ([0-9|\\-|e|\\.]+)\\s*.*");
     private static final Pattern simulationTimePattern = Pattern.compile("(.*)at time ([0-9]*) PS(.*)");
+    private static final AtomicInteger runCounter = new AtomicInteger();
+    private static final String[] librarySuffixes = {"_orig", "_noslew_nowire"}; //"_noslew",
 
     //Simulation complete via $finish(1) at time 77210 PS + 0
 
     private String name;
     private Netlist netlist;
-    private File remoteConfigFile;
+    private SimulationBackend backend;
     private boolean keepTempDir;
     private boolean verbose;
     private double outputPinCapacitance;
     private String tempDir;
     private String date;
     private RemoteSimulationResult remoteSimulationResult;
+    private SimulationResultCache resultCache;
+    private String verilog;
 
     public RemoteSimulation(Netlist netlist, File remoteConfigFile,
             double outputPinCapacitance, boolean keepTempDir, boolean verbose) {
+        this(netlist, remoteConfigFile == null ? null : SshSimulationBackend.fromConfigFile(remoteConfigFile),
+             outputPinCapacitance, keepTempDir, verbose);
+    }
+
+    /* backend null: the simulation is skipped */
+    public RemoteSimulation(Netlist netlist, SimulationBackend backend,
+            double outputPinCapacitance, boolean keepTempDir, boolean verbose) {
         this.netlist = netlist;
         this.name = netlist.getName();
-        this.remoteConfigFile = remoteConfigFile;
+        this.backend = backend;
         this.outputPinCapacitance = outputPinCapacitance;
         this.keepTempDir = keepTempDir;
         this.verbose = verbose;
     }
 
     public void run() {
-        if (remoteConfigFile == null) {
-            logger.info("Skipping Remote Simulation (no remoteConfig file specified)");
+        if (backend == null) {
+            logger.info("Skipping Remote Simulation (no remoteConfig file or local simulator specified)");
             return;
         }
+        String cacheKey = null;
+        if (this.resultCache != null) {
+            cacheKey = this.getCacheKey();
+            RemoteSimulationResult cachedResult = this.resultCache.lookup(cacheKey);
+            if (cachedResult != null) {
+                logger.info("Simulation cache hit for testbench " + this.name + " (" + cacheKey + "): " + cachedResult);
+                this.remoteSimulationResult = cachedResult;
+                return;
+            }
+        }
         logger.info("Starting remote simulation, with testbench " + this.name + "...");
 
-        String[] librarySuffixes = {"_orig", "_noslew_nowire"}; //"_noslew",
-
         setupDate();
         setupTempDir();
 
@@ -66,15 +85,15 @@ public class RemoteSimulation {
         List<String> filesToExecute = new ArrayList<>();
 
         String netlistFilename = tempDir + name + ".v";
-        FileHelper.writeStringToTextFile(netlist.toVerilog(), netlistFilename);
+        FileHelper.writeStringToTextFile(this.getVerilog(), netlistFilename);
         filesToMove.add(netlistFilename);
 
         String commandFilename = tempDir + name + ".sh";
-        FileHelper.writeStringToTextFile(buildSimulationCommand(librarySuffixes), commandFilename);
+        FileHelper.writeStringToTextFile(buildSimulationCommand(), commandFilename);
         filesToMove.add(commandFilename);
         filesToExecute.add(name + ".sh");
 
-        runWorkflow(filesToMove, filesToExecute);
+        runBackend(filesToMove, filesToExecute);
 
         this.remoteSimulationResult = new RemoteSimulationResult();
 
@@ -88,13 +107,56 @@ public class RemoteSimulation {
         if (!this.keepTempDir) {
             FileHelper.deleteDirectory(tempDir);
         }
+        if (this.resultCache != null) {
+            if (this.isCompleteResult()) {
+                this.resultCache.store(cacheKey, this.remoteSimulationResult);
+            } else {
+                logger.warn("Not caching the simulation result of " + this.name + ", a testbench did not succeed");
+            }
+        }
+    }
+
+    /* a testbench time of 0 also comes from empty outputs (e.g. a tool or license failure),
+     * which must not be returned from the cache on later runs */
+    private boolean isCompleteResult() {
+        for (String librarySuffix : librarySuffixes) {
+            if (this.remoteSimulationResult.getTestbenchSuccessTime(librarySuffix) == 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public RemoteSimulationResult getResult() {
         return this.remoteSimulationResult;
     }
 
-    private String buildSimulationCommand(String[] librarySuffixes) {
+    public void setResultCache(SimulationResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /* everything the simulation result depends on: the emitted netlist (which also names the
+     * testbench), output capacitance, libraries and simulator */
+    public String getCacheKey() {
+        ResultCacheKey key = new ResultCacheKey()
+                .add("netlist", this.getVerilog())
+                .add("outputPinCapacitance", this.outputPinCapacitance)
+                .add("simulator", this.backend == null ? null : this.backend.getDescription());
+        for (String librarySuffix : librarySuffixes) {
+            key.add("library", librarySuffix);
+        }
+        return key.toHex();
+    }
+
+    /* written once: the cache key and the simulated file use the same text */
+    private String getVerilog() {
+        if (this.verilog == null) {
+            this.verilog = this.netlist.toVerilog();
+        }
+        return this.verilog;
+    }
+
+    private String buildSimulationCommand() {
         String command = "";
         for (String librarySuffix : librarySuffixes) {
             command += "selectLibrary " + librarySuffix + "\n";
@@ -107,22 +169,19 @@ public class RemoteSimulation {
         return command;
     }
 
+    /* the counter keeps concurrent simulations (benchmark threads) in separate directories */
     private void setupDate() {
         DateFormat dfmt = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
-        this.date = dfmt.format(new Date());
+        this.date = dfmt.format(new Date()) + "_" + runCounter.incrementAndGet();
     }
 
     private void setupTempDir() {
         tempDir = "tmp/" + this.date + "/";
-        new File(tempDir).mkdir();
+        new File(tempDir).mkdirs();
     }
 
-    private void runWorkflow(Set<String> filesToMove, List<String> filesToExecute) {
-        String json = FileHelper.readTextFileToString(remoteConfigFile);
-        RemoteInformation remoteInfo = new Gson().fromJson(json, RemoteConfig.class).asRemoteInformation();
-
-        SimulationRemoteOperationWorkflow workFlow = new SimulationRemoteOperationWorkflow(remoteInfo, name + "_" + this.date);
-        boolean success = workFlow.run(filesToMove, filesToExecute, tempDir, true);
+    private void runBackend(Set<String> filesToMove, List<String> filesToExecute) {
+        boolean success = backend.run(name + "_" + this.date, new File(tempDir), filesToMove, filesToExecute);
         if (!success) {
             FileHelper.deleteDirectory(tempDir);
             throw new Error("Remote Simulation failed");
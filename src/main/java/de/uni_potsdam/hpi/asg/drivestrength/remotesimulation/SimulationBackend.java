@@ -0,0 +1,19 @@
+package de.uni_potsdam.hpi.asg.drivestrength.remotesimulation;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Executes the simulation scripts of a RemoteSimulation job. The job directory holds the input
+ * files (netlist and scripts); afterwards it has to contain the files the scripts produced.
+ * Implementations must allow concurrent jobs (each in its own directory).
+ */
+public interface SimulationBackend {
+
+    /* false if the job could not be run at all */
+    boolean run(String jobName, File jobDirectory, Set<String> inputFiles, List<String> scripts);
+
+    /* identifies the simulator in simulation cache keys */
+    String getDescription();
+}
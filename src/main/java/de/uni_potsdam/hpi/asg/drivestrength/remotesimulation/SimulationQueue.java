@@ -0,0 +1,66 @@
+package de.uni_potsdam.hpi.asg.drivestrength.remotesimulation;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.resultcache.SimulationResultCache;
+
+/**
+ * Runs RemoteSimulations on a backend with at most maxConcurrent of them at a time; the others
+ * wait in the queue. The netlist is written out when it is submitted. Submitting a netlist that
+ * gives the same simulation cache key as an earlier one (e.g. two optimizers that selected the
+ * same sizes) does not simulate again but shares the earlier simulation's result; with a
+ * SimulationResultCache, results are also reused across runs.
+ */
+public class SimulationQueue {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private SimulationBackend backend;
+    private SimulationResultCache resultCache;
+    private ExecutorService pool;
+    private Map<String, CompletableFuture<RemoteSimulationResult>> simulations;
+
+    /* resultCache may be null */
+    public SimulationQueue(SimulationBackend backend, int maxConcurrent, SimulationResultCache resultCache) {
+        if (maxConcurrent < 1) {
+            throw new Error("At least one concurrent simulation is needed, got " + maxConcurrent);
+        }
+        this.backend = backend;
+        this.resultCache = resultCache;
+        this.pool = Executors.newFixedThreadPool(maxConcurrent);
+        this.simulations = new ConcurrentHashMap<>();
+    }
+
+    public CompletableFuture<RemoteSimulationResult> submit(Netlist netlist, double outputPinCapacitance) {
+        RemoteSimulation simulation = new RemoteSimulation(netlist, this.backend, outputPinCapacitance, false, false);
+        simulation.setResultCache(this.resultCache);
+        String cacheKey = simulation.getCacheKey();
+        CompletableFuture<RemoteSimulationResult> result = this.simulations.get(cacheKey);
+        if (result != null) {
+            logger.info("Reusing the simulation of an identical " + netlist.getName() + " netlist (" + cacheKey + ")");
+            return result;
+        }
+        return this.simulations.computeIfAbsent(cacheKey, key -> CompletableFuture.supplyAsync(() -> {
+            simulation.run();
+            return simulation.getResult();
+        }, this.pool));
+    }
+
+    /* waits for all submitted simulations */
+    public void close() {
+        this.pool.shutdown();
+        try {
+            this.pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new Error(e);
+        }
+    }
+}
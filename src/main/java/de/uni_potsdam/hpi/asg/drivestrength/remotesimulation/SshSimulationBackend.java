@@ -0,0 +1,35 @@
+package de.uni_potsdam.hpi.asg.drivestrength.remotesimulation;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.Gson;
+
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+/* uploads the job via SSH, runs it on the remote host (remote config JSON file) and downloads the results */
+public class SshSimulationBackend implements SimulationBackend {
+
+    private RemoteConfig remoteConfig;
+
+    public SshSimulationBackend(RemoteConfig remoteConfig) {
+        this.remoteConfig = remoteConfig;
+    }
+
+    public static SshSimulationBackend fromConfigFile(File remoteConfigFile) {
+        String json = FileHelper.readTextFileToString(remoteConfigFile);
+        return new SshSimulationBackend(new Gson().fromJson(json, RemoteConfig.class));
+    }
+
+    @Override
+    public boolean run(String jobName, File jobDirectory, Set<String> inputFiles, List<String> scripts) {
+        SimulationRemoteOperationWorkflow workFlow = new SimulationRemoteOperationWorkflow(this.remoteConfig.asRemoteInformation(), jobName);
+        return workFlow.run(inputFiles, scripts, jobDirectory.getPath() + "/", true);
+    }
+
+    @Override
+    public String getDescription() {
+        return "ssh " + this.remoteConfig.getLocation();
+    }
+}
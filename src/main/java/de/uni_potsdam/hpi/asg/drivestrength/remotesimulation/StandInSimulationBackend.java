@@ -0,0 +1,114 @@
+package de.uni_potsdam.hpi.asg.drivestrength.remotesimulation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+/**
+ * Deterministic stand-in for the simulator, for tests and for trying out the benchmark pipeline
+ * without one. It reads the simulation scripts instead of running them: for every simulate
+ * call it writes the files the script would leave in the job directory (testbench, power and
+ * simulation time lines, and the copied SDF), with made-up delays that only depend on the
+ * instance's cell type, the output capacitance and the library. The numbers mean nothing
+ * physically, but the same netlist always gives the same results and other sizes give others.
+ */
+public class StandInSimulationBackend implements SimulationBackend {
+
+    private static final Pattern selectLibraryPattern = Pattern.compile("selectLibrary (\\S+)");
+    private static final Pattern simulatePattern = Pattern.compile("simulate (\\S+) (\\S+) (\\S+) .*");
+    private static final Pattern instancePattern = Pattern.compile("\\s*(\\w+)\\s+(\\S+)\\s*\\((.*)\\);\\s*");
+    private static final Pattern pinPattern = Pattern.compile("\\.(\\w+)\\(");
+
+    private static class Instance {
+        private String cellType;
+        private String name;
+        private List<String> pinNames;
+    }
+
+    public StandInSimulationBackend() {
+    }
+
+    @Override
+    public boolean run(String jobName, File jobDirectory, Set<String> inputFiles, List<String> scripts) {
+        for (String script : scripts) {
+            String librarySuffix = "";
+            for (String line : FileHelper.readTextFileToString(new File(jobDirectory, script)).split("\r\n|\r|\n")) {
+                Matcher selectLibrary = selectLibraryPattern.matcher(line.trim());
+                if (selectLibrary.matches()) {
+                    librarySuffix = selectLibrary.group(1);
+                    continue;
+                }
+                Matcher simulate = simulatePattern.matcher(line.trim());
+                if (simulate.matches()) {
+                    List<Instance> instances = readInstances(new File(jobDirectory, simulate.group(1)));
+                    this.simulate(jobDirectory, simulate.group(2), instances, Double.parseDouble(simulate.group(3)), librarySuffix);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "stand-in";
+    }
+
+    private List<Instance> readInstances(File netlistFile) {
+        List<Instance> instances = new ArrayList<>();
+        for (String line : FileHelper.readTextFileToString(netlistFile).split("\r\n|\r|\n")) {
+            Matcher m = instancePattern.matcher(line);
+            if (!m.matches() || m.group(1).equals("module")) {
+                continue;
+            }
+            Instance instance = new Instance();
+            instance.cellType = m.group(1);
+            instance.name = m.group(2);
+            instance.pinNames = new ArrayList<>();
+            Matcher pin = pinPattern.matcher(m.group(3));
+            while (pin.find()) {
+                instance.pinNames.add(pin.group(1));
+            }
+            if (instance.pinNames.size() > 1) {
+                instances.add(instance);
+            }
+        }
+        return instances;
+    }
+
+    private void simulate(File jobDirectory, String name, List<Instance> instances, double outputPinCapacitance, String librarySuffix) {
+        double libraryFactor = librarySuffix.equals("_orig") ? 1.0 : 0.8;
+        StringBuilder sdf = new StringBuilder("(DELAYFILE\n");
+        double delaySum = 0.0;  //ps
+        for (Instance instance : instances) {
+            double delay = libraryFactor * (0.02 + 0.005 * Math.floorMod(instance.cellType.hashCode(), 8) + 0.05 * outputPinCapacitance); //ns
+            String outputPinName = instance.pinNames.get(instance.pinNames.size() - 1);
+            sdf.append("(CELL\n(CELLTYPE \"").append(instance.cellType).append("\")\n");
+            sdf.append("(INSTANCE ").append(instance.name).append(")\n");
+            for (String pinName : instance.pinNames.subList(0, instance.pinNames.size() - 1)) {
+                String triple = String.format(Locale.ROOT, "(%.3f:%.3f:%.3f)", delay, delay, delay);
+                sdf.append("(IOPATH ").append(pinName).append(" ").append(outputPinName).append(" ")
+                   .append(triple).append(" ").append(triple).append(")\n");
+                delaySum += Math.round(delay * 1000);
+            }
+            sdf.append(")\n");
+        }
+        sdf.append(")\n");
+        String directory = jobDirectory.getPath() + "/";
+        FileHelper.writeStringToTextFile(sdf.toString(), directory + name + librarySuffix + ".sdf");
+
+        int testbenchTime = 1000 + (int) Math.round(delaySum);
+        double totalPower = 1e-6 * instances.size() * (1.0 + outputPinCapacitance); //W
+        FileHelper.writeStringToTextFile(testbenchTime + " TB_SUCCESS: " + testbenchTime + "\n",
+                                         directory + "output_tb" + librarySuffix + ".txt");
+        FileHelper.writeStringToTextFile(String.format(Locale.ROOT, "Total Power = %e W\n", totalPower),
+                                         directory + "output_power" + librarySuffix + ".txt");
+        FileHelper.writeStringToTextFile("Simulation complete via $finish(1) at time " + (testbenchTime + 100) + " PS + 0\n",
+                                         directory + "output_simtime" + librarySuffix + ".txt");
+    }
+}
@@ -0,0 +1,93 @@
+package de.uni_potsdam.hpi.asg.drivestrength.resultcache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+/**
+ * Directory of json cache entries, one file per key. Reading an entry touches its file, and
+ * writing evicts the least recently used files until the directory is within its size bound.
+ * Files are written to a temporary name and then moved, so concurrent runs never read partial
+ * entries.
+ */
+class CacheDirectory {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private static final String entrySuffix = ".json";
+
+    private File directory;
+    private long maxBytes;
+    private String cacheName;
+
+    CacheDirectory(File directory, long maxBytes, String cacheName) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new Error("Could not create " + cacheName + " directory " + directory);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.cacheName = cacheName;
+    }
+
+    /* null if there is no entry */
+    String read(String key) {
+        File entryFile = this.entryFile(key);
+        if (!entryFile.isFile()) {
+            return null;
+        }
+        return FileHelper.readTextFileToString(entryFile);
+    }
+
+    void touch(String key) {
+        this.entryFile(key).setLastModified(System.currentTimeMillis());
+    }
+
+    boolean write(String key, String json) {
+        try {
+            File temporaryFile = File.createTempFile(key, ".tmp", this.directory);
+            FileHelper.writeStringToTextFile(json, temporaryFile);
+            Files.move(temporaryFile.toPath(), this.entryFile(key).toPath(),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not store entry in the " + this.cacheName + ": " + e.getMessage());
+            return false;
+        }
+        this.evictLeastRecentlyUsed();
+        return true;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        File[] entryFiles = this.directory.listFiles((dir, name) -> name.endsWith(entrySuffix));
+        if (entryFiles == null) {
+            return;
+        }
+        List<File> entries = new ArrayList<>(Arrays.asList(entryFiles));
+        entries.sort(Comparator.comparingLong(File::lastModified));
+        long totalBytes = 0;
+        for (File entry : entries) {
+            totalBytes += entry.length();
+        }
+        /* the newest entry is kept even if it alone exceeds the bound */
+        for (int i = 0; i < entries.size() - 1 && totalBytes > this.maxBytes; i++) {
+            File entry = entries.get(i);
+            long entryBytes = entry.length();
+            if (entry.delete()) {
+                totalBytes -= entryBytes;
+                logger.info("Evicted " + entry.getName() + " from the " + this.cacheName);
+            }
+        }
+    }
+
+    File entryFile(String key) {
+        return new File(this.directory, key + entrySuffix);
+    }
+}
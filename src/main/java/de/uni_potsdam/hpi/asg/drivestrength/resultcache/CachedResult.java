@@ -0,0 +1,31 @@
+package de.uni_potsdam.hpi.asg.drivestrength.resultcache;
+
+import java.util.Map;
+
+/**
+ * A cache entry as stored in json: the selected size of every cell instance (by name) and the
+ * estimates for these sizes.
+ */
+public class CachedResult {
+    private Map<String, String> sizes;
+    private int delay;
+    private double energy;
+
+    public CachedResult(Map<String, String> sizes, int delay, double energy) {
+        this.sizes = sizes;
+        this.delay = delay;
+        this.energy = energy;
+    }
+
+    public Map<String, String> getSizes() {
+        return sizes;
+    }
+
+    public int getDelay() {
+        return delay;
+    }
+
+    public double getEnergy() {
+        return energy;
+    }
+}
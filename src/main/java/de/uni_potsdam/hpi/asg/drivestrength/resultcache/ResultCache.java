@@ -0,0 +1,94 @@
+package de.uni_potsdam.hpi.asg.drivestrength.resultcache;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.DelayEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.EnergyEstimator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+
+/**
+ * On-disk cache of optimization results, one json file per key, bounded by size with least
+ * recently used eviction (see CacheDirectory).
+ */
+public class ResultCache {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private CacheDirectory directory;
+
+    public ResultCache(File directory, long maxBytes) {
+        this.directory = new CacheDirectory(directory, maxBytes, "result cache");
+    }
+
+    /* selects the cached sizes in the inlined netlist (and its avatars), returns false on a miss */
+    public boolean applyIfCached(String key, Netlist inlinedNetlist) {
+        String json = this.directory.read(key);
+        if (json == null) {
+            logger.info("Result cache miss for " + key);
+            return false;
+        }
+        File entryFile = this.directory.entryFile(key);
+        CachedResult result;
+        try {
+            result = new Gson().fromJson(json, CachedResult.class);
+        } catch (JsonParseException e) {
+            logger.warn("Result cache entry " + entryFile + " is unreadable, ignoring it");
+            return false;
+        }
+        Map<CellInstance, Cell> sizes = this.resolveSizes(result, inlinedNetlist);
+        if (sizes == null) {
+            logger.warn("Result cache entry " + entryFile + " does not match the netlist, ignoring it");
+            return false;
+        }
+        for (Map.Entry<CellInstance, Cell> size : sizes.entrySet()) {
+            size.getKey().selectSize(size.getValue());
+        }
+        this.directory.touch(key);
+        logger.info("Result cache hit for " + key + ": delay " + result.getDelay() + " ps, energy " + result.getEnergy());
+        return true;
+    }
+
+    private Map<CellInstance, Cell> resolveSizes(CachedResult result, Netlist inlinedNetlist) {
+        if (result == null || result.getSizes() == null) {
+            return null;
+        }
+        Map<CellInstance, Cell> sizes = new HashMap<>();
+        for (CellInstance c : inlinedNetlist.getRootModule().getCellInstances()) {
+            String sizeName = result.getSizes().get(c.getName());
+            Cell size = null;
+            for (Cell candidate : c.getDefinition().getRawSizes()) {
+                if (candidate.getName().equals(sizeName)) {
+                    size = candidate;
+                }
+            }
+            if (size == null) {
+                return null;
+            }
+            sizes.put(c, size);
+        }
+        return sizes;
+    }
+
+    public void store(String key, Netlist inlinedNetlist) {
+        Map<String, String> sizes = new LinkedHashMap<>();
+        for (CellInstance c : inlinedNetlist.getRootModule().getCellInstances()) {
+            sizes.put(c.getName(), c.getSelectedSize().getName());
+        }
+        int delay = new DelayEstimator(inlinedNetlist, false, false).run();
+        double energy = new EnergyEstimator(inlinedNetlist, false).run();
+        String json = new Gson().toJson(new CachedResult(sizes, delay, energy));
+        if (this.directory.write(key, json)) {
+            logger.info("Stored result in cache as " + key);
+        }
+    }
+}
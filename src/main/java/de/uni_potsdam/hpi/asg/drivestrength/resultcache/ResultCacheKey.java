@@ -0,0 +1,55 @@
+package de.uni_potsdam.hpi.asg.drivestrength.resultcache;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fingerprint of everything an optimization result depends on. Entries are hashed in the order
+ * they are added, each with its name, so the same inputs always give the same key.
+ */
+public class ResultCacheKey {
+
+    private MessageDigest digest;
+
+    public ResultCacheKey() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new Error("SHA-256 is not available");
+        }
+    }
+
+    public ResultCacheKey add(String name, Object value) {
+        this.addBytes(name, String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    public ResultCacheKey addFileContents(String name, File file) {
+        try {
+            this.addBytes(name, Files.readAllBytes(file.toPath()));
+        } catch (Exception e) {
+            throw new Error("Could not read file " + file + " for the result cache key");
+        }
+        return this;
+    }
+
+    private void addBytes(String name, byte[] value) {
+        this.digest.update(name.getBytes(StandardCharsets.UTF_8));
+        this.digest.update((byte) 0);
+        this.digest.update(Long.toString(value.length).getBytes(StandardCharsets.UTF_8));
+        this.digest.update((byte) 0);
+        this.digest.update(value);
+    }
+
+    /* finishes the key, no entries can be added afterwards */
+    public String toHex() {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : this.digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
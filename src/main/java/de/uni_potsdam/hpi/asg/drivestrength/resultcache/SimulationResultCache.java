@@ -0,0 +1,51 @@
+package de.uni_potsdam.hpi.asg.drivestrength.resultcache;
+
+import java.io.File;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.RemoteSimulationResult;
+
+/**
+ * On-disk cache of simulation results (testbench times, SDF delay sums and energy), keyed by
+ * the emitted netlist and the simulation settings, so identical sizings are only simulated
+ * once, across optimizers and across runs. Bounded by size like the ResultCache. Safe to use
+ * from concurrent simulations.
+ */
+public class SimulationResultCache {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private CacheDirectory directory;
+
+    public SimulationResultCache(File directory, long maxBytes) {
+        this.directory = new CacheDirectory(directory, maxBytes, "simulation cache");
+    }
+
+    /* null on a miss */
+    public RemoteSimulationResult lookup(String key) {
+        String json = this.directory.read(key);
+        if (json == null) {
+            return null;
+        }
+        RemoteSimulationResult result;
+        try {
+            result = new Gson().fromJson(json, RemoteSimulationResult.class);
+        } catch (JsonParseException e) {
+            result = null;
+        }
+        if (result == null || result.getSdfDelaySums() == null || result.getTestbenchSuccessTimes() == null) {
+            logger.warn("Simulation cache entry " + this.directory.entryFile(key) + " is unreadable, ignoring it");
+            return null;
+        }
+        this.directory.touch(key);
+        return result;
+    }
+
+    public void store(String key, RemoteSimulationResult result) {
+        this.directory.write(key, new Gson().toJson(result));
+    }
+}
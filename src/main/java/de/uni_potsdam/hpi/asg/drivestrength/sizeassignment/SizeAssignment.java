@@ -0,0 +1,207 @@
+package de.uni_potsdam.hpi.asg.drivestrength.sizeassignment;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+/**
+ * The selected size of every cell instance of an inlined netlist, by instance name, without the
+ * rest of the netlist. Files ending in .txt are written as text, one "instance size" line each;
+ * all others in a gzipped binary format that stores every size name only once:
+ *
+ *   magic, version, size name count, size names, instance count, (instance name, size name index)*
+ */
+public class SizeAssignment {
+    protected static final Logger logger = LogManager.getLogger();
+
+    private static final int binaryMagic = 0x4453535a;
+    private static final int binaryVersion = 1;
+    private static final String textHeader = "# drivestrength size assignment v1";
+
+    private Map<String, String> sizeNames;
+
+    private SizeAssignment(Map<String, String> sizeNames) {
+        this.sizeNames = sizeNames;
+    }
+
+    public static SizeAssignment fromNetlist(Netlist inlinedNetlist) {
+        if (!inlinedNetlist.isInlined()) {
+            throw new Error("Size assignments need an inlined netlist");
+        }
+        Map<String, String> sizeNames = new LinkedHashMap<>();
+        for (CellInstance c : inlinedNetlist.getRootModule().getCellInstances()) {
+            sizeNames.put(c.getName(), c.getSelectedSize().getName());
+        }
+        return new SizeAssignment(sizeNames);
+    }
+
+    /* instance name to size name */
+    public static SizeAssignment fromSizeNames(Map<String, String> sizeNames) {
+        return new SizeAssignment(new LinkedHashMap<>(sizeNames));
+    }
+
+    /* selects the sizes in the inlined netlist (and its avatars), returns the number of sized instances */
+    public int applyTo(Netlist inlinedNetlist) {
+        int appliedCount = 0;
+        int missingCount = 0;
+        for (CellInstance c : inlinedNetlist.getRootModule().getCellInstances()) {
+            String sizeName = this.sizeNames.get(c.getName());
+            if (sizeName == null) {
+                missingCount++;
+                continue;
+            }
+            c.selectSize(c.getDefinition().getSizeByName(sizeName));
+            appliedCount++;
+        }
+        if (missingCount > 0) {
+            logger.warn("Size assignment has no size for " + missingCount + " cell instances, they keep their sizes");
+        }
+        if (appliedCount < this.sizeNames.size()) {
+            logger.warn("Size assignment contains " + (this.sizeNames.size() - appliedCount) + " instances not in the netlist");
+        }
+        return appliedCount;
+    }
+
+    public String getSizeName(String instanceName) {
+        return this.sizeNames.get(instanceName);
+    }
+
+    public List<String> getInstanceNames() {
+        return new ArrayList<>(this.sizeNames.keySet());
+    }
+
+    public int size() {
+        return this.sizeNames.size();
+    }
+
+    public void write(File file) {
+        if (isTextFile(file)) {
+            this.writeText(file);
+        } else {
+            this.writeBinary(file);
+        }
+    }
+
+    public static SizeAssignment read(File file) {
+        if (isTextFile(file)) {
+            return readText(file);
+        }
+        return readBinary(file);
+    }
+
+    private static boolean isTextFile(File file) {
+        return file.getName().endsWith(".txt");
+    }
+
+    private void writeText(File file) {
+        StringBuilder text = new StringBuilder(textHeader + "\n");
+        for (Map.Entry<String, String> entry : this.sizeNames.entrySet()) {
+            text.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        FileHelper.writeStringToTextFile(text.toString(), file);
+    }
+
+    private static SizeAssignment readText(File file) {
+        Map<String, String> sizeNames = new LinkedHashMap<>();
+        int lineNumber = 0;
+        for (String line : FileHelper.readTextFileToString(file).split("\n")) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw new Error("Invalid size assignment in " + file + " line " + lineNumber + ": " + line);
+            }
+            sizeNames.put(parts[0], parts[1]);
+        }
+        return new SizeAssignment(sizeNames);
+    }
+
+    private void writeBinary(File file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(binaryMagic);
+            out.writeInt(binaryVersion);
+            this.writeTo(out);
+        } catch (IOException e) {
+            throw new Error("Could not write size assignment " + file + ": " + e.getMessage());
+        }
+    }
+
+    /* the binary format without magic and version, for embedding in other files */
+    public void writeTo(DataOutputStream out) throws IOException {
+        Map<String, Integer> sizeIndices = new HashMap<>();
+        List<String> distinctSizeNames = new ArrayList<>();
+        for (String sizeName : this.sizeNames.values()) {
+            if (!sizeIndices.containsKey(sizeName)) {
+                sizeIndices.put(sizeName, distinctSizeNames.size());
+                distinctSizeNames.add(sizeName);
+            }
+        }
+        out.writeInt(distinctSizeNames.size());
+        for (String sizeName : distinctSizeNames) {
+            out.writeUTF(sizeName);
+        }
+        out.writeInt(this.sizeNames.size());
+        for (Map.Entry<String, String> entry : this.sizeNames.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(sizeIndices.get(entry.getValue()));
+        }
+    }
+
+    private static SizeAssignment readBinary(File file) {
+        try (InputStream fileIn = new BufferedInputStream(new FileInputStream(file));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(fileIn)))) {
+            if (in.readInt() != binaryMagic) {
+                throw new Error("Not a size assignment file: " + file);
+            }
+            int version = in.readInt();
+            if (version != binaryVersion) {
+                throw new Error("Unsupported size assignment version " + version + " in " + file);
+            }
+            return readFrom(in, file.toString());
+        } catch (IOException e) {
+            throw new Error("Could not read size assignment " + file + ": " + e.getMessage());
+        }
+    }
+
+    /* counterpart of writeTo(), source names the file in error messages */
+    public static SizeAssignment readFrom(DataInputStream in, String source) throws IOException {
+        String[] distinctSizeNames = new String[in.readInt()];
+        for (int i = 0; i < distinctSizeNames.length; i++) {
+            distinctSizeNames[i] = in.readUTF();
+        }
+        int instanceCount = in.readInt();
+        Map<String, String> sizeNames = new LinkedHashMap<>();
+        for (int i = 0; i < instanceCount; i++) {
+            String instanceName = in.readUTF();
+            int sizeIndex = in.readInt();
+            if (sizeIndex < 0 || sizeIndex >= distinctSizeNames.length) {
+                throw new Error("Invalid size index in size assignment " + source);
+            }
+            sizeNames.put(instanceName, distinctSizeNames[sizeIndex]);
+        }
+        return new SizeAssignment(sizeNames);
+    }
+}
@@ -0,0 +1,127 @@
+package de.uni_potsdam.hpi.asg.drivestrength.util;
+
+import java.util.Random;
+
+/**
+ * Non-negative weights over the indices 0..size-1 with prefix sums in a Fenwick (binary indexed)
+ * tree: changing a weight and drawing an index with probability proportional to its weight both
+ * take O(log n). Changes are applied as differences, so the sums are rebuilt from the weights
+ * every size changes to keep rounding errors from piling up.
+ */
+public class FenwickTree {
+
+    private double[] weights;
+    private double[] tree;    //1-based: tree[i] sums the weights i - lowbit(i) until i - 1
+    private int size;
+    private int highestPowerOfTwo;
+    private int changesSinceRebuild;
+
+    public FenwickTree(int size) {
+        this.size = size;
+        this.weights = new double[size];
+        this.tree = new double[size + 1];
+        this.highestPowerOfTwo = Integer.highestOneBit(Math.max(1, size));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public double get(int index) {
+        return this.weights[index];
+    }
+
+    public void set(int index, double weight) {
+        if (weight < 0.0 || Double.isNaN(weight)) {
+            throw new Error("Fenwick tree weights must not be negative, got " + weight + " for " + index);
+        }
+        double difference = weight - this.weights[index];
+        this.weights[index] = weight;
+        if (++this.changesSinceRebuild >= this.size) {
+            this.rebuild();
+            return;
+        }
+        for (int i = index + 1; i <= this.size; i += i & -i) {
+            this.tree[i] += difference;
+        }
+    }
+
+    /* O(n), for setting many weights at once */
+    public void rebuild() {
+        for (int i = 1; i <= this.size; i++) {
+            this.tree[i] = this.weights[i - 1];
+        }
+        for (int i = 1; i <= this.size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= this.size) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+        this.changesSinceRebuild = 0;
+    }
+
+    public void setAll(double[] weights) {
+        if (weights.length != this.size) {
+            throw new Error("Expected " + this.size + " weights, got " + weights.length);
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (weights[i] < 0.0 || Double.isNaN(weights[i])) {
+                throw new Error("Fenwick tree weights must not be negative, got " + weights[i] + " for " + i);
+            }
+        }
+        System.arraycopy(weights, 0, this.weights, 0, this.size);
+        this.rebuild();
+    }
+
+    public double getTotal() {
+        double total = 0.0;
+        for (int i = this.size; i > 0; i -= i & -i) {
+            total += this.tree[i];
+        }
+        return total;
+    }
+
+    /* the index whose weight interval contains target, for 0 <= target < getTotal() */
+    public int find(double target) {
+        int position = 0;
+        for (int step = this.highestPowerOfTwo; step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= this.size && this.tree[next] <= target) {
+                position = next;
+                target -= this.tree[next];
+            }
+        }
+        /* rounding can push the target past the last positive weight */
+        while (position > 0 && (position >= this.size || this.weights[position] == 0.0)) {
+            position--;
+        }
+        return position;
+    }
+
+    /* the weights, the sums and the change count are the complete state: a tree restored from
+     * them samples exactly like this one, rounding errors included */
+    public double[] copyWeights() {
+        return this.weights.clone();
+    }
+
+    public double[] copySums() {
+        return this.tree.clone();
+    }
+
+    public int getChangesSinceRebuild() {
+        return this.changesSinceRebuild;
+    }
+
+    public void restore(double[] weights, double[] sums, int changesSinceRebuild) {
+        if (weights.length != this.size || sums.length != this.size + 1) {
+            throw new Error("Fenwick tree state of " + weights.length + " weights does not fit " + this.size);
+        }
+        System.arraycopy(weights, 0, this.weights, 0, this.size);
+        System.arraycopy(sums, 0, this.tree, 0, this.size + 1);
+        this.changesSinceRebuild = changesSinceRebuild;
+    }
+
+    public int sample(Random randomGenerator) {
+        return this.find(randomGenerator.nextDouble() * this.getTotal());
+    }
+}
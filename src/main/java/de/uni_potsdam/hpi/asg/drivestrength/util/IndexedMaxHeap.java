@@ -0,0 +1,133 @@
+package de.uni_potsdam.hpi.asg.drivestrength.util;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap over the indices 0..capacity-1, each with a changeable key. Keeps the position
+ * of every index in the heap, so keys can be changed or removed in O(log n). Equal keys are
+ * ordered by index, which keeps the order of pops deterministic.
+ */
+public class IndexedMaxHeap {
+
+    private double[] keys;
+    private int[] heap;
+    private int[] positions;
+    private int size;
+
+    public IndexedMaxHeap(int capacity) {
+        this.keys = new double[capacity];
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+        this.size = 0;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean contains(int index) {
+        return this.positions[index] >= 0;
+    }
+
+    public double getKey(int index) {
+        return this.keys[index];
+    }
+
+    /* inserts the index or changes its key */
+    public void put(int index, double key) {
+        if (!this.contains(index)) {
+            this.keys[index] = key;
+            this.heap[this.size] = index;
+            this.positions[index] = this.size;
+            this.size++;
+            this.siftUp(this.size - 1);
+            return;
+        }
+        double oldKey = this.keys[index];
+        this.keys[index] = key;
+        if (key > oldKey) {
+            this.siftUp(this.positions[index]);
+        } else {
+            this.siftDown(this.positions[index]);
+        }
+    }
+
+    public void remove(int index) {
+        if (!this.contains(index)) {
+            return;
+        }
+        int position = this.positions[index];
+        this.size--;
+        this.swap(position, this.size);
+        this.positions[index] = -1;
+        if (position < this.size) {
+            this.siftUp(position);
+            this.siftDown(position);
+        }
+    }
+
+    public int peek() {
+        if (this.isEmpty()) {
+            throw new Error("Heap is empty");
+        }
+        return this.heap[0];
+    }
+
+    public int pop() {
+        int top = this.peek();
+        this.remove(top);
+        return top;
+    }
+
+    private boolean isAbove(int positionA, int positionB) {
+        int a = this.heap[positionA];
+        int b = this.heap[positionB];
+        if (this.keys[a] != this.keys[b]) {
+            return this.keys[a] > this.keys[b];
+        }
+        return a < b;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!this.isAbove(position, parent)) {
+                return;
+            }
+            this.swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= this.size) {
+                return;
+            }
+            int child = left;
+            if (left + 1 < this.size && this.isAbove(left + 1, left)) {
+                child = left + 1;
+            }
+            if (!this.isAbove(child, position)) {
+                return;
+            }
+            this.swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int positionA, int positionB) {
+        int a = this.heap[positionA];
+        int b = this.heap[positionB];
+        this.heap[positionA] = b;
+        this.heap[positionB] = a;
+        this.positions[b] = positionA;
+        this.positions[a] = positionB;
+    }
+}
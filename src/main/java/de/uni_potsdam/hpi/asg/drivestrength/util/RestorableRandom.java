@@ -0,0 +1,51 @@
+package de.uni_potsdam.hpi.asg.drivestrength.util;
+
+import java.util.Random;
+
+/**
+ * java.util.Random whose state can be read and set as one number, so that it can be saved
+ * cheaply (e.g. in a checkpoint) and continued exactly. Same 48-bit linear congruential
+ * generator and therefore the same sequences as Random for the same seed. The value cached by
+ * nextGaussian() is not part of the state.
+ */
+public class RestorableRandom extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private static final long multiplier = 0x5DEECE66DL;
+    private static final long addend = 0xBL;
+    private static final long mask = (1L << 48) - 1;
+
+    private long state;   //set by Random's constructor through setSeed, so no initializer
+
+    public RestorableRandom() {
+        super();
+    }
+
+    public RestorableRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ multiplier) & mask;
+    }
+
+    @Override
+    protected int next(int bits) {
+        this.state = (this.state * multiplier + addend) & mask;
+        return (int) (this.state >>> (48 - bits));
+    }
+
+    /* below 2^48, so it also fits a double exactly */
+    public long getState() {
+        return this.state;
+    }
+
+    public void setState(long state) {
+        if (state < 0 || state > mask) {
+            throw new Error("Invalid random generator state " + state);
+        }
+        this.state = state;
+    }
+}
@@ -0,0 +1,52 @@
+package de.uni_potsdam.hpi.asg.drivestrength.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+public class BenchmarkCsvWriterTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static final String results = ",1200,1300,1250,5000,0.05,0.01,0.02";
+
+    private static String entryLine(String netlistName, String optimizerName) {
+        return BenchmarkCsvWriter.entryKey(netlistName, 0.003, 0.008, optimizerName) + results;
+    }
+
+    @Test
+    public void testTruncatedLastLineIsRunAgain() {
+        File csv = testHelper.createTempFile(".csv");
+        /* still has all fields, only the end of the last number is missing */
+        String truncatedLine = entryLine("inc", "SA").substring(0, entryLine("inc", "SA").length() - 1);
+        FileHelper.writeStringToTextFile(entryLine("inc", "ESE") + "\n" + entryLine("inc", "NSE") + "\n" + truncatedLine, csv);
+
+        Set<String> completedKeys = BenchmarkCsvWriter.readCompletedKeys(csv);
+        assertEquals(2, completedKeys.size());
+        assertTrue(completedKeys.contains(BenchmarkCsvWriter.entryKey("inc", 0.003, 0.008, "ESE")));
+        assertTrue(completedKeys.contains(BenchmarkCsvWriter.entryKey("inc", 0.003, 0.008, "NSE")));
+        assertFalse(completedKeys.contains(BenchmarkCsvWriter.entryKey("inc", 0.003, 0.008, "SA")));
+
+        /* the rerun entry starts on a line of its own */
+        BenchmarkCsvWriter writer = new BenchmarkCsvWriter(csv);
+        writer.writeLine(entryLine("inc", "SA"));
+        writer.close();
+        completedKeys = BenchmarkCsvWriter.readCompletedKeys(csv);
+        assertEquals(3, completedKeys.size());
+        assertTrue(completedKeys.contains(BenchmarkCsvWriter.entryKey("inc", 0.003, 0.008, "SA")));
+    }
+
+    @Test
+    public void testMissingFileHasNoCompletedEntries() {
+        File csv = testHelper.createTempFile(".csv");
+        csv.delete();
+        assertTrue(BenchmarkCsvWriter.readCompletedKeys(csv).isEmpty());
+    }
+}
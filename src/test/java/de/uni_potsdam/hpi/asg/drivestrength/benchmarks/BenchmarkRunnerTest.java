@@ -0,0 +1,67 @@
+package de.uni_potsdam.hpi.asg.drivestrength.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.SimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.StandInSimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+public class BenchmarkRunnerTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static class FailingBackend implements SimulationBackend {
+        @Override
+        public boolean run(String jobName, File jobDirectory, Set<String> inputFiles, List<String> scripts) {
+            return false;
+        }
+
+        @Override
+        public String getDescription() {
+            return "failing";
+        }
+    }
+
+    private static BenchmarkConfig writeConfig() {
+        File netlistFile = testHelper.writeSyntheticNetlist(testHelper.createTempFile(".v"), 20, 1);
+        String netlistName = netlistFile.getName().replaceAll("\\.v$", "");
+        File configFile = testHelper.createTempFile(".json");
+        FileHelper.writeStringToTextFile("{\"netlistDirectory\": \"" + netlistFile.getParent() + "\", "
+                                         + "\"netlists\": [\"" + netlistName + "\"], "
+                                         + "\"outputPinCapacitances\": [0.012], \"inputDrivenMaxCIns\": [0.007], "
+                                         + "\"optimizers\": [\"NOP\"], \"threads\": 1, \"simulationJobs\": 1}", configFile);
+        return BenchmarkConfig.read(configFile);
+    }
+
+    @Test
+    public void testFailedSimulationWritesNoLine() {
+        File csv = testHelper.createTempFile(".csv");
+        csv.delete();
+        BenchmarkRunner runner = new BenchmarkRunner(testHelper.getSyntheticCellLibrary(), new FailingBackend(), null,
+                                                     writeConfig(), csv);
+        try {
+            runner.run();
+            fail("A failed simulation must fail the benchmark run");
+        } catch (Error e) {
+            assertEquals("1 of 1 benchmark entries failed, run again to retry them", e.getMessage());
+        }
+        assertTrue(BenchmarkCsvWriter.readCompletedKeys(csv).isEmpty());
+    }
+
+    @Test
+    public void testSuccessfulSimulationWritesOneLine() {
+        File csv = testHelper.createTempFile(".csv");
+        csv.delete();
+        new BenchmarkRunner(testHelper.getSyntheticCellLibrary(), new StandInSimulationBackend(), null,
+                            writeConfig(), csv).run();
+        assertEquals(1, BenchmarkCsvWriter.readCompletedKeys(csv).size());
+    }
+}
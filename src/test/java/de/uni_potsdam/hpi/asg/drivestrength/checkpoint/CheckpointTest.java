@@ -0,0 +1,78 @@
+package de.uni_potsdam.hpi.asg.drivestrength.checkpoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class CheckpointTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    @Test
+    public void testWriteReadRoundTrip() {
+        Netlist netlist = testHelper.createAnnotatedNetlist(100, 5);
+        List<CellInstance> cells = netlist.getRootModule().getCellInstances();
+        Cell[] otherSizes = new Cell[cells.size()];
+        for (int i = 0; i < cells.size(); i++) {
+            CellInstance c = cells.get(i);
+            List<Cell> sizes = c.getDefinition().getRawSizes();
+            otherSizes[i] = sizes.get(0);
+            c.selectSize(sizes.get(i % sizes.size()));
+            double[] capacitances = new double[c.getInputPinNames().size()];
+            for (int p = 0; p < capacitances.length; p++) {
+                capacitances[p] = 0.001 * (i + 1) + 0.0001 * p;
+            }
+            c.commitInputPinTheoreticalCapacitances(capacitances, 0);
+        }
+
+        Checkpoint checkpoint = Checkpoint.fromNetlist("SomeOptimizer", netlist);
+        checkpoint.putNumber("iteration", 1234);
+        checkpoint.putNumber("state", 0xFFFFFFFFFFFFL);
+        checkpoint.putSizes("other", otherSizes);
+        checkpoint.putArray("weights", new double[] {0.5, 1e-300, 3.0});
+        File file = testHelper.createTempFile(".ckpt");
+        checkpoint.write(file);
+
+        Checkpoint read = Checkpoint.read(file);
+        assertEquals("SomeOptimizer", read.getOptimizerName());
+        assertEquals(1234.0, read.getNumber("iteration"), 0.0);
+        assertEquals(0xFFFFFFFFFFFFL, (long) read.getNumber("state"));
+        double[] weights = read.getArray("weights");
+        assertEquals(3, weights.length);
+        assertEquals(1e-300, weights[1], 0.0);
+        assertNull(read.getArray("missing"));
+        assertNull(read.getSizeAssignment("missing"));
+        for (int i = 0; i < cells.size(); i++) {
+            assertEquals(otherSizes[i].getName(), read.getSizeAssignment("other").getSizeName(cells.get(i).getName()));
+        }
+
+        Netlist restored = testHelper.createAnnotatedNetlist(100, 5);
+        read.applyTo(restored);
+        List<CellInstance> restoredCells = restored.getRootModule().getCellInstances();
+        for (int i = 0; i < cells.size(); i++) {
+            CellInstance original = cells.get(i);
+            CellInstance c = restoredCells.get(i);
+            assertEquals(original.getName(), c.getName());
+            assertEquals(original.getSelectedSize().getName(), c.getSelectedSize().getName());
+            for (String pinName : c.getInputPinNames()) {
+                assertEquals(original.getInputPinTheoreticalCapacitance(pinName), c.getInputPinTheoreticalCapacitance(pinName), 0.0);
+            }
+        }
+    }
+
+    @Test(expected = Error.class)
+    public void testMismatchingNetlistIsRejected() {
+        Checkpoint checkpoint = Checkpoint.fromNetlist("SomeOptimizer", testHelper.createAnnotatedNetlist(100, 5));
+        File file = testHelper.createTempFile(".ckpt");
+        checkpoint.write(file);
+        Checkpoint.read(file).applyTo(testHelper.createAnnotatedNetlist(50, 6));
+    }
+}
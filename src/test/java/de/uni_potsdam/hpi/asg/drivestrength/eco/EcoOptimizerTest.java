@@ -0,0 +1,151 @@
+package de.uni_potsdam.hpi.asg.drivestrength.eco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.optimization.OptimizerFactory;
+import de.uni_potsdam.hpi.asg.drivestrength.sizeassignment.SizeAssignment;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+public class EcoOptimizerTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    /* a chain c0..c7 from in0 to out0, with a side branch s0 on w1 driving out1 */
+    private static final List<String> previousCells = Arrays.asList(
+            "ASG_INV_1 c0 (.A(in0), .Y(w0));",
+            "ASG_INV_1 c1 (.A(w0), .Y(w1));",
+            "ASG_INV_1 c2 (.A(w1), .Y(w2));",
+            "ASG_INV_1 c3 (.A(w2), .Y(w3));",
+            "ASG_INV_1 c4 (.A(w3), .Y(w4));",
+            "ASG_INV_1 c5 (.A(w4), .Y(w5));",
+            "ASG_NAND2_1 c6 (.A(w5), .B(in1), .Y(w6));",
+            "ASG_INV_1 c7 (.A(w6), .Y(w7));",
+            "ASG_INV_1 s0 (.A(w1), .Y(w8));");
+
+    private static Netlist createNetlist(List<String> cells, String out1Signal) {
+        StringBuilder verilog = new StringBuilder("module eco (in0, in1, out0, out1);\n");
+        verilog.append("  input in0;\n  input in1;\n  output out0;\n  output out1;\n");
+        for (int i = 0; i < 10; i++) {
+            verilog.append("  wire w" + i + ";\n");
+        }
+        verilog.append("  assign out0 = w7;\n  assign out1 = " + out1Signal + ";\n");
+        for (String cell : cells) {
+            verilog.append("  " + cell + "\n");
+        }
+        verilog.append("endmodule\n");
+        File netlistFile = testHelper.createTempFile(".v");
+        FileHelper.writeStringToTextFile(verilog.toString(), netlistFile);
+        return testHelper.createAnnotatedNetlist(netlistFile);
+    }
+
+    private static List<String> editedCells(String... replacements) {
+        Map<String, String> replaced = new HashMap<>();
+        for (int i = 0; i < replacements.length; i += 2) {
+            replaced.put(replacements[i], replacements[i + 1]);
+        }
+        List<String> cells = new ArrayList<>();
+        for (String cell : previousCells) {
+            String instanceName = cell.split(" ")[1];
+            String replacement = replaced.containsKey(instanceName) ? replaced.get(instanceName) : cell;
+            if (!replacement.isEmpty()) {
+                cells.add(replacement);
+            }
+        }
+        return cells;
+    }
+
+    /* the previous run selected the _2 size of every cell */
+    private static Netlist createPreviousNetlist() {
+        Netlist previous = createNetlist(previousCells, "w8");
+        for (CellInstance c : previous.getRootModule().getCellInstances()) {
+            c.selectSize(c.getDefinition().getSizeByName(c.getDefinition().getName() + "_2"));
+        }
+        return previous;
+    }
+
+    /* re-optimizes with BOT, so the region is exactly the set of cells no longer at their _2 size */
+    private static List<String> runEcoAndGetRegion(Netlist edited, PreviousSizing previousSizing, int radius) {
+        new EcoOptimizer(edited, previousSizing, radius, "BOT", new OptimizerFactory(0, 0, false, "GS")).run();
+        List<String> region = new ArrayList<>();
+        for (CellInstance c : edited.getRootModule().getCellInstances()) {
+            if (!c.getSelectedSize().getName().equals(c.getDefinition().getName() + "_2")) {
+                region.add(c.getName());
+            }
+        }
+        Collections.sort(region);
+        return region;
+    }
+
+    @Test
+    public void testUnchangedNetlistKeepsAllSizes() {
+        PreviousSizing previousSizing = PreviousSizing.fromNetlist(createPreviousNetlist());
+        assertEquals(9, previousSizing.size());
+        Netlist edited = createNetlist(previousCells, "w8");
+        assertEquals(Collections.emptyList(), runEcoAndGetRegion(edited, previousSizing, 2));
+    }
+
+    @Test
+    public void testRenamedInstanceIsMatchedBySignature() {
+        PreviousSizing previousSizing = PreviousSizing.fromNetlist(createPreviousNetlist());
+        Netlist edited = createNetlist(editedCells("c3", "ASG_INV_1 renamed3 (.A(w2), .Y(w3));"), "w8");
+        assertEquals(Collections.emptyList(), runEcoAndGetRegion(edited, previousSizing, 2));
+    }
+
+    @Test
+    public void testRegionAroundRewiredInstance() {
+        PreviousSizing previousSizing = PreviousSizing.fromNetlist(createPreviousNetlist());
+        /* c4 now reads w2: c4 changed, and c3 (driving w3) lost its reader */
+        Netlist edited = createNetlist(editedCells("c4", "ASG_INV_1 c4 (.A(w2), .Y(w4));"), "w8");
+        assertEquals(Arrays.asList("c3", "c4"), runEcoAndGetRegion(edited, previousSizing, 0));
+
+        edited = createNetlist(editedCells("c4", "ASG_INV_1 c4 (.A(w2), .Y(w4));"), "w8");
+        assertEquals(Arrays.asList("c2", "c3", "c4", "c5"), runEcoAndGetRegion(edited, previousSizing, 1));
+    }
+
+    @Test
+    public void testDeletedReaderSeedsItsDriver() {
+        PreviousSizing previousSizing = PreviousSizing.fromNetlist(createPreviousNetlist());
+        Netlist edited = createNetlist(editedCells("s0", ""), "w2");
+        assertEquals(Arrays.asList("c1"), runEcoAndGetRegion(edited, previousSizing, 0));
+
+        edited = createNetlist(editedCells("s0", ""), "w2");
+        assertEquals(Arrays.asList("c0", "c1", "c2"), runEcoAndGetRegion(edited, previousSizing, 1));
+    }
+
+    @Test
+    public void testNewInstanceIsOptimized() {
+        PreviousSizing previousSizing = PreviousSizing.fromNetlist(createPreviousNetlist());
+        List<String> cells = new ArrayList<>(previousCells);
+        cells.add("ASG_INV_1 n0 (.A(w8), .Y(w9));");
+        Netlist edited = createNetlist(cells, "w9");
+        assertEquals(Arrays.asList("n0"), runEcoAndGetRegion(edited, previousSizing, 0));
+
+        edited = createNetlist(cells, "w9");
+        assertEquals(Arrays.asList("c1", "n0", "s0"), runEcoAndGetRegion(edited, previousSizing, 2));
+    }
+
+    @Test
+    public void testSizeAssignmentMatchesByNameOnly() {
+        PreviousSizing previousSizing = PreviousSizing.fromSizeAssignment(SizeAssignment.fromNetlist(createPreviousNetlist()));
+        assertFalse(previousSizing.hasSignatures());
+        /* the rewired c4 keeps its size, the new n0 and c3, now a NAND2 without a _2 size of INV, are optimized */
+        List<String> cells = editedCells("c4", "ASG_INV_1 c4 (.A(w2), .Y(w4));",
+                                         "c3", "ASG_NAND2_1 c3 (.A(w2), .B(in1), .Y(w3));");
+        cells.add("ASG_INV_1 n0 (.A(w8), .Y(w9));");
+        Netlist edited = createNetlist(cells, "w9");
+        assertEquals(Arrays.asList("c3", "n0"), runEcoAndGetRegion(edited, previousSizing, 0));
+    }
+}
@@ -0,0 +1,61 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class BatchEstimatorTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static void assertMatchesEstimators(BatchEstimator batchEstimator, Netlist netlist) {
+        DelayEstimator delayEstimator = new DelayEstimator(netlist, false, false);
+        double delaySum = 0.0;
+        for (CellInstance c : netlist.getRootModule().getCellInstances()) {
+            delaySum += delayEstimator.estimateCellInstance(c);
+        }
+        double energySum = new EnergyEstimator(netlist, false).run();
+        for (int chunkCount : new int[] {1, 3, 8}) {
+            batchEstimator.run(chunkCount);
+            assertEquals(delaySum, batchEstimator.getDelay(), 1e-9 * delaySum);
+            assertEquals(energySum, batchEstimator.getEnergy(), 1e-9 * energySum);
+        }
+        batchEstimator.run(true);
+        assertEquals(delaySum, batchEstimator.getDelay(), 1e-9 * delaySum);
+        assertEquals(energySum, batchEstimator.getEnergy(), 1e-9 * energySum);
+    }
+
+    @Test
+    public void testAgreesWithEstimators() {
+        Netlist netlist = testHelper.createAnnotatedNetlist(300, 8);
+        List<CellInstance> cells = netlist.getRootModule().getCellInstances();
+        BatchEstimator batchEstimator = new BatchEstimator(netlist);
+        assertMatchesEstimators(batchEstimator, netlist);
+
+        /* resized in the netlist, then read into the snapshot */
+        Random random = new Random(3);
+        for (CellInstance c : cells) {
+            c.selectRandomSize();
+        }
+        batchEstimator.readSizes();
+        assertMatchesEstimators(batchEstimator, netlist);
+
+        /* resized in the snapshot, then selected in the netlist */
+        for (int step = 0; step < 100; step++) {
+            int i = random.nextInt(batchEstimator.getCellCount());
+            batchEstimator.setSizeIndex(i, random.nextInt(batchEstimator.getSizeCount(i)));
+        }
+        batchEstimator.writeBackSizes();
+        for (int i = 0; i < cells.size(); i++) {
+            assertSame(cells.get(i).getDefinition().getRawSizes().get(batchEstimator.getSizeIndex(i)),
+                       cells.get(i).getSelectedSize());
+        }
+        assertMatchesEstimators(batchEstimator, netlist);
+    }
+}
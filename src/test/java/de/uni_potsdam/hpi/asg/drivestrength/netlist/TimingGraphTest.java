@@ -0,0 +1,57 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class TimingGraphTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static void assertSameTiming(TimingGraph incremental, TimingGraph fresh, List<CellInstance> cells) {
+        assertEquals(fresh.getWorstDelay(), incremental.getWorstDelay(), 1e-9);
+        for (CellInstance c : cells) {
+            assertEquals(fresh.getArrivalTime(c), incremental.getArrivalTime(c), 1e-9);
+            assertEquals(fresh.getSlack(c), incremental.getSlack(c), 1e-9);
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchFreshAnalysis() {
+        Netlist netlist = testHelper.createAnnotatedNetlist(150, 6);
+        List<CellInstance> cells = netlist.getRootModule().getCellInstances();
+        TimingGraph incremental = new TimingGraph(netlist);
+        assertTrue(incremental.getWorstDelay() > 0.0);
+        Random random = new Random(11);
+        for (int step = 0; step < 200; step++) {
+            /* sometimes several cells change between two queries */
+            int resizeCount = 1 + random.nextInt(step % 10 == 0 ? 5 : 1);
+            for (int r = 0; r < resizeCount; r++) {
+                CellInstance c = cells.get(random.nextInt(cells.size()));
+                List<Cell> sizes = c.getDefinition().getRawSizes();
+                c.selectSize(sizes.get(random.nextInt(sizes.size())));
+                incremental.cellResized(c);
+            }
+            assertSameTiming(incremental, new TimingGraph(netlist), cells);
+        }
+    }
+
+    @Test
+    public void testWorstPathEndHasZeroSlack() {
+        Netlist netlist = testHelper.createAnnotatedNetlist(80, 2);
+        TimingGraph timingGraph = new TimingGraph(netlist);
+        CellInstance worstPathEnd = timingGraph.getWorstPathEnd();
+        assertEquals(timingGraph.getWorstDelay(), timingGraph.getArrivalTime(worstPathEnd), 1e-9);
+        assertEquals(0.0, timingGraph.getSlack(worstPathEnd), 1e-9);
+        for (CellInstance c : netlist.getRootModule().getCellInstances()) {
+            assertTrue(timingGraph.getSlack(c) >= -1e-9);
+        }
+    }
+}
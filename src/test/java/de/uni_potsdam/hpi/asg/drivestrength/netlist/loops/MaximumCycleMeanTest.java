@@ -0,0 +1,45 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist.loops;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MaximumCycleMeanTest {
+
+    @Test
+    public void testSelfLoop() {
+        MaximumCycleMean mcm = new MaximumCycleMean(new int[][] {{0}}, new double[][] {{7.0}});
+        assertEquals(7.0, mcm.getMaximumMean(), 1e-9);
+        assertEquals(1, mcm.getCriticalCycle().length);
+    }
+
+    @Test
+    public void testCycleWithKnownMean() {
+        /* cycle 0 -> 1 -> 2 -> 0 with mean (1 + 2 + 6) / 3 = 3, cycle 0 -> 3 -> 0 with mean
+         * (4 + 1) / 2 = 2.5, self loop at 1 with mean 2.9 */
+        int[][] targets = {{1, 3}, {2, 1}, {0}, {0}};
+        double[][] weights = {{1.0, 4.0}, {2.0, 2.9}, {6.0}, {1.0}};
+        MaximumCycleMean mcm = new MaximumCycleMean(targets, weights);
+        assertEquals(3.0, mcm.getMaximumMean(), 1e-9);
+        assertEquals(3, mcm.getCriticalCycle().length);
+        assertEquals(9.0, mcm.getCriticalCycleWeight(), 1e-9);
+        int[] cycle = mcm.getCriticalCycle();
+        for (int p = 0; p < cycle.length; p++) {
+            assertEquals((cycle[p] + 1) % 3, cycle[(p + 1) % cycle.length]);
+        }
+    }
+
+    @Test
+    public void testLongRing() {
+        int nodeCount = 100000;
+        int[][] targets = new int[nodeCount][];
+        double[][] weights = new double[nodeCount][];
+        for (int v = 0; v < nodeCount; v++) {
+            targets[v] = new int[] {(v + 1) % nodeCount};
+            weights[v] = new double[] {v % 2 == 0 ? 1.0 : 3.0};
+        }
+        MaximumCycleMean mcm = new MaximumCycleMean(targets, weights);
+        assertEquals(2.0, mcm.getMaximumMean(), 1e-9);
+        assertEquals(nodeCount, mcm.getCriticalCycle().length);
+    }
+}
@@ -0,0 +1,58 @@
+package de.uni_potsdam.hpi.asg.drivestrength.netlist.loops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StronglyConnectedComponentsTest {
+
+    @Test
+    public void testSelfLoop() {
+        int[][] successors = {{0}, {}};
+        StronglyConnectedComponents scc = new StronglyConnectedComponents(successors);
+        assertEquals(2, scc.getComponentCount());
+        assertTrue(scc.isLoop(scc.getComponentOf(0)));
+        assertFalse(scc.isLoop(scc.getComponentOf(1)));
+    }
+
+    @Test
+    public void testTwoComponentsJoinedByDagEdge() {
+        /* loop 0 -> 1 -> 2 -> 0, edge 2 -> 3, loop 3 -> 4 -> 3 */
+        int[][] successors = {{1}, {2}, {0, 3}, {4}, {3}};
+        StronglyConnectedComponents scc = new StronglyConnectedComponents(successors);
+        assertEquals(2, scc.getComponentCount());
+        int upstream = scc.getComponentOf(0);
+        int downstream = scc.getComponentOf(3);
+        assertArrayEquals(new int[] {0, 1, 2}, scc.getComponent(upstream));
+        assertArrayEquals(new int[] {3, 4}, scc.getComponent(downstream));
+        assertTrue(scc.isLoop(upstream));
+        assertTrue(scc.isLoop(downstream));
+        /* reverse topological numbering: edges go to lower component numbers */
+        assertTrue(downstream < upstream);
+        assertEquals(0, scc.getLevel(upstream));
+        assertEquals(1, scc.getLevel(downstream));
+        assertEquals(2, scc.getLevelCount());
+    }
+
+    @Test
+    public void testLongChainDoesNotOverflowTheStack() {
+        int nodeCount = 1000000;
+        int[][] successors = new int[nodeCount][];
+        for (int v = 0; v < nodeCount - 1; v++) {
+            successors[v] = new int[] {v + 1};
+        }
+        successors[nodeCount - 1] = new int[] {};
+        StronglyConnectedComponents chain = new StronglyConnectedComponents(successors);
+        assertEquals(nodeCount, chain.getComponentCount());
+        assertEquals(nodeCount, chain.getLevelCount());
+
+        successors[nodeCount - 1] = new int[] {0};
+        StronglyConnectedComponents ring = new StronglyConnectedComponents(successors);
+        assertEquals(1, ring.getComponentCount());
+        assertEquals(nodeCount, ring.getComponent(0).length);
+        assertTrue(ring.isLoop(0));
+    }
+}
@@ -0,0 +1,21 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class EnergyWeightSweepTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    @Test(expected = Error.class)
+    public void testPercentageAbove100IsRejected() {
+        new EnergyWeightSweep(testHelper.createAnnotatedNetlist(10, 1), Arrays.asList(0, 50, 101), 10, 0.012, 0.007);
+    }
+
+    @Test(expected = Error.class)
+    public void testNegativePercentageIsRejected() {
+        new EnergyWeightSweep(testHelper.createAnnotatedNetlist(10, 1), Arrays.asList(-1, 50), 10, 0.012, 0.007);
+    }
+}
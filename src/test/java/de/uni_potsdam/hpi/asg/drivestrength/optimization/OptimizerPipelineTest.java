@@ -0,0 +1,63 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class OptimizerPipelineTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static List<Cell> selectedSizes(Netlist netlist) {
+        List<Cell> sizes = new ArrayList<>();
+        for (CellInstance c : netlist.getRootModule().getCellInstances()) {
+            sizes.add(c.getSelectedSize());
+        }
+        return sizes;
+    }
+
+    /* like a previous SA stage: selects sizes without touching the theoretical capacitances */
+    private static void selectLargestSizes(Netlist netlist) {
+        for (CellInstance c : netlist.getRootModule().getCellInstances()) {
+            List<Cell> sizes = c.getDefinition().getRawSizes();
+            c.selectSize(sizes.get(sizes.size() - 1));
+        }
+    }
+
+    /* stopped before its first update, ESE selects the sizes its capacitances start from */
+    private static List<Cell> sizesOfStoppedStageEffortOptimizer(boolean warmStart) {
+        Netlist netlist = testHelper.createAnnotatedNetlist(40, 2);
+        selectLargestSizes(netlist);
+        AbstractDriveOptimizer optimizer = new OptimizerFactory(0, 0, false, "GS").create("ESE", netlist, warmStart);
+        optimizer.requestStop();
+        optimizer.run();
+        return selectedSizes(netlist);
+    }
+
+    @Test
+    public void testWarmStartedStageEffortStartsFromSelectedSizes() {
+        Netlist largest = testHelper.createAnnotatedNetlist(40, 2);
+        selectLargestSizes(largest);
+        assertEquals(selectedSizes(largest), sizesOfStoppedStageEffortOptimizer(true));
+        assertNotEquals(selectedSizes(largest), sizesOfStoppedStageEffortOptimizer(false));
+    }
+
+    @Test(expected = Error.class)
+    public void testSizeIgnoringLaterStageIsRejected() {
+        new OptimizerFactory(0, 0, false, "GS").create("SA,FO", testHelper.createAnnotatedNetlist(10, 1));
+    }
+
+    @Test
+    public void testSizeIgnoringFirstStageIsAccepted() {
+        Netlist netlist = testHelper.createAnnotatedNetlist(20, 1);
+        new OptimizerFactory(0, 0, false, "GS").create("FO,GS", netlist).run();
+    }
+}
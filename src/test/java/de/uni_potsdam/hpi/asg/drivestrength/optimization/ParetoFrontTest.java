@@ -0,0 +1,36 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ParetoFrontTest {
+
+    @Test
+    public void testDominatedPointsAreRejected() {
+        ParetoFront<String> front = new ParetoFront<>();
+        assertTrue(front.add(2.0, 20.0, "a"));
+        assertFalse(front.add(3.0, 25.0, "b"));
+        assertFalse(front.add(2.0, 20.0, "c"));
+        assertTrue(front.isDominated(2.5, 20.0));
+        assertFalse(front.isDominated(1.5, 30.0));
+        assertEquals(1, front.size());
+    }
+
+    @Test
+    public void testNewPointRemovesDominatedPoints() {
+        ParetoFront<String> front = new ParetoFront<>();
+        front.add(1.0, 30.0, "a");
+        front.add(2.0, 20.0, "b");
+        front.add(3.0, 10.0, "c");
+        assertTrue(front.add(1.5, 15.0, "d"));
+
+        assertEquals(3, front.size());
+        assertEquals("a", front.getPayload(0));
+        assertEquals("d", front.getPayload(1));
+        assertEquals("c", front.getPayload(2));
+        assertEquals(10.0, front.getDelay(2), 0.0);
+    }
+}
@@ -0,0 +1,81 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.checkpoint.Checkpoint;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.sizeassignment.SizeAssignment;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class SimulatedAnnealingCheckpointTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static final int cellCount = 200;
+    private static final int roundsPerCell = 20;
+    private static final int checkpointIteration = 1500;
+
+    /* writes a checkpoint at the given iteration and stops there (never for -1). Checkpoints
+     * name the optimizer class, so all runs of a test use this one */
+    private static class InterruptibleOptimizer extends SimulatedAnnealingOptimizer {
+        private File checkpointFile;
+        private int iterationsLeft;
+
+        InterruptibleOptimizer(Netlist netlist, SACalibration calibration, File checkpointFile, int checkpointIteration) {
+            super(netlist, false, roundsPerCell, 25, calibration, false);
+            this.checkpointFile = checkpointFile;
+            this.iterationsLeft = checkpointIteration;
+        }
+
+        @Override
+        protected void checkpointIfDue() {
+            if (this.iterationsLeft-- == 0) {
+                this.createCheckpoint().write(this.checkpointFile);
+                this.requestStop();
+            }
+        }
+    }
+
+    private SimulatedAnnealingOptimizer configure(SimulatedAnnealingOptimizer optimizer, boolean extended) {
+        optimizer.setRandomSeed(42);
+        optimizer.setCriticalityBiasedMoves(extended);
+        optimizer.setAdaptiveCooling(extended);
+        return optimizer;
+    }
+
+    private void assertResumedRunMatchesUninterrupted(boolean extended) {
+        Netlist uninterruptedNetlist = testHelper.createAnnotatedNetlist(cellCount, 3);
+        SACalibration calibration = new SimulatedAnnealingOptimizer(uninterruptedNetlist, false, roundsPerCell, 25).getCalibration();
+        this.configure(new InterruptibleOptimizer(uninterruptedNetlist, calibration, null, -1), extended).run();
+
+        File checkpointFile = testHelper.createTempFile(".ckpt");
+        Netlist interruptedNetlist = testHelper.createAnnotatedNetlist(cellCount, 3);
+        this.configure(new InterruptibleOptimizer(interruptedNetlist, calibration, checkpointFile, checkpointIteration), extended).run();
+        assertTrue(checkpointFile.length() > 0);
+
+        Netlist resumedNetlist = testHelper.createAnnotatedNetlist(cellCount, 3);
+        SimulatedAnnealingOptimizer resumed = this.configure(new InterruptibleOptimizer(resumedNetlist, calibration, null, -1), extended);
+        resumed.resumeFrom(Checkpoint.read(checkpointFile));
+        resumed.run();
+
+        SizeAssignment expected = SizeAssignment.fromNetlist(uninterruptedNetlist);
+        for (CellInstance c : resumedNetlist.getRootModule().getCellInstances()) {
+            assertEquals(c.getName(), expected.getSizeName(c.getName()), c.getSelectedSize().getName());
+        }
+    }
+
+    @Test
+    public void testResumedRunMatchesUninterruptedRun() {
+        this.assertResumedRunMatchesUninterrupted(false);
+    }
+
+    @Test
+    public void testResumedRunMatchesUninterruptedRunWithAdaptiveCoolingAndCriticalMoves() {
+        this.assertResumedRunMatchesUninterrupted(true);
+    }
+}
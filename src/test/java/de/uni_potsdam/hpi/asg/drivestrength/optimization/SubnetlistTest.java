@@ -0,0 +1,102 @@
+package de.uni_potsdam.hpi.asg.drivestrength.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.Load;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class SubnetlistTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static Cell otherSize(CellInstance c) {
+        for (Cell size : c.getDefinition().getRawSizes()) {
+            if (size != c.getSelectedSize()) {
+                return size;
+            }
+        }
+        throw new Error("Cell " + c.getName() + " has only one size");
+    }
+
+    @Test
+    public void testBoundaryLoadsAreFrozen() {
+        Netlist netlist = testHelper.createAnnotatedNetlist(60, 4);
+        List<CellInstance> cells = netlist.getRootModule().getCellInstances();
+        List<Integer> region = new ArrayList<>();
+        for (int i = 0; i < cells.size() / 2; i++) {
+            region.add(i);
+        }
+        Subnetlist subnetlist = new Subnetlist(netlist, region, "_sub");
+        List<CellInstance> copies = subnetlist.getNetlist().getRootModule().getCellInstances();
+        assertEquals(region.size(), copies.size());
+
+        CellInstance boundarySource = null;
+        CellInstance outsideSink = null;
+        for (int i : region) {
+            CellInstance source = cells.get(i);
+            CellInstance copy = copies.get(i);
+            assertEquals(source.getLoadCapacitanceSelected(), copy.getLoadCapacitanceSelected(), 1e-12);
+            assertEquals(source.getLoads().size(), copy.getLoads().size());
+            for (Load l : copy.getLoads()) {
+                assertTrue(l.isStaticLoad() || copies.contains(l.getCellInstance()));
+            }
+            for (CellInstance predecessor : copy.getPredecessors()) {
+                assertTrue(copies.contains(predecessor));
+            }
+            for (Load l : source.getLoads()) {
+                if (!l.isStaticLoad() && cells.indexOf(l.getCellInstance()) >= region.size()) {
+                    boundarySource = source;
+                    outsideSink = l.getCellInstance();
+                }
+            }
+        }
+        assertNotNull(outsideSink);
+        CellInstance boundaryCopy = copies.get(cells.indexOf(boundarySource));
+
+        /* resizing a cell outside changes the source's load, not the frozen copy's */
+        double frozenLoad = boundaryCopy.getLoadCapacitanceSelected();
+        outsideSink.selectSize(otherSize(outsideSink));
+        assertNotEquals(frozenLoad, boundarySource.getLoadCapacitanceSelected());
+        assertEquals(frozenLoad, boundaryCopy.getLoadCapacitanceSelected(), 1e-12);
+        subnetlist.freezeBoundary();
+        assertEquals(boundarySource.getLoadCapacitanceSelected(), boundaryCopy.getLoadCapacitanceSelected(), 1e-12);
+    }
+
+    @Test
+    public void testSizesAreWrittenBack() {
+        Netlist netlist = testHelper.createAnnotatedNetlist(40, 5);
+        List<CellInstance> cells = netlist.getRootModule().getCellInstances();
+        List<Integer> region = new ArrayList<>();
+        for (int i = 10; i < 20; i++) {
+            region.add(i);
+        }
+        Subnetlist subnetlist = new Subnetlist(netlist, region, "_sub");
+        List<CellInstance> copies = subnetlist.getNetlist().getRootModule().getCellInstances();
+        List<Cell> outsideSizes = new ArrayList<>();
+        for (CellInstance c : cells) {
+            outsideSizes.add(c.getSelectedSize());
+        }
+        for (CellInstance copy : copies) {
+            copy.selectSize(otherSize(copy));
+        }
+        subnetlist.writeBackSizes();
+        for (int i = 0; i < cells.size(); i++) {
+            if (region.contains(i)) {
+                assertSame(copies.get(i - 10).getSelectedSize(), cells.get(i).getSelectedSize());
+            } else {
+                assertSame(outsideSizes.get(i), cells.get(i).getSelectedSize());
+            }
+        }
+    }
+}
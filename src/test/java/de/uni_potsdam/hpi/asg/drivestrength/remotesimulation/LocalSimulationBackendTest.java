@@ -0,0 +1,40 @@
+package de.uni_potsdam.hpi.asg.drivestrength.remotesimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+public class LocalSimulationBackendTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    @Test
+    public void testScriptsRunInTheJobDirectoryAfterTheSetup() {
+        File setupScript = testHelper.createTempFile(".sh");
+        FileHelper.writeStringToTextFile("selectLibrary() { echo \"$1\" > library.txt; }\n", setupScript);
+        File jobDirectory = testHelper.createTempFile(".job");
+        jobDirectory.delete();
+        jobDirectory.mkdirs();
+        FileHelper.writeStringToTextFile("selectLibrary _orig\necho done > result.txt\n", new File(jobDirectory, "job.sh"));
+
+        LocalSimulationBackend backend = new LocalSimulationBackend(setupScript, 1);
+        assertTrue(backend.run("job", jobDirectory, new HashSet<>(), Arrays.asList("job.sh")));
+        assertEquals("_orig", FileHelper.readTextFileToString(new File(jobDirectory, "library.txt")).trim());
+        assertEquals("done", FileHelper.readTextFileToString(new File(jobDirectory, "result.txt")).trim());
+        assertTrue(backend.getDescription().contains(setupScript.getAbsolutePath()));
+    }
+
+    @Test(expected = Error.class)
+    public void testMissingSetupScriptIsRejected() {
+        File setupScript = testHelper.createTempFile(".sh");
+        setupScript.delete();
+        new LocalSimulationBackend(setupScript, 1);
+    }
+}
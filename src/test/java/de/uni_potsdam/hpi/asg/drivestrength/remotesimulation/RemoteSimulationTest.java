@@ -0,0 +1,54 @@
+package de.uni_potsdam.hpi.asg.drivestrength.remotesimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class RemoteSimulationTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static RemoteSimulationResult simulate(Netlist netlist, double outputPinCapacitance) {
+        RemoteSimulation simulation = new RemoteSimulation(netlist, new StandInSimulationBackend(), outputPinCapacitance, false, false);
+        simulation.run();
+        return simulation.getResult();
+    }
+
+    @Test
+    public void testStandInResultIsParsed() {
+        RemoteSimulationResult result = simulate(testHelper.createAnnotatedNetlist(30, 3), 0.012);
+        int origDelaySum = result.getSdfDelaySum("_orig");
+        int nowireDelaySum = result.getSdfDelaySum("_noslew_nowire");
+        assertTrue(origDelaySum > 0);
+        assertTrue(nowireDelaySum > 0 && nowireDelaySum < origDelaySum);
+        /* the stand-in's testbench takes 1000 ps plus the SDF delay sum */
+        assertEquals(1000 + origDelaySum, result.getTestbenchSuccessTime("_orig"));
+        assertEquals(1000 + nowireDelaySum, result.getTestbenchSuccessTime("_noslew_nowire"));
+        assertTrue(result.getTestbenchEnergy() > 0.0);
+    }
+
+    @Test
+    public void testStandInIsDeterministic() {
+        RemoteSimulationResult first = simulate(testHelper.createAnnotatedNetlist(30, 3), 0.012);
+        RemoteSimulationResult second = simulate(testHelper.createAnnotatedNetlist(30, 3), 0.012);
+        assertEquals(first.getSdfDelaySums(), second.getSdfDelaySums());
+        assertEquals(first.getTestbenchSuccessTimes(), second.getTestbenchSuccessTimes());
+        assertEquals(first.getTestbenchEnergy(), second.getTestbenchEnergy(), 0.0);
+
+        RemoteSimulationResult otherLoad = simulate(testHelper.createAnnotatedNetlist(30, 3), 0.1);
+        assertNotEquals(first.getSdfDelaySums(), otherLoad.getSdfDelaySums());
+
+        Netlist resized = testHelper.createAnnotatedNetlist(30, 3);
+        for (CellInstance c : resized.getRootModule().getCellInstances()) {
+            Cell largest = c.getDefinition().getRawSizes().get(c.getDefinition().getRawSizes().size() - 1);
+            c.selectSize(largest);
+        }
+        assertNotEquals(first.getSdfDelaySums(), simulate(resized, 0.012).getSdfDelaySums());
+    }
+}
@@ -0,0 +1,100 @@
+package de.uni_potsdam.hpi.asg.drivestrength.remotesimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class SimulationQueueTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    /* the stand-in, slowed down and recording how many jobs run at the same time */
+    private static class ObservedBackend implements SimulationBackend {
+        private StandInSimulationBackend standIn = new StandInSimulationBackend();
+        private AtomicInteger running = new AtomicInteger();
+        private AtomicInteger maxRunning = new AtomicInteger();
+        private AtomicInteger runCount = new AtomicInteger();
+        private boolean failing;
+
+        private ObservedBackend(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public boolean run(String jobName, File jobDirectory, Set<String> inputFiles, List<String> scripts) {
+            this.runCount.incrementAndGet();
+            int nowRunning = this.running.incrementAndGet();
+            this.maxRunning.accumulateAndGet(nowRunning, Math::max);
+            try {
+                Thread.sleep(100);
+                return !this.failing && this.standIn.run(jobName, jobDirectory, inputFiles, scripts);
+            } catch (InterruptedException e) {
+                throw new Error(e);
+            } finally {
+                this.running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "observed stand-in";
+        }
+    }
+
+    @Test
+    public void testConcurrencyIsLimited() throws Exception {
+        ObservedBackend backend = new ObservedBackend(false);
+        SimulationQueue queue = new SimulationQueue(backend, 2, null);
+        List<CompletableFuture<RemoteSimulationResult>> results = new ArrayList<>();
+        for (int seed = 1; seed <= 6; seed++) {
+            results.add(queue.submit(testHelper.createAnnotatedNetlist(20, seed), 0.012));
+        }
+        for (CompletableFuture<RemoteSimulationResult> result : results) {
+            assertTrue(result.get().getSdfDelaySum("_orig") > 0);
+        }
+        queue.close();
+        assertEquals(6, backend.runCount.get());
+        assertTrue(backend.maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testIdenticalNetlistsShareOneSimulation() throws Exception {
+        ObservedBackend backend = new ObservedBackend(false);
+        SimulationQueue queue = new SimulationQueue(backend, 2, null);
+        Netlist netlist = testHelper.createAnnotatedNetlist(20, 1);
+        CompletableFuture<RemoteSimulationResult> first = queue.submit(netlist, 0.012);
+        CompletableFuture<RemoteSimulationResult> second = queue.submit(testHelper.createAnnotatedNetlist(20, 1), 0.012);
+        assertSame(first, second);
+        CompletableFuture<RemoteSimulationResult> otherLoad = queue.submit(netlist, 0.003);
+        otherLoad.get();
+        first.get();
+        queue.close();
+        assertEquals(2, backend.runCount.get());
+    }
+
+    @Test
+    public void testBackendFailureReachesTheFuture() throws Exception {
+        SimulationQueue queue = new SimulationQueue(new ObservedBackend(true), 1, null);
+        CompletableFuture<RemoteSimulationResult> result = queue.submit(testHelper.createAnnotatedNetlist(20, 1), 0.012);
+        try {
+            result.get();
+            fail("A failed simulation must not deliver a result");
+        } catch (ExecutionException e) {
+            assertEquals("Remote Simulation failed", e.getCause().getMessage());
+        }
+        queue.close();
+    }
+}
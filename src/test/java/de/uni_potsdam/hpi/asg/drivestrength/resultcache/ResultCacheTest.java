@@ -0,0 +1,146 @@
+package de.uni_potsdam.hpi.asg.drivestrength.resultcache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticCircuitConfig;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticNetlistWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+public class ResultCacheTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    private static File createCacheDirectory() {
+        File directory = testHelper.createTempFile(".cache");
+        directory.delete();
+        directory.mkdirs();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    /* with submodules, so the inlined cells have avatars */
+    private static Netlist createHierarchicalNetlist() {
+        SyntheticCircuitConfig config = new SyntheticCircuitConfig();
+        config.setName("testCircuit");
+        config.setCellCount(40);
+        config.setSeed(9);
+        config.setHierarchy(1, 2);
+        File netlistFile = testHelper.createTempFile(".v");
+        new SyntheticNetlistWriter(config).write(netlistFile);
+        return testHelper.createAnnotatedNetlist(netlistFile);
+    }
+
+    private static void selectLargestSizes(Netlist netlist) {
+        for (CellInstance c : netlist.getRootModule().getCellInstances()) {
+            List<Cell> sizes = c.getDefinition().getRawSizes();
+            c.selectSize(sizes.get(sizes.size() - 1));
+        }
+    }
+
+    private static List<Cell> selectedSizes(Netlist netlist) {
+        List<Cell> sizes = new ArrayList<>();
+        for (CellInstance c : netlist.getRootModule().getCellInstances()) {
+            sizes.add(c.getSelectedSize());
+        }
+        return sizes;
+    }
+
+    private static String key(File libertyFile, String optimizer, int energyPercentage, Netlist netlist) {
+        return new ResultCacheKey()
+                .add("netlist", netlist.toVerilog())
+                .addFileContents("lib", libertyFile)
+                .add("optimizer", optimizer)
+                .add("optimizeEnergyPercentage", energyPercentage)
+                .toHex();
+    }
+
+    @Test
+    public void testKeyDependsOnLibraryOptionsAndNetlist() {
+        File libertyFile = testHelper.createTempFile(".lib");
+        FileHelper.writeStringToTextFile("library (a) { }\n", libertyFile);
+        Netlist netlist = testHelper.createAnnotatedNetlist(30, 3);
+        String key = key(libertyFile, "SA", 0, netlist);
+        assertEquals(key, key(libertyFile, "SA", 0, testHelper.createAnnotatedNetlist(30, 3)));
+
+        assertNotEquals(key, key(libertyFile, "GS", 0, netlist));
+        assertNotEquals(key, key(libertyFile, "SA", 50, netlist));
+        assertNotEquals(key, key(libertyFile, "SA", 0, testHelper.createAnnotatedNetlist(30, 4)));
+        /* the same library path with other contents */
+        FileHelper.writeStringToTextFile("library (b) { }\n", libertyFile);
+        assertNotEquals(key, key(libertyFile, "SA", 0, netlist));
+
+        /* names and values are delimited */
+        assertNotEquals(new ResultCacheKey().add("ab", "c").toHex(), new ResultCacheKey().add("a", "bc").toHex());
+    }
+
+    @Test
+    public void testHitSelectsSizesInInlinedNetlistAndAvatars() {
+        ResultCache cache = new ResultCache(createCacheDirectory(), 1024 * 1024);
+        Netlist optimized = createHierarchicalNetlist();
+        selectLargestSizes(optimized);
+        assertFalse(cache.applyIfCached("circuit", optimized));
+        cache.store("circuit", optimized);
+
+        Netlist fresh = createHierarchicalNetlist();
+        assertNotEquals(selectedSizes(optimized), selectedSizes(fresh));
+        assertTrue(cache.applyIfCached("circuit", fresh));
+        assertEquals(selectedSizes(optimized), selectedSizes(fresh));
+        int avatarCount = 0;
+        for (CellInstance c : fresh.getRootModule().getCellInstances()) {
+            if (c.getAvatarOrSelf() != c) {
+                avatarCount++;
+            }
+            assertSame(c.getSelectedSize(), c.getAvatarOrSelf().getSelectedSize());
+        }
+        assertTrue(avatarCount > 0);
+    }
+
+    @Test
+    public void testUnreadableEntryIsAMiss() {
+        File directory = createCacheDirectory();
+        ResultCache cache = new ResultCache(directory, 1024 * 1024);
+        Netlist netlist = testHelper.createAnnotatedNetlist(30, 3);
+        List<Cell> sizesBefore = selectedSizes(netlist);
+
+        FileHelper.writeStringToTextFile("{\"sizes\": [", new File(directory, "broken.json"));
+        assertFalse(cache.applyIfCached("broken", netlist));
+        /* an entry of another netlist does not match */
+        cache.store("other", testHelper.createAnnotatedNetlist(30, 4));
+        assertFalse(cache.applyIfCached("other", netlist));
+        assertEquals(sizesBefore, selectedSizes(netlist));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        File directory = createCacheDirectory();
+        Netlist netlist = testHelper.createAnnotatedNetlist(30, 3);
+        new ResultCache(directory, 1024 * 1024).store("entryA", netlist);
+        long entryBytes = new File(directory, "entryA.json").length();
+
+        ResultCache cache = new ResultCache(directory, 2 * entryBytes + entryBytes / 2);
+        cache.store("entryB", netlist);
+        long now = System.currentTimeMillis();
+        new File(directory, "entryA.json").setLastModified(now - 3000000);
+        new File(directory, "entryB.json").setLastModified(now - 2000000);
+        /* the hit on A makes B the least recently used */
+        assertTrue(cache.applyIfCached("entryA", netlist));
+
+        cache.store("entryC", netlist);
+        assertTrue(cache.applyIfCached("entryA", netlist));
+        assertFalse(cache.applyIfCached("entryB", netlist));
+        assertTrue(cache.applyIfCached("entryC", netlist));
+    }
+}
@@ -0,0 +1,154 @@
+package de.uni_potsdam.hpi.asg.drivestrength.resultcache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.RemoteSimulation;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.RemoteSimulationResult;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.SimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.remotesimulation.StandInSimulationBackend;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+import de.uni_potsdam.hpi.asg.drivestrength.util.FileHelper;
+
+public class SimulationResultCacheTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    /* the stand-in, counting its jobs; failing empties the testbench output like a tool failure */
+    private static class CountingBackend implements SimulationBackend {
+        private StandInSimulationBackend standIn = new StandInSimulationBackend();
+        private AtomicInteger runCount = new AtomicInteger();
+        private String description;
+        private boolean failing;
+
+        private CountingBackend(String description, boolean failing) {
+            this.description = description;
+            this.failing = failing;
+        }
+
+        @Override
+        public boolean run(String jobName, File jobDirectory, Set<String> inputFiles, List<String> scripts) {
+            this.runCount.incrementAndGet();
+            boolean success = this.standIn.run(jobName, jobDirectory, inputFiles, scripts);
+            if (this.failing) {
+                FileHelper.writeStringToTextFile("", new File(jobDirectory, "output_tb_orig.txt"));
+            }
+            return success;
+        }
+
+        @Override
+        public String getDescription() {
+            return this.description;
+        }
+    }
+
+    private static File createCacheDirectory() {
+        File directory = testHelper.createTempFile(".cache");
+        directory.delete();
+        directory.mkdirs();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static RemoteSimulation simulation(Netlist netlist, SimulationBackend backend, double outputPinCapacitance,
+                                               SimulationResultCache cache) {
+        RemoteSimulation simulation = new RemoteSimulation(netlist, backend, outputPinCapacitance, false, false);
+        simulation.setResultCache(cache);
+        return simulation;
+    }
+
+    @Test
+    public void testKeyIsStable() {
+        CountingBackend backend = new CountingBackend("stand-in", false);
+        String key = simulation(testHelper.createAnnotatedNetlist(30, 3), backend, 0.012, null).getCacheKey();
+        assertEquals(key, simulation(testHelper.createAnnotatedNetlist(30, 3), backend, 0.012, null).getCacheKey());
+        assertEquals(key, simulation(testHelper.createAnnotatedNetlist(30, 3), new CountingBackend("stand-in", false), 0.012, null).getCacheKey());
+    }
+
+    @Test
+    public void testKeyDependsOnSimulatorOutputCapacitanceAndNetlist() {
+        CountingBackend backend = new CountingBackend("stand-in", false);
+        Netlist netlist = testHelper.createAnnotatedNetlist(30, 3);
+        String key = simulation(netlist, backend, 0.012, null).getCacheKey();
+        assertNotEquals(key, simulation(netlist, new CountingBackend("other simulator", false), 0.012, null).getCacheKey());
+        assertNotEquals(key, simulation(netlist, backend, 0.003, null).getCacheKey());
+        assertNotEquals(key, simulation(testHelper.createAnnotatedNetlist(30, 4), backend, 0.012, null).getCacheKey());
+
+        CellInstance cell = netlist.getRootModule().getCellInstances().get(0);
+        List<Cell> sizes = cell.getDefinition().getRawSizes();
+        cell.selectSize(cell.getSelectedSize() == sizes.get(0) ? sizes.get(1) : sizes.get(0));
+        assertNotEquals(key, simulation(netlist, backend, 0.012, null).getCacheKey());
+    }
+
+    @Test
+    public void testHitSkipsTheBackend() {
+        SimulationResultCache cache = new SimulationResultCache(createCacheDirectory(), 1024 * 1024);
+        CountingBackend backend = new CountingBackend("stand-in", false);
+        RemoteSimulation first = simulation(testHelper.createAnnotatedNetlist(30, 3), backend, 0.012, cache);
+        first.run();
+        assertEquals(1, backend.runCount.get());
+
+        RemoteSimulation second = simulation(testHelper.createAnnotatedNetlist(30, 3), backend, 0.012, cache);
+        second.run();
+        assertEquals(1, backend.runCount.get());
+        RemoteSimulationResult expected = first.getResult();
+        RemoteSimulationResult cached = second.getResult();
+        assertEquals(expected.getSdfDelaySums(), cached.getSdfDelaySums());
+        assertEquals(expected.getTestbenchSuccessTimes(), cached.getTestbenchSuccessTimes());
+        assertEquals(expected.getTestbenchEnergy(), cached.getTestbenchEnergy(), 0.0);
+
+        simulation(testHelper.createAnnotatedNetlist(30, 3), backend, 0.003, cache).run();
+        assertEquals(2, backend.runCount.get());
+    }
+
+    @Test
+    public void testFailedTestbenchIsNotCached() {
+        SimulationResultCache cache = new SimulationResultCache(createCacheDirectory(), 1024 * 1024);
+        CountingBackend failing = new CountingBackend("stand-in", true);
+        RemoteSimulation failed = simulation(testHelper.createAnnotatedNetlist(30, 3), failing, 0.012, cache);
+        failed.run();
+        assertEquals(0, failed.getResult().getTestbenchSuccessTime("_orig"));
+        assertNull(cache.lookup(failed.getCacheKey()));
+
+        CountingBackend working = new CountingBackend("stand-in", false);
+        RemoteSimulation retried = simulation(testHelper.createAnnotatedNetlist(30, 3), working, 0.012, cache);
+        retried.run();
+        assertEquals(1, working.runCount.get());
+        assertTrue(retried.getResult().getTestbenchSuccessTime("_orig") > 0);
+        assertNotNull(cache.lookup(retried.getCacheKey()));
+    }
+
+    @Test
+    public void testEvictionRemovesTheLeastRecentlyUsedEntry() {
+        File directory = createCacheDirectory();
+        String entry = "{\"padding\":\"" + new String(new char[90]).replace('\0', 'x') + "\"}";
+        CacheDirectory cache = new CacheDirectory(directory, 2 * entry.length() + entry.length() / 2, "test cache");
+        long now = System.currentTimeMillis();
+        cache.write("entryA", entry);
+        cache.entryFile("entryA").setLastModified(now - 3000000);
+        cache.write("entryB", entry);
+        cache.entryFile("entryB").setLastModified(now - 2000000);
+        /* reading A makes B the least recently used */
+        assertNotNull(cache.read("entryA"));
+        cache.touch("entryA");
+
+        cache.write("entryC", entry);
+        assertTrue(cache.entryFile("entryA").isFile());
+        assertFalse(cache.entryFile("entryB").isFile());
+        assertTrue(cache.entryFile("entryC").isFile());
+        assertNull(cache.read("entryB"));
+    }
+}
@@ -0,0 +1,61 @@
+package de.uni_potsdam.hpi.asg.drivestrength.sizeassignment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.uni_potsdam.hpi.asg.drivestrength.cells.Cell;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.elements.CellInstance;
+import de.uni_potsdam.hpi.asg.drivestrength.testhelper.TestHelper;
+
+public class SizeAssignmentTest {
+    protected static TestHelper testHelper = new TestHelper();
+
+    @Test
+    public void testBinaryRoundTrip() {
+        this.assertRoundTrip(testHelper.createTempFile(".bin"));
+    }
+
+    @Test
+    public void testTextRoundTrip() {
+        this.assertRoundTrip(testHelper.createTempFile(".txt"));
+    }
+
+    private void assertRoundTrip(File file) {
+        Netlist netlist = testHelper.createAnnotatedNetlist(100, 7);
+        List<CellInstance> cells = netlist.getRootModule().getCellInstances();
+        for (int i = 0; i < cells.size(); i++) {
+            List<Cell> sizes = cells.get(i).getDefinition().getRawSizes();
+            cells.get(i).selectSize(sizes.get((3 * i + 1) % sizes.size()));
+        }
+        SizeAssignment.fromNetlist(netlist).write(file);
+
+        SizeAssignment read = SizeAssignment.read(file);
+        assertEquals(cells.size(), read.size());
+        Netlist restored = testHelper.createAnnotatedNetlist(100, 7);
+        assertEquals(cells.size(), read.applyTo(restored));
+        List<CellInstance> restoredCells = restored.getRootModule().getCellInstances();
+        for (int i = 0; i < cells.size(); i++) {
+            assertEquals(cells.get(i).getName(), restoredCells.get(i).getName());
+            assertSame(restoredCells.get(i).getDefinition().getSizeByName(cells.get(i).getSelectedSize().getName()),
+                       restoredCells.get(i).getSelectedSize());
+        }
+    }
+
+    @Test(expected = Error.class)
+    public void testUnknownSizeNameIsRejected() {
+        Netlist netlist = testHelper.createAnnotatedNetlist(20, 7);
+        Map<String, String> sizeNames = new HashMap<>();
+        sizeNames.put(netlist.getRootModule().getCellInstances().get(0).getName(), "NO_SUCH_SIZE");
+        File file = testHelper.createTempFile(".txt");
+        SizeAssignment.fromSizeNames(sizeNames).write(file);
+        SizeAssignment.read(file).applyTo(netlist);
+    }
+}
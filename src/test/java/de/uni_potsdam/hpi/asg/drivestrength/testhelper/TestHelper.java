@@ -5,8 +5,28 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.AggregatedCellLibrary;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.CellAggregator;
+import de.uni_potsdam.hpi.asg.drivestrength.aggregatedcells.aggregators.SizeCapacitanceMonotonizer;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.additionalinfo.AdditionalCellInfoParser;
+import de.uni_potsdam.hpi.asg.drivestrength.cells.libertyparser.LibertyParser;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticCircuitConfig;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticLibraryWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.generator.SyntheticNetlistWriter;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.Netlist;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.InputDrivenAnnotator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.LoadGraphAnnotator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.annotating.PredecessorAnnotator;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistAssignCleaner;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistBundleSplitter;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistFlattener;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.cleaning.NetlistInliner;
+import de.uni_potsdam.hpi.asg.drivestrength.netlist.verilogparser.VerilogParser;
+
 public class TestHelper {
 
+    private AggregatedCellLibrary syntheticCellLibrary;
+
     //http://stackoverflow.com/a/35466006
     public File getResourceAsFile(String resourcePath) {
         try {
@@ -30,4 +50,58 @@ public class TestHelper {
             throw new Error("Cannot read from resource " + resourcePath);
         }
     }
+
+    public File createTempFile(String suffix) {
+        try {
+            File tempFile = File.createTempFile("drivestrength-test", suffix);
+            tempFile.deleteOnExit();
+            return tempFile;
+        } catch (IOException e) {
+            throw new Error("Cannot create temporary file: " + e.getMessage());
+        }
+    }
+
+    /* the default synthetic library (see SyntheticCircuitConfig), loaded as DrivestrengthMain does */
+    public AggregatedCellLibrary getSyntheticCellLibrary() {
+        if (this.syntheticCellLibrary == null) {
+            SyntheticLibraryWriter libraryWriter = new SyntheticLibraryWriter(new SyntheticCircuitConfig());
+            File libertyFile = this.createTempFile(".lib");
+            File cellInfoFile = this.createTempFile(".json");
+            libraryWriter.writeLiberty(libertyFile);
+            libraryWriter.writeCellInfo(cellInfoFile);
+            this.syntheticCellLibrary = new CellAggregator(new LibertyParser(libertyFile).run(),
+                                                           new AdditionalCellInfoParser(cellInfoFile).run(), false).run();
+            new SizeCapacitanceMonotonizer(this.syntheticCellLibrary).run();
+        }
+        return this.syntheticCellLibrary;
+    }
+
+    /* a synthetic netlist for the synthetic library, inlined and annotated as DrivestrengthMain does;
+     * the same arguments always give the same netlist */
+    public Netlist createAnnotatedNetlist(int cellCount, long seed) {
+        return this.createAnnotatedNetlist(this.writeSyntheticNetlist(this.createTempFile(".v"), cellCount, seed));
+    }
+
+    /* a verilog file using the cells of the synthetic library, inlined and annotated the same way */
+    public Netlist createAnnotatedNetlist(File netlistFile) {
+        Netlist netlist = new VerilogParser(netlistFile, this.getSyntheticCellLibrary(), false).createNetlist();
+        new NetlistFlattener(netlist).run();
+        Netlist inlinedNetlist = new NetlistInliner(netlist).run();
+        new NetlistBundleSplitter(inlinedNetlist).run();
+        new NetlistAssignCleaner(inlinedNetlist).run();
+        new LoadGraphAnnotator(inlinedNetlist, 0.012).run();
+        new InputDrivenAnnotator(inlinedNetlist, 0.007).run();
+        new PredecessorAnnotator(inlinedNetlist).run();
+        return inlinedNetlist;
+    }
+
+    /* the verilog file of createAnnotatedNetlist(), with module name testCircuit */
+    public File writeSyntheticNetlist(File netlistFile, int cellCount, long seed) {
+        SyntheticCircuitConfig config = new SyntheticCircuitConfig();
+        config.setName("testCircuit");
+        config.setCellCount(cellCount);
+        config.setSeed(seed);
+        new SyntheticNetlistWriter(config).write(netlistFile);
+        return netlistFile;
+    }
 }
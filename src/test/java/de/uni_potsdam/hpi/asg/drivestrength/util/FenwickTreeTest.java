@@ -0,0 +1,106 @@
+package de.uni_potsdam.hpi.asg.drivestrength.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FenwickTreeTest {
+
+    /* the index whose interval [prefix, prefix + weight) contains target, by linear search */
+    private static int findByPrefixSums(double[] weights, double target) {
+        double prefix = 0.0;
+        int lastPositive = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] > 0.0) {
+                if (target < prefix + weights[i]) {
+                    return i;
+                }
+                lastPositive = i;
+            }
+            prefix += weights[i];
+        }
+        return lastPositive;
+    }
+
+    private static double sum(double[] weights) {
+        double total = 0.0;
+        for (double w : weights) {
+            total += w;
+        }
+        return total;
+    }
+
+    @Test
+    public void testSetAndFindMatchPrefixSums() {
+        int size = 37;
+        FenwickTree tree = new FenwickTree(size);
+        double[] weights = new double[size];
+        Random random = new Random(1);
+        /* more changes than size, so the sums are rebuilt in between */
+        for (int change = 0; change < 500; change++) {
+            int index = random.nextInt(size);
+            /* integer weights keep all sums exact */
+            weights[index] = random.nextInt(4) == 0 ? 0.0 : random.nextInt(10);
+            tree.set(index, weights[index]);
+
+            double total = sum(weights);
+            assertEquals(total, tree.getTotal(), 0.0);
+            if (total == 0.0) {
+                continue;
+            }
+            for (double target = 0.0; target < total; target += 0.5) {
+                assertEquals(findByPrefixSums(weights, target), tree.find(target));
+            }
+        }
+    }
+
+    @Test
+    public void testZeroWeightsAreNeverFound() {
+        FenwickTree tree = new FenwickTree(6);
+        tree.setAll(new double[] {0.0, 2.0, 0.0, 0.0, 1.0, 0.0});
+        assertEquals(3.0, tree.getTotal(), 0.0);
+        assertEquals(1, tree.find(0.0));
+        assertEquals(1, tree.find(1.999));
+        assertEquals(4, tree.find(2.0));
+        assertEquals(4, tree.find(2.5));
+
+        Random random = new Random(2);
+        for (int draw = 0; draw < 1000; draw++) {
+            int index = tree.sample(random);
+            assertTrue(index == 1 || index == 4);
+        }
+    }
+
+    @Test
+    public void testTargetCloseToTotal() {
+        FenwickTree tree = new FenwickTree(5);
+        tree.setAll(new double[] {0.1, 0.2, 0.3, 0.4, 0.0});
+        double total = tree.getTotal();
+        assertEquals(3, tree.find(Math.nextDown(total)));
+        /* rounding may let a target reach the total, it must still land on a positive weight */
+        assertEquals(3, tree.find(total));
+    }
+
+    @Test
+    public void testRestoreSamplesLikeTheOriginal() {
+        FenwickTree original = new FenwickTree(20);
+        Random random = new Random(3);
+        for (int change = 0; change < 30; change++) {
+            original.set(random.nextInt(20), random.nextDouble());
+        }
+        FenwickTree restored = new FenwickTree(20);
+        restored.restore(original.copyWeights(), original.copySums(), original.getChangesSinceRebuild());
+        assertEquals(original.getTotal(), restored.getTotal(), 0.0);
+        for (int change = 0; change < 30; change++) {
+            int index = random.nextInt(20);
+            double weight = random.nextDouble();
+            original.set(index, weight);
+            restored.set(index, weight);
+            double target = random.nextDouble() * original.getTotal();
+            assertEquals(original.find(target), restored.find(target));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package de.uni_potsdam.hpi.asg.drivestrength.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IndexedMaxHeapTest {
+
+    /* the index with the largest key, the smallest index among equal keys */
+    private static int maxByLinearSearch(double[] keys, boolean[] contained) {
+        int best = -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (contained[i] && (best < 0 || keys[i] > keys[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void testPutRemoveAndPopMatchLinearSearch() {
+        int capacity = 50;
+        IndexedMaxHeap heap = new IndexedMaxHeap(capacity);
+        double[] keys = new double[capacity];
+        boolean[] contained = new boolean[capacity];
+        int size = 0;
+        Random random = new Random(1);
+        for (int operation = 0; operation < 5000; operation++) {
+            int index = random.nextInt(capacity);
+            int kind = random.nextInt(4);
+            if (kind < 2) {
+                /* few distinct keys, so ties are common */
+                keys[index] = random.nextInt(8);
+                heap.put(index, keys[index]);
+                if (!contained[index]) {
+                    contained[index] = true;
+                    size++;
+                }
+            } else if (kind == 2) {
+                heap.remove(index);
+                if (contained[index]) {
+                    contained[index] = false;
+                    size--;
+                }
+            } else if (size > 0) {
+                int expected = maxByLinearSearch(keys, contained);
+                assertEquals(expected, heap.pop());
+                contained[expected] = false;
+                size--;
+            }
+            assertEquals(size, heap.size());
+            assertEquals(contained[index], heap.contains(index));
+            if (size > 0) {
+                assertEquals(maxByLinearSearch(keys, contained), heap.peek());
+            }
+        }
+    }
+
+    @Test
+    public void testEqualKeysPopInIndexOrder() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(4);
+        heap.put(3, 1.0);
+        heap.put(1, 1.0);
+        heap.put(2, 1.0);
+        heap.put(0, 0.5);
+        assertEquals(1, heap.pop());
+        assertEquals(2, heap.pop());
+        assertEquals(3, heap.pop());
+        heap.put(0, 2.0);
+        assertEquals(2.0, heap.getKey(0), 0.0);
+        assertEquals(0, heap.pop());
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(0));
+    }
+
+    @Test(expected = Error.class)
+    public void testPopOnEmptyHeap() {
+        new IndexedMaxHeap(2).pop();
+    }
+}